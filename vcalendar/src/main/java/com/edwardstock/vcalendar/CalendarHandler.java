@@ -3,8 +3,20 @@ package com.edwardstock.vcalendar;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.RecyclerView;
 
+import com.edwardstock.vcalendar.adapter.DayCellRenderer;
+import com.edwardstock.vcalendar.adapter.DayStylePrefetcher;
+import com.edwardstock.vcalendar.adapter.MonthSnapshotCache;
+import com.edwardstock.vcalendar.adapter.ViewPrewarmer;
+import com.edwardstock.vcalendar.common.CalendarLabels;
+import com.edwardstock.vcalendar.common.DayStates;
+import com.edwardstock.vcalendar.common.ResourceCache;
 import com.edwardstock.vcalendar.decorators.DayDecorator;
+import com.edwardstock.vcalendar.decorators.EventOverlayDecoration;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.StateDecorators;
 import com.edwardstock.vcalendar.handlers.SelectionDispatcher;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
@@ -21,10 +33,14 @@ public interface CalendarHandler {
 
     CalendarDay getDay(DateTime dateTime);
     CalendarDay getDayOrCreate(DateTime dateTime);
+    CalendarDay getDay(int epochDay);
+    CalendarDay getDayOrCreate(int epochDay);
     boolean isMinDateCutable();
     boolean isMaxDateCutable();
     DateTime getMinDate();
     DateTime getMaxDate();
+    int getMinEpochDay();
+    int getMaxEpochDay();
     boolean hasMinDate();
     boolean hasMaxDate();
     @NonNull CalendarDay getPreviousDay(CalendarDay current);
@@ -34,10 +50,23 @@ public interface CalendarHandler {
     @DrawableRes int getSelectedBeginBackgroundRes();
     @DrawableRes int getSelectedSingleBackgroundRes();
     Set<DayDecorator> getDayDecorators();
+    @Nullable DayDecorator getDisabledDayDecorator();
+    Set<MonthDecorator> getMonthDecorators();
+    StateDecorators getStateDecorators();
+    EventOverlayDecoration getEventOverlay();
     SelectionDispatcher getSelectionDispatcher();
     boolean isEnabledLegend();
     String[] getMonthNames();
     String[] getDaysOfWeek();
+    CalendarLabels getLabels();
+    ViewPrewarmer getViewPrewarmer();
+    RecyclerView.RecycledViewPool getWeekPool();
+    MonthSnapshotCache getSnapshotCache();
+    ResourceCache getResourceCache();
+    @Nullable DayCellRenderer getDayCellRenderer();
+    DayStylePrefetcher getStylePrefetcher();
+    DayStates getDayStates();
+    boolean isFlinging();
     boolean isEnabledDefaultDecorator();
     @LayoutRes
     int getWeekLayoutRes();
@@ -0,0 +1,11 @@
+package com.edwardstock.vcalendar;
+
+/**
+ * Called while scrolling when first or last visible month changes.
+ * Month indexes, see {@link com.edwardstock.vcalendar.common.EpochDays#monthIndex(int, int)}.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface OnVisibleMonthsChangedListener {
+    void onVisibleMonthsChanged(int fromMonth, int toMonth);
+}
@@ -0,0 +1,28 @@
+package com.edwardstock.vcalendar;
+
+import android.support.annotation.IntDef;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+/**
+ * What range selection does when range crosses days which can't be selected
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+@IntDef({RangePolicy.ALLOW, RangePolicy.REJECT, RangePolicy.CLIP})
+@Retention(RetentionPolicy.SOURCE)
+public @interface RangePolicy {
+    /**
+     * Range is selected as is, including disabled days
+     */
+    int ALLOW = 0;
+    /**
+     * Range is not selected, selection is cleared
+     */
+    int REJECT = 1;
+    /**
+     * Range ends on the day before the first disabled one
+     */
+    int CLIP = 2;
+}
@@ -2,13 +2,19 @@ package com.edwardstock.vcalendar;
 
 import android.annotation.TargetApi;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.TypedArray;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.ArrayRes;
 import android.support.annotation.DrawableRes;
 import android.support.annotation.IntRange;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
@@ -18,11 +24,33 @@ import android.widget.FrameLayout;
 
 import com.annimon.stream.Stream;
 import com.edwardstock.vcalendar.adapter.CalendarAdapter;
+import com.edwardstock.vcalendar.adapter.CalendarAdapterContract;
 import com.edwardstock.vcalendar.adapter.CalendarMonthItem;
+import com.edwardstock.vcalendar.adapter.DayCellRenderer;
+import com.edwardstock.vcalendar.adapter.DayStylePrefetcher;
+import com.edwardstock.vcalendar.adapter.DayStyleTable;
 import com.edwardstock.vcalendar.adapter.DaysAdapter;
+import com.edwardstock.vcalendar.adapter.MonthRasterizer;
+import com.edwardstock.vcalendar.adapter.MonthSnapshotCache;
+import com.edwardstock.vcalendar.adapter.ViewPrewarmer;
+import com.edwardstock.vcalendar.codec.IntervalReader;
+import com.edwardstock.vcalendar.codec.IntervalWriter;
+import com.edwardstock.vcalendar.common.CalendarExecutors;
+import com.edwardstock.vcalendar.common.CalendarLabels;
+import com.edwardstock.vcalendar.common.DayStates;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.common.EventIndex;
+import com.edwardstock.vcalendar.common.ResourceCache;
+import com.edwardstock.vcalendar.common.SelectionPatterns;
+import com.edwardstock.vcalendar.decorators.ConstrainedDayDecorator;
 import com.edwardstock.vcalendar.decorators.DayDecorator;
-import com.edwardstock.vcalendar.decorators.DisabledRangeDayDecorator;
+import com.edwardstock.vcalendar.decorators.EventOverlayDecoration;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.ObservableDecorator;
+import com.edwardstock.vcalendar.decorators.StateDecorators;
+import com.edwardstock.vcalendar.decorators.ThreadSafeDecorator;
 import com.edwardstock.vcalendar.handlers.MultipleSelectionHandler;
+import com.edwardstock.vcalendar.handlers.PatternSelectionHandler;
 import com.edwardstock.vcalendar.handlers.RangeSelectionHandler;
 import com.edwardstock.vcalendar.handlers.SelectionDispatcher;
 import com.edwardstock.vcalendar.handlers.SingleSelectionHandler;
@@ -31,18 +59,24 @@ import com.edwardstock.vcalendar.models.CalendarDay;
 import net.danlew.android.joda.JodaTimeAndroid;
 
 import org.joda.time.DateTime;
-import org.joda.time.Months;
 import org.joda.time.YearMonth;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.text.DateFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import timber.log.Timber;
 
@@ -53,10 +87,24 @@ import timber.log.Timber;
  */
 @SuppressWarnings("Convert2MethodRef")
 public class VCalendar extends FrameLayout implements CalendarHandler {
+	private static final Locale LOCALE_RU = new Locale("ru", "RU");
+	// months whose week rows fit into shared pool at once
+	// initial month moved farther from shown months replaces them instead of filling the gap
+	private static final int REANCHOR_MAX_GAP = 12;
+	private static final int NO_MONTH = Integer.MIN_VALUE;
+	private static final int WEEK_POOL_MONTHS = 4;
+	// enough for the first screen: a few months with up to 6 weeks each
+	private static final int DEFAULT_PREWARM_MONTHS = 3;
+	private static final int DEFAULT_PREWARM_WEEKS = 18;
 
 	private final String[] mMonthsRu = new String[]{"Январь", "Февраль", "Март", "Апрель", "Май", "Июнь", "Июль", "Август", "Сентябрь", "Октябрь", "Ноябрь", "Декабрь",};
+	// custom names, null means locale defaults
 	private String[] mMonths;
 	private String[] mDaysOfWeek;
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private CalendarLabels mLabels;
+	private Future<CalendarLabels> mPendingLabels;
+	private Locale mLabelsLocale;
 
 	@DrawableRes
 	private int mSelectedMiddleBackgroundRes;
@@ -68,23 +116,69 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	private int mSelectedBeginBackgroundRes;
 	private int mOrientation = LinearLayoutManager.VERTICAL;
 	private RecyclerView mList;
+	private MonthRasterizer mRasterizer;
+	private ResourceCache mResourceCache;
+	// configuration parts cached resources depend on
+	private int mNightMode;
+	private int mDensityDpi;
+	private DayCellRenderer mDayCellRenderer;
+	private DayStylePrefetcher mStylePrefetcher;
+	private final StateDecorators mStateDecorators = new StateDecorators();
+	private DayStates mDayStates;
+	private boolean mFlinging = false;
+	private final ObservableDecorator.OnInvalidateListener mDecoratorListener =
+			new ObservableDecorator.OnInvalidateListener() {
+				@Override
+				public void onInvalidateRange(@NonNull ObservableDecorator decorator, int fromDay, int toDay) {
+					onDecoratorRangeInvalidated(decorator, fromDay, toDay);
+				}
+
+				@Override
+				public void onInvalidateDays(@NonNull ObservableDecorator decorator, @NonNull int[] days) {
+					onDecoratorDaysInvalidated(decorator, days);
+				}
+
+				@Override
+				public void onInvalidateAll(@NonNull ObservableDecorator decorator) {
+					invalidateMonthDecorators();
+				}
+			};
+	private final DayStates.OnStatesChangedListener mStatesListener = this::onStatesChanged;
+	private final EventIndex.OnEventsChangedListener mEventsListener = (fromDay, toDay) ->
+			redrawMonths(EpochDays.monthIndexOf(fromDay), EpochDays.monthIndexOf(toDay));
+	// week rows of all months share one pool
+	private final RecyclerView.RecycledViewPool mWeekPool = new RecyclerView.RecycledViewPool();
+	private ViewPrewarmer mPrewarmer;
 	private CalendarAdapter mAdapter;
-	private Map<DateTime, CalendarDay> mDayMap = new HashMap<>();
+	// epoch day -> day
+	private SparseArrayCompat<CalendarDay> mDayMap = new SparseArrayCompat<>();
 	private int mFutureMonth = 0;
 	private int mPastMonth = 0;
-	private DateTime mInitial;
-	private Map<YearMonth, CalendarMonthItem> mRowMap = new HashMap<>();
+	// month index, see EpochDays#monthIndex
+	private int mInitial;
+	private boolean mHasInitial = false;
+	// month index -> row
+	private SparseArrayCompat<CalendarMonthItem> mRowMap = new SparseArrayCompat<>();
 	private Set<DayDecorator> mDayDecorators = new LinkedHashSet<>();
+	private Set<MonthDecorator> mMonthDecorators = new LinkedHashSet<>();
+	private EventOverlayDecoration mEventOverlay;
 	private List<OnDayClickListener> mOnDayClickListeners = new ArrayList<>();
-	private DateTime mMinDate;
-	private DateTime mMaxDate;
+	private int mMinDate;
+	private int mMaxDate;
+	private boolean mHasMinDate = false;
+	private boolean mHasMaxDate = false;
 	private boolean mEnableLegend;
 	private List<OnMonthAddListener> mMonthListeners = new ArrayList<>();
+	private List<OnVisibleMonthsChangedListener> mVisibleMonthsListeners = new ArrayList<>();
+	private int mVisibleFromMonth = NO_MONTH;
+	private int mVisibleToMonth = NO_MONTH;
 	private List<CalendarMonthItem.OnBindListener> mOnMonthBindListeners = new ArrayList<>();
 	private List<CalendarMonthItem.OnUnbindListener> mOnMonthUnbindListeners = new ArrayList<>();
 	private LinearLayoutManager mLayoutManager;
 	private SelectionDispatcher mSelectionDispatcher;
 	private boolean mEnableDefaultDecorator;
+	// style of days disabled by selection constraints
+	private DayDecorator mDisabledDayDecorator = new ConstrainedDayDecorator(R.color.vcal_text_color_half);
 	private boolean mMinDateCut = false;
 	private boolean mMaxDateCut = false;
 	private int mWeekLayoutRes = R.layout.item_week;
@@ -114,6 +208,13 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		initialize(context, false);
 	}
 
+	/**
+	 * Must be called before calendar is used: days are still converted to and from {@link DateTime}
+	 * in public API, listeners and decorators, which needs time zones data.
+	 *
+	 * @param context application context
+	 * @param debug   plant debug logger
+	 */
 	public static void initialize(Context context, boolean debug) {
 		JodaTimeAndroid.init(context);
 		if (debug) {
@@ -144,7 +245,53 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		if (resId == View.NO_ID) {
 			throw new IllegalArgumentException("Week layout can't be View.NO_ID");
 		}
+		if (mWeekLayoutRes != resId) {
+			// pooled weeks are shared between months and hold the old layout
+			mWeekPool.clear();
+			invalidateSnapshots();
+			if (mPrewarmer != null) {
+				mPrewarmer.removeTarget(mWeekLayoutRes);
+			}
+		}
 		mWeekLayoutRes = resId;
+		setWeekPrewarmTarget();
+		return this;
+	}
+
+	@Override
+	public DayStylePrefetcher getStylePrefetcher() {
+		if (mStylePrefetcher == null) {
+			mStylePrefetcher = new DayStylePrefetcher(this, this::onStylesReady);
+		}
+		return mStylePrefetcher;
+	}
+
+	@Nullable
+	@Override
+	public DayCellRenderer getDayCellRenderer() {
+		return mDayCellRenderer;
+	}
+
+	/**
+	 * Set it before months are shown: pooled rows keep cells inflated for their cell types,
+	 * so a new renderer should not reuse cell types of the previous one for other layouts.
+	 *
+	 * @param renderer renderer of heterogeneous day cells, null to use only week layout cells
+	 */
+	public VCalendar setDayCellRenderer(@Nullable DayCellRenderer renderer) {
+		if (mDayCellRenderer == renderer) {
+			return this;
+		}
+		mDayCellRenderer = renderer;
+		mWeekPool.clear();
+		invalidateSnapshots();
+		// week view types depend on renderer, attached weeks must be created again
+		for (int i = 0; i < mRowMap.size(); i++) {
+			mRowMap.valueAt(i).getAdapter().notifyDataSetChanged();
+		}
+		if (mAdapter != null) {
+			mAdapter.notifyDataSetChanged();
+		}
 		return this;
 	}
 
@@ -152,6 +299,25 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		mEnableDefaultDecorator = enable;
 		return this;
 	}
+
+	/**
+	 * @param decorator style of days which can't be selected because of selection constraints,
+	 *                  null to draw them like other days. Default is {@link ConstrainedDayDecorator}
+	 */
+	public VCalendar setDisabledDayDecorator(@Nullable DayDecorator decorator) {
+		if (mDisabledDayDecorator == decorator) {
+			return this;
+		}
+		mDisabledDayDecorator = decorator;
+		redrawMonths(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		return this;
+	}
+
+	@Nullable
+	@Override
+	public DayDecorator getDisabledDayDecorator() {
+		return mDisabledDayDecorator;
+	}
 	public VCalendar setOrientation(@RecyclerView.Orientation int orientation) {
 		mOrientation = orientation;
 		if (mLayoutManager != null) {
@@ -160,45 +326,160 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		return this;
 	}
 	/**
-	 * Be carefully, this method reinitializes whole data, if you have "month add" listeners, attach them before setting initial date
-	 * or just set initial date in your layout
+	 * If months are already shown, only missing months around the new one are added and calendar scrolls to it.
+	 * Jump farther than a year replaces shown months.
 	 *
 	 * @param year
 	 * @param month month is 1-based, january is 1
 	 */
 	public VCalendar setInitialMonth(int year, @IntRange(from = 1, to = 12) int month) {
-		return setInitialMonth(new DateTime().withYear(year).withMonthOfYear(clamp(month, 1, 12)));
+		return setInitialMonthIndex(EpochDays.monthIndex(year, clamp(month, 1, 12)));
 	}
 	public VCalendar setInitialMonth(YearMonth yearMonth) {
-		return setInitialMonth(new DateTime().withMonthOfYear(yearMonth.getMonthOfYear()).withYear(
-				yearMonth.getYear()));
+		return setInitialMonthIndex(EpochDays.monthIndex(yearMonth));
 	}
 	public VCalendar setInitialMonth(String yearMonth) {
 		return setInitialMonth(YearMonth.parse(yearMonth));
 	}
 	public VCalendar setInitialMonth(DateTime dt) {
-		mInitial = dt.withDayOfMonth(1).withTime(0, 0, 0, 0);
-		reset();
-		return this;
+		return setInitialMonthIndex(EpochDays.monthIndex(dt.getYear(), dt.getMonthOfYear()));
 	}
 	public VCalendar setInitialMonth(Date date) {
 		return setInitialMonth(new DateTime(date));
 	}
+	/**
+	 * Redraws all created months once. If decorator is {@link ObservableDecorator},
+	 * later it redraws only cells it invalidates.
+	 */
 	public VCalendar addDayDecorator(DayDecorator decorator) {
-		mDayDecorators.add(decorator);
+		if (mDayDecorators.add(decorator)) {
+			observeDecorator(decorator, true);
+			invalidateMonthDecorators();
+		}
 		return this;
 	}
 	public VCalendar removeDayDecorator(DayDecorator decorator) {
-		mDayDecorators.remove(decorator);
+		if (mDayDecorators.remove(decorator)) {
+			observeDecorator(decorator, false);
+			invalidateMonthDecorators();
+		}
 		return this;
 	}
 	public VCalendar clearDayDecorators() {
+		for (DayDecorator decorator : mDayDecorators) {
+			observeDecorator(decorator, false);
+		}
 		mDayDecorators.clear();
+		invalidateMonthDecorators();
+		return this;
+	}
+	/**
+	 * Redraws all created months once. If decorator is {@link ObservableDecorator},
+	 * later it redraws only cells it invalidates.
+	 */
+	public VCalendar addMonthDecorator(MonthDecorator decorator) {
+		if (mMonthDecorators.add(decorator)) {
+			observeDecorator(decorator, true);
+			invalidateMonthDecorators();
+		}
+		return this;
+	}
+	public VCalendar removeMonthDecorator(MonthDecorator decorator) {
+		if (mMonthDecorators.remove(decorator)) {
+			observeDecorator(decorator, false);
+			invalidateMonthDecorators();
+		}
+		return this;
+	}
+	public VCalendar clearMonthDecorators() {
+		for (MonthDecorator decorator : mMonthDecorators) {
+			observeDecorator(decorator, false);
+		}
+		mMonthDecorators.clear();
+		invalidateMonthDecorators();
+		return this;
+	}
+
+	@Override
+	public StateDecorators getStateDecorators() {
+		return mStateDecorators;
+	}
+	/**
+	 * @return flags of days, changes redraw affected cells only
+	 */
+	@Override
+	public DayStates getDayStates() {
+		if (mDayStates == null) {
+			mDayStates = new DayStates();
+			mDayStates.addOnStatesChangedListener(mStatesListener);
+		}
+		return mDayStates;
+	}
+	/**
+	 * Decorates days having any of flags, see {@link #getDayStates()}.
+	 * Redraws all created months once.
+	 *
+	 * @param flags     state flags
+	 * @param decorator decorator, {@link DayDecorator#shouldDecorate} is not called for it
+	 */
+	public VCalendar addStateDecorator(int flags, DayDecorator decorator) {
+		mStateDecorators.add(flags, decorator);
+		invalidateMonthDecorators();
 		return this;
 	}
+	public VCalendar removeStateDecorator(DayDecorator decorator) {
+		if (mStateDecorators.remove(decorator)) {
+			invalidateMonthDecorators();
+		}
+		return this;
+	}
+	public VCalendar clearStateDecorators() {
+		if (!mStateDecorators.isEmpty()) {
+			mStateDecorators.clear();
+			invalidateMonthDecorators();
+		}
+		return this;
+	}
+
+	/**
+	 * Asks month decorators again for all created months, for example when their dataset changed
+	 */
+	public void invalidateMonthDecorators() {
+		if (mStylePrefetcher != null) {
+			mStylePrefetcher.invalidateAll();
+		}
+		for (int i = 0; i < mRowMap.size(); i++) {
+			final DaysAdapter adapter = mRowMap.valueAt(i).getAdapter();
+			adapter.invalidateMonthStyles();
+			adapter.notifyItemRangeChanged(0, adapter.getItemCount());
+		}
+		invalidateSnapshots();
+	}
+
+	/**
+	 * Asks month decorators again for one month
+	 *
+	 * @param month month to redecorate
+	 */
+	public void invalidateMonthDecorators(YearMonth month) {
+		final int monthIndex = EpochDays.monthIndex(month);
+		if (mStylePrefetcher != null) {
+			mStylePrefetcher.invalidate(monthIndex);
+		}
+		final CalendarMonthItem row = mRowMap.get(monthIndex);
+		if (row != null) {
+			row.getAdapter().invalidateMonthStyles();
+			row.getAdapter().notifyItemRangeChanged(0, row.getAdapter().getItemCount());
+		}
+		invalidateSnapshot(monthIndex);
+	}
 	@Override
 	public CalendarDay getDay(DateTime dateTime) {
-		return mDayMap.get(dateTime.withTime(0, 0, 0, 0));
+		return getDay(EpochDays.of(dateTime));
+	}
+	@Override
+	public CalendarDay getDay(int epochDay) {
+		return mDayMap.get(epochDay);
 	}
 	public int getDaysRenderedCount() {
 		return mDayMap.size();
@@ -208,31 +489,57 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	}
 	@Override
 	public CalendarDay getDayOrCreate(DateTime dateTime) {
-		final DateTime dt = dateTime.withTime(0, 0, 0, 0);
-		if (getDay(dt) != null) {
-			return getDay(dt);
+		return getDayOrCreate(EpochDays.of(dateTime));
+	}
+	@Override
+	public CalendarDay getDayOrCreate(int epochDay) {
+		CalendarDay cd = mDayMap.get(epochDay);
+		if (cd != null) {
+			return cd;
 		}
 
-		CalendarDay cd = new CalendarDay(dt);
-		mDayMap.put(dt, cd);
+		cd = new CalendarDay(epochDay);
+		if (mDayStates != null) {
+			cd.setState(mDayStates.get(epochDay));
+		}
+		mDayMap.put(epochDay, cd);
 		return cd;
 	}
 	@Override
 	public DateTime getMinDate() {
+		return mHasMinDate ? EpochDays.toDateTime(mMinDate) : null;
+	}
+	@Override
+	public int getMinEpochDay() {
 		return mMinDate;
 	}
 	public VCalendar setMinDate(Date date) {
 		return setMinDate(new DateTime(date));
 	}
 	public VCalendar setMinDate(String date) {
-		return setMinDate(new DateTime());
+		return setMinDate(new DateTime(date));
 	}
+	/**
+	 * Shown months are updated in place: months before the new date are removed,
+	 * missing ones added, and only the old and new boundary months are cut again
+	 */
 	public VCalendar setMinDate(DateTime minDate) {
-		mMinDate = minDate;
+		final int oldMonth = mHasMinDate ? EpochDays.monthIndexOf(mMinDate) : NO_MONTH;
+		mHasMinDate = minDate != null;
+		mMinDate = mHasMinDate ? EpochDays.of(minDate) : 0;
+		if (mMinDateCut) {
+			reanchor(false, oldMonth, mHasMinDate ? EpochDays.monthIndexOf(mMinDate) : NO_MONTH);
+		} else {
+			reanchor(false);
+		}
 		return this;
 	}
 	@Override
 	public DateTime getMaxDate() {
+		return mHasMaxDate ? EpochDays.toDateTime(mMaxDate) : null;
+	}
+	@Override
+	public int getMaxEpochDay() {
 		return mMaxDate;
 	}
 	public VCalendar setMaxDate(String date) {
@@ -241,17 +548,27 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	public VCalendar setMaxDate(Date date) {
 		return setMaxDate(new DateTime(date));
 	}
+	/**
+	 * Shown months are updated in place, see {@link #setMinDate(DateTime)}
+	 */
 	public VCalendar setMaxDate(DateTime maxDate) {
-		mMaxDate = maxDate;
+		final int oldMonth = mHasMaxDate ? EpochDays.monthIndexOf(mMaxDate) : NO_MONTH;
+		mHasMaxDate = maxDate != null;
+		mMaxDate = mHasMaxDate ? EpochDays.of(maxDate) : 0;
+		if (mMaxDateCut) {
+			reanchor(false, oldMonth, mHasMaxDate ? EpochDays.monthIndexOf(mMaxDate) : NO_MONTH);
+		} else {
+			reanchor(false);
+		}
 		return this;
 	}
 	@Override
 	public boolean hasMinDate() {
-		return getMinDate() != null;
+		return mHasMinDate;
 	}
 	@Override
 	public boolean hasMaxDate() {
-		return getMaxDate() != null;
+		return mHasMaxDate;
 	}
 	@Override
 	public boolean isMinDateCutable() {
@@ -264,7 +581,7 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	@NonNull
 	@Override
 	public CalendarDay getPreviousDay(CalendarDay current) {
-		return getDayOrCreate(current.getDateTime().minusDays(1));
+		return getDayOrCreate(current.getEpochDay() - 1);
 	}
 	@DrawableRes
 	@Override
@@ -322,6 +639,45 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	public Set<DayDecorator> getDayDecorators() {
 		return mDayDecorators;
 	}
+
+	@Override
+	public Set<MonthDecorator> getMonthDecorators() {
+		return mMonthDecorators;
+	}
+
+	@Override
+	public EventOverlayDecoration getEventOverlay() {
+		return mEventOverlay;
+	}
+
+	/**
+	 * Draws events of index as bars over week rows. Changes of index redraw only touched months.
+	 *
+	 * @param index events, or null to remove overlay
+	 */
+	public VCalendar setEventIndex(@Nullable EventIndex index) {
+		if (mEventOverlay != null) {
+			if (mEventOverlay.getIndex() == index) {
+				return this;
+			}
+			mEventOverlay.getIndex().removeOnEventsChangedListener(mEventsListener);
+			mEventOverlay.release();
+			mEventOverlay = null;
+		}
+		if (index != null) {
+			// overlay listens index first, so its rows are dropped before months are redrawn
+			mEventOverlay = new EventOverlayDecoration(getContext(), index);
+			index.addOnEventsChangedListener(mEventsListener);
+		}
+
+		redrawMonths(Integer.MIN_VALUE, Integer.MAX_VALUE);
+		return this;
+	}
+
+	@Nullable
+	public EventIndex getEventIndex() {
+		return mEventOverlay == null ? null : mEventOverlay.getIndex();
+	}
 	public VCalendar setMonthNames(@ArrayRes int stringArrNames) {
 		setMonthNames(getContext().getResources().getStringArray(stringArrNames));
 		return this;
@@ -336,15 +692,15 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 					"Week has exactly 7 days, and names can't be null or empty");
 		}
 		mDaysOfWeek = names;
+		requestLabels();
 		return this;
 	}
 	@Override
 	public String[] getMonthNames() {
-		if (Locale.getDefault().equals(new Locale("ru", "RU"))) {
-			return mMonthsRu;
+		if (mLabels != null && mPendingLabels == null) {
+			return mLabels.getMonthNames();
 		}
-
-		return mMonths;
+		return resolveMonthNames(Locale.getDefault(), currentMonthNames());
 	}
 	public VCalendar setMonthNames(String[] monthsNames) {
 		if (monthsNames == null || monthsNames.length != 12 || Stream.of(monthsNames).filter(
@@ -353,19 +709,28 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 					"Year has exactly 12 months, and names can't be null or empty");
 		}
 		mMonths = monthsNames;
+		requestLabels();
 		return this;
 	}
 	@NonNull
 	@Override
 	public CalendarDay getNextDay(CalendarDay current) {
-		return getDayOrCreate(current.getDateTime().plusDays(1));
+		return getDayOrCreate(current.getEpochDay() + 1);
 	}
 	public VCalendar setMinDateCut(boolean cut) {
+		if (mMinDateCut == cut) {
+			return this;
+		}
 		mMinDateCut = cut;
+		reanchor(false, mHasMinDate ? EpochDays.monthIndexOf(mMinDate) : NO_MONTH);
 		return this;
 	}
 	public VCalendar setMaxDateCut(boolean cut) {
+		if (mMaxDateCut == cut) {
+			return this;
+		}
 		mMaxDateCut = cut;
+		reanchor(false, mHasMaxDate ? EpochDays.monthIndexOf(mMaxDate) : NO_MONTH);
 		return this;
 	}
 	public VCalendar addOnMonthAddListener(OnMonthAddListener listener) {
@@ -383,6 +748,22 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		return this;
 	}
 
+	/**
+	 * Listener is called at once if months are already shown
+	 */
+	public VCalendar addOnVisibleMonthsChangedListener(OnVisibleMonthsChangedListener listener) {
+		mVisibleMonthsListeners.add(listener);
+		if (mVisibleFromMonth != NO_MONTH) {
+			listener.onVisibleMonthsChanged(mVisibleFromMonth, mVisibleToMonth);
+		}
+		return this;
+	}
+
+	public VCalendar removeOnVisibleMonthsChangedListener(OnVisibleMonthsChangedListener listener) {
+		mVisibleMonthsListeners.remove(listener);
+		return this;
+	}
+
 	public VCalendar addOnMonthBindListener(CalendarMonthItem.OnBindListener listener) {
 		mOnMonthBindListeners.add(listener);
 		return this;
@@ -420,6 +801,8 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 
 		mAdapter.clear();
 		mList.clearOnScrollListeners();
+		mFlinging = false;
+		invalidateSnapshots();
 		mDayMap.clear();
 		mRowMap.clear();
 		initData();
@@ -440,7 +823,88 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 
 	@Override
 	public String[] getDaysOfWeek() {
-		return mDaysOfWeek;
+		if (mLabels != null && mPendingLabels == null) {
+			return mLabels.getDaysOfWeek();
+		}
+		return resolveDaysOfWeek(Locale.getDefault(), mDaysOfWeek);
+	}
+
+	@Override
+	public ViewPrewarmer getViewPrewarmer() {
+		if (mPrewarmer == null) {
+			mPrewarmer = new ViewPrewarmer(getContext());
+		}
+		return mPrewarmer;
+	}
+
+	@Override
+	public RecyclerView.RecycledViewPool getWeekPool() {
+		return mWeekPool;
+	}
+
+	@Override
+	public MonthSnapshotCache getSnapshotCache() {
+		return getRasterizer().getCache();
+	}
+
+	private MonthRasterizer getRasterizer() {
+		if (mRasterizer == null) {
+			mRasterizer = new MonthRasterizer(getContext(), this);
+		}
+		return mRasterizer;
+	}
+
+	@Override
+	public ResourceCache getResourceCache() {
+		if (mResourceCache == null) {
+			mResourceCache = new ResourceCache(getContext());
+		}
+		return mResourceCache;
+	}
+
+	/**
+	 * Sets memory budget of rendered months, shown instead of live ones while flinging.
+	 * Default budget is a few screens of pixels.
+	 *
+	 * @param maxBytes budget in bytes, 0 disables rendering
+	 */
+	public VCalendar setSnapshotCacheSize(int maxBytes) {
+		getRasterizer().setCacheSize(maxBytes);
+		return this;
+	}
+
+	@Override
+	public boolean isFlinging() {
+		return mFlinging;
+	}
+
+	/**
+	 * Inflates month and week views in background, so first months appear without inflation
+	 * on the main thread. Views not taken by the first layout go to recycled pools on idle.
+	 *
+	 * @param months count of month views
+	 * @param weeks  count of week views
+	 */
+	public VCalendar prewarm(int months, int weeks) {
+		if (mList == null) {
+			return this;
+		}
+
+		getViewPrewarmer().prewarm(R.layout.item_month, mList, months);
+		if (weeks > CalendarMonthItem.MAX_WEEKS * WEEK_POOL_MONTHS) {
+			mWeekPool.setMaxRecycledViews(0, weeks);
+		}
+		getViewPrewarmer().prewarm(mWeekLayoutRes, mList, weeks);
+		return this;
+	}
+
+	/**
+	 * Returns last built labels table, never waits and never builds it. While the first table is
+	 * building in background, returns {@link CalendarLabels#PLACEHOLDER}; months are rebound when it's ready.
+	 */
+	@Override
+	public CalendarLabels getLabels() {
+		return mLabels != null ? mLabels : CalendarLabels.PLACEHOLDER;
 	}
 
 	@Override
@@ -449,6 +913,99 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		getSelectionDispatcher().setClickable(clickable);
 	}
 
+	@Override
+	protected void onAttachedToWindow() {
+		super.onAttachedToWindow();
+		if (mPrewarmer != null) {
+			mPrewarmer.resume();
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		if (mPrewarmer != null) {
+			mPrewarmer.pause();
+		}
+		if (mRasterizer != null) {
+			mRasterizer.cancel();
+		}
+	}
+
+	@Override
+	protected void onConfigurationChanged(Configuration newConfig) {
+		super.onConfigurationChanged(newConfig);
+		final int nightMode = newConfig.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+		if (nightMode != mNightMode || newConfig.densityDpi != mDensityDpi) {
+			mNightMode = nightMode;
+			mDensityDpi = newConfig.densityDpi;
+			// colors and drawables depend on night mode and density
+			if (mResourceCache != null) {
+				mResourceCache.clear();
+			}
+			invalidateSnapshots();
+			redrawMonths(Integer.MIN_VALUE, Integer.MAX_VALUE);
+			if (mAdapter != null) {
+				mAdapter.notifyDataSetChanged();
+			}
+		}
+		// labels rebind months themselves when ready
+		if (mLabelsLocale != null && !mLabelsLocale.equals(Locale.getDefault())) {
+			requestLabels();
+		}
+	}
+
+	@Override
+	protected Parcelable onSaveInstanceState() {
+		final SavedState state = new SavedState(super.onSaveInstanceState());
+		if (mList == null || !mHasInitial) {
+			return state;
+		}
+
+		YearMonth anchor = EpochDays.toYearMonth(mInitial);
+		int offset = 0;
+		final int firstVisible = mLayoutManager.findFirstVisibleItemPosition();
+		if (firstVisible != RecyclerView.NO_POSITION && firstVisible < getAdapter().getItemCount()) {
+			final CalendarAdapterContract.Row row = getAdapter().getItemByPosition(firstVisible);
+			final View child = mLayoutManager.findViewByPosition(firstVisible);
+			if (row instanceof CalendarMonthItem && child != null) {
+				anchor = ((CalendarMonthItem) row).getMonth();
+				offset = mOrientation == LinearLayoutManager.VERTICAL
+						? child.getTop() - mList.getPaddingTop()
+						: child.getLeft() - mList.getPaddingLeft();
+			}
+		}
+
+		state.anchorYear = anchor.getYear();
+		state.anchorMonth = anchor.getMonthOfYear();
+		state.scrollOffset = offset;
+		state.selections = encodeSelections();
+		return state;
+	}
+
+	@Override
+	protected void onRestoreInstanceState(Parcelable state) {
+		if (!(state instanceof SavedState)) {
+			super.onRestoreInstanceState(state);
+			return;
+		}
+
+		final SavedState ss = (SavedState) state;
+		super.onRestoreInstanceState(ss.getSuperState());
+		if (mList == null || ss.anchorYear == 0) {
+			return;
+		}
+
+		// shown months stay as is, window moves only if saved month is outside of it
+		final int monthIndex = EpochDays.monthIndex(ss.anchorYear, ss.anchorMonth);
+		if (mRowMap.get(monthIndex) == null) {
+			setInitialMonthIndex(monthIndex);
+		}
+		restoreSelections(ss.selections);
+		// posted, so it's applied after children have restored their own state
+		scrollToMonth(new YearMonth(ss.anchorYear, ss.anchorMonth), ss.scrollOffset);
+	}
+
 	public void updateDay(Date date) {
 		updateDay(new DateTime(date));
 	}
@@ -458,29 +1015,18 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	}
 
 	public void updateDays(Collection<DateTime> dateTimes) {
-		final Map<YearMonth, List<DateTime>> daysMap = new HashMap<>();
-		for (DateTime day : dateTimes) {
-			YearMonth month = new YearMonth(day);
-			if (!daysMap.containsKey(month)) {
-				daysMap.put(month, new ArrayList<>());
+		final List<DateTime> selected = new ArrayList<>();
+		for (DateTime dt : dateTimes) {
+			final int epochDay = EpochDays.of(dt);
+			updateResidentDay(epochDay);
+
+			final CalendarDay day = getDay(epochDay);
+			if (day != null && day.isSelected()) {
+				selected.add(day.getDateTime());
 			}
-			daysMap.get(month).add(day);
 		}
 
-		for (Map.Entry<YearMonth, List<DateTime>> entry : daysMap.entrySet()) {
-			if (mRowMap.containsKey(entry.getKey())) {
-				for (DateTime dt : entry.getValue()) {
-					mRowMap.get(entry.getKey()).getAdapter().update(dt);
-				}
-			}
-		}
-
-		final List<DateTime> selected = Stream.of(dateTimes)
-				.map(item -> getDayOrCreate(item))
-				.filter(item -> item.isSelected())
-				.map(CalendarDay::getDateTime)
-				.toList();
-		if (selected != null) {
+		if (!selected.isEmpty()) {
 			getSelectionDispatcher().setSelections(selected);
 		}
 	}
@@ -514,27 +1060,67 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	}
 
 	public void updateMonth(YearMonth month) {
-		if (!mRowMap.containsKey(month)) {
+		final CalendarMonthItem row = mRowMap.get(EpochDays.monthIndex(month));
+		invalidateSnapshot(EpochDays.monthIndex(month));
+		if (row == null) {
 			return;
 		}
 
-		mRowMap.get(month).getAdapter().notifyDataSetChanged();
+		row.getAdapter().notifyDataSetChanged();
 	}
 
-	public void updateDay(DateTime dateTime) {
-		YearMonth ym = new YearMonth(dateTime);
-		if (mRowMap.containsKey(ym)) {
-			CalendarMonthItem item = mRowMap.get(ym);
-			item.getAdapter().update(dateTime);
+	public void updateRange(Date start, Date end) {
+		updateRange(EpochDays.of(start), EpochDays.of(end));
+	}
+
+	public void updateRange(DateTime start, DateTime end) {
+		updateRange(EpochDays.of(start), EpochDays.of(end));
+	}
+
+	/**
+	 * Rebinds week rows of the range in all created months, one notification per month.
+	 * Months which are not created are skipped, they are bound from scratch anyway.
+	 *
+	 * @param startDay first epoch day, inclusive
+	 * @param endDay   last epoch day, inclusive
+	 */
+	public void updateRange(int startDay, int endDay) {
+		if (startDay > endDay) {
+			final int tmp = startDay;
+			startDay = endDay;
+			endDay = tmp;
 		}
 
-		if (getDayOrCreate(dateTime).isSelected()) {
-			getSelectionDispatcher().setSelection(getDay(dateTime));
+		final int fromMonth = EpochDays.monthIndexOf(startDay);
+		final int toMonth = EpochDays.monthIndexOf(endDay);
+		for (int i = 0; i < mRowMap.size(); i++) {
+			final int monthIndex = mRowMap.keyAt(i);
+			if (monthIndex < fromMonth) {
+				continue;
+			}
+			if (monthIndex > toMonth) {
+				break;
+			}
+			mRowMap.valueAt(i).getAdapter().updateRange(startDay, endDay);
+			invalidateSnapshot(monthIndex);
+		}
+	}
+
+	public void updateDay(DateTime dateTime) {
+		final int epochDay = EpochDays.of(dateTime);
+		updateResidentDay(epochDay);
+
+		final CalendarDay day = getDay(epochDay);
+		if (day != null && day.isSelected()) {
+			getSelectionDispatcher().setSelection(day);
 		}
 	}
 
 	private void init(AttributeSet attrs, int defStyleAttr, int defStyleRes) {
 		inflate(getContext(), R.layout.vcalendar_main, this);
+		final Configuration config = getResources().getConfiguration();
+		mNightMode = config.uiMode & Configuration.UI_MODE_NIGHT_MASK;
+		mDensityDpi = config.densityDpi;
 		TypedArray def = getContext().obtainStyledAttributes(attrs, R.styleable.VCalendar,
 				defStyleAttr, defStyleRes);
 
@@ -566,11 +1152,15 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 
 		setEnableDefaultDecorator(
 				def.getBoolean(R.styleable.VCalendar_enableDefaultDecorator, true));
+		if (def.hasValue(R.styleable.VCalendar_disabledDayTextColor)) {
+			mDisabledDayDecorator = new ConstrainedDayDecorator(
+					def.getResourceId(R.styleable.VCalendar_disabledDayTextColor, R.color.vcal_text_color_half));
+		}
 
 		if (def.hasValue(R.styleable.VCalendar_initialMonth)) {
 			setInitialMonth(def.getString(R.styleable.VCalendar_initialMonth));
 		} else {
-			setInitialMonth(new DateTime());
+			setInitialMonthIndex(EpochDays.monthIndexOf(EpochDays.today()));
 		}
 
 		if (def.hasValue(R.styleable.VCalendar_monthNamesArray)) {
@@ -580,13 +1170,6 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 			}
 		}
 
-		if (mMonths == null || mMonths.length == 0) {
-			mMonths = new String[12];
-			final DateTime mdt = new DateTime().monthOfYear().withMinimumValue();
-			for (int i = 1; i <= 12; i++) {
-				mMonths[i - 1] = firstUppercase(mdt.withMonthOfYear(i).monthOfYear().getAsText());
-			}
-		}
 
 		if (def.hasValue(R.styleable.VCalendar_daysOfWeekNamesArray)) {
 			int stringsRes = def.getResourceId(R.styleable.VCalendar_daysOfWeekNamesArray, 0);
@@ -595,14 +1178,7 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 			}
 		}
 
-		if (mDaysOfWeek == null || mDaysOfWeek.length == 0) {
-			mDaysOfWeek = new String[7];
-			final DateTime mdt = new DateTime().dayOfWeek().withMinimumValue();
-			for (int i = 1; i <= 7; i++) {
-				mDaysOfWeek[i - 1] = firstUppercase(
-						mdt.withDayOfWeek(i).dayOfWeek().getAsShortText());
-			}
-		}
+		requestLabels();
 
 		mSelectionDispatcher = new SelectionDispatcher(new SelectionDispatcher.Delegate() {
 			@Override
@@ -626,25 +1202,20 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 			}
 
 			@Override
-			public void onSetMinLimit(DateTime dateTime) {
-				addDayDecorator(new DisabledRangeDayDecorator(getContext(),
-						DisabledRangeDayDecorator.RangeMode.BEFORE,
-						dateTime));
+			public CalendarDay getDayOrCreate(int epochDay) {
+				return VCalendar.this.getDayOrCreate(epochDay);
 			}
 
 			@Override
-			public void onSetMaxLimit(DateTime dateTime) {
-				addDayDecorator(new DisabledRangeDayDecorator(getContext(),
-						DisabledRangeDayDecorator.RangeMode.AFTER,
-						dateTime));
+			public CalendarDay getDay(int epochDay) {
+				return VCalendar.this.getDay(epochDay);
 			}
 
 			@Override
 			public void onSetSelections() {
 				if (getSelectionDispatcher().getSelections().size() > 0) {
 					CalendarDay firstSelected = getSelectionDispatcher().getSelection(0);
-					int diff = Months.monthsBetween(mInitial,
-							firstSelected.getDateTime()).getMonths();
+					int diff = EpochDays.monthIndexOf(firstSelected.getEpochDay()) - mInitial;
 
 					if (diff < 0) {
 						diff *= -1;
@@ -660,26 +1231,66 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 			}
 		});
 
+		getSelectionDispatcher().getConstraints()
+				.addOnConstraintsChangedListener(this::onConstraintsChanged);
 		getSelectionDispatcher().setMode(
 				def.getInt(R.styleable.VCalendar_selectionMode, SelectionMode.NONE));
 
-		getSelectionDispatcher().attachHandler(SelectionMode.RANGE, RangeSelectionHandler.class);
+		getSelectionDispatcher().attachHandler(SelectionMode.RANGE, RangeSelectionHandler::new);
 		getSelectionDispatcher().attachHandler(SelectionMode.MULTIPLE,
-				MultipleSelectionHandler.class);
-		getSelectionDispatcher().attachHandler(SelectionMode.SINGLE, SingleSelectionHandler.class);
-		getSelectionDispatcher().attachHandler(SelectionMode.EVEN, SingleSelectionHandler.class);
-		getSelectionDispatcher().attachHandler(SelectionMode.ODD, SingleSelectionHandler.class);
+				MultipleSelectionHandler::new);
+		getSelectionDispatcher().attachHandler(SelectionMode.SINGLE, SingleSelectionHandler::new);
+		getSelectionDispatcher().attachHandler(SelectionMode.EVEN,
+				dispatcher -> new PatternSelectionHandler(dispatcher, SelectionPatterns.evenDays()));
+		getSelectionDispatcher().attachHandler(SelectionMode.ODD,
+				dispatcher -> new PatternSelectionHandler(dispatcher, SelectionPatterns.oddDays()));
 
 		mLayoutManager = new LinearLayoutManager(getContext(), mOrientation, false);
 		mList = findViewById(R.id.mainList);
+		// weeks of detached months go back to the shared pool
+		mLayoutManager.setRecycleChildrenOnDetach(true);
 		mList.setLayoutManager(mLayoutManager);
 		mList.setItemViewCacheSize(10);
-		mList.setDrawingCacheEnabled(true);
+		mWeekPool.setMaxRecycledViews(0, CalendarMonthItem.MAX_WEEKS * WEEK_POOL_MONTHS);
 		mList.setAdapter(getAdapter());
+		getRasterizer().attach(mList, getAdapter());
+		mList.addOnChildAttachStateChangeListener(
+				new RecyclerView.OnChildAttachStateChangeListener() {
+					@Override
+					public void onChildViewAttachedToWindow(View view) {
+						getRasterizer().onMonthAttached(mList.getChildViewHolder(view));
+					}
+
+					@Override
+					public void onChildViewDetachedFromWindow(View view) {
+					}
+				});
+		getAdapter().setViewPrewarmer(getViewPrewarmer());
+
+		prewarm(def.getInt(R.styleable.VCalendar_prewarmMonths, DEFAULT_PREWARM_MONTHS),
+				def.getInt(R.styleable.VCalendar_prewarmWeeks, DEFAULT_PREWARM_WEEKS));
 
 		def.recycle();
 
 		initData();
+
+		getViewPrewarmer().setTarget(R.layout.item_month, R.layout.item_month,
+				mList.getRecycledViewPool(),
+				() -> getAdapter().createViewHolder(mList, R.layout.item_month));
+		setWeekPrewarmTarget();
+	}
+
+	private void setWeekPrewarmTarget() {
+		if (mList == null) {
+			// not initialized yet, target is set at the end of init
+			return;
+		}
+		getViewPrewarmer().setTarget(mWeekLayoutRes, 0, mWeekPool, () -> {
+			if (mRowMap.size() == 0) {
+				return null;
+			}
+			return mRowMap.valueAt(0).getAdapter().createViewHolder(mList, 0);
+		});
 	}
 
 	private int clamp(int val, int min, int max) {
@@ -693,7 +1304,7 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	}
 
 	private void setMonthRow(CalendarMonthItem calendarMonthItem) {
-		mRowMap.put(calendarMonthItem.getMonth(), calendarMonthItem);
+		mRowMap.put(calendarMonthItem.getMonthIndex(), calendarMonthItem);
 	}
 
 	private void onDayClick(CalendarDay calendarDay, View dayView, DaysAdapter adapter) {
@@ -721,9 +1332,7 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 	}
 
 	private void initData() {
-		final CalendarMonthItem initialMonth = new CalendarMonthItem(this, mInitial,
-				this::onDayClick).setLifecycle(
-				this::callOnMonthBindListeners, this::callOnMonthUnbindListeners);
+		final CalendarMonthItem initialMonth = createMonthRow(mInitial);
 
 		getAdapter().setEnableSorting(true);
 		getAdapter().addRow(initialMonth);
@@ -748,6 +1357,13 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 			@Override
 			public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
 				super.onScrollStateChanged(recyclerView, newState);
+				if (newState == RecyclerView.SCROLL_STATE_SETTLING) {
+					mFlinging = true;
+				} else if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+					mFlinging = false;
+					getRasterizer().bindLiveMonths();
+					getRasterizer().schedule();
+				}
 			}
 
 			@Override
@@ -761,68 +1377,489 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 				} else if (firstVisible <= 2) {
 					drawMonthPast(2);
 				}
+				dispatchVisibleMonths(firstVisible, lastVisible);
 			}
 		});
 	}
 
-	private void updateSelectionsAndClear() {
-		final Map<YearMonth, List<CalendarDay>> daysMap = new HashMap<>();
-		final List<CalendarDay> selected = Stream.of(
-				getSelectionDispatcher().getSelections()).filter(
-				item -> item.isSelected()).toList();
-		for (CalendarDay day : selected) {
-			YearMonth month = new YearMonth(day.getDateTime());
-			day.setSelected(false);
-			if (!daysMap.containsKey(month)) {
-				daysMap.put(month, new ArrayList<>());
+	private void dispatchVisibleMonths(int firstVisible, int lastVisible) {
+		if (firstVisible == RecyclerView.NO_POSITION) {
+			return;
+		}
+		int fromMonth = NO_MONTH;
+		int toMonth = NO_MONTH;
+		for (int position = firstVisible; position <= lastVisible && position < getAdapter().getItemCount(); position++) {
+			final CalendarAdapterContract.Row item = getAdapter().getItemByPosition(position);
+			if (item instanceof CalendarMonthItem) {
+				final int monthIndex = ((CalendarMonthItem) item).getMonthIndex();
+				if (fromMonth == NO_MONTH) {
+					fromMonth = monthIndex;
+				}
+				toMonth = monthIndex;
 			}
-			daysMap.get(month).add(day);
 		}
+		if (fromMonth == NO_MONTH || (fromMonth == mVisibleFromMonth && toMonth == mVisibleToMonth)) {
+			return;
+		}
+		mVisibleFromMonth = fromMonth;
+		mVisibleToMonth = toMonth;
+		for (int i = mVisibleMonthsListeners.size() - 1; i >= 0; i--) {
+			mVisibleMonthsListeners.get(i).onVisibleMonthsChanged(fromMonth, toMonth);
+		}
+	}
 
-		for (Map.Entry<YearMonth, List<CalendarDay>> entry : daysMap.entrySet()) {
-			if (mRowMap.containsKey(entry.getKey())) {
-				for (CalendarDay cd : entry.getValue()) {
-					mRowMap.get(entry.getKey()).getAdapter().update(cd);
+	/**
+	 * Schedules labels rebuilding for current locale and names. Until the new table is ready, binds
+	 * use the previous one (or placeholder), then shown months are rebound.
+	 */
+	private void requestLabels() {
+		if (mPendingLabels != null) {
+			mPendingLabels.cancel(false);
+		}
+
+		final Locale locale = Locale.getDefault();
+		mLabelsLocale = locale;
+		final String[] months = currentMonthNames();
+		final String[] daysOfWeek = mDaysOfWeek;
+		final FutureTask<CalendarLabels> task = new FutureTask<CalendarLabels>(
+				() -> createLabels(locale, months, daysOfWeek)) {
+			@Override
+			protected void done() {
+				if (!isCancelled()) {
+					mMainHandler.post(() -> onLabelsReady(this));
 				}
 			}
+		};
+		mPendingLabels = task;
+		CalendarExecutors.background().execute(task);
+	}
+
+	private void onLabelsReady(Future<CalendarLabels> task) {
+		if (task != mPendingLabels) {
+			// replaced by a newer request
+			return;
+		}
+		mPendingLabels = null;
+
+		try {
+			mLabels = task.get();
+		} catch (InterruptedException | ExecutionException | CancellationException e) {
+			Timber.w(e, "Unable to build labels in background");
+			return;
+		}
+
+		invalidateSnapshots();
+		if (mAdapter != null) {
+			mAdapter.notifyDataSetChanged();
+		}
+	}
+
+	private String[] currentMonthNames() {
+		if (Locale.getDefault().equals(LOCALE_RU)) {
+			return mMonthsRu;
+		}
+
+		return mMonths;
+	}
+
+	private static CalendarLabels createLabels(Locale locale, String[] months, String[] daysOfWeek) {
+		return new CalendarLabels(locale, resolveMonthNames(locale, months),
+				resolveDaysOfWeek(locale, daysOfWeek), EpochDays.monthIndexOf(EpochDays.today()));
+	}
+
+	private static String[] resolveMonthNames(Locale locale, String[] months) {
+		if (months != null) {
+			return months;
+		}
+
+		final String[] names = DateFormatSymbols.getInstance(locale).getMonths();
+		final String[] out = new String[12];
+		for (int i = 0; i < 12; i++) {
+			out[i] = firstUppercase(names[i]);
+		}
+		return out;
+	}
+
+	private static String[] resolveDaysOfWeek(Locale locale, String[] daysOfWeek) {
+		if (daysOfWeek != null) {
+			return daysOfWeek;
+		}
+
+		// symbols are sunday-first and 1-based: Calendar.SUNDAY == 1
+		final String[] weekdays = DateFormatSymbols.getInstance(locale).getShortWeekdays();
+		final String[] out = new String[7];
+		for (int i = 0; i < 7; i++) {
+			out[i] = firstUppercase(weekdays[(i + 1) % 7 + 1]);
+		}
+		return out;
+	}
+
+	private void updateSelectionsAndClear() {
+		for (CalendarDay day : getSelectionDispatcher().getSelections()) {
+			if (!day.isSelected()) {
+				continue;
+			}
+			day.setSelected(false);
+			updateResidentDay(day);
 		}
 
 		getSelectionDispatcher().getSelections().clear();
 	}
 
 	private void updateSelections() {
-		final Map<YearMonth, List<CalendarDay>> daysMap = new HashMap<>();
 		for (CalendarDay day : getSelectionDispatcher().getSelections()) {
-			YearMonth month = new YearMonth(day.getDateTime());
-			if (!daysMap.containsKey(month)) {
-				daysMap.put(month, new ArrayList<>());
+			updateResidentDay(day);
+		}
+	}
+
+	private void updateResidentDay(int epochDay) {
+		final CalendarMonthItem row = mRowMap.get(EpochDays.monthIndexOf(epochDay));
+		invalidateSnapshot(EpochDays.monthIndexOf(epochDay));
+		if (row != null) {
+			row.getAdapter().update(EpochDays.dayOfMonth(epochDay));
+		}
+	}
+
+	private void updateResidentDay(CalendarDay day) {
+		final CalendarMonthItem row = mRowMap.get(EpochDays.monthIndexOf(day.getEpochDay()));
+		invalidateSnapshot(EpochDays.monthIndexOf(day.getEpochDay()));
+		if (row != null) {
+			row.getAdapter().update(day);
+		}
+	}
+
+	/**
+	 * Redraws only created months touched by changed constraints
+	 */
+	private void onConstraintsChanged(int fromMonth, int toMonth) {
+		redrawMonths(fromMonth, toMonth);
+	}
+
+	private void observeDecorator(Object decorator, boolean observe) {
+		if (!(decorator instanceof ObservableDecorator)) {
+			return;
+		}
+		if (observe) {
+			((ObservableDecorator) decorator).addOnInvalidateListener(mDecoratorListener);
+		} else {
+			((ObservableDecorator) decorator).removeOnInvalidateListener(mDecoratorListener);
+		}
+	}
+
+	/**
+	 * Decorators with cached results (month and thread-safe ones) drop caches of affected months,
+	 * then only affected week rows are rebound
+	 */
+	private void onStatesChanged(int fromDay, int toDay) {
+		// style tables are built with state flags of days
+		final int fromMonth = EpochDays.monthIndexOf(fromDay);
+		final int toMonth = EpochDays.monthIndexOf(toDay);
+		if (mStylePrefetcher != null) {
+			mStylePrefetcher.invalidate(fromMonth, toMonth);
+		}
+		for (int i = 0; i < mRowMap.size(); i++) {
+			final int monthIndex = mRowMap.keyAt(i);
+			if (monthIndex >= fromMonth && monthIndex <= toMonth) {
+				mRowMap.valueAt(i).getAdapter().invalidateMonthStyles();
+			}
+		}
+		// only created days hold a copy of flags, the rest read them on creation
+		for (int i = 0; i < mDayMap.size(); i++) {
+			final int epochDay = mDayMap.keyAt(i);
+			if (epochDay < fromDay) {
+				continue;
+			}
+			if (epochDay > toDay) {
+				break;
 			}
-			daysMap.get(month).add(day);
+			mDayMap.valueAt(i).setState(mDayStates.get(epochDay));
 		}
+		updateRange(fromDay, toDay);
+	}
 
-		for (Map.Entry<YearMonth, List<CalendarDay>> entry : daysMap.entrySet()) {
-			if (mRowMap.containsKey(entry.getKey())) {
-				for (CalendarDay cd : entry.getValue()) {
-					mRowMap.get(entry.getKey()).getAdapter().update(cd);
+	private void onDecoratorRangeInvalidated(ObservableDecorator decorator, int fromDay, int toDay) {
+		final int fromMonth = EpochDays.monthIndexOf(fromDay);
+		final int toMonth = EpochDays.monthIndexOf(toDay);
+		if (hasCachedStyles(decorator)) {
+			if (mStylePrefetcher != null) {
+				mStylePrefetcher.invalidate(fromMonth, toMonth);
+			}
+			for (int i = 0; i < mRowMap.size(); i++) {
+				final int monthIndex = mRowMap.keyAt(i);
+				if (monthIndex >= fromMonth && monthIndex <= toMonth) {
+					mRowMap.valueAt(i).getAdapter().invalidateMonthStyles();
+				}
+			}
+		}
+		updateRange(fromDay, toDay);
+	}
+
+	private void onDecoratorDaysInvalidated(ObservableDecorator decorator, int[] days) {
+		final int[] sorted = days.clone();
+		Arrays.sort(sorted);
+		final boolean cached = hasCachedStyles(decorator);
+		int lastMonth = NO_MONTH;
+		for (int epochDay : sorted) {
+			final int monthIndex = EpochDays.monthIndexOf(epochDay);
+			if (cached && monthIndex != lastMonth) {
+				if (mStylePrefetcher != null) {
+					mStylePrefetcher.invalidate(monthIndex);
+				}
+				final CalendarMonthItem row = mRowMap.get(monthIndex);
+				if (row != null) {
+					row.getAdapter().invalidateMonthStyles();
 				}
 			}
+			lastMonth = monthIndex;
+			updateResidentDay(epochDay);
 		}
 	}
 
-	private DateTime resetDate(DateTime dt) {
-		return dt.withDayOfMonth(1).withTime(0, 0, 0, 0);
+	private static boolean hasCachedStyles(ObservableDecorator decorator) {
+		return decorator instanceof MonthDecorator || decorator instanceof ThreadSafeDecorator;
+	}
+
+	private void onStylesReady(DayStyleTable table) {
+		final CalendarMonthItem row = mRowMap.get(table.getMonthIndex());
+		if (row != null && row.getAdapter().setStyleTable(table)) {
+			invalidateSnapshot(table.getMonthIndex());
+		} else if (mRasterizer != null) {
+			// offscreen months wait for their styles before rendering
+			mRasterizer.schedule();
+		}
+	}
+
+	private void redrawMonths(int fromMonth, int toMonth) {
+		for (int i = 0; i < mRowMap.size(); i++) {
+			final int monthIndex = mRowMap.keyAt(i);
+			if (monthIndex < fromMonth) {
+				continue;
+			}
+			if (monthIndex > toMonth) {
+				break;
+			}
+			final DaysAdapter adapter = mRowMap.valueAt(i).getAdapter();
+			adapter.notifyItemRangeChanged(0, adapter.getItemCount());
+			invalidateSnapshot(monthIndex);
+		}
+	}
+
+	private void invalidateSnapshot(int monthIndex) {
+		if (mRasterizer != null) {
+			mRasterizer.invalidate(monthIndex);
+		}
+	}
+
+	private void invalidateSnapshots() {
+		if (mRasterizer != null) {
+			mRasterizer.invalidateAll();
+		}
+	}
+
+	private VCalendar setInitialMonthIndex(int monthIndex) {
+		mInitial = monthIndex;
+		mHasInitial = true;
+		if (mRowMap.size() == 0) {
+			reset();
+		} else {
+			reanchor(true);
+		}
+		return this;
+	}
+
+	/**
+	 * Moves shown months window to current initial month and min/max bounds without rebuilding it.
+	 * Window is always a sorted run of months, so the diff is just its edges: rows outside bounds are removed,
+	 * missing ones added, and months in {@code recutMonths} which are still shown get new grids.
+	 *
+	 * @param scroll      scroll to initial month after update
+	 * @param recutMonths months whose min/max cut changed, {@link #NO_MONTH} is ignored
+	 */
+	private void reanchor(boolean scroll, int... recutMonths) {
+		if (mList == null || mAdapter == null || mRowMap.size() == 0) {
+			// not initialized yet, initData will use new values
+			return;
+		}
+
+		final int minMonth = mHasMinDate ? EpochDays.monthIndexOf(mMinDate) : Integer.MIN_VALUE;
+		final int maxMonth = mHasMaxDate ? EpochDays.monthIndexOf(mMaxDate) : Integer.MAX_VALUE;
+		if (minMonth > maxMonth) {
+			Timber.w("Min date is after max date, months are not updated");
+			return;
+		}
+		mInitial = clamp(mInitial, minMonth, maxMonth);
+
+		final int first = mRowMap.keyAt(0);
+		final int last = mRowMap.keyAt(mRowMap.size() - 1);
+		int newFirst;
+		int newLast;
+		if (mInitial < first - REANCHOR_MAX_GAP || mInitial > last + REANCHOR_MAX_GAP) {
+			// too far to fill the gap, start over around initial month
+			newFirst = mInitial - 2;
+			newLast = mInitial + 3;
+		} else {
+			newFirst = Math.min(first, mInitial);
+			newLast = Math.max(last, mInitial);
+		}
+		newFirst = Math.max(newFirst, minMonth);
+		newLast = Math.min(newLast, maxMonth);
+
+		// remove edges
+		int removeTop = 0;
+		while (mRowMap.size() > 0 && mRowMap.keyAt(0) < newFirst) {
+			invalidateSnapshot(mRowMap.keyAt(0));
+			mRowMap.removeAt(0);
+			removeTop++;
+		}
+		getAdapter().removeRows(0, removeTop);
+		int removeBottom = 0;
+		while (mRowMap.size() > 0 && mRowMap.keyAt(mRowMap.size() - 1) > newLast) {
+			invalidateSnapshot(mRowMap.keyAt(mRowMap.size() - 1));
+			mRowMap.removeAt(mRowMap.size() - 1);
+			removeBottom++;
+		}
+		getAdapter().removeRows(getAdapter().getItemCount() - removeBottom, removeBottom);
+
+		// re-cut boundary months left in place
+		for (int month : recutMonths) {
+			if (month == NO_MONTH || mRowMap.get(month) == null) {
+				continue;
+			}
+			final int position = getAdapter().findPositionByRowPosition(
+					CalendarMonthItem.getRowPosition(EpochDays.toYearMonth(month)));
+			if (position == -1) {
+				continue;
+			}
+			final CalendarMonthItem row = createMonthRow(month);
+			setMonthRow(row);
+			invalidateSnapshot(month);
+			getAdapter().setRow(position, row);
+		}
+
+		// add edges
+		if (mRowMap.size() == 0) {
+			getAdapter().addRows(createMonthRows(newFirst, newLast));
+		} else {
+			final int keptFirst = mRowMap.keyAt(0);
+			final int keptLast = mRowMap.keyAt(mRowMap.size() - 1);
+			if (newFirst < keptFirst) {
+				getAdapter().addRowsTop(createMonthRows(newFirst, keptFirst - 1));
+			}
+			if (newLast > keptLast) {
+				getAdapter().addRows(createMonthRows(keptLast + 1, newLast));
+			}
+		}
+
+		mPastMonth = mInitial - newFirst;
+		mFutureMonth = newLast - mInitial;
+		if (scroll) {
+			scrollToMonth(EpochDays.toYearMonth(mInitial), 0);
+		}
+	}
+
+	private CalendarMonthItem createMonthRow(int monthIndex) {
+		final CalendarMonthItem row = new CalendarMonthItem(this, monthIndex, this::onDayClick).setLifecycle(
+				this::callOnMonthBindListeners, this::callOnMonthUnbindListeners);
+		// thread-safe decorators are evaluated before the month is shown
+		getStylePrefetcher().prefetch(row.getAdapter().getGrid());
+		return row;
+	}
+
+	private CalendarMonthItem[] createMonthRows(int from, int to) {
+		final CalendarMonthItem[] rows = new CalendarMonthItem[to - from + 1];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = createMonthRow(from + i);
+			callOnMonthAddListeners(rows[i]);
+		}
+		return rows;
+	}
+
+	private byte[] encodeSelections() {
+		final List<CalendarDay> selections = getSelectionDispatcher().getSelections();
+		if (selections.isEmpty()) {
+			return null;
+		}
+
+		final int[] days = new int[selections.size()];
+		for (int i = 0; i < days.length; i++) {
+			days[i] = selections.get(i).getEpochDay();
+		}
+		Arrays.sort(days);
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+		final IntervalWriter writer = new IntervalWriter(out);
+		try {
+			for (int day : days) {
+				writer.add(day);
+			}
+			writer.finish();
+		} catch (IOException e) {
+			Timber.w(e, "Unable to encode selections");
+			return null;
+		}
+
+		return out.toByteArray();
+	}
+
+	private void restoreSelections(byte[] encoded) {
+		if (encoded == null || encoded.length == 0) {
+			return;
+		}
+
+		// range handler fills the gap by itself, so passing only bounds
+		final boolean boundsOnly = getSelectionDispatcher().getMode() == SelectionMode.RANGE;
+		final List<DateTime> days = new ArrayList<>();
+		final IntervalReader reader = new IntervalReader(new ByteArrayInputStream(encoded));
+		int first = 0;
+		int last = 0;
+		boolean hasRuns = false;
+		try {
+			while (reader.next()) {
+				if (!hasRuns) {
+					first = reader.getFirst();
+					hasRuns = true;
+				}
+				last = reader.getLast();
+				if (!boundsOnly) {
+					for (int day = reader.getFirst(); day <= reader.getLast(); day++) {
+						days.add(EpochDays.toDateTime(day));
+					}
+				}
+			}
+		} catch (IOException e) {
+			Timber.w(e, "Unable to restore selections");
+			return;
+		}
+
+		if (boundsOnly && hasRuns) {
+			days.add(EpochDays.toDateTime(first));
+			if (last != first) {
+				days.add(EpochDays.toDateTime(last));
+			}
+		}
+
+		getSelectionDispatcher().setSelections(days);
+	}
+
+	private void scrollToMonth(YearMonth month, int offset) {
+		mList.post(() -> {
+			final int position = getAdapter().findPositionByRowPosition(
+					CalendarMonthItem.getRowPosition(month));
+			if (position != -1) {
+				mLayoutManager.scrollToPositionWithOffset(position, offset);
+			}
+		});
 	}
 
 	private void drawMonthFuture(int cnt, boolean scrollToLast) {
 		mList.post(() -> {
 			final CalendarMonthItem[] rows = new CalendarMonthItem[cnt];
 			for (int i = 0; i < cnt; i++) {
-				DateTime nextToDraw = mInitial.plusMonths(++mFutureMonth);
-				if (mMaxDate != null && nextToDraw.compareTo(resetDate(mMaxDate)) > 0) {
+				final int nextToDraw = mInitial + (++mFutureMonth);
+				if (mHasMaxDate && nextToDraw > EpochDays.monthIndexOf(mMaxDate)) {
 					break;
 				}
-				rows[i] = new CalendarMonthItem(this, nextToDraw, this::onDayClick).setLifecycle(
-						this::callOnMonthBindListeners, this::callOnMonthUnbindListeners);
+				rows[i] = createMonthRow(nextToDraw);
 				callOnMonthAddListeners(rows[i]);
 			}
 			mAdapter.addRows(rows);
@@ -844,13 +1881,11 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 		mList.post(() -> {
 			final CalendarMonthItem[] rows = new CalendarMonthItem[cnt];
 			for (int i = 0, k = cnt - 1; i < cnt; i++, k--) {
-				DateTime nextToDraw = mInitial.minusMonths(++mPastMonth);
-				if (mMinDate != null &&
-						nextToDraw.compareTo(resetDate(mMinDate)) < 0) {
+				final int nextToDraw = mInitial - (++mPastMonth);
+				if (mHasMinDate && nextToDraw < EpochDays.monthIndexOf(mMinDate)) {
 					break;
 				}
-				rows[k] = new CalendarMonthItem(this, nextToDraw, this::onDayClick).setLifecycle(
-						this::callOnMonthBindListeners, this::callOnMonthUnbindListeners);
+				rows[k] = createMonthRow(nextToDraw);
 				callOnMonthAddListeners(rows[k]);
 			}
 
@@ -877,4 +1912,48 @@ public class VCalendar extends FrameLayout implements CalendarHandler {
 				item -> item.onMonth(monthItem.getMonth()));
 	}
 
+	/**
+	 * Selections are stored as varint-packed intervals, so even multi-year ranges take a few bytes.
+	 * Note: as any other view, calendar saves state only if it has an id.
+	 */
+	static class SavedState extends BaseSavedState {
+		public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+			@Override
+			public SavedState createFromParcel(Parcel source) {
+				return new SavedState(source);
+			}
+
+			@Override
+			public SavedState[] newArray(int size) {
+				return new SavedState[size];
+			}
+		};
+
+		int anchorYear;
+		int anchorMonth;
+		int scrollOffset;
+		byte[] selections;
+
+		SavedState(Parcelable superState) {
+			super(superState);
+		}
+
+		SavedState(Parcel source) {
+			super(source);
+			anchorYear = source.readInt();
+			anchorMonth = source.readInt();
+			scrollOffset = source.readInt();
+			selections = source.createByteArray();
+		}
+
+		@Override
+		public void writeToParcel(Parcel out, int flags) {
+			super.writeToParcel(out, flags);
+			out.writeInt(anchorYear);
+			out.writeInt(anchorMonth);
+			out.writeInt(scrollOffset);
+			out.writeByteArray(selections);
+		}
+	}
+
 }
@@ -2,7 +2,7 @@ package com.edwardstock.vcalendar.adapter;
 
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
-import android.support.v4.util.SimpleArrayMap;
+import android.support.v4.util.SparseArrayCompat;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -10,16 +10,12 @@ import android.view.ViewGroup;
 
 import com.annimon.stream.Stream;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
-import timber.log.Timber;
-
 import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
 
 /**
@@ -29,9 +25,11 @@ import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
  */
 public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     protected List<CalendarAdapterContract.Row> mItems = new ArrayList<>();
-    private SimpleArrayMap<Integer, Class<? extends RecyclerView.ViewHolder>> holderViewIdClassCache = new SimpleArrayMap<>();
+    // layout id -> holder factory, filled incrementally as rows are added
+    private SparseArrayCompat<ViewHolderFactory<?>> mHolderFactories = new SparseArrayCompat<>();
     private LayoutInflater layoutInflater;
     private boolean mEnableSorting = true;
+    private ViewPrewarmer mPrewarmer;
 
     public void addRowsTop(CalendarAdapterContract.Row[] rows) {
         addRowsTop(Stream.of(rows).toList());
@@ -51,7 +49,7 @@ public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.Vie
             sort();
         }
 
-        makeHoldersCache();
+        registerViewHolderFactories(target);
         notifyItemRangeInserted(0, target.size());
     }
 
@@ -70,7 +68,7 @@ public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.Vie
             sort();
         }
 
-        makeHoldersCache();
+        registerViewHolderFactories(target);
         notifyItemRangeInserted(beforeSize, target.size());
     }
 
@@ -83,10 +81,40 @@ public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.Vie
             sort();
         }
 
-        makeHoldersCache();
+        registerViewHolderFactory(row);
         notifyItemInserted(mItems.size());
     }
 
+    /**
+     * Replaces row in place, holder at position is rebound
+     *
+     * @param position adapter position
+     * @param row      new row, must keep sort order
+     */
+    public void setRow(int position, CalendarAdapterContract.Row row) {
+        checkNotNull(row, "Row can't be null");
+        mItems.set(position, row);
+        registerViewHolderFactory(row);
+        notifyItemChanged(position);
+    }
+
+    /**
+     * @param start first adapter position
+     * @param count count of rows to remove
+     */
+    public void removeRows(int start, int count) {
+        if (count <= 0) return;
+        mItems.subList(start, start + count).clear();
+        notifyItemRangeRemoved(start, count);
+    }
+
+    /**
+     * @param prewarmer source of views inflated ahead of time, or null to always inflate in place
+     */
+    public void setViewPrewarmer(ViewPrewarmer prewarmer) {
+        mPrewarmer = prewarmer;
+    }
+
     public void setEnableSorting(boolean enableSorting) {
         mEnableSorting = enableSorting;
     }
@@ -102,31 +130,17 @@ public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.Vie
             throw new RuntimeException("Layout id can't be 0");
         }
 
-        View v = layoutInflater.inflate(viewType, parent, false);
-
-        RecyclerView.ViewHolder viewHolder = null;
-        Throwable cause = null;
-        try {
-            viewHolder = findViewHolder(viewType, v);
-        } catch (NoSuchMethodException e) {
-            cause = e;
-            Timber.e(e, "Error finding ViewHolder");
-        } catch (IllegalAccessException e) {
-            cause = e;
-            Timber.e(e, "Error finding ViewHolder");
-        } catch (InvocationTargetException e) {
-            cause = e;
-            Timber.e(e, "Error finding ViewHolder");
-        } catch (InstantiationException e) {
-            cause = e;
-            Timber.e(e, "Error finding ViewHolder");
+        View v = mPrewarmer != null ? mPrewarmer.poll(viewType) : null;
+        if (v == null) {
+            v = layoutInflater.inflate(viewType, parent, false);
         }
 
-        if (viewHolder == null) {
-            throw new RuntimeException(cause);
+        final ViewHolderFactory<?> factory = mHolderFactories.get(viewType);
+        if (factory == null) {
+            throw new RuntimeException("Can't find ViewHolder factory for view " + String.valueOf(viewType));
         }
 
-        return viewHolder;
+        return factory.create(v);
     }
 
     @SuppressWarnings("unchecked")
@@ -163,61 +177,76 @@ public final class CalendarAdapter extends RecyclerView.Adapter<RecyclerView.Vie
         if (mItems.isEmpty()) return;
         mItems.clear();
         notifyDataSetChanged();
-        holderViewIdClassCache.clear();
     }
 
     public CalendarAdapterContract.Row getItemByPosition(int position) {
         return mItems.get(position);
     }
 
+    /**
+     * Rows are sorted by {@link CalendarAdapterContract.Row#getRowPosition()} (if sorting enabled), so uses binary search
+     *
+     * @param rowPosition row position index
+     * @return adapter position or -1 if not found
+     */
+    public int findPositionByRowPosition(int rowPosition) {
+        if (!mEnableSorting) {
+            for (int i = 0; i < mItems.size(); i++) {
+                if (mItems.get(i).getRowPosition() == rowPosition) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        int low = 0;
+        int high = mItems.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midPosition = mItems.get(mid).getRowPosition();
+            if (midPosition < rowPosition) {
+                low = mid + 1;
+            } else if (midPosition > rowPosition) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+
+        return -1;
+    }
+
     public void sort() {
         Collections.sort(mItems, new RowComparator());
     }
 
 
     /**
-     * ViewHolder's class cached indexer
+     * Registers factory for layout explicitly, rows added later with the same layout reuse it
+     *
+     * @param layout  row layout, used as view type
+     * @param factory view holder factory
      */
-    @SuppressWarnings("unchecked")
-    protected void makeHoldersCache() {
-        checkNotNull(mItems, "Wow! Rows can't be null");
-        holderViewIdClassCache.clear();
-        holderViewIdClassCache = new SimpleArrayMap<>(mItems.size());
-
-        for (CalendarAdapterContract.Row item : mItems) {
-            checkNotNull(item);
-            if (item instanceof SortableRow) {
-                checkNotNull(item.getViewHolderClass(),
-                             "Row " + (((SortableRow) item).getRow().getClass()) + " does not have valid ViewHolder class");
-            } else {
-                checkNotNull(item.getViewHolderClass(),
-                             "Row " + item.getClass() + " does not have valid ViewHolder class");
-            }
-
-            holderViewIdClassCache.put(item.getItemView(), item.getViewHolderClass());
-        }
+    public void registerViewHolderFactory(@LayoutRes int layout, @NonNull ViewHolderFactory<?> factory) {
+        mHolderFactories.put(layout, checkNotNull(factory, "ViewHolder factory can't be null"));
     }
 
-    private boolean isInnerClass(Class<?> clazz) {
-        return clazz.isMemberClass() && !Modifier.isStatic(clazz.getModifiers());
+    private void registerViewHolderFactories(List<CalendarAdapterContract.Row> rows) {
+        for (CalendarAdapterContract.Row row : rows) {
+            registerViewHolderFactory(row);
+        }
     }
 
-    @NonNull
-    private RecyclerView.ViewHolder findViewHolder(@LayoutRes int viewId, View view)
-            throws NoSuchMethodException, IllegalAccessException, InvocationTargetException, InstantiationException {
-        Class<? extends RecyclerView.ViewHolder> holderClass = holderViewIdClassCache.get(viewId);
-        if (holderClass == null) {
-            makeHoldersCache();
-        }
-        holderClass = holderViewIdClassCache.get(viewId);
-        if (holderClass == null) {
-            throw new RuntimeException(
-                    "Can't findStream ViewHolder for view " + String.valueOf(viewId));
-        }
-        if (isInnerClass(holderClass)) {
-            throw new RuntimeException("Class should be static!");
+    private void registerViewHolderFactory(CalendarAdapterContract.Row row) {
+        checkNotNull(row);
+        final int layout = row.getItemView();
+        if (mHolderFactories.get(layout) != null) {
+            return;
         }
-        return holderClass.getDeclaredConstructor(View.class).newInstance(view);
+
+        final Object source = row instanceof SortableRow ? ((SortableRow) row).getRow().getClass() : row.getClass();
+        mHolderFactories.put(layout, checkNotNull(row.getViewHolderFactory(),
+                                                  "Row " + source + " does not have valid ViewHolder factory"));
     }
 
     public static class RowComparator implements Comparator<CalendarAdapterContract.Row> {
@@ -3,6 +3,10 @@ package com.edwardstock.vcalendar.adapter;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
 import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 
 /**
  * Mds. 2017
@@ -20,7 +24,7 @@ public interface CalendarAdapterContract {
          * views ID
          *
          * @return int
-         * @see CalendarAdapter#makeHoldersCache()
+         * @see CalendarAdapter#registerViewHolderFactory(int, ViewHolderFactory)
          */
         @LayoutRes
         int getItemView();
@@ -46,7 +50,6 @@ public interface CalendarAdapterContract {
          * @see RecyclerView.Adapter#onBindViewHolder(RecyclerView.ViewHolder, int)
          *
          * @param viewHolder Row view holder
-         * @see CalendarAdapter#makeHoldersCache()
          */
         void onBindViewHolder(@NonNull T viewHolder);
 
@@ -61,9 +64,37 @@ public interface CalendarAdapterContract {
          * View holder class name
          *
          * @return Class
-         * @see CalendarAdapter.RowViewHolder
+         * @deprecated holders were created through reflection, implement {@link #getViewHolderFactory()} instead.
+         * Default factory still uses this method, so rows which implement only it keep working.
+         */
+        @Deprecated
+        @NonNull
+        default Class<T> getViewHolderClass() {
+            throw new UnsupportedOperationException(
+                    "Row " + getClass() + " implements neither getViewHolderFactory() nor getViewHolderClass()");
+        }
+
+        /**
+         * View holder factory, registered by adapter once per {@link #getItemView()}.
+         * By default creates holders of {@link #getViewHolderClass()} through reflection, override it
+         * with a constructor reference.
+         *
+         * @return factory, should be the same instance for all rows of a view type
          */
         @NonNull
-        Class<T> getViewHolderClass();
+        default ViewHolderFactory<T> getViewHolderFactory() {
+            final Class<T> holderClass = getViewHolderClass();
+            if (holderClass.isMemberClass() && !Modifier.isStatic(holderClass.getModifiers())) {
+                throw new RuntimeException("Class should be static!");
+            }
+            return view -> {
+                try {
+                    return holderClass.getDeclaredConstructor(View.class).newInstance(view);
+                } catch (NoSuchMethodException | IllegalAccessException | InstantiationException
+                        | InvocationTargetException e) {
+                    throw new RuntimeException("Unable to create " + holderClass.getName(), e);
+                }
+            };
+        }
     }
 }
@@ -1,8 +1,9 @@
 package com.edwardstock.vcalendar.adapter;
 
 import android.annotation.SuppressLint;
-import android.content.Context;
+import android.graphics.Bitmap;
 import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.support.v7.widget.SimpleItemAnimator;
@@ -12,14 +13,16 @@ import android.widget.TextView;
 
 import com.edwardstock.vcalendar.CalendarHandler;
 import com.edwardstock.vcalendar.R;
+import com.edwardstock.vcalendar.common.CalendarLabels;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.decorators.EventOverlayDecoration;
+import com.edwardstock.vcalendar.widgets.MonthLayout;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
 import org.joda.time.DateTime;
 import org.joda.time.YearMonth;
 
 import java.lang.ref.WeakReference;
-import java.util.Arrays;
-import java.util.Calendar;
 
 /**
  * vcalendar. 2018
@@ -27,73 +30,65 @@ import java.util.Calendar;
  * @author Eduard Maximovich <edward.vstock@gmail.com>
  */
 public class CalendarMonthItem implements CalendarAdapterContract.Row<CalendarMonthItem.ViewHolder> {
+    /**
+     * Max count of week rows in a month grid
+     */
+    public static final int MAX_WEEKS = 6;
+    private static final int NO_MONTH = Integer.MIN_VALUE;
+    private static final ViewHolderFactory<ViewHolder> HOLDER_FACTORY = ViewHolder::new;
     private final DaysAdapter mDaysAdapter;
+    private final CalendarDay[][] mWeeksDays;
     private final YearMonth mMonth;
+    private final int mMonthIndex;
     private final WeakReference<CalendarHandler> mHandler;
     private OnBindListener mOnBindListener;
     private OnUnbindListener mOnUnbindListener;
 
     public CalendarMonthItem(CalendarHandler calendarHandler, @NonNull DateTime month,
                              DaysAdapter.DayItemClickedListener dayItemClickedListener) {
-        mMonth = new YearMonth(month);
+        this(calendarHandler, EpochDays.monthIndex(month.getYear(), month.getMonthOfYear()),
+             dayItemClickedListener);
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     */
+    public CalendarMonthItem(CalendarHandler calendarHandler, int monthIndex,
+                             DaysAdapter.DayItemClickedListener dayItemClickedListener) {
+        mMonthIndex = monthIndex;
+        mMonth = EpochDays.toYearMonth(monthIndex);
         mHandler = new WeakReference<>(calendarHandler);
 
-        final Calendar cal = Calendar.getInstance();
-        cal.set(Calendar.MONTH, month.getMonthOfYear() - 1);
-        cal.set(Calendar.YEAR, month.getYear());
-        cal.set(Calendar.DAY_OF_MONTH, month.dayOfMonth().withMaximumValue().getDayOfMonth());
-        int weeksInMonth = cal.getActualMaximum(Calendar.WEEK_OF_MONTH);
+        final int firstDay = EpochDays.firstDayOfMonth(monthIndex);
+        final int lastDay = EpochDays.lastDayOfMonth(monthIndex);
+        // monday-first grid: count of empty cells before the first day
+        final int offset = EpochDays.dayOfWeek(firstDay) - 1;
+        final int weeksInMonth = (offset + lastDay - firstDay + 7) / 7;
 
         int fromWeek = 0;
         int toWeek = weeksInMonth;
-        if (calendarHandler.hasMinDate() && calendarHandler.isMinDateCutable() && equalsMonthYear(
-                calendarHandler.getMinDate(), month)) {
-            cal.set(Calendar.DAY_OF_MONTH, calendarHandler.getMinDate().getDayOfMonth());
-            fromWeek = cal.get(Calendar.WEEK_OF_MONTH);
-            if (fromWeek > 0) {
-                fromWeek--;
-            }
+        if (calendarHandler.hasMinDate() && calendarHandler.isMinDateCutable()
+                && EpochDays.monthIndexOf(calendarHandler.getMinEpochDay()) == monthIndex) {
+            fromWeek = (offset + calendarHandler.getMinEpochDay() - firstDay) / 7;
         }
-        if (calendarHandler.hasMaxDate() && calendarHandler.isMaxDateCutable() && equalsMonthYear(
-                calendarHandler.getMaxDate(), month)) {
-            cal.set(Calendar.DAY_OF_MONTH, calendarHandler.getMaxDate().getDayOfMonth());
-            toWeek = cal.get(Calendar.WEEK_OF_MONTH);
-            if (toWeek < weeksInMonth) {
-                toWeek++;
-            }
+        if (calendarHandler.hasMaxDate() && calendarHandler.isMaxDateCutable()
+                && EpochDays.monthIndexOf(calendarHandler.getMaxEpochDay()) == monthIndex) {
+            // keeps one more week after the max date, if month has it
+            toWeek = Math.min((offset + calendarHandler.getMaxEpochDay() - firstDay) / 7 + 2, weeksInMonth);
         }
 
-        CalendarDay[][] weeksDaysWithOffset = new CalendarDay[weeksInMonth][7];
-
-        int maxMonthDay = month.dayOfMonth().withMaximumValue().getDayOfMonth();
-        for (int weekIdx = 0, dayNum = 1; weekIdx < weeksInMonth; weekIdx++) {
-            CalendarDay[] days = weeksDaysWithOffset[weekIdx];
-            if (days == null) {
-                weeksDaysWithOffset[weekIdx] = new CalendarDay[7];
-                days = weeksDaysWithOffset[weekIdx];
-            }
-
-            for (int dayIdx = 0; dayIdx < 7; dayIdx++, dayNum++) {
-                if (dayNum > maxMonthDay) {
-                    days[dayIdx] = null;
-                    break;
-                }
-
-                DateTime dayDateTime = month.withDayOfMonth(dayNum);
-                int dayOrder = dayDateTime.getDayOfWeek() - 1;
-                if (dayOrder > dayIdx) {
-                    dayIdx = dayOrder;
-                }
-
-                days[dayIdx] = calendarHandler.getDayOrCreate(dayDateTime);
+        final CalendarDay[][] weeksDays = new CalendarDay[toWeek - fromWeek][7];
+        for (int day = firstDay; day <= lastDay; day++) {
+            final int cell = offset + day - firstDay;
+            final int weekIdx = cell / 7;
+            if (weekIdx < fromWeek || weekIdx >= toWeek) {
+                continue;
             }
+            weeksDays[weekIdx - fromWeek][cell % 7] = calendarHandler.getDayOrCreate(day);
         }
 
-        if (fromWeek > 0 || toWeek < weeksInMonth) {
-            weeksDaysWithOffset = Arrays.copyOfRange(weeksDaysWithOffset, fromWeek, toWeek);
-        }
-
-        mDaysAdapter = new DaysAdapter(calendarHandler, weeksDaysWithOffset);
+        mWeeksDays = weeksDays;
+        mDaysAdapter = new DaysAdapter(calendarHandler, weeksDays);
         mDaysAdapter.setOnDayItemClickListener(dayItemClickedListener);
     }
 
@@ -102,12 +97,12 @@ public class CalendarMonthItem implements CalendarAdapterContract.Row<CalendarMo
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         CalendarMonthItem that = (CalendarMonthItem) o;
-        return mMonth.equals(that.mMonth);
+        return mMonthIndex == that.mMonthIndex;
     }
 
     @Override
     public int hashCode() {
-        return mMonth.hashCode();
+        return mMonthIndex;
     }
 
     @SuppressLint("DefaultLocale")
@@ -133,59 +128,123 @@ public class CalendarMonthItem implements CalendarAdapterContract.Row<CalendarMo
         return R.layout.item_month;
     }
 
-    @SuppressLint("DefaultLocale")
+    /**
+     * @param month year and month
+     * @return row position index in format yyyyMM
+     */
+    public static int getRowPosition(YearMonth month) {
+        return month.getYear() * 100 + month.getMonthOfYear();
+    }
+
     @Override
     public int getRowPosition() {
-        return Integer.parseInt(
-                String.format("%04d%02d", mMonth.getYear(), mMonth.getMonthOfYear()));
+        return getRowPosition(mMonth);
     }
 
     public YearMonth getMonth() {
         return mMonth;
     }
 
+    /**
+     * @return month index, see {@link EpochDays#monthIndex(int, int)}
+     */
+    public int getMonthIndex() {
+        return mMonthIndex;
+    }
+
     @Override
     public boolean isVisible() {
         return true;
     }
 
-    @SuppressLint("DefaultLocale")
     @Override
     public void onBindViewHolder(@NonNull ViewHolder viewHolder) {
-        Context context = viewHolder.itemView.getContext();
+        // while flinging, rendered month is enough, live binding is deferred until scroll settles
+        final Bitmap snapshot = isValidHandler() && mHandler.get().isFlinging()
+                ? mHandler.get().getSnapshotCache().get(mMonthIndex)
+                : null;
+        if (snapshot != null && viewHolder.root != null) {
+            viewHolder.root.setSnapshot(snapshot);
+            viewHolder.liveMonth = NO_MONTH;
+        } else {
+            bindLive(viewHolder);
+        }
+
+        if (mOnBindListener != null) {
+            mOnBindListener.onBindMonth(getMonth());
+        }
+    }
+
+    /**
+     * Binds real month content, replacing snapshot if it was shown
+     *
+     * @param viewHolder month holder
+     */
+    public void bindLive(@NonNull ViewHolder viewHolder) {
+        bind(viewHolder, mDaysAdapter, isValidHandler() ? mHandler.get().getWeekPool() : null);
+    }
 
+    /**
+     * Binds month into a detached holder for rendering. Rows are bound by a separate days adapter
+     * and taken from the given pool, so live adapter and shared week pool are not touched.
+     * Call {@link ViewHolder#releaseRows()} after rendering.
+     *
+     * @param viewHolder detached month holder
+     * @param pool       week pool of detached holder
+     */
+    void bindOffscreen(@NonNull ViewHolder viewHolder, @NonNull RecyclerView.RecycledViewPool pool) {
+        if (!isValidHandler()) {
+            return;
+        }
+        bind(viewHolder, new DaysAdapter(mHandler.get(), mWeeksDays), pool);
+    }
+
+    private void bind(@NonNull ViewHolder viewHolder, @NonNull DaysAdapter daysAdapter,
+                      @Nullable RecyclerView.RecycledViewPool pool) {
         if (isValidHandler()) {
+            final CalendarLabels labels = mHandler.get().getLabels();
             viewHolder.monthName.setVisibility(
                     mHandler.get().isEnabledLegend() ? View.VISIBLE : View.GONE);
-            viewHolder.monthName.setText(String.format("%s %d",
-                                                       mHandler.get().getMonthNames()[mMonth.getMonthOfYear() - 1],
-                                                       mMonth.getYear()));
+            viewHolder.monthName.setText(labels.getTitle(mMonthIndex));
 
-            for (int i = 0; i < 7; i++) {
-                ((TextView) viewHolder.weekDaysLayout.getChildAt(i))
-                        .setText(mHandler.get().getDaysOfWeek()[i]);
+            // legend is the same for every month, so rewrite it only when table changed
+            if (viewHolder.legendLabels != labels) {
+                final String[] daysOfWeek = labels.getDaysOfWeek();
+                for (int i = 0; i < 7; i++) {
+                    ((TextView) viewHolder.weekDaysLayout.getChildAt(i)).setText(daysOfWeek[i]);
+                }
+                viewHolder.legendLabels = labels;
             }
         }
 
+        if (pool != null && viewHolder.list.getRecycledViewPool() != pool) {
+            viewHolder.list.setRecycledViewPool(pool);
+        }
 
-        LinearLayoutManager layoutManager = new LinearLayoutManager(context,
-                                                                    LinearLayoutManager.VERTICAL,
-                                                                    false);
-
-        if (viewHolder.list.getItemAnimator() instanceof SimpleItemAnimator) {
-            ((SimpleItemAnimator) viewHolder.list.getItemAnimator()).setSupportsChangeAnimations(
-                    false);
+        final EventOverlayDecoration overlay = isValidHandler() ? mHandler.get().getEventOverlay() : null;
+        if (viewHolder.overlay != overlay) {
+            if (viewHolder.overlay != null) {
+                viewHolder.list.removeItemDecoration(viewHolder.overlay);
+            }
+            if (overlay != null) {
+                viewHolder.list.addItemDecoration(overlay);
+            }
+            viewHolder.overlay = overlay;
         }
-        viewHolder.list.setLayoutManager(layoutManager);
-        viewHolder.list.setNestedScrollingEnabled(false);
-        viewHolder.list.setHasFixedSize(true);
-        viewHolder.list.setItemViewCacheSize(mDaysAdapter.getItemCount());
-        viewHolder.list.setDrawingCacheEnabled(true);
-        viewHolder.list.setAdapter(mDaysAdapter);
 
+        if (viewHolder.list.getAdapter() == null) {
+            viewHolder.list.setAdapter(daysAdapter);
+        } else if (viewHolder.list.getAdapter() != daysAdapter) {
+            // previous month rows go to the shared pool and are rebound for this month
+            viewHolder.list.swapAdapter(daysAdapter, true);
+        } else {
+            // the same month bound again (e.g. outer list notified): attached rows must be rebound too
+            daysAdapter.notifyItemRangeChanged(0, daysAdapter.getItemCount());
+        }
 
-        if (mOnBindListener != null) {
-            mOnBindListener.onBindMonth(getMonth());
+        viewHolder.liveMonth = mMonthIndex;
+        if (viewHolder.root != null) {
+            viewHolder.root.setSnapshot(null);
         }
     }
 
@@ -196,14 +255,17 @@ public class CalendarMonthItem implements CalendarAdapterContract.Row<CalendarMo
         }
     }
 
+    @Deprecated
     @NonNull
     @Override
     public Class<ViewHolder> getViewHolderClass() {
         return ViewHolder.class;
     }
 
-    private boolean equalsMonthYear(DateTime first, DateTime second) {
-        return first.getYear() == second.getYear() && first.getMonthOfYear() == second.getMonthOfYear();
+    @NonNull
+    @Override
+    public ViewHolderFactory<ViewHolder> getViewHolderFactory() {
+        return HOLDER_FACTORY;
     }
 
     private boolean isValidHandler() {
@@ -222,12 +284,54 @@ public class CalendarMonthItem implements CalendarAdapterContract.Row<CalendarMo
         RecyclerView list;
         TextView monthName;
         LinearLayout weekDaysLayout;
+        CalendarLabels legendLabels;
+        MonthLayout root;
+        EventOverlayDecoration overlay;
+        int liveMonth = NO_MONTH;
 
         public ViewHolder(View itemView) {
             super(itemView);
             monthName = itemView.findViewById(R.id.monthName);
             list = itemView.findViewById(R.id.list);
             weekDaysLayout = itemView.findViewById(R.id.weekDaysLayout);
+            if (itemView instanceof MonthLayout) {
+                root = (MonthLayout) itemView;
+            }
+
+            // inner list is set up once per holder, months only swap adapters
+            final LinearLayoutManager layoutManager = new LinearLayoutManager(
+                    itemView.getContext(), LinearLayoutManager.VERTICAL, false);
+            layoutManager.setInitialPrefetchItemCount(MAX_WEEKS);
+            list.setLayoutManager(layoutManager);
+            if (list.getItemAnimator() instanceof SimpleItemAnimator) {
+                ((SimpleItemAnimator) list.getItemAnimator()).setSupportsChangeAnimations(false);
+            }
+            list.setNestedScrollingEnabled(false);
+            list.setHasFixedSize(true);
+            // no private cache: detached rows go straight to the shared pool
+            list.setItemViewCacheSize(0);
+        }
+
+        /**
+         * @return month layout root, or null if custom layout doesn't support snapshots
+         */
+        public MonthLayout getRoot() {
+            return root;
+        }
+
+        /**
+         * Detaches month adapter, week rows go to the shared pool
+         */
+        void releaseRows() {
+            list.setAdapter(null);
+            liveMonth = NO_MONTH;
+        }
+
+        /**
+         * @return true if real month content is bound, false if snapshot is shown
+         */
+        public boolean isLive() {
+            return liveMonth != NO_MONTH;
         }
     }
 }
@@ -0,0 +1,46 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+/**
+ * Renders day cells which need more than a day number: a price, an event dot, etc.
+ * Renderer declares a cell type per day, days of {@link #TYPE_DEFAULT} keep the plain cell
+ * of week layout. Week rows are pooled by the types of their 7 cells, so weeks without extra cells
+ * stay light and heavy cells are inflated only once per pooled row.
+ * <p>
+ * Cell layout must be a {@link android.widget.TextView} or contain one with id {@code dayNum}:
+ * it receives day number and decorators, renderer binds the rest in {@link #bindCell(CalendarDay, int, View)}.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface DayCellRenderer {
+    int TYPE_DEFAULT = 0;
+    /**
+     * Types are packed by 4 bits per cell into week view type
+     */
+    int MAX_CELL_TYPE = 15;
+
+    /**
+     * @return cell type in range 0..{@link #MAX_CELL_TYPE}, {@link #TYPE_DEFAULT} for plain cell
+     */
+    int getCellType(@NonNull CalendarDay day);
+
+    /**
+     * Called once per cell type and pooled row, not on every bind
+     *
+     * @param cellType type returned by {@link #getCellType(CalendarDay)}, never {@link #TYPE_DEFAULT}
+     */
+    @LayoutRes
+    int getCellLayoutRes(int cellType);
+
+    /**
+     * Called after day number and decorators are applied
+     *
+     * @param cell root view of inflated cell layout
+     */
+    void bindCell(@NonNull CalendarDay day, int cellType, @NonNull View cell);
+}
@@ -0,0 +1,295 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+import android.support.v4.util.SparseArrayCompat;
+import android.util.SparseIntArray;
+
+import com.edwardstock.vcalendar.CalendarHandler;
+import com.edwardstock.vcalendar.common.CalendarExecutors;
+import com.edwardstock.vcalendar.common.DayStates;
+import com.edwardstock.vcalendar.decorators.DayDecorator;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.MonthGrid;
+import com.edwardstock.vcalendar.decorators.ThreadSafeDecorator;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Evaluates {@link ThreadSafeDecorator}s of upcoming months on {@link CalendarExecutors#styles()}.
+ * Other {@link MonthDecorator}s are called on the main thread when the table is delivered, so bind
+ * never calls decorators of the month. Bind never waits for a running task: it binds without styles
+ * and rebinds when {@link OnStylesReadyListener} gets the result. A month without a started task
+ * is built right away by {@link #obtain(MonthGrid)}, so it's never drawn unstyled first.
+ * <p>
+ * Decorators see {@link DayStates} flags of days taken on the main thread when the month is scheduled.
+ * <p>
+ * Every result is stamped with decorators generation: invalidation bumps it, so tables computed
+ * for stale decorators or data are discarded on delivery.
+ * <p>
+ * Must be used only from the main thread, only table building runs in background.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayStylePrefetcher {
+    private static final int MAX_TABLES = 36;
+    private final WeakReference<CalendarHandler> mHandler;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<Integer, DayStyleTable> mTables = new LruCache<>(MAX_TABLES);
+    private final SparseArrayCompat<StyleTask> mPending = new SparseArrayCompat<>();
+    // month index -> generation of single month invalidations
+    private final SparseIntArray mMonthGenerations = new SparseIntArray();
+    private final OnStylesReadyListener mListener;
+    private int mGeneration = 0;
+    // order of scheduled and requested tasks
+    private long mSequence = 0;
+    // thread-safe decorators of current generation, collected on first use
+    private List<DayDecorator> mDayDecorators;
+    private List<MonthDecorator> mMonthDecorators;
+    // month decorators which are not thread-safe, called on delivery
+    private List<MonthDecorator> mMainMonthDecorators;
+
+    public DayStylePrefetcher(@NonNull CalendarHandler handler, @NonNull OnStylesReadyListener listener) {
+        mHandler = new WeakReference<>(checkNotNull(handler, "Calendar handler can't be null"));
+        mListener = checkNotNull(listener, "Listener can't be null");
+    }
+
+    public boolean hasDecorators() {
+        collectDecorators();
+        return !mDayDecorators.isEmpty() || !mMonthDecorators.isEmpty() || !mMainMonthDecorators.isEmpty();
+    }
+
+    /**
+     * Schedules table building if month has neither table nor pending task
+     */
+    public void prefetch(@NonNull MonthGrid grid) {
+        if (mPending.get(grid.getMonthIndex()) == null) {
+            schedule(grid, false);
+        }
+    }
+
+    /**
+     * Like {@link #prefetch(MonthGrid)}, but month goes ahead of every queued one, as it's being bound.
+     * Never waits, result comes to {@link OnStylesReadyListener}.
+     */
+    public void request(@NonNull MonthGrid grid) {
+        final StyleTask pending = mPending.get(grid.getMonthIndex());
+        if (pending == null) {
+            schedule(grid, true);
+            return;
+        }
+
+        // reorder only while queued, running or finished task is about to be delivered
+        final ThreadPoolExecutor executor = CalendarExecutors.styles();
+        if (executor.getQueue().remove(pending)) {
+            pending.urgent = true;
+            pending.sequence = ++mSequence;
+            executor.execute(pending);
+        }
+    }
+
+    /**
+     * Table of month being bound. If it's not ready and its task hasn't started, it's built
+     * on the caller thread, as the month is already on screen and would be drawn twice otherwise.
+     *
+     * @return table, or null if month has no decorators or its table is being built right now
+     */
+    @Nullable
+    public DayStyleTable obtain(@NonNull MonthGrid grid) {
+        final int monthIndex = grid.getMonthIndex();
+        DayStyleTable table = mTables.get(monthIndex);
+        if (table != null || !hasDecorators()) {
+            return table;
+        }
+        final StyleTask pending = mPending.get(monthIndex);
+        if (pending != null) {
+            if (!CalendarExecutors.styles().remove(pending)) {
+                // already running, don't wait for it
+                return null;
+            }
+            pending.cancel(false);
+            mPending.remove(monthIndex);
+        }
+
+        table = DayStyleTable.build(grid, collectStates(grid), mDayDecorators, mMonthDecorators);
+        table.addMonthStyles(grid, mMainMonthDecorators);
+        mTables.put(monthIndex, table);
+        return table;
+    }
+
+    @Nullable
+    public DayStyleTable get(int monthIndex) {
+        return mTables.get(monthIndex);
+    }
+
+    public boolean isPending(int monthIndex) {
+        return mPending.get(monthIndex) != null;
+    }
+
+    /**
+     * Drops all tables and pending results, call when decorators or their data changed
+     */
+    public void invalidateAll() {
+        mGeneration++;
+        mDayDecorators = null;
+        mMonthDecorators = null;
+        mMainMonthDecorators = null;
+        for (int i = 0; i < mPending.size(); i++) {
+            cancel(mPending.valueAt(i));
+        }
+        mPending.clear();
+        mTables.evictAll();
+    }
+
+    public void invalidate(int monthIndex) {
+        mMonthGenerations.put(monthIndex, mMonthGenerations.get(monthIndex, 0) + 1);
+        final StyleTask pending = mPending.get(monthIndex);
+        if (pending != null) {
+            cancel(pending);
+            mPending.remove(monthIndex);
+        }
+        mTables.remove(monthIndex);
+    }
+
+    /**
+     * Drops tables and pending results of months in range, months without them are not touched
+     *
+     * @param fromMonth first month index, inclusive
+     * @param toMonth   last month index, inclusive
+     */
+    public void invalidate(int fromMonth, int toMonth) {
+        final List<Integer> months = new ArrayList<>();
+        for (Integer monthIndex : mTables.snapshot().keySet()) {
+            if (monthIndex >= fromMonth && monthIndex <= toMonth) {
+                months.add(monthIndex);
+            }
+        }
+        for (int i = 0; i < mPending.size(); i++) {
+            final int monthIndex = mPending.keyAt(i);
+            if (monthIndex >= fromMonth && monthIndex <= toMonth && !months.contains(monthIndex)) {
+                months.add(monthIndex);
+            }
+        }
+        for (int monthIndex : months) {
+            invalidate(monthIndex);
+        }
+    }
+
+    private void deliver(DayStyleTable table, MonthGrid grid, List<MonthDecorator> mainMonthDecorators,
+                         int generation, int monthGeneration) {
+        final int monthIndex = table.getMonthIndex();
+        if (generation != mGeneration || monthGeneration != mMonthGenerations.get(monthIndex, 0)) {
+            // computed for stale decorators
+            return;
+        }
+        table.addMonthStyles(grid, mainMonthDecorators);
+        mPending.remove(monthIndex);
+        mTables.put(monthIndex, table);
+        mListener.onStylesReady(table);
+    }
+
+    private void schedule(MonthGrid grid, boolean urgent) {
+        final int monthIndex = grid.getMonthIndex();
+        if (!hasDecorators() || mTables.get(monthIndex) != null) {
+            return;
+        }
+
+        final List<DayDecorator> dayDecorators = mDayDecorators;
+        final List<MonthDecorator> monthDecorators = mMonthDecorators;
+        final List<MonthDecorator> mainMonthDecorators = mMainMonthDecorators;
+        final int generation = mGeneration;
+        final int monthGeneration = mMonthGenerations.get(monthIndex, 0);
+        final int[] states = collectStates(grid);
+        final StyleTask task = new StyleTask(() -> {
+            final DayStyleTable table = DayStyleTable.build(grid, states, dayDecorators, monthDecorators);
+            mMainHandler.post(() -> deliver(table, grid, mainMonthDecorators, generation, monthGeneration));
+            return table;
+        }, urgent, ++mSequence);
+        mPending.put(monthIndex, task);
+        CalendarExecutors.styles().execute(task);
+    }
+
+    private static void cancel(StyleTask task) {
+        task.cancel(false);
+        CalendarExecutors.styles().remove(task);
+    }
+
+    /**
+     * @return state flags of grid cells, background tasks never read {@link DayStates} itself
+     */
+    private int[] collectStates(MonthGrid grid) {
+        final int[] states = new int[grid.getCellCount()];
+        final CalendarHandler handler = mHandler.get();
+        if (handler == null) {
+            return states;
+        }
+        final DayStates dayStates = handler.getDayStates();
+        for (int cell = 0; cell < states.length; cell++) {
+            final int epochDay = grid.getDay(cell);
+            if (epochDay != MonthGrid.NO_DAY) {
+                states[cell] = dayStates.get(epochDay);
+            }
+        }
+        return states;
+    }
+
+    private void collectDecorators() {
+        if (mDayDecorators != null) {
+            return;
+        }
+        mDayDecorators = new ArrayList<>();
+        mMonthDecorators = new ArrayList<>();
+        mMainMonthDecorators = new ArrayList<>();
+        final CalendarHandler handler = mHandler.get();
+        if (handler == null) {
+            return;
+        }
+        for (DayDecorator decorator : handler.getDayDecorators()) {
+            if (decorator instanceof ThreadSafeDecorator) {
+                mDayDecorators.add(decorator);
+            }
+        }
+        for (MonthDecorator decorator : handler.getMonthDecorators()) {
+            if (decorator instanceof ThreadSafeDecorator) {
+                mMonthDecorators.add(decorator);
+            } else {
+                mMainMonthDecorators.add(decorator);
+            }
+        }
+    }
+
+    public interface OnStylesReadyListener {
+        void onStylesReady(@NonNull DayStyleTable table);
+    }
+
+    private static final class StyleTask extends FutureTask<DayStyleTable> implements Comparable<StyleTask> {
+        // changed only while task is out of executor queue
+        boolean urgent;
+        long sequence;
+
+        StyleTask(Callable<DayStyleTable> callable, boolean urgent, long sequence) {
+            super(callable);
+            this.urgent = urgent;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(@NonNull StyleTask other) {
+            if (urgent != other.urgent) {
+                return urgent ? -1 : 1;
+            }
+            // the latest requested month is the one on screen, prefetches keep their order
+            return urgent ? Long.compare(other.sequence, sequence) : Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.decorators.DayDecorator;
+import com.edwardstock.vcalendar.decorators.DayStyle;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.MonthGrid;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import java.util.List;
+
+/**
+ * Styles of one month keyed by epoch day: from {@link com.edwardstock.vcalendar.decorators.ThreadSafeDecorator}s,
+ * built on a background thread, and from other month decorators, added on the main thread before
+ * the table is published. Only read afterwards.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayStyleTable {
+    private final int mMonthIndex;
+    private final SparseArrayCompat<DayStyle> mDayStyles = new SparseArrayCompat<>();
+    private final SparseArrayCompat<DayStyle> mMonthStyles = new SparseArrayCompat<>();
+
+    private DayStyleTable(int monthIndex) {
+        mMonthIndex = monthIndex;
+    }
+
+    /**
+     * @param states state flags of grid cells, see {@link com.edwardstock.vcalendar.common.DayStates}
+     */
+    static DayStyleTable build(@NonNull MonthGrid grid, @NonNull int[] states,
+                               @NonNull List<DayDecorator> dayDecorators,
+                               @NonNull List<MonthDecorator> monthDecorators) {
+        final DayStyleTable table = new DayStyleTable(grid.getMonthIndex());
+
+        if (!dayDecorators.isEmpty()) {
+            final RecordingDayViewFacade facade = new RecordingDayViewFacade();
+            for (int cell = 0; cell < grid.getCellCount(); cell++) {
+                final int epochDay = grid.getDay(cell);
+                if (epochDay == MonthGrid.NO_DAY) {
+                    continue;
+                }
+                // detached day: decorators see state flags, but never selection of shown days
+                final CalendarDay day = new CalendarDay(epochDay).setState(states[cell]);
+                for (DayDecorator decorator : dayDecorators) {
+                    if (decorator.shouldDecorate(day)) {
+                        decorator.decorate(day, facade, Neighbourhood.NO_NEIGHBOURS);
+                    }
+                }
+                final DayStyle style = facade.takeStyle();
+                if (!style.isEmpty()) {
+                    table.mDayStyles.put(epochDay, style);
+                }
+            }
+        }
+
+        table.addMonthStyles(grid, monthDecorators);
+        return table;
+    }
+
+    /**
+     * Adds styles of month decorators which must be called on the main thread.
+     * Called before table is published.
+     */
+    void addMonthStyles(@NonNull MonthGrid grid, @NonNull List<MonthDecorator> monthDecorators) {
+        for (MonthDecorator decorator : monthDecorators) {
+            final SparseArrayCompat<DayStyle> result = decorator.decorate(grid);
+            if (result != null) {
+                merge(mMonthStyles, result, grid);
+            }
+        }
+    }
+
+    /**
+     * Layers styles of result on top of target, skipping days outside of grid
+     */
+    static void merge(SparseArrayCompat<DayStyle> target, SparseArrayCompat<DayStyle> result, MonthGrid grid) {
+        for (int i = 0; i < result.size(); i++) {
+            final int epochDay = result.keyAt(i);
+            final DayStyle style = result.valueAt(i);
+            if (style == null || !grid.contains(epochDay)) {
+                continue;
+            }
+            final DayStyle current = target.get(epochDay);
+            if (current == null) {
+                target.put(epochDay, new DayStyle().merge(style));
+            } else {
+                current.merge(style);
+            }
+        }
+    }
+
+    public int getMonthIndex() {
+        return mMonthIndex;
+    }
+
+    /**
+     * @return style recorded from day decorators
+     */
+    @Nullable
+    public DayStyle getDayStyle(int epochDay) {
+        return mDayStyles.get(epochDay);
+    }
+
+    /**
+     * @return style from month decorators
+     */
+    @Nullable
+    public DayStyle getMonthStyle(int epochDay) {
+        return mMonthStyles.get(epochDay);
+    }
+}
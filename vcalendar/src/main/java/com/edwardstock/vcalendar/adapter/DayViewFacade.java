@@ -5,9 +5,11 @@ import android.graphics.drawable.Drawable;
 import android.support.annotation.ColorInt;
 import android.support.annotation.ColorRes;
 import android.support.annotation.DrawableRes;
+import android.support.annotation.Nullable;
 import android.widget.TextView;
 
 import com.edwardstock.vcalendar.R;
+import com.edwardstock.vcalendar.common.ResourceCache;
 
 import java.lang.ref.WeakReference;
 
@@ -18,9 +20,18 @@ import java.lang.ref.WeakReference;
  */
 public class DayViewFacade {
     private WeakReference<TextView> mView;
+    private final ResourceCache mResources;
 
     public DayViewFacade(final TextView view) {
+        this(view, null);
+    }
+
+    /**
+     * @param resources resolved resources of calendar, if null, resources are looked up on every call
+     */
+    public DayViewFacade(final TextView view, @Nullable ResourceCache resources) {
         mView = new WeakReference<>(view);
+        mResources = resources;
     }
 
     /**
@@ -42,7 +53,7 @@ public class DayViewFacade {
      * @param colorRes Color resource id
      */
     public void setTextColorRes(@ColorRes int colorRes) {
-        setTextColor(getView().getContext().getResources().getColor(colorRes));
+        setTextColor(resolveColor(colorRes));
     }
 
     public void setTextColor(ColorStateList colors) {
@@ -54,7 +65,11 @@ public class DayViewFacade {
     }
 
     public void setBackgroundResource(@DrawableRes int resId) {
-        getView().setBackgroundResource(resId);
+        if (mResources == null) {
+            getView().setBackgroundResource(resId);
+            return;
+        }
+        getView().setBackground(mResources.getDrawable(resId));
     }
 
     public void setBackgroundColor(@ColorInt int color) {
@@ -66,7 +81,7 @@ public class DayViewFacade {
     }
 
     public void reset() {
-        getView().setTextColor(getView().getContext().getResources().getColor(R.color.vcal_text_color_dark));
+        getView().setTextColor(resolveColor(R.color.vcal_text_color_dark));
         getView().setBackground(null);
         getView().setSelected(false);
         getView().setClickable(true);
@@ -76,5 +91,13 @@ public class DayViewFacade {
         return mView.get();
     }
 
+    @ColorInt
+    private int resolveColor(@ColorRes int colorRes) {
+        if (mResources != null) {
+            return mResources.getColor(colorRes);
+        }
+        return getView().getContext().getResources().getColor(colorRes);
+    }
+
 
 }
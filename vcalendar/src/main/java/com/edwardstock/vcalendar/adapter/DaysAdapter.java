@@ -4,7 +4,6 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
-import android.support.v4.util.ArrayMap;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -13,14 +12,21 @@ import android.widget.TextView;
 
 import com.annimon.stream.Stream;
 import com.edwardstock.vcalendar.CalendarHandler;
+import com.edwardstock.vcalendar.R;
 import com.edwardstock.vcalendar.SelectionMode;
+import com.edwardstock.vcalendar.common.CalendarLabels;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.decorators.DayDecorator;
+import com.edwardstock.vcalendar.decorators.DayStyle;
 import com.edwardstock.vcalendar.decorators.DefaultDayDecorator;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.MonthGrid;
+import com.edwardstock.vcalendar.decorators.ThreadSafeDecorator;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
 import org.joda.time.DateTime;
 
 import java.lang.ref.WeakReference;
-import java.util.Map;
 
 import timber.log.Timber;
 
@@ -36,13 +42,25 @@ import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
  * @author Eduard Maximovich <edward.vstock@gmail.com>
  */
 public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
+    // week of plain cells, the same type prewarmed views are created for
+    public static final int WEEK_TYPE_DEFAULT = 0;
+    private static final int CELL_TYPE_BITS = 4;
+    // pooled weeks of one renderer signature, pool keeps only 5 of each type by default
+    private static final int SIGNATURE_POOL_SIZE = CalendarMonthItem.MAX_WEEKS * 2;
     private final CalendarDay[][] mData;
     private final DefaultDayDecorator mDefaultDayDecorator = new DefaultDayDecorator();
     private LayoutInflater mInflater;
     private WeakReference<Context> mContext;
     private WeakReference<CalendarHandler> mCalendarHandler;
     private DayItemClickedListener mDayItemClickedListener;
-    private Map<Integer, DayIndex> mDayIndex = new ArrayMap<>();
+    // grid cell and day of month of the first non-empty cell, other days are addressed arithmetically
+    private final int mFirstCell;
+    private final int mFirstDay;
+    private final MonthGrid mGrid;
+    // styles of thread-safe decorators and month decorators, computed ahead of time
+    private DayStyleTable mStyleTable;
+    // bound without style table, rebind when it's ready
+    private boolean mStyleTableDeferred = false;
 
     public DaysAdapter(@NonNull CalendarHandler calendarHandler,
                        @NonNull final CalendarDay[][] weeksDays) {
@@ -51,12 +69,108 @@ public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
         if (mData.length == 0) {
             throw new IllegalArgumentException("Days can't be empty!");
         }
+
+        int firstCell = 0;
+        while (firstCell < 7 && mData[0][firstCell] == null) {
+            firstCell++;
+        }
+        if (firstCell == 7) {
+            throw new IllegalArgumentException("First week can't be empty!");
+        }
+        mFirstCell = firstCell;
+        mFirstDay = mData[0][firstCell].getDay();
+        mGrid = new MonthGrid(mData);
+    }
+
+    /**
+     * @param position week row position
+     * @return epoch day of the row's first cell, it may be outside of month
+     */
+    public int getWeekFirstDay(int position) {
+        return mData[0][mFirstCell].getEpochDay() - mFirstCell + position * 7;
+    }
+
+    /**
+     * @return month grid as epoch days, the same passed to {@link MonthDecorator}s
+     */
+    public MonthGrid getGrid() {
+        return mGrid;
+    }
+
+    /**
+     * Drops styles from month decorators, they will be requested again on next bind.
+     * Doesn't notify adapter.
+     */
+    public void invalidateMonthStyles() {
+        mStyleTable = null;
+        mStyleTableDeferred = false;
+    }
+
+    /**
+     * @param table styles computed in background for this month
+     * @return true if rows were bound without styles and have been notified
+     */
+    public boolean setStyleTable(@NonNull DayStyleTable table) {
+        if (table.getMonthIndex() != mGrid.getMonthIndex()) {
+            return false;
+        }
+        mStyleTable = table;
+        if (mStyleTableDeferred) {
+            mStyleTableDeferred = false;
+            notifyItemRangeChanged(0, getItemCount());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Bind takes a ready table or builds it if month's task hasn't started yet. Only while the task
+     * is running it binds without styles and rebinds when the table arrives.
+     */
+    @Nullable
+    private DayStyleTable getStyleTable() {
+        if (mStyleTable != null || mStyleTableDeferred) {
+            return mStyleTable;
+        }
+
+        final DayStylePrefetcher prefetcher = mCalendarHandler.get().getStylePrefetcher();
+        mStyleTable = prefetcher.obtain(mGrid);
+        if (mStyleTable == null && prefetcher.isPending(mGrid.getMonthIndex())) {
+            mStyleTableDeferred = true;
+        }
+        return mStyleTable;
     }
 
     public void setOnDayItemClickListener(DayItemClickedListener listener) {
         mDayItemClickedListener = listener;
     }
 
+    /**
+     * @return types of row cells, {@link DayCellRenderer#TYPE_DEFAULT} or 4 bits per cell from the first one
+     */
+    @Override
+    public int getItemViewType(int position) {
+        final DayCellRenderer renderer = mCalendarHandler.get().getDayCellRenderer();
+        if (renderer == null) {
+            return WEEK_TYPE_DEFAULT;
+        }
+
+        final CalendarDay[] days = mData[position];
+        int signature = WEEK_TYPE_DEFAULT;
+        for (int i = 0; i < days.length; i++) {
+            if (days[i] == null) {
+                continue;
+            }
+            final int cellType = renderer.getCellType(days[i]);
+            if (cellType < 0 || cellType > DayCellRenderer.MAX_CELL_TYPE) {
+                throw new IllegalStateException(String.format(
+                        "Cell type must be in range 0..%d, got %d", DayCellRenderer.MAX_CELL_TYPE, cellType));
+            }
+            signature |= cellType << (i * CELL_TYPE_BITS);
+        }
+        return signature;
+    }
+
     @NonNull
     @Override
     public WeekHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -67,130 +181,154 @@ public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
             mInflater = LayoutInflater.from(mContext.get());
         }
 
-        View view = mInflater.inflate(mCalendarHandler.get().getWeekLayoutRes(), parent, false);
+        final int layoutRes = mCalendarHandler.get().getWeekLayoutRes();
+        View view = mCalendarHandler.get().getViewPrewarmer().poll(layoutRes);
+        if (view == null) {
+            view = mInflater.inflate(layoutRes, parent, false);
+        }
+        if (viewType != WEEK_TYPE_DEFAULT) {
+            replaceCells((ViewGroup) view, viewType);
+            mCalendarHandler.get().getWeekPool().setMaxRecycledViews(viewType, SIGNATURE_POOL_SIZE);
+        }
         WeekHolder holder = new WeekHolder(view);
 
-        if (mDayItemClickedListener != null) {
-            Stream.of(holder.days).forEachIndexed((idx, item) -> {
-                item.setOnClickListener(v -> {
-                    final int pos = holder.getAdapterPosition();
-                    if (mData[pos] != null && mData[pos][idx] != null) {
-                        mDayItemClickedListener.onClick(mData[pos][idx], v, this);
-                    }
-                });
+        // week holders are shared between months through the pool,
+        // so click goes to the adapter which bound the holder last
+        Stream.of(holder.cells).forEachIndexed((idx, item) -> {
+            item.setOnClickListener(v -> {
+                final DaysAdapter adapter = holder.adapter;
+                final int pos = holder.getAdapterPosition();
+                if (adapter == null || adapter.mDayItemClickedListener == null || pos < 0) {
+                    return;
+                }
+                if (adapter.mData[pos] != null && adapter.mData[pos][idx] != null) {
+                    adapter.mDayItemClickedListener.onClick(adapter.mData[pos][idx], v, adapter);
+                }
             });
-        }
+        });
 
         return holder;
     }
 
     @Override
     public void onBindViewHolder(@NonNull WeekHolder holder, int position) {
+        holder.adapter = this;
         final CalendarDay[] days = mData[position];
+        final CalendarLabels labels = mCalendarHandler.get().getLabels();
+        final int disabledMask = mCalendarHandler.get().getSelectionDispatcher().getConstraints()
+                .getMonthMask(mGrid.getMonthIndex());
+        final int viewType = holder.getItemViewType();
+        final DayCellRenderer renderer = mCalendarHandler.get().getDayCellRenderer();
         Stream.of(days).forEachIndexed((idx, calendarDay) -> {
             final TextView tv = holder.days[idx];
+            final View cell = holder.cells[idx];
             if (days[idx] == null) {
-                tv.setVisibility(View.INVISIBLE);
-                tv.setClickable(false);
+                cell.setVisibility(View.INVISIBLE);
+                cell.setClickable(false);
                 return;
             }
 
-            tv.setVisibility(View.VISIBLE);
-            tv.setClickable(true);
-            tv.setText(String.valueOf(calendarDay.getDay()));
+            cell.setVisibility(View.VISIBLE);
+            cell.setClickable(true);
+            tv.setText(labels.getDayNumber(calendarDay.getDay()));
 
-            resolveStyle(calendarDay, tv);
+            resolveStyle(calendarDay, tv, (disabledMask & (1 << (calendarDay.getDay() - 1))) != 0);
+
+            final int cellType = (viewType >> (idx * CELL_TYPE_BITS)) & DayCellRenderer.MAX_CELL_TYPE;
+            if (renderer != null && cellType != DayCellRenderer.TYPE_DEFAULT) {
+                renderer.bindCell(calendarDay, cellType, cell);
+            }
         });
     }
 
+    /**
+     * Replaces plain cells of week row by renderer cells, once per pooled row
+     */
+    private void replaceCells(ViewGroup row, int viewType) {
+        final DayCellRenderer renderer = checkNotNull(mCalendarHandler.get().getDayCellRenderer(),
+                "Cell renderer has been removed");
+        for (int i = 0; i < row.getChildCount(); i++) {
+            final int cellType = (viewType >> (i * CELL_TYPE_BITS)) & DayCellRenderer.MAX_CELL_TYPE;
+            if (cellType == DayCellRenderer.TYPE_DEFAULT) {
+                continue;
+            }
+            final View cell = mInflater.inflate(renderer.getCellLayoutRes(cellType), row, false);
+            row.removeViewAt(i);
+            row.addView(cell, i);
+        }
+    }
+
     @Override
     public int getItemCount() {
         return mData.length;
     }
 
     public void updateRange(CalendarDay begin, CalendarDay end) {
-        updateRange(begin.getDateTime(), end.getDateTime());
+        updateRange(begin.getEpochDay(), end.getEpochDay());
     }
 
     public void updateRange(DateTime begin, DateTime end) {
-        if (begin.getMonthOfYear() != end.getMonthOfYear()) {
-            Timber.w("Can't update range in a few months");
+        updateRange(EpochDays.of(begin), EpochDays.of(end));
+    }
+
+    /**
+     * Rebinds week rows of range part inside this month, range may span several months
+     *
+     * @param fromDay first epoch day, inclusive
+     * @param toDay   last epoch day, inclusive
+     */
+    public void updateRange(int fromDay, int toDay) {
+        final int from = Math.max(fromDay, mGrid.getFirstDay());
+        final int to = Math.min(toDay, mGrid.getLastDay());
+        if (from > to) {
             return;
         }
 
-        DayIndex first = getOrCreateIndex(begin.getDayOfMonth());
-        DayIndex last = getOrCreateIndex(begin.getDayOfMonth());
-        notifyItemRangeChanged(first.weekIdx, last.weekIdx - first.weekIdx);
-
+        final int firstEpochDay = mData[0][mFirstCell].getEpochDay();
+        final int firstWeek = (mFirstCell + from - firstEpochDay) / 7;
+        final int lastWeek = (mFirstCell + to - firstEpochDay) / 7;
+        notifyItemRangeChanged(firstWeek, lastWeek - firstWeek + 1);
     }
 
     public void update(CalendarDay calendarDay) {
-        update(calendarDay.getDateTime());
+        update(calendarDay.getDay());
     }
 
     public void update(DateTime dateTime) {
-        DayIndex index = getOrCreateIndex(dateTime.getDayOfMonth());
+        update(dateTime.getDayOfMonth());
+    }
+
+    /**
+     * @param dayNum day of month
+     */
+    public void update(int dayNum) {
+        DayIndex index = getOrCreateIndex(dayNum);
         if (index == null) {
-            Timber.i("Day not found: %s", dateTime.toString());
+            Timber.i("Day not found: %d", dayNum);
             return;
         }
         notifyItemChanged(index.weekIdx, index);
     }
 
     public boolean hasIndex(int dayNum) {
-        return mDayIndex.containsKey(dayNum);
+        final int cell = mFirstCell + dayNum - mFirstDay;
+        return cell >= 0 && cell / 7 < mData.length && mData[cell / 7][cell % 7] != null;
     }
 
     public DayIndex getIndex(int dayNum) {
-        return mDayIndex.get(dayNum);
-    }
-
-    public DayIndex getOrCreateIndex(int dayNum) {
         if (!hasIndex(dayNum)) {
-            return createIndex(dayNum);
-        }
-
-        return getIndex(dayNum);
-    }
-
-    private DayIndex createIndex(int dayNum) {
-        // wtf ask you? ok, so try to find 7 day in first week.
-        // if we just divide 7/7 than we will have 1, first week?
-        // yes, but index of first week must be 0,
-        // so 14 day will be 3rd week, not the second, but 14 day is a sunday
-        // and it can't be in the next week..
-        int closerWeek = (int) (((float) dayNum - 0.1f) / 7f);
-
-        DayIndex index = null;
-
-        if (closerWeek > mData.length) {
-            closerWeek = 0;
-        }
-
-        if (mData[closerWeek][0] != null && mData[closerWeek][0].getDay() == dayNum) {
-            index = new DayIndex(closerWeek, 0);
-        } else if (mData[closerWeek][6] != null && mData[closerWeek][6].getDay() == dayNum) {
-            index = new DayIndex(closerWeek, 6);
-        } else {
-            while (index == null && closerWeek < mData.length) {
-                for (int i = 0; i < 7; i++) {
-                    if (mData[closerWeek].length > i && mData[closerWeek][i] != null && mData[closerWeek][i].getDay() == dayNum) {
-                        index = new DayIndex(closerWeek, i);
-                        break;
-                    }
-                }
-                closerWeek++;
-            }
-        }
-
-        //noinspection ConstantConditions
-        if (index == null) {
             return null;
         }
 
-        mDayIndex.put(dayNum, index);
+        final int cell = mFirstCell + dayNum - mFirstDay;
+        return new DayIndex(cell / 7, cell % 7);
+    }
 
-        return index;
+    /**
+     * Index is computed from the grid geometry, nothing is cached anymore
+     */
+    public DayIndex getOrCreateIndex(int dayNum) {
+        return getIndex(dayNum);
     }
 
     private CalendarDay getDayByIndex(DayIndex index) {
@@ -239,32 +377,55 @@ public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
         return NO_NEIGHBOURS;
     }
 
-    private void resolveStyle(final CalendarDay day, final TextView tv) {
-        CalendarDay previousDay = mCalendarHandler.get().getPreviousDay(day);
-        CalendarDay nextDay = mCalendarHandler.get().getNextDay(day);
-        int dayOfWeek = day.getDateTime().getDayOfWeek();
+    private void resolveStyle(final CalendarDay day, final TextView tv, boolean disabled) {
+        final CalendarHandler handler = mCalendarHandler.get();
+        CalendarDay previousDay = handler.getDay(day.getEpochDay() - 1);
+        CalendarDay nextDay = handler.getDay(day.getEpochDay() + 1);
+        int dayOfWeek = day.getDayOfWeek();
 
-        if ((nextDay.getMonth() > day.getMonth() || nextDay.getYear() > day.getYear()) && dayOfWeek != 7) {
+        // range background breaks on the month edge, except when the week is already over
+        if (nextDay != null && nextDay.getMonth() != day.getMonth() && dayOfWeek != 7) {
             nextDay = null;
         }
-        if ((previousDay.getMonth() < day.getMonth() || previousDay.getYear() < day.getYear()) && dayOfWeek != 1) {
+        if (previousDay != null && previousDay.getMonth() != day.getMonth() && dayOfWeek != 1) {
             previousDay = null;
         }
 
         int neighbourhood = getNeighbourhood(previousDay, nextDay);
-        final DayViewFacade facade = new DayViewFacade(tv);
+        final DayViewFacade facade = new DayViewFacade(tv, handler.getResourceCache());
         facade.reset();
         facade.setSelectedState(day.isSelected());
 
+        // month styles go first, selection and state styles are drawn over them
+        final DayStyleTable table = getStyleTable();
+        final DayStyle monthStyle = table == null ? null : table.getMonthStyle(day.getEpochDay());
+        if (monthStyle != null) {
+            monthStyle.apply(facade);
+        }
+
         boolean isRange = mCalendarHandler.get().getSelectionDispatcher().getMode() == SelectionMode.RANGE;
         if (mCalendarHandler.get().isEnabledDefaultDecorator()) {
             if (mDefaultDayDecorator.shouldDecorate(day)) {
                 mDefaultDayDecorator.decorate(day, facade, neighbourhood);
             }
         }
+        final DayDecorator disabledDecorator = handler.getDisabledDayDecorator();
+        if (disabled && disabledDecorator != null && disabledDecorator.shouldDecorate(day)) {
+            disabledDecorator.decorate(day, facade, Neighbourhood.NO_NEIGHBOURS);
+        }
+
+        final DayStyle precomputed = table == null ? null : table.getDayStyle(day.getEpochDay());
+        if (precomputed != null) {
+            precomputed.apply(facade);
+        }
         Stream.of(mCalendarHandler.get().getDayDecorators())
-                .filter(item -> item.shouldDecorate(day))
+                .filter(item -> !(item instanceof ThreadSafeDecorator) && item.shouldDecorate(day))
                 .forEach(item -> item.decorate(day, facade, isRange ? neighbourhood : Neighbourhood.NO_NEIGHBOURS));
+        if (day.getState() != 0) {
+            for (DayDecorator item : handler.getStateDecorators().find(day.getState())) {
+                item.decorate(day, facade, isRange ? neighbourhood : Neighbourhood.NO_NEIGHBOURS);
+            }
+        }
     }
 
     public interface DayItemClickedListener {
@@ -296,7 +457,10 @@ public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
     }
 
     public static final class WeekHolder extends RecyclerView.ViewHolder {
+        // cell roots, the same as days for plain cells
+        View[] cells = new View[7];
         TextView[] days = new TextView[7];
+        DaysAdapter adapter;
 
         public WeekHolder(View itemView) {
             super(itemView);
@@ -305,13 +469,16 @@ public class DaysAdapter extends RecyclerView.Adapter<DaysAdapter.WeekHolder> {
                 throw new IllegalStateException(
                         "Invalid week layout passed to days adapter! Layout MUST contains exact 7 TextView children.");
             }
-            days[0] = ((TextView) vg.getChildAt(0));
-            days[1] = ((TextView) vg.getChildAt(1));
-            days[2] = ((TextView) vg.getChildAt(2));
-            days[3] = ((TextView) vg.getChildAt(3));
-            days[4] = ((TextView) vg.getChildAt(4));
-            days[5] = ((TextView) vg.getChildAt(5));
-            days[6] = ((TextView) vg.getChildAt(6));
+            for (int i = 0; i < 7; i++) {
+                cells[i] = vg.getChildAt(i);
+                days[i] = cells[i] instanceof TextView
+                        ? (TextView) cells[i]
+                        : (TextView) cells[i].findViewById(R.id.dayNum);
+                if (days[i] == null) {
+                    throw new IllegalStateException(
+                            "Invalid day cell layout! Cell MUST be a TextView or contain TextView with id dayNum.");
+                }
+            }
         }
     }
 }
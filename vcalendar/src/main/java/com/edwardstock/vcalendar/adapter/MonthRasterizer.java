@@ -0,0 +1,279 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.DisplayMetrics;
+import android.view.View;
+
+import com.edwardstock.vcalendar.CalendarHandler;
+import com.edwardstock.vcalendar.R;
+
+import java.lang.ref.WeakReference;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Renders months into {@link MonthSnapshotCache} while the main thread is idle: visible months first,
+ * then {@link #PRERENDER_MONTHS} months around them through a detached holder with its own
+ * days adapter and week pool. While flinging, attached months show their snapshots, live content
+ * is bound again when scroll settles.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class MonthRasterizer implements MessageQueue.IdleHandler {
+    // months around visible ones rendered in background
+    public static final int PRERENDER_MONTHS = 6;
+    // default budget of snapshots, in screens of pixels
+    private static final int DEFAULT_CACHE_SCREENS = 3;
+    // default budget never takes more than this part of the heap
+    private static final int MAX_HEAP_FRACTION = 16;
+    private final Context mContext;
+    private final WeakReference<CalendarHandler> mHandler;
+    private RecyclerView mList;
+    private CalendarAdapter mAdapter;
+    private MonthSnapshotCache mCache;
+    private boolean mScheduled = false;
+    // detached holder to render months which are not on screen yet
+    private CalendarMonthItem.ViewHolder mRenderHolder;
+    // week rows of the detached holder, kept apart from the shared week pool
+    private final RecyclerView.RecycledViewPool mRenderPool = new RecyclerView.RecycledViewPool();
+
+    public MonthRasterizer(@NonNull Context context, @NonNull CalendarHandler handler) {
+        mContext = checkNotNull(context, "Context can't be null");
+        mHandler = new WeakReference<>(checkNotNull(handler, "Calendar handler can't be null"));
+    }
+
+    /**
+     * @param list    months list, must use {@link LinearLayoutManager}
+     * @param adapter adapter of months list
+     */
+    public void attach(@NonNull RecyclerView list, @NonNull CalendarAdapter adapter) {
+        mList = checkNotNull(list, "List can't be null");
+        mAdapter = checkNotNull(adapter, "Adapter can't be null");
+    }
+
+    /**
+     * @return cache of rendered months, created on first access with budget of a few screens,
+     * but not more than 1/{@value #MAX_HEAP_FRACTION} of the heap
+     */
+    @NonNull
+    public MonthSnapshotCache getCache() {
+        if (mCache == null) {
+            final DisplayMetrics metrics = mContext.getResources().getDisplayMetrics();
+            final long screenBytes = (long) metrics.widthPixels * metrics.heightPixels * 4;
+            final long heapBytes = Runtime.getRuntime().maxMemory() / MAX_HEAP_FRACTION;
+            mCache = new MonthSnapshotCache((int) Math.min(Integer.MAX_VALUE,
+                                                           Math.min(screenBytes * DEFAULT_CACHE_SCREENS, heapBytes)));
+        }
+        return mCache;
+    }
+
+    /**
+     * @param maxBytes budget in bytes, 0 disables rendering
+     */
+    public void setCacheSize(int maxBytes) {
+        mCache = new MonthSnapshotCache(maxBytes);
+    }
+
+    public void invalidate(int monthIndex) {
+        if (mCache != null) {
+            mCache.invalidate(monthIndex);
+            schedule();
+        }
+    }
+
+    public void invalidateAll() {
+        if (mCache != null) {
+            mCache.invalidateAll();
+            schedule();
+        }
+    }
+
+    /**
+     * Holders taken from the view cache are attached without binding, so their snapshot
+     * may be outdated or the scroll may be already settled
+     */
+    public void onMonthAttached(@NonNull RecyclerView.ViewHolder holder) {
+        if (!(holder instanceof CalendarMonthItem.ViewHolder)) {
+            return;
+        }
+
+        final CalendarMonthItem.ViewHolder monthHolder = (CalendarMonthItem.ViewHolder) holder;
+        if (monthHolder.isLive()) {
+            return;
+        }
+
+        final CalendarMonthItem row = findMonthRow(monthHolder);
+        if (row == null) {
+            return;
+        }
+
+        final Bitmap snapshot = monthHolder.getRoot() == null ? null : monthHolder.getRoot().getSnapshot();
+        if (!isFlinging() || snapshot == null || getCache().get(row.getMonthIndex()) != snapshot) {
+            row.bindLive(monthHolder);
+        }
+    }
+
+    /**
+     * Replaces snapshots of attached months by live content, when scroll settles
+     */
+    public void bindLiveMonths() {
+        if (mList == null) {
+            return;
+        }
+        for (int i = 0; i < mList.getChildCount(); i++) {
+            onMonthAttached(mList.getChildViewHolder(mList.getChildAt(i)));
+        }
+    }
+
+    public void schedule() {
+        if (mScheduled || mList == null || isFlinging()) {
+            return;
+        }
+        mScheduled = true;
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    public void cancel() {
+        if (mScheduled) {
+            Looper.myQueue().removeIdleHandler(this);
+            mScheduled = false;
+        }
+    }
+
+    @Override
+    public boolean queueIdle() {
+        mScheduled = rasterizeNext();
+        return mScheduled;
+    }
+
+    /**
+     * Renders one month per call: visible ones first, then their neighbours
+     *
+     * @return true if there is more work
+     */
+    private boolean rasterizeNext() {
+        if (mList == null || isFlinging() || mList.getScrollState() != RecyclerView.SCROLL_STATE_IDLE) {
+            return false;
+        }
+
+        final int width = mList.getWidth() - mList.getPaddingLeft() - mList.getPaddingRight();
+        if (width <= 0) {
+            return false;
+        }
+
+        final MonthSnapshotCache cache = getCache();
+        cache.setWidth(width);
+
+        for (int i = 0; i < mList.getChildCount(); i++) {
+            final RecyclerView.ViewHolder holder = mList.getChildViewHolder(mList.getChildAt(i));
+            if (!(holder instanceof CalendarMonthItem.ViewHolder)) {
+                continue;
+            }
+            final CalendarMonthItem.ViewHolder monthHolder = (CalendarMonthItem.ViewHolder) holder;
+            final CalendarMonthItem row = findMonthRow(monthHolder);
+            if (row == null || !monthHolder.isLive() || monthHolder.getRoot() == null
+                    || cache.contains(row.getMonthIndex())) {
+                continue;
+            }
+
+            final View view = monthHolder.itemView;
+            if (view.getWidth() != width || view.getHeight() <= 0 || view.isLayoutRequested()) {
+                continue;
+            }
+            final Bitmap bitmap = Bitmap.createBitmap(width, view.getHeight(), Bitmap.Config.ARGB_8888);
+            monthHolder.getRoot().capture(bitmap);
+            cache.put(row.getMonthIndex(), bitmap);
+            return true;
+        }
+
+        final LinearLayoutManager layoutManager = (LinearLayoutManager) mList.getLayoutManager();
+        final int first = layoutManager.findFirstVisibleItemPosition();
+        final int last = layoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            return false;
+        }
+
+        for (int distance = 1; distance <= PRERENDER_MONTHS; distance++) {
+            if (renderOffscreen(last + distance, width) || renderOffscreen(first - distance, width)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean renderOffscreen(int position, int width) {
+        if (position < 0 || position >= mAdapter.getItemCount()) {
+            return false;
+        }
+
+        final CalendarAdapterContract.Row item = mAdapter.getItemByPosition(position);
+        if (!(item instanceof CalendarMonthItem)) {
+            return false;
+        }
+
+        final CalendarMonthItem row = (CalendarMonthItem) item;
+        final MonthSnapshotCache cache = getCache();
+        if (cache.contains(row.getMonthIndex())) {
+            return false;
+        }
+
+        final CalendarHandler handler = mHandler.get();
+        if (handler == null) {
+            return false;
+        }
+        // render adapter never waits for styles, so don't capture a month without them
+        final DayStylePrefetcher prefetcher = handler.getStylePrefetcher();
+        if (prefetcher.hasDecorators() && prefetcher.get(row.getMonthIndex()) == null) {
+            prefetcher.prefetch(row.getAdapter().getGrid());
+            return false;
+        }
+
+        if (mRenderHolder == null) {
+            mRenderHolder = (CalendarMonthItem.ViewHolder) mAdapter.createViewHolder(mList, R.layout.item_month);
+            mRenderPool.setMaxRecycledViews(DaysAdapter.WEEK_TYPE_DEFAULT, CalendarMonthItem.MAX_WEEKS);
+        }
+        if (mRenderHolder.getRoot() == null) {
+            return false;
+        }
+
+        row.bindOffscreen(mRenderHolder, mRenderPool);
+        final View view = mRenderHolder.itemView;
+        view.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                     View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+        if (view.getMeasuredHeight() > 0) {
+            final Bitmap bitmap = Bitmap.createBitmap(width, view.getMeasuredHeight(), Bitmap.Config.ARGB_8888);
+            mRenderHolder.getRoot().capture(bitmap);
+            cache.put(row.getMonthIndex(), bitmap);
+        }
+        // week rows go back to the render pool, render adapter is dropped with them
+        mRenderHolder.releaseRows();
+        return view.getMeasuredHeight() > 0;
+    }
+
+    @Nullable
+    private CalendarMonthItem findMonthRow(RecyclerView.ViewHolder holder) {
+        final int position = holder.getAdapterPosition();
+        if (position == RecyclerView.NO_POSITION || position >= mAdapter.getItemCount()) {
+            return null;
+        }
+
+        final CalendarAdapterContract.Row row = mAdapter.getItemByPosition(position);
+        return row instanceof CalendarMonthItem ? (CalendarMonthItem) row : null;
+    }
+
+    private boolean isFlinging() {
+        final CalendarHandler handler = mHandler.get();
+        return handler != null && handler.isFlinging();
+    }
+}
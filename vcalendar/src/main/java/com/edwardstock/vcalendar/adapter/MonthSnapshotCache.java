@@ -0,0 +1,71 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.graphics.Bitmap;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.LruCache;
+
+/**
+ * Rendered months, keyed by month index (see {@link com.edwardstock.vcalendar.common.EpochDays#monthIndex(int, int)}).
+ * Memory is bounded by a byte budget, least recently used months are evicted first.
+ * Evicted bitmaps are never reused for new renders: a month view may still be drawing them.
+ * <p>
+ * All snapshots have the same width, changing it ({@link #setWidth(int)}) drops the whole cache.
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class MonthSnapshotCache {
+    private final LruCache<Integer, Bitmap> mCache;
+    private int mWidth = 0;
+
+    /**
+     * @param maxBytes memory budget of cached snapshots
+     */
+    public MonthSnapshotCache(int maxBytes) {
+        mCache = new LruCache<Integer, Bitmap>(Math.max(1, maxBytes)) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    /**
+     * @param width width of months. If differs from current, all snapshots are dropped
+     */
+    public void setWidth(int width) {
+        if (mWidth != width) {
+            mWidth = width;
+            invalidateAll();
+        }
+    }
+
+    @Nullable
+    public Bitmap get(int monthIndex) {
+        return mCache.get(monthIndex);
+    }
+
+    public boolean contains(int monthIndex) {
+        return mCache.get(monthIndex) != null;
+    }
+
+    public void put(int monthIndex, @NonNull Bitmap snapshot) {
+        if (snapshot.getWidth() != mWidth || snapshot.getByteCount() > mCache.maxSize()) {
+            return;
+        }
+        mCache.put(monthIndex, snapshot);
+    }
+
+    public void invalidate(int monthIndex) {
+        mCache.remove(monthIndex);
+    }
+
+    public void invalidateAll() {
+        mCache.evictAll();
+    }
+}
@@ -0,0 +1,79 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import android.widget.TextView;
+
+import com.edwardstock.vcalendar.decorators.DayStyle;
+
+/**
+ * Facade without view: records calls of background decorators into a {@link DayStyle}.
+ * Drawables can't be shared between cells, so {@link #setBackground(Drawable)} is ignored,
+ * color state lists are recorded by their default color.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+final class RecordingDayViewFacade extends DayViewFacade {
+    private DayStyle mStyle = new DayStyle();
+
+    RecordingDayViewFacade() {
+        super(null);
+    }
+
+    /**
+     * @return recorded style, facade starts a new one
+     */
+    DayStyle takeStyle() {
+        final DayStyle style = mStyle;
+        mStyle = new DayStyle();
+        return style;
+    }
+
+    @Override
+    public void setSelectedState(boolean selectedColorState) {
+    }
+
+    @Override
+    public void setTextColor(int color) {
+        mStyle.setTextColor(color);
+    }
+
+    @Override
+    public void setTextColorRes(int colorRes) {
+        mStyle.setTextColorRes(colorRes);
+    }
+
+    @Override
+    public void setTextColor(ColorStateList colors) {
+        mStyle.setTextColor(colors.getDefaultColor());
+    }
+
+    @Override
+    public void setBackground(Drawable drawable) {
+    }
+
+    @Override
+    public void setBackgroundResource(int resId) {
+        mStyle.setBackgroundResource(resId);
+    }
+
+    @Override
+    public void setBackgroundColor(int color) {
+        mStyle.setBackgroundColor(color);
+    }
+
+    @Override
+    public void setClickable(boolean clickable) {
+        mStyle.setClickable(clickable);
+    }
+
+    @Override
+    public void reset() {
+        mStyle = new DayStyle();
+    }
+
+    @Override
+    protected TextView getView() {
+        throw new IllegalStateException("Background decorators can't access views");
+    }
+}
@@ -48,19 +48,27 @@ public class SortableRow<V extends RecyclerView.ViewHolder, T extends CalendarAd
         row.onUnbindViewHolder(viewHolder);
     }
 
+    @SuppressWarnings("deprecation")
+    @Deprecated
     @NonNull
     @Override
     public Class<V> getViewHolderClass() {
         return row.getViewHolderClass();
     }
 
+    @NonNull
+    @Override
+    public ViewHolderFactory<V> getViewHolderFactory() {
+        return row.getViewHolderFactory();
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj instanceof CalendarAdapterContract.Row) {
             return ((CalendarAdapterContract.Row) obj).getRowPosition() == getRowPosition()
                     && ((CalendarAdapterContract.Row) obj).getItemView() == getItemView()
                     && ((CalendarAdapterContract.Row) obj).isVisible() == isVisible()
-                    && ((CalendarAdapterContract.Row) obj).getViewHolderClass() == getViewHolderClass();
+                    && ((CalendarAdapterContract.Row) obj).getViewHolderFactory() == getViewHolderFactory();
         }
 
         return row.equals(obj);
@@ -0,0 +1,15 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * Creates row view holder from inflated view. Usually just a constructor reference: {@code ViewHolder::new}
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface ViewHolderFactory<T extends RecyclerView.ViewHolder> {
+    @NonNull
+    T create(@NonNull View view);
+}
@@ -0,0 +1,200 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.content.Context;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+import android.support.v4.view.AsyncLayoutInflater;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayDeque;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Inflates month and week views ahead of time with {@link AsyncLayoutInflater}.
+ * Ready views are kept in a stash, adapters take them from it ({@link #poll(int)}) instead of
+ * inflating on the main thread. On main thread idle, stashed views are turned into view holders
+ * and put to the target {@link RecyclerView.RecycledViewPool}, one holder per idle pass.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class ViewPrewarmer implements MessageQueue.IdleHandler {
+    // RecyclerView's default max of scrap views per type
+    private static final int DEFAULT_POOL_SIZE = 5;
+    private final AsyncLayoutInflater mInflater;
+    private final SparseArrayCompat<ArrayDeque<View>> mStash = new SparseArrayCompat<>();
+    private final SparseArrayCompat<Target> mTargets = new SparseArrayCompat<>();
+    private int mPending = 0;
+    private boolean mIdleScheduled = false;
+    private boolean mPaused = false;
+
+    public ViewPrewarmer(@NonNull Context context) {
+        mInflater = new AsyncLayoutInflater(checkNotNull(context, "Context can't be null"));
+    }
+
+    /**
+     * Starts background inflation
+     *
+     * @param layoutRes layout to inflate
+     * @param parent    future parent, used only to generate layout params
+     * @param count     how many views to inflate
+     */
+    public void prewarm(@LayoutRes int layoutRes, @NonNull ViewGroup parent, int count) {
+        for (int i = 0; i < count; i++) {
+            mPending++;
+            mInflater.inflate(layoutRes, parent, (view, resid, p) -> {
+                mPending--;
+                stashOf(resid).add(view);
+                scheduleIdle();
+            });
+        }
+    }
+
+    /**
+     * Registers pool where stashed views of given layout should go on idle
+     *
+     * @param layoutRes layout
+     * @param viewType  view type of created holders in the pool
+     * @param pool      target pool
+     * @param factory   holder factory, should take view from {@link #poll(int)}
+     */
+    public void setTarget(@LayoutRes int layoutRes, int viewType,
+                          @NonNull RecyclerView.RecycledViewPool pool,
+                          @NonNull HolderFactory factory) {
+        mTargets.put(layoutRes, new Target(viewType, pool, factory));
+        scheduleIdle();
+    }
+
+    /**
+     * Stops idle handoff for given layout and drops its stashed views, e.g. when layout was replaced
+     *
+     * @param layoutRes layout
+     */
+    public void removeTarget(@LayoutRes int layoutRes) {
+        mTargets.remove(layoutRes);
+        mStash.remove(layoutRes);
+    }
+
+    /**
+     * @param layoutRes layout
+     * @return prewarmed view or null if nothing ready
+     */
+    @Nullable
+    public View poll(@LayoutRes int layoutRes) {
+        final ArrayDeque<View> views = mStash.get(layoutRes);
+        return views == null ? null : views.poll();
+    }
+
+    public int getStashedCount(@LayoutRes int layoutRes) {
+        final ArrayDeque<View> views = mStash.get(layoutRes);
+        return views == null ? 0 : views.size();
+    }
+
+    /**
+     * Stops idle handoff until {@link #resume()}, e.g. while the owner is detached from window.
+     * Targets and stashed views are kept. Inflations already in flight can't be cancelled, they
+     * will be stashed.
+     */
+    public void pause() {
+        mPaused = true;
+        unscheduleIdle();
+    }
+
+    /**
+     * Re-arms idle handoff stopped by {@link #pause()}
+     */
+    public void resume() {
+        mPaused = false;
+        scheduleIdle();
+    }
+
+    /**
+     * Drops stashed views and targets and stops idle handoff. Inflations already in flight will be stashed.
+     */
+    public void release() {
+        mStash.clear();
+        mTargets.clear();
+        unscheduleIdle();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        for (int i = 0; i < mTargets.size(); i++) {
+            final int layoutRes = mTargets.keyAt(i);
+            final int stashed = getStashedCount(layoutRes);
+            if (stashed == 0) {
+                continue;
+            }
+
+            final Target target = mTargets.valueAt(i);
+            final RecyclerView.ViewHolder holder = target.factory.create();
+            if (holder == null) {
+                continue;
+            }
+            if (getStashedCount(layoutRes) == stashed) {
+                // factory inflates by itself, no sense to keep creating holders
+                mTargets.removeAt(i);
+            }
+            final int count = target.pool.getRecycledViewCount(target.viewType) + 1;
+            target.pool.setMaxRecycledViews(target.viewType, Math.max(count, DEFAULT_POOL_SIZE));
+            target.pool.putRecycledView(holder);
+            // one holder per idle pass, let the frames go
+            return true;
+        }
+
+        mIdleScheduled = mPending > 0;
+        return mIdleScheduled;
+    }
+
+    private void scheduleIdle() {
+        if (mPaused || mIdleScheduled || mTargets.size() == 0) {
+            return;
+        }
+        mIdleScheduled = true;
+        Looper.myQueue().addIdleHandler(this);
+    }
+
+    private void unscheduleIdle() {
+        if (mIdleScheduled) {
+            Looper.myQueue().removeIdleHandler(this);
+            mIdleScheduled = false;
+        }
+    }
+
+    private ArrayDeque<View> stashOf(int layoutRes) {
+        ArrayDeque<View> views = mStash.get(layoutRes);
+        if (views == null) {
+            views = new ArrayDeque<>();
+            mStash.put(layoutRes, views);
+        }
+        return views;
+    }
+
+    public interface HolderFactory {
+        /**
+         * @return new holder or null if it can't be created yet
+         */
+        @Nullable
+        RecyclerView.ViewHolder create();
+    }
+
+    private static final class Target {
+        final int viewType;
+        final RecyclerView.RecycledViewPool pool;
+        final HolderFactory factory;
+
+        Target(int viewType, RecyclerView.RecycledViewPool pool, HolderFactory factory) {
+            this.viewType = viewType;
+            this.pool = pool;
+            this.factory = factory;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.edwardstock.vcalendar.codec;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.edwardstock.vcalendar.common.DayConstraints;
+import com.edwardstock.vcalendar.common.SelectionPattern;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Current {@link MappedAvailability} which can be replaced by a new file at any moment.
+ * New file is mapped on caller thread, then published on the main thread together with invalidation
+ * of bound constraints: calendar never builds masks from the new file while holding masks of the old one.
+ * Queries see either the old file or the new one, never a partial state.
+ * <pre>
+ * source.bindConstraints(calendar.getSelectionDispatcher().getConstraints());
+ * // background thread, when a new file is downloaded
+ * source.reload(file);
+ * </pre>
+ * Patterns returned by {@link #allBusy()} and {@link #busy(long)} always read the current file.
+ * Old mapping is released by garbage collector.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class AvailabilityFileSource {
+    private final AtomicReference<MappedAvailability> mCurrent = new AtomicReference<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final List<OnReloadListener> mListeners = new ArrayList<>(1);
+    private final List<DayConstraints> mBindings = new ArrayList<>(1);
+    private final SelectionPattern mAllBusy = monthIndex -> {
+        final MappedAvailability current = mCurrent.get();
+        return current == null ? 0 : current.getAllBusyMonthMask(monthIndex);
+    };
+
+    /**
+     * Must be called from the main thread
+     */
+    public void addOnReloadListener(OnReloadListener listener) {
+        mListeners.add(listener);
+    }
+
+    /**
+     * Must be called from the main thread
+     */
+    public void removeOnReloadListener(OnReloadListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Maps file and makes it current. Call it from a background thread, mapping touches the disk.
+     *
+     * @throws IOException if file can't be read or is malformed, current file stays in use
+     */
+    public void reload(@NonNull File file) throws IOException {
+        set(MappedAvailability.open(file));
+    }
+
+    /**
+     * Makes availability current, may be called from any thread. From other threads it's published
+     * on the main thread, after already posted ones.
+     *
+     * @param availability new availability, null to drop current one
+     */
+    public void set(@Nullable MappedAvailability availability) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            publish(availability);
+        } else {
+            mMainHandler.post(() -> publish(availability));
+        }
+    }
+
+    /**
+     * @return published availability
+     */
+    @Nullable
+    public MappedAvailability get() {
+        return mCurrent.get();
+    }
+
+    /**
+     * @return days when every resource is busy
+     */
+    @NonNull
+    public SelectionPattern allBusy() {
+        return mAllBusy;
+    }
+
+    /**
+     * @return busy days of resource
+     */
+    @NonNull
+    public SelectionPattern busy(long resourceId) {
+        return monthIndex -> {
+            final MappedAvailability current = mCurrent.get();
+            return current == null ? 0 : current.getResourceMonthMask(resourceId, monthIndex);
+        };
+    }
+
+    /**
+     * Disables days when every resource is busy and redraws them on every reload,
+     * until {@link #unbindConstraints(DayConstraints)}. Must be called from the main thread.
+     */
+    public void bindConstraints(@NonNull DayConstraints constraints) {
+        checkNotNull(constraints, "Constraints can't be null");
+        if (!mBindings.contains(constraints)) {
+            mBindings.add(constraints);
+        }
+        // cleared constraints may have dropped the pattern of an old binding
+        if (!constraints.hasDisabledPattern(mAllBusy)) {
+            constraints.addDisabledPattern(mAllBusy);
+        }
+    }
+
+    public void unbindConstraints(@NonNull DayConstraints constraints) {
+        if (mBindings.remove(constraints)) {
+            constraints.removeDisabledPattern(mAllBusy);
+        }
+    }
+
+    private void publish(@Nullable MappedAvailability availability) {
+        if (mCurrent.getAndSet(availability) == availability) {
+            return;
+        }
+        for (int i = mBindings.size() - 1; i >= 0; i--) {
+            final DayConstraints constraints = mBindings.get(i);
+            if (!constraints.hasDisabledPattern(mAllBusy)) {
+                // pattern dropped by constraints themselves, like DayConstraints.clear()
+                mBindings.remove(i);
+                continue;
+            }
+            constraints.invalidate(DayConstraints.ALL_MONTHS_FROM, DayConstraints.ALL_MONTHS_TO);
+        }
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onReload(availability);
+        }
+    }
+
+    public interface OnReloadListener {
+        /**
+         * Called on the main thread after file has been replaced
+         *
+         * @param availability current availability, null if dropped
+         */
+        void onReload(@Nullable MappedAvailability availability);
+    }
+}
@@ -0,0 +1,100 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.models.CalendarDay;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Shortcuts for selections and disabled days sets.
+ * <pre>
+ * writer.beginObject();
+ * writer.name("selections");
+ * DayCodecs.writeJson(writer, calendar.getSelectionDispatcher().getSelections());
+ * writer.endObject();
+ * </pre>
+ * Collections are converted to packed int days before writing, for really huge sources
+ * (database cursor etc) use {@link JsonRangesWriter} and {@link IntervalWriter} directly.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayCodecs {
+
+    private DayCodecs() {
+    }
+
+    public static void writeJson(JsonWriter out, Collection<CalendarDay> days) throws IOException {
+        final JsonRangesWriter writer = new JsonRangesWriter(out);
+        for (int day : toSortedEpochDays(days)) {
+            writer.add(day);
+        }
+        writer.finish();
+    }
+
+    public static void readJson(JsonReader in, DayRangeConsumer consumer) throws IOException {
+        checkNotNull(consumer, "Consumer can't be null");
+        final JsonRangesReader reader = new JsonRangesReader(in);
+        while (reader.next()) {
+            consumer.accept(reader.getFirst(), reader.getLast());
+        }
+    }
+
+    public static void writeBinary(OutputStream out, Collection<CalendarDay> days) throws IOException {
+        final IntervalWriter writer = new IntervalWriter(out);
+        for (int day : toSortedEpochDays(days)) {
+            writer.add(day);
+        }
+        writer.finish();
+    }
+
+    public static void readBinary(InputStream in, DayRangeConsumer consumer) throws IOException {
+        checkNotNull(consumer, "Consumer can't be null");
+        final IntervalReader reader = new IntervalReader(in);
+        while (reader.next()) {
+            consumer.accept(reader.getFirst(), reader.getLast());
+        }
+    }
+
+    /**
+     * Converts binary intervals to json array without materializing days
+     */
+    public static void binaryToJson(InputStream in, JsonWriter out) throws IOException {
+        final JsonRangesWriter writer = new JsonRangesWriter(out);
+        readBinary(in, writer::addRange);
+        writer.finish();
+    }
+
+    /**
+     * Converts json array to binary intervals without materializing days
+     */
+    public static void jsonToBinary(JsonReader in, OutputStream out) throws IOException {
+        final IntervalWriter writer = new IntervalWriter(out);
+        readJson(in, writer::addRange);
+        writer.finish();
+    }
+
+    private static int[] toSortedEpochDays(Collection<CalendarDay> days) {
+        checkNotNull(days, "Days can't be null");
+        final int[] out = new int[days.size()];
+        int i = 0;
+        boolean sorted = true;
+        for (CalendarDay day : days) {
+            out[i] = day.getEpochDay();
+            if (i > 0 && out[i] < out[i - 1]) {
+                sorted = false;
+            }
+            i++;
+        }
+        if (!sorted) {
+            Arrays.sort(out);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,16 @@
+package com.edwardstock.vcalendar.codec;
+
+import java.io.IOException;
+
+/**
+ * vcalendar. 2018
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface DayRangeConsumer {
+    /**
+     * @param first inclusive epoch day
+     * @param last  inclusive epoch day
+     */
+    void accept(int first, int last) throws IOException;
+}
@@ -0,0 +1,74 @@
+package com.edwardstock.vcalendar.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Reads runs written by {@link IntervalWriter}. Holds only current run, so reading is
+ * independent of the selection length.
+ * <pre>
+ * IntervalReader reader = new IntervalReader(in);
+ * while (reader.next()) {
+ *     handle(reader.getFirst(), reader.getLast());
+ * }
+ * </pre>
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class IntervalReader {
+    private final InputStream mIn;
+    private boolean mHeaderRead = false;
+    private boolean mEnd = false;
+    private int mFirst;
+    private int mLast;
+    private int mPreviousLast = 0;
+
+    public IntervalReader(InputStream in) {
+        mIn = checkNotNull(in, "Input stream can't be null");
+    }
+
+    /**
+     * @return false if terminator reached
+     * @throws IOException if stream is malformed or ends unexpectedly
+     */
+    public boolean next() throws IOException {
+        if (mEnd) {
+            return false;
+        }
+        if (!mHeaderRead) {
+            final int version = mIn.read();
+            if (version != IntervalWriter.VERSION) {
+                throw new IOException("Unsupported intervals version: " + version);
+            }
+            mHeaderRead = true;
+        }
+
+        final int tag = VarInt.readUnsigned(mIn);
+        if (tag == 0) {
+            mEnd = true;
+            return false;
+        }
+
+        final int zigzag = tag - 1;
+        mFirst = mPreviousLast + ((zigzag >>> 1) ^ -(zigzag & 1));
+        mLast = mFirst + VarInt.readUnsigned(mIn);
+        mPreviousLast = mLast;
+        return true;
+    }
+
+    /**
+     * @return inclusive first epoch day of current run
+     */
+    public int getFirst() {
+        return mFirst;
+    }
+
+    /**
+     * @return inclusive last epoch day of current run
+     */
+    public int getLast() {
+        return mLast;
+    }
+}
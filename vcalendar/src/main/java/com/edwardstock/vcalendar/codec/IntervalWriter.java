@@ -0,0 +1,99 @@
+package com.edwardstock.vcalendar.codec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Writes ascending epoch days as run-length intervals. Adjacent days are joined into one run,
+ * so a selection of any length costs a few bytes per continuous range.
+ * <p>
+ * Format: one byte version, then runs, each run is a pair of varints:
+ * <ul>
+ * <li>{@code zigzag(first - previousLast) + 1} (previousLast is 0 for the very first run)</li>
+ * <li>{@code last - first}</li>
+ * </ul>
+ * Single zero byte terminates the runs list, so intervals can be embedded into any other stream.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ * @see IntervalReader
+ */
+public final class IntervalWriter implements Closeable {
+    static final int VERSION = 1;
+    private static final int TERMINATOR = 0;
+
+    private final OutputStream mOut;
+    private final RangeCoalescer mCoalescer = new RangeCoalescer(this::writeRun);
+    private boolean mHeaderWritten = false;
+    private boolean mFinished = false;
+    private int mPreviousLast = 0;
+    private int mRunsCount = 0;
+
+    public IntervalWriter(OutputStream out) {
+        mOut = checkNotNull(out, "Output stream can't be null");
+    }
+
+    /**
+     * @param epochDay day, must be greater than or equal to previous added day
+     */
+    public IntervalWriter add(int epochDay) throws IOException {
+        return addRange(epochDay, epochDay);
+    }
+
+    /**
+     * @param first inclusive
+     * @param last  inclusive
+     * @throws IllegalArgumentException if range is not ascending relative to previous one
+     */
+    public IntervalWriter addRange(int first, int last) throws IOException {
+        if (mFinished) {
+            throw new IllegalStateException("Writer already finished");
+        }
+        mCoalescer.add(first, last);
+        return this;
+    }
+
+    /**
+     * Writes pending run and terminator. Underlying stream stays open.
+     */
+    public void finish() throws IOException {
+        if (mFinished) {
+            return;
+        }
+        mCoalescer.flush();
+        writeHeader();
+        mOut.write(TERMINATOR);
+        mFinished = true;
+    }
+
+    /**
+     * @return count of runs written so far (pending run is not counted until it's flushed)
+     */
+    public int getRunsCount() {
+        return mRunsCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        mOut.close();
+    }
+
+    private void writeHeader() throws IOException {
+        if (!mHeaderWritten) {
+            mOut.write(VERSION);
+            mHeaderWritten = true;
+        }
+    }
+
+    private void writeRun(int first, int last) throws IOException {
+        writeHeader();
+        final int delta = first - mPreviousLast;
+        VarInt.writeUnsigned(mOut, ((delta << 1) ^ (delta >> 31)) + 1);
+        VarInt.writeUnsigned(mOut, last - first);
+        mPreviousLast = last;
+        mRunsCount++;
+    }
+}
@@ -0,0 +1,55 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+
+import java.io.IOException;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Reads object written by {@link JsonAttributesWriter} attribute by attribute,
+ * nothing except current value is kept in memory.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class JsonAttributesReader {
+    private final JsonReader mIn;
+    private final JsonParser mParser = new JsonParser();
+
+    public JsonAttributesReader(JsonReader in) {
+        mIn = checkNotNull(in, "Json reader can't be null");
+    }
+
+    /**
+     * Reads whole object, reader is positioned right after it
+     *
+     * @throws IOException if json is malformed or contains invalid dates
+     */
+    public void read(AttributeConsumer consumer) throws IOException {
+        checkNotNull(consumer, "Consumer can't be null");
+        mIn.beginObject();
+        while (mIn.hasNext()) {
+            final int epochDay;
+            try {
+                epochDay = EpochDays.parseIso(mIn.nextName());
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e);
+            }
+
+            mIn.beginObject();
+            while (mIn.hasNext()) {
+                final String name = mIn.nextName();
+                consumer.accept(epochDay, name, mParser.parse(mIn));
+            }
+            mIn.endObject();
+        }
+        mIn.endObject();
+    }
+
+    public interface AttributeConsumer {
+        void accept(int epochDay, String name, JsonElement value) throws IOException;
+    }
+}
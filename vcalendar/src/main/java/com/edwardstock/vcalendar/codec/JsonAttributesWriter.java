@@ -0,0 +1,108 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Streams per-day attributes as JSON object keyed by date:
+ * <pre>
+ * {"2018-06-01": {"price": 120, "note": "Holiday"}}
+ * </pre>
+ * Only current day is kept, so any count of days can be written.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ * @see JsonAttributesReader
+ */
+public final class JsonAttributesWriter {
+    private final JsonWriter mOut;
+    private boolean mBegun = false;
+    private boolean mInDay = false;
+    private boolean mFinished = false;
+
+    public JsonAttributesWriter(JsonWriter out) {
+        mOut = checkNotNull(out, "Json writer can't be null");
+    }
+
+    /**
+     * Starts new day object, previous day is closed automatically
+     */
+    public JsonAttributesWriter day(int epochDay) throws IOException {
+        checkNotFinished();
+        begin();
+        closeDay();
+        mOut.name(EpochDays.toIsoString(epochDay));
+        mOut.beginObject();
+        mInDay = true;
+        return this;
+    }
+
+    public JsonAttributesWriter attribute(String name, String value) throws IOException {
+        prepareAttribute(name).value(value);
+        return this;
+    }
+
+    public JsonAttributesWriter attribute(String name, Number value) throws IOException {
+        prepareAttribute(name).value(value);
+        return this;
+    }
+
+    public JsonAttributesWriter attribute(String name, long value) throws IOException {
+        prepareAttribute(name).value(value);
+        return this;
+    }
+
+    public JsonAttributesWriter attribute(String name, double value) throws IOException {
+        prepareAttribute(name).value(value);
+        return this;
+    }
+
+    public JsonAttributesWriter attribute(String name, boolean value) throws IOException {
+        prepareAttribute(name).value(value);
+        return this;
+    }
+
+    /**
+     * Closes current day and whole object. Underlying writer stays open.
+     */
+    public void finish() throws IOException {
+        if (mFinished) {
+            return;
+        }
+        begin();
+        closeDay();
+        mOut.endObject();
+        mFinished = true;
+    }
+
+    private JsonWriter prepareAttribute(String name) throws IOException {
+        checkNotFinished();
+        if (!mInDay) {
+            throw new IllegalStateException("Call day() before writing attributes");
+        }
+        return mOut.name(checkNotNull(name, "Attribute name can't be null"));
+    }
+
+    private void checkNotFinished() {
+        if (mFinished) {
+            throw new IllegalStateException("Writer already finished");
+        }
+    }
+
+    private void begin() throws IOException {
+        if (!mBegun) {
+            mOut.beginObject();
+            mBegun = true;
+        }
+    }
+
+    private void closeDay() throws IOException {
+        if (mInDay) {
+            mOut.endObject();
+            mInDay = false;
+        }
+    }
+}
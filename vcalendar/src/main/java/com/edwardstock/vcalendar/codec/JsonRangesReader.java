@@ -0,0 +1,84 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Reads array written by {@link JsonRangesWriter} element by element.
+ * <pre>
+ * JsonRangesReader ranges = new JsonRangesReader(reader);
+ * while (ranges.next()) {
+ *     handle(ranges.getFirst(), ranges.getLast());
+ * }
+ * </pre>
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class JsonRangesReader {
+    private final JsonReader mIn;
+    private boolean mBegun = false;
+    private boolean mEnd = false;
+    private int mFirst;
+    private int mLast;
+
+    public JsonRangesReader(JsonReader in) {
+        mIn = checkNotNull(in, "Json reader can't be null");
+    }
+
+    /**
+     * @return false if array ended, reader is positioned right after it
+     * @throws IOException if json is malformed or contains invalid dates
+     */
+    public boolean next() throws IOException {
+        if (mEnd) {
+            return false;
+        }
+        if (!mBegun) {
+            mIn.beginArray();
+            mBegun = true;
+        }
+        if (!mIn.hasNext()) {
+            mIn.endArray();
+            mEnd = true;
+            return false;
+        }
+
+        try {
+            if (mIn.peek() == JsonToken.BEGIN_ARRAY) {
+                mIn.beginArray();
+                mFirst = EpochDays.parseIso(mIn.nextString());
+                mLast = EpochDays.parseIso(mIn.nextString());
+                mIn.endArray();
+            } else {
+                mFirst = EpochDays.parseIso(mIn.nextString());
+                mLast = mFirst;
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+
+        if (mLast < mFirst) {
+            throw new IOException("Range end can't be before its start");
+        }
+        return true;
+    }
+
+    /**
+     * @return inclusive first epoch day of current range
+     */
+    public int getFirst() {
+        return mFirst;
+    }
+
+    /**
+     * @return inclusive last epoch day of current range
+     */
+    public int getLast() {
+        return mLast;
+    }
+}
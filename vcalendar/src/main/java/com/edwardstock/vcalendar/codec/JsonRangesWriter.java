@@ -0,0 +1,84 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Streams ascending days into JSON array. Continuous days are joined, single day written as
+ * string, run of days as two-items array:
+ * <pre>
+ * ["2018-06-01", ["2018-06-10", "2018-06-20"]]
+ * </pre>
+ * Array begins on first write (or on {@link #finish()}), so writer can be placed right after
+ * {@link JsonWriter#name(String)} call.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ * @see JsonRangesReader
+ */
+public final class JsonRangesWriter {
+    private final JsonWriter mOut;
+    private final RangeCoalescer mCoalescer = new RangeCoalescer(this::writeRun);
+    private boolean mBegun = false;
+    private boolean mFinished = false;
+
+    public JsonRangesWriter(JsonWriter out) {
+        mOut = checkNotNull(out, "Json writer can't be null");
+    }
+
+    /**
+     * @param epochDay day, must be greater than or equal to previous added day
+     */
+    public JsonRangesWriter add(int epochDay) throws IOException {
+        return addRange(epochDay, epochDay);
+    }
+
+    /**
+     * @param first inclusive
+     * @param last  inclusive
+     * @throws IllegalArgumentException if range is not ascending relative to previous one
+     */
+    public JsonRangesWriter addRange(int first, int last) throws IOException {
+        if (mFinished) {
+            throw new IllegalStateException("Writer already finished");
+        }
+        mCoalescer.add(first, last);
+        return this;
+    }
+
+    /**
+     * Writes pending run and closes array. Underlying writer stays open.
+     */
+    public void finish() throws IOException {
+        if (mFinished) {
+            return;
+        }
+        mCoalescer.flush();
+        begin();
+        mOut.endArray();
+        mFinished = true;
+    }
+
+    private void begin() throws IOException {
+        if (!mBegun) {
+            mOut.beginArray();
+            mBegun = true;
+        }
+    }
+
+    private void writeRun(int first, int last) throws IOException {
+        begin();
+        if (first == last) {
+            mOut.value(EpochDays.toIsoString(first));
+            return;
+        }
+
+        mOut.beginArray();
+        mOut.value(EpochDays.toIsoString(first));
+        mOut.value(EpochDays.toIsoString(last));
+        mOut.endArray();
+    }
+}
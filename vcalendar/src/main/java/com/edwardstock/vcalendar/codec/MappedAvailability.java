@@ -0,0 +1,167 @@
+package com.edwardstock.vcalendar.codec;
+
+import android.support.annotation.NonNull;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Read-only view of availability file written by {@link AvailabilityFileWriter}. File is mapped,
+ * not loaded: opening costs the same for any size, month masks are read straight from the mapping
+ * and only pages touched by queries are brought into memory.
+ * <p>
+ * Immutable, queries are safe from any thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class MappedAvailability {
+    private final ByteBuffer mBuffer;
+    private final int mFirstMonth;
+    private final int mMonthCount;
+    private final int mResourceCount;
+    private final int mAllBusyOffset;
+    private final int mIdsOffset;
+    private final int mDataOffset;
+
+    private MappedAvailability(ByteBuffer buffer) throws IOException {
+        mBuffer = buffer;
+        if (buffer.limit() < AvailabilityFileWriter.HEADER_SIZE || buffer.getInt(0) != AvailabilityFileWriter.MAGIC) {
+            throw new IOException("Not an availability file");
+        }
+        final int version = buffer.getShort(4);
+        if (version != AvailabilityFileWriter.VERSION) {
+            throw new IOException("Unsupported availability version: " + version);
+        }
+        final int firstYear = buffer.getInt(8);
+        final int yearCount = buffer.getInt(12);
+        mResourceCount = buffer.getInt(16);
+        mAllBusyOffset = buffer.getInt(20);
+        mIdsOffset = buffer.getInt(24);
+        mDataOffset = buffer.getInt(28);
+        if (yearCount < 1 || mResourceCount < 0) {
+            throw new IOException("Malformed availability header");
+        }
+        mFirstMonth = EpochDays.monthIndex(firstYear, 1);
+        mMonthCount = yearCount * 12;
+
+        final long blockSize = (long) yearCount * AvailabilityFileWriter.YEAR_SIZE;
+        if (!fits(mAllBusyOffset, blockSize)
+                || !fits(mIdsOffset, mResourceCount * 8L)
+                || !fits(mDataOffset, mResourceCount * blockSize)) {
+            throw new IOException("Availability file is truncated");
+        }
+    }
+
+    /**
+     * Maps file, file may be replaced or deleted afterwards, mapping stays valid
+     */
+    @NonNull
+    public static MappedAvailability open(@NonNull File file) throws IOException {
+        checkNotNull(file, "File can't be null");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            return new MappedAvailability(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps file content already in memory, for assets and tests
+     */
+    @NonNull
+    public static MappedAvailability wrap(@NonNull ByteBuffer buffer) throws IOException {
+        return new MappedAvailability(checkNotNull(buffer, "Buffer can't be null").duplicate());
+    }
+
+    public int getFirstMonth() {
+        return mFirstMonth;
+    }
+
+    public int getLastMonth() {
+        return mFirstMonth + mMonthCount - 1;
+    }
+
+    public int getResourceCount() {
+        return mResourceCount;
+    }
+
+    /**
+     * @param index 0..resources count - 1
+     * @return id of resource, ids are ascending
+     */
+    public long getResourceId(int index) {
+        if (index < 0 || index >= mResourceCount) {
+            throw new IndexOutOfBoundsException("Resource index: " + index);
+        }
+        return mBuffer.getLong(mIdsOffset + index * 8);
+    }
+
+    /**
+     * @return index of resource or -1 if file has no such resource
+     */
+    public int indexOf(long resourceId) {
+        int lo = 0;
+        int hi = mResourceCount - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final long id = mBuffer.getLong(mIdsOffset + mid * 8);
+            if (id < resourceId) {
+                lo = mid + 1;
+            } else if (id > resourceId) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    public boolean hasResource(long resourceId) {
+        return indexOf(resourceId) != -1;
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return days when every resource is busy, 0 for months outside file
+     */
+    public int getAllBusyMonthMask(int monthIndex) {
+        final int m = monthIndex - mFirstMonth;
+        if (m < 0 || m >= mMonthCount) {
+            return 0;
+        }
+        return mBuffer.getInt(mAllBusyOffset + m * 4);
+    }
+
+    /**
+     * @return busy days of resource, 0 for unknown resource and months outside file
+     */
+    public int getResourceMonthMask(long resourceId, int monthIndex) {
+        final int m = monthIndex - mFirstMonth;
+        if (m < 0 || m >= mMonthCount) {
+            return 0;
+        }
+        final int index = indexOf(resourceId);
+        if (index == -1) {
+            return 0;
+        }
+        return mBuffer.getInt(mDataOffset + (index * mMonthCount + m) * 4);
+    }
+
+    public boolean isAllBusy(int epochDay) {
+        return (getAllBusyMonthMask(EpochDays.monthIndexOf(epochDay)) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    public boolean isBusy(long resourceId, int epochDay) {
+        return (getResourceMonthMask(resourceId, EpochDays.monthIndexOf(epochDay)) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    private boolean fits(int offset, long size) {
+        return offset >= AvailabilityFileWriter.HEADER_SIZE && offset + size <= mBuffer.limit();
+    }
+}
@@ -0,0 +1,63 @@
+package com.edwardstock.vcalendar.codec;
+
+import java.io.IOException;
+
+/**
+ * Joins ascending overlapped or adjacent ranges and passes only completed runs to the target.
+ * Keeps just the current run, so memory doesn't depend on input length.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+final class RangeCoalescer {
+    private final DayRangeConsumer mTarget;
+    private boolean mHasRun = false;
+    private boolean mHasEmitted = false;
+    private int mFirst;
+    private int mLast;
+    private int mEmittedLast;
+
+    RangeCoalescer(DayRangeConsumer target) {
+        mTarget = target;
+    }
+
+    void add(int first, int last) throws IOException {
+        if (last < first) {
+            throw new IllegalArgumentException("Range end can't be before its start");
+        }
+
+        if (!mHasRun) {
+            if (mHasEmitted && first <= mEmittedLast) {
+                throw new IllegalArgumentException("Days must be added in ascending order");
+            }
+            mFirst = first;
+            mLast = last;
+            mHasRun = true;
+            return;
+        }
+
+        if (first < mFirst) {
+            throw new IllegalArgumentException("Days must be added in ascending order");
+        }
+
+        // overlapped or adjacent: just extend current run
+        if (first <= mLast + 1) {
+            mLast = Math.max(mLast, last);
+            return;
+        }
+
+        flush();
+        mFirst = first;
+        mLast = last;
+        mHasRun = true;
+    }
+
+    void flush() throws IOException {
+        if (!mHasRun) {
+            return;
+        }
+        mHasRun = false;
+        mHasEmitted = true;
+        mEmittedLast = mLast;
+        mTarget.accept(mFirst, mLast);
+    }
+}
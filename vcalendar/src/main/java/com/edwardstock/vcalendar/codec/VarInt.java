@@ -0,0 +1,51 @@
+package com.edwardstock.vcalendar.codec;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * LEB128-like variable length integers: 7 bits per byte, high bit means "more bytes follow".
+ * Signed values are zigzag-encoded, so small negative numbers stay short too.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class VarInt {
+
+    private VarInt() {
+    }
+
+    public static void writeUnsigned(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    public static int readUnsigned(InputStream in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of varint");
+            }
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+
+        throw new IOException("Malformed varint: too many bytes");
+    }
+
+    public static void writeSigned(OutputStream out, int value) throws IOException {
+        writeUnsigned(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSigned(InputStream in) throws IOException {
+        final int raw = readUnsigned(in);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+}
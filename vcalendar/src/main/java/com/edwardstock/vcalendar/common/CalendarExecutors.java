@@ -0,0 +1,74 @@
+package com.edwardstock.vcalendar.common;
+
+import android.os.Process;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Shared executors of calendar background work. Threads are daemons with background priority,
+ * so they never keep process alive and never compete with UI thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class CalendarExecutors {
+    private static final AtomicInteger sThreadCount = new AtomicInteger(0);
+    private static volatile ExecutorService sBackground;
+    private static volatile ThreadPoolExecutor sStyles;
+
+    private CalendarExecutors() {
+    }
+
+    /**
+     * @return single thread executor for labels, caches and other precomputations
+     */
+    public static ExecutorService background() {
+        if (sBackground == null) {
+            synchronized (CalendarExecutors.class) {
+                if (sBackground == null) {
+                    sBackground = Executors.newSingleThreadExecutor(threadFactory("vcalendar-bg-"));
+                }
+            }
+        }
+
+        return sBackground;
+    }
+
+    /**
+     * Single thread executor for day styles, separate from {@link #background()} so styles never wait
+     * behind labels or snapshots. Queue is ordered: tasks must be passed to {@code execute()}
+     * and implement {@link Comparable}, lowest runs first. A queued task may be taken out of
+     * {@link ThreadPoolExecutor#getQueue()} and executed again to change its order.
+     *
+     * @return executor with priority queue
+     */
+    public static ThreadPoolExecutor styles() {
+        if (sStyles == null) {
+            synchronized (CalendarExecutors.class) {
+                if (sStyles == null) {
+                    sStyles = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                                                     new PriorityBlockingQueue<>(),
+                                                     threadFactory("vcalendar-styles-"));
+                }
+            }
+        }
+
+        return sStyles;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        return runnable -> {
+            final Thread thread = new Thread(() -> {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                runnable.run();
+            }, prefix + sThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
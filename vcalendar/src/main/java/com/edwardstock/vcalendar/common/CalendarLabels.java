@@ -0,0 +1,132 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Immutable table of all calendar texts for a single locale: month titles ("January 2018"),
+ * weekday legend and day numbers. Table is built once (usually on a background thread), so binds
+ * only take ready strings and never format anything.
+ * <p>
+ * Titles are precomputed for {@link #TITLES_YEARS_AROUND} years around the center month, months
+ * outside of this window are formatted on request.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class CalendarLabels {
+    public static final int TITLES_YEARS_AROUND = 10;
+    // index is a day of month, 0 is unused. Digits don't depend on locale, so shared by all tables
+    private static final String[] DAY_NUMBERS = new String[32];
+
+    static {
+        for (int i = 1; i < DAY_NUMBERS.length; i++) {
+            DAY_NUMBERS[i] = String.valueOf(i);
+        }
+    }
+
+    /**
+     * Blank table to bind with while the real one is building: empty names and titles, real day numbers
+     */
+    public static final CalendarLabels PLACEHOLDER = new CalendarLabels(Locale.ROOT);
+
+    private final Locale mLocale;
+    private final String[] mMonthNames;
+    private final String[] mDaysOfWeek;
+    private final int mFirstTitleMonth;
+    private final String[] mTitles;
+    private final boolean mPlaceholder;
+
+    /**
+     * @param locale      locale of texts
+     * @param monthNames  12 month names, january first
+     * @param daysOfWeek  7 weekday names, monday first
+     * @param centerMonth month index (see {@link EpochDays#monthIndex(int, int)}) to build titles around
+     */
+    public CalendarLabels(@NonNull Locale locale, @NonNull String[] monthNames,
+                          @NonNull String[] daysOfWeek, int centerMonth) {
+        mLocale = checkNotNull(locale, "Locale can't be null");
+        mMonthNames = checkNotNull(monthNames, "Month names can't be null").clone();
+        mDaysOfWeek = checkNotNull(daysOfWeek, "Days of week can't be null").clone();
+        if (mMonthNames.length != 12 || mDaysOfWeek.length != 7) {
+            throw new IllegalArgumentException("Labels require exactly 12 months and 7 days of week");
+        }
+
+        mPlaceholder = false;
+        mFirstTitleMonth = EpochDays.monthIndex(EpochDays.yearOfMonthIndex(centerMonth) - TITLES_YEARS_AROUND, 1);
+        mTitles = new String[(TITLES_YEARS_AROUND * 2 + 1) * 12];
+        for (int i = 0; i < mTitles.length; i++) {
+            mTitles[i] = formatTitle(mFirstTitleMonth + i);
+        }
+    }
+
+    private CalendarLabels(Locale locale) {
+        mLocale = locale;
+        mMonthNames = new String[12];
+        mDaysOfWeek = new String[7];
+        Arrays.fill(mMonthNames, "");
+        Arrays.fill(mDaysOfWeek, "");
+        mFirstTitleMonth = 0;
+        mTitles = new String[0];
+        mPlaceholder = true;
+    }
+
+    /**
+     * @return true if this is {@link #PLACEHOLDER}, real table is not ready yet
+     */
+    public boolean isPlaceholder() {
+        return mPlaceholder;
+    }
+
+    @NonNull
+    public Locale getLocale() {
+        return mLocale;
+    }
+
+    /**
+     * @return 12 month names, january first. Array is shared, do not modify it
+     */
+    public String[] getMonthNames() {
+        return mMonthNames;
+    }
+
+    /**
+     * @return 7 weekday names, monday first. Array is shared, do not modify it
+     */
+    public String[] getDaysOfWeek() {
+        return mDaysOfWeek;
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return month and year title, like "January 2018"
+     */
+    public String getTitle(int monthIndex) {
+        final int idx = monthIndex - mFirstTitleMonth;
+        if (idx >= 0 && idx < mTitles.length) {
+            return mTitles[idx];
+        }
+        if (mPlaceholder) {
+            return "";
+        }
+
+        return formatTitle(monthIndex);
+    }
+
+    /**
+     * @param dayOfMonth 1-based day of month
+     * @return day number in western digits, like plain {@link String#valueOf(int)}
+     */
+    public String getDayNumber(int dayOfMonth) {
+        return DAY_NUMBERS[dayOfMonth];
+    }
+
+    private String formatTitle(int monthIndex) {
+        return String.format(mLocale, "%s %d",
+                             mMonthNames[EpochDays.monthOfMonthIndex(monthIndex) - 1],
+                             EpochDays.yearOfMonthIndex(monthIndex));
+    }
+}
@@ -0,0 +1,231 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Availability queries over {@link DayConstraints}: next selectable day, next free window of N days
+ * and range validity. Disabled days are kept as per-year tables of month masks with prefix counts,
+ * so counting disabled days of a range is a few table lookups and bit counts, and searches skip
+ * fully disabled months and years at once.
+ * <p>
+ * Tables are built on demand and dropped for months touched by changed constraints.
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayAvailability implements DayConstraints.OnConstraintsChangedListener {
+    public static final int NO_DAY = Integer.MIN_VALUE;
+    // searches without upper limit stop after this many years
+    private static final int MAX_SEARCH_YEARS = 10;
+    private final DayConstraints mConstraints;
+    // year -> table
+    private final SparseArrayCompat<YearTable> mYears = new SparseArrayCompat<>();
+
+    public DayAvailability(@NonNull DayConstraints constraints) {
+        mConstraints = checkNotNull(constraints, "Constraints can't be null");
+        mConstraints.addOnConstraintsChangedListener(this);
+    }
+
+    @Override
+    public void onConstraintsChanged(int fromMonth, int toMonth) {
+        if (fromMonth == DayConstraints.ALL_MONTHS_FROM && toMonth == DayConstraints.ALL_MONTHS_TO) {
+            mYears.clear();
+            return;
+        }
+        final int fromYear = fromMonth == DayConstraints.ALL_MONTHS_FROM ? Integer.MIN_VALUE : EpochDays.yearOfMonthIndex(fromMonth);
+        final int toYear = toMonth == DayConstraints.ALL_MONTHS_TO ? Integer.MAX_VALUE : EpochDays.yearOfMonthIndex(toMonth);
+        for (int i = mYears.size() - 1; i >= 0; i--) {
+            final int year = mYears.keyAt(i);
+            if (year >= fromYear && year <= toYear) {
+                mYears.removeAt(i);
+            }
+        }
+    }
+
+    /**
+     * @param start first epoch day, inclusive
+     * @param end   last epoch day, inclusive
+     * @return count of days which can't be selected
+     */
+    public int countDisabled(int start, int end) {
+        if (start > end) {
+            return 0;
+        }
+        final int startMonth = EpochDays.monthIndexOf(start);
+        final int endMonth = EpochDays.monthIndexOf(end);
+        if (startMonth == endMonth) {
+            return Integer.bitCount(monthMask(startMonth) & bits(EpochDays.dayOfMonth(start) - 1, EpochDays.dayOfMonth(end) - 1));
+        }
+
+        // partial edge months
+        int count = Integer.bitCount(monthMask(startMonth) & bits(EpochDays.dayOfMonth(start) - 1, 30))
+                + Integer.bitCount(monthMask(endMonth) & bits(0, EpochDays.dayOfMonth(end) - 1));
+
+        // whole months between, through year prefix counts
+        final int fromMonth = startMonth + 1;
+        final int toMonth = endMonth - 1;
+        if (fromMonth <= toMonth) {
+            final int fromYear = EpochDays.yearOfMonthIndex(fromMonth);
+            final int toYear = EpochDays.yearOfMonthIndex(toMonth);
+            for (int year = fromYear; year <= toYear; year++) {
+                final YearTable table = year(year);
+                final int m0 = year == fromYear ? EpochDays.monthOfMonthIndex(fromMonth) - 1 : 0;
+                final int m1 = year == toYear ? EpochDays.monthOfMonthIndex(toMonth) - 1 : 11;
+                count += table.prefix[m1 + 1] - table.prefix[m0];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param start first epoch day, inclusive
+     * @param end   last epoch day, inclusive
+     * @return true if every day of range can be selected
+     */
+    public boolean isRangeClear(int start, int end) {
+        return countDisabled(start, end) == 0;
+    }
+
+    /**
+     * @param from epoch day to start from, inclusive
+     * @return first selectable day since from, or {@link #NO_DAY} if nothing found within search horizon
+     */
+    public int nextSelectable(int from) {
+        return nextSelectable(from, searchLimit(from));
+    }
+
+    /**
+     * @param from epoch day to start from, inclusive
+     * @return first day since from which can't be selected, or {@link #NO_DAY} if nothing found within search horizon
+     */
+    public int nextDisabled(int from) {
+        // days after upper limit are disabled too, so only horizon bounds this search
+        return nextDisabled(from, from + MAX_SEARCH_YEARS * 366);
+    }
+
+    /**
+     * Finds first run of consecutive selectable days, like "next 5 available nights"
+     *
+     * @param from   epoch day to start from, inclusive
+     * @param length count of consecutive days, at least 1
+     * @return first day of window, or {@link #NO_DAY} if nothing found within search horizon
+     */
+    public int nextFreeWindow(int from, int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Window length must be positive");
+        }
+        // horizon is fixed by the first day, not by every run
+        final int limit = searchLimit(from);
+        int start = nextSelectable(from, limit);
+        while (start != NO_DAY) {
+            // run of free days lasts until next disabled day
+            final int disabled = nextDisabled(start, limit);
+            final int runEnd = disabled == NO_DAY ? limit : disabled - 1;
+            if (runEnd - start + 1 >= length) {
+                return start + length - 1 <= limit ? start : NO_DAY;
+            }
+            if (disabled == NO_DAY) {
+                return NO_DAY;
+            }
+            start = nextSelectable(disabled, limit);
+        }
+        return NO_DAY;
+    }
+
+    private int nextSelectable(int from, int limit) {
+        int monthIndex = EpochDays.monthIndexOf(from);
+        int offset = EpochDays.dayOfMonth(from) - 1;
+        while (EpochDays.firstDayOfMonth(monthIndex) <= limit) {
+            final YearTable table = year(EpochDays.yearOfMonthIndex(monthIndex));
+            if (table.isFull()) {
+                // whole year is disabled
+                monthIndex = EpochDays.monthIndex(EpochDays.yearOfMonthIndex(monthIndex) + 1, 1);
+                offset = 0;
+                continue;
+            }
+            final int free = ~monthMask(monthIndex) & validBits(monthIndex) & bits(offset, 30);
+            if (free != 0) {
+                final int day = EpochDays.firstDayOfMonth(monthIndex) + Integer.numberOfTrailingZeros(free);
+                return day <= limit ? day : NO_DAY;
+            }
+            monthIndex++;
+            offset = 0;
+        }
+        return NO_DAY;
+    }
+
+    private int nextDisabled(int from, int limit) {
+        int monthIndex = EpochDays.monthIndexOf(from);
+        int offset = EpochDays.dayOfMonth(from) - 1;
+        while (EpochDays.firstDayOfMonth(monthIndex) <= limit) {
+            final YearTable table = year(EpochDays.yearOfMonthIndex(monthIndex));
+            if (table.isEmpty() && offset == 0 && EpochDays.monthOfMonthIndex(monthIndex) == 1) {
+                monthIndex += 12;
+                continue;
+            }
+            final int disabled = monthMask(monthIndex) & bits(offset, 30);
+            if (disabled != 0) {
+                final int day = EpochDays.firstDayOfMonth(monthIndex) + Integer.numberOfTrailingZeros(disabled);
+                return day <= limit ? day : NO_DAY;
+            }
+            monthIndex++;
+            offset = 0;
+        }
+        return NO_DAY;
+    }
+
+    private int searchLimit(int from) {
+        final int horizon = from + MAX_SEARCH_YEARS * 366;
+        return mConstraints.hasDisabledAfter() ? Math.min(mConstraints.getDisabledAfter(), horizon) : horizon;
+    }
+
+    private int monthMask(int monthIndex) {
+        return year(EpochDays.yearOfMonthIndex(monthIndex)).masks[EpochDays.monthOfMonthIndex(monthIndex) - 1];
+    }
+
+    private YearTable year(int year) {
+        YearTable table = mYears.get(year);
+        if (table == null) {
+            table = new YearTable(year);
+            for (int m = 0; m < 12; m++) {
+                table.masks[m] = mConstraints.getMonthMask(EpochDays.monthIndex(year, m + 1));
+                table.prefix[m + 1] = table.prefix[m] + Integer.bitCount(table.masks[m]);
+            }
+            mYears.put(year, table);
+        }
+        return table;
+    }
+
+    private static int validBits(int monthIndex) {
+        return bits(0, EpochDays.lengthOfMonth(monthIndex) - 1);
+    }
+
+    private static int bits(int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        return ((1 << (to + 1)) - 1) & ~((1 << from) - 1);
+    }
+
+    private static final class YearTable {
+        final int[] masks = new int[12];
+        // prefix[m] - disabled days in months before m
+        final int[] prefix = new int[13];
+        final int length;
+
+        YearTable(int year) {
+            length = EpochDays.isLeapYear(year) ? 366 : 365;
+        }
+
+        boolean isFull() {
+            return prefix[12] == length;
+        }
+
+        boolean isEmpty() {
+            return prefix[12] == 0;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Sparse set of epoch days, stored as one int mask per month (bit {@code dayOfMonth - 1}).
+ * Bulk operations work on whole month words, so applying a pattern to a range of a year
+ * is a dozen mask operations instead of hundreds of per-day checks.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayBitSet {
+    // month index -> days mask, never stores empty masks
+    private final SparseMasks mMasks = new SparseMasks();
+
+    public boolean get(int epochDay) {
+        return (getMonthMask(EpochDays.monthIndexOf(epochDay)) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    public void set(int epochDay) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        putMonthMask(monthIndex, getMonthMask(monthIndex) | (1 << (EpochDays.dayOfMonth(epochDay) - 1)));
+    }
+
+    public void clear(int epochDay) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        putMonthMask(monthIndex, getMonthMask(monthIndex) & ~(1 << (EpochDays.dayOfMonth(epochDay) - 1)));
+    }
+
+    public void clear() {
+        mMasks.clear();
+    }
+
+    public int getMonthMask(int monthIndex) {
+        return mMasks.get(monthIndex, 0);
+    }
+
+    /**
+     * Adds days of pattern within range
+     *
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     */
+    public void add(int from, int to, @NonNull SelectionPattern pattern) {
+        final int toMonth = EpochDays.monthIndexOf(to);
+        for (int m = EpochDays.monthIndexOf(from); m <= toMonth; m++) {
+            final int range = rangeMask(m, from, to);
+            putMonthMask(m, getMonthMask(m) | (pattern.getMonthMask(m) & range));
+        }
+    }
+
+    /**
+     * Removes days of pattern within range, like disabled days of {@link DayConstraints}
+     *
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     */
+    public void remove(int from, int to, @NonNull SelectionPattern pattern) {
+        final int toMonth = EpochDays.monthIndexOf(to);
+        for (int m = EpochDays.monthIndexOf(from); m <= toMonth; m++) {
+            final int mask = getMonthMask(m);
+            if (mask != 0) {
+                putMonthMask(m, mask & ~(pattern.getMonthMask(m) & rangeMask(m, from, to)));
+            }
+        }
+    }
+
+    public void or(@NonNull DayBitSet other) {
+        for (int i = 0; i < other.mMasks.size(); i++) {
+            final int m = other.mMasks.keyAt(i);
+            putMonthMask(m, getMonthMask(m) | other.mMasks.valueAt(i));
+        }
+    }
+
+    public void and(@NonNull DayBitSet other) {
+        final int[] keys = monthKeys();
+        for (int m : keys) {
+            putMonthMask(m, getMonthMask(m) & other.getMonthMask(m));
+        }
+    }
+
+    public void andNot(@NonNull DayBitSet other) {
+        for (int i = 0; i < other.mMasks.size(); i++) {
+            final int m = other.mMasks.keyAt(i);
+            final int mask = getMonthMask(m);
+            if (mask != 0) {
+                putMonthMask(m, mask & ~other.mMasks.valueAt(i));
+            }
+        }
+    }
+
+    /**
+     * Keeps only the earliest days
+     *
+     * @param count days to keep
+     */
+    public void retainFirst(int count) {
+        final int[] keys = monthKeys();
+        int left = Math.max(count, 0);
+        for (int m : keys) {
+            int mask = getMonthMask(m);
+            final int bits = Integer.bitCount(mask);
+            if (bits <= left) {
+                left -= bits;
+                continue;
+            }
+            // drop highest bits until only left ones remain
+            for (int drop = bits - left; drop > 0; drop--) {
+                mask &= ~Integer.highestOneBit(mask);
+            }
+            putMonthMask(m, mask);
+            left = 0;
+        }
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (int i = 0; i < mMasks.size(); i++) {
+            count += Integer.bitCount(mMasks.valueAt(i));
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return mMasks.size() == 0;
+    }
+
+    /**
+     * @return epoch days in ascending order
+     */
+    @NonNull
+    public int[] toArray() {
+        final int[] out = new int[cardinality()];
+        int n = 0;
+        for (int i = 0; i < mMasks.size(); i++) {
+            final int first = EpochDays.firstDayOfMonth(mMasks.keyAt(i));
+            int mask = mMasks.valueAt(i);
+            while (mask != 0) {
+                out[n++] = first + Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+        }
+        return out;
+    }
+
+    private void putMonthMask(int monthIndex, int mask) {
+        if (mask == 0) {
+            mMasks.delete(monthIndex);
+        } else {
+            mMasks.put(monthIndex, mask);
+        }
+    }
+
+    private int[] monthKeys() {
+        // copy, as putting empty mask deletes key while iterating
+        final int[] keys = new int[mMasks.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = mMasks.keyAt(i);
+        }
+        return keys;
+    }
+
+    private static int rangeMask(int monthIndex, int from, int to) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int lo = Math.max(from - first, 0);
+        final int hi = Math.min(to - first, EpochDays.lengthOfMonth(monthIndex) - 1);
+        if (lo > hi) {
+            return 0;
+        }
+        return ((1 << (hi + 1)) - 1) & ~((1 << lo) - 1);
+    }
+}
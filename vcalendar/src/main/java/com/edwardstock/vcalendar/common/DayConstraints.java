@@ -0,0 +1,378 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Days which can't be selected: before/after limits, disabled ranges, disabled days of week,
+ * recurring days and explicit disabled days. Constraints are compiled into a bitmask per month
+ * (bit {@code dayOfMonth - 1}), masks are built on demand and cached, so checking a day is a lookup
+ * and a bit test. Changing a constraint drops only masks of the months it touches.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayConstraints {
+    public static final int ALL_MONTHS_FROM = Integer.MIN_VALUE;
+    public static final int ALL_MONTHS_TO = Integer.MAX_VALUE;
+    // day bits use 0..30, highest bit marks computed mask
+    private static final int COMPILED = 1 << 31;
+
+    // month index -> compiled mask
+    private final SparseMasks mCompiled = new SparseMasks();
+    // month index -> explicit disabled days mask
+    private final SparseMasks mDays = new SparseMasks();
+    // inclusive [from, to] epoch days
+    private final List<int[]> mRanges = new ArrayList<>();
+    private final List<RecurrenceSet> mRecurrences = new ArrayList<>(1);
+    private final List<SelectionPattern> mPatterns = new ArrayList<>(1);
+    private final List<OnConstraintsChangedListener> mListeners = new ArrayList<>(1);
+    private final RecurrenceSet.OnRecurrenceChangedListener mRecurrenceListener = this::changed;
+    private int mDisabledBefore;
+    private int mDisabledAfter;
+    private boolean mHasDisabledBefore = false;
+    private boolean mHasDisabledAfter = false;
+    // bit (dayOfWeek - 1), monday is bit 0
+    private int mDaysOfWeek = 0;
+
+    public void addOnConstraintsChangedListener(OnConstraintsChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnConstraintsChangedListener(OnConstraintsChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @param epochDay days before this one (exclusive) can't be selected
+     */
+    public void setDisabledBefore(int epochDay) {
+        final int to = mHasDisabledBefore ? Math.max(mDisabledBefore, epochDay) : epochDay;
+        mDisabledBefore = epochDay;
+        mHasDisabledBefore = true;
+        changed(ALL_MONTHS_FROM, EpochDays.monthIndexOf(to));
+    }
+
+    public void setDisabledBefore(DateTime dateTime) {
+        setDisabledBefore(EpochDays.of(dateTime));
+    }
+
+    public void clearDisabledBefore() {
+        if (!mHasDisabledBefore) {
+            return;
+        }
+        mHasDisabledBefore = false;
+        changed(ALL_MONTHS_FROM, EpochDays.monthIndexOf(mDisabledBefore));
+    }
+
+    /**
+     * @param epochDay days after this one (exclusive) can't be selected
+     */
+    public void setDisabledAfter(int epochDay) {
+        final int from = mHasDisabledAfter ? Math.min(mDisabledAfter, epochDay) : epochDay;
+        mDisabledAfter = epochDay;
+        mHasDisabledAfter = true;
+        changed(EpochDays.monthIndexOf(from), ALL_MONTHS_TO);
+    }
+
+    public void setDisabledAfter(DateTime dateTime) {
+        setDisabledAfter(EpochDays.of(dateTime));
+    }
+
+    public void clearDisabledAfter() {
+        if (!mHasDisabledAfter) {
+            return;
+        }
+        mHasDisabledAfter = false;
+        changed(EpochDays.monthIndexOf(mDisabledAfter), ALL_MONTHS_TO);
+    }
+
+    public boolean hasDisabledBefore() {
+        return mHasDisabledBefore;
+    }
+
+    public boolean hasDisabledAfter() {
+        return mHasDisabledAfter;
+    }
+
+    public int getDisabledBefore() {
+        return mDisabledBefore;
+    }
+
+    public int getDisabledAfter() {
+        return mDisabledAfter;
+    }
+
+    /**
+     * @param from first disabled epoch day, inclusive
+     * @param to   last disabled epoch day, inclusive
+     */
+    public void addDisabledRange(int from, int to) {
+        if (from > to) {
+            throw new IllegalArgumentException("Range begin can't be after end");
+        }
+        mRanges.add(new int[]{from, to});
+        changed(EpochDays.monthIndexOf(from), EpochDays.monthIndexOf(to));
+    }
+
+    public void addDisabledRange(DateTime from, DateTime to) {
+        addDisabledRange(EpochDays.of(from), EpochDays.of(to));
+    }
+
+    public void removeDisabledRange(int from, int to) {
+        for (int i = 0; i < mRanges.size(); i++) {
+            final int[] range = mRanges.get(i);
+            if (range[0] == from && range[1] == to) {
+                mRanges.remove(i);
+                changed(EpochDays.monthIndexOf(from), EpochDays.monthIndexOf(to));
+                return;
+            }
+        }
+    }
+
+    public void clearDisabledRanges() {
+        if (mRanges.isEmpty()) {
+            return;
+        }
+        int from = Integer.MAX_VALUE;
+        int to = Integer.MIN_VALUE;
+        for (int[] range : mRanges) {
+            from = Math.min(from, range[0]);
+            to = Math.max(to, range[1]);
+        }
+        mRanges.clear();
+        changed(EpochDays.monthIndexOf(from), EpochDays.monthIndexOf(to));
+    }
+
+    /**
+     * @param daysOfWeek ISO days of week (1 - monday, 7 - sunday) which can't be selected, replaces previous
+     */
+    public void setDisabledDaysOfWeek(@NonNull int... daysOfWeek) {
+        int mask = 0;
+        for (int dow : daysOfWeek) {
+            if (dow < 1 || dow > 7) {
+                throw new IllegalArgumentException("Day of week must be in range 1..7");
+            }
+            mask |= 1 << (dow - 1);
+        }
+        if (mask == mDaysOfWeek) {
+            return;
+        }
+        mDaysOfWeek = mask;
+        changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+    }
+
+    public boolean isDisabledDayOfWeek(int dayOfWeek) {
+        return (mDaysOfWeek & (1 << (dayOfWeek - 1))) != 0;
+    }
+
+    public void addDisabledDay(int epochDay) {
+        setExplicit(epochDay, true);
+    }
+
+    public void addDisabledDay(DateTime dateTime) {
+        addDisabledDay(EpochDays.of(dateTime));
+    }
+
+    public void removeDisabledDay(int epochDay) {
+        setExplicit(epochDay, false);
+    }
+
+    public void clearDisabledDays() {
+        if (mDays.size() == 0) {
+            return;
+        }
+        final int from = mDays.keyAt(0);
+        final int to = mDays.keyAt(mDays.size() - 1);
+        mDays.clear();
+        changed(from, to);
+    }
+
+    /**
+     * Occurrences are evaluated only for months whose masks are built. Rules and dates added
+     * to the set later drop masks of their months.
+     *
+     * @param recurrence recurring days which can't be selected, like closures
+     */
+    public void addDisabledRecurrence(@NonNull RecurrenceSet recurrence) {
+        mRecurrences.add(recurrence);
+        recurrence.addOnRecurrenceChangedListener(mRecurrenceListener);
+        changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+    }
+
+    public void removeDisabledRecurrence(@NonNull RecurrenceSet recurrence) {
+        if (mRecurrences.remove(recurrence)) {
+            recurrence.removeOnRecurrenceChangedListener(mRecurrenceListener);
+            changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+        }
+    }
+
+    /**
+     * Pattern is asked only for months whose masks are built. If its days change,
+     * call {@link #invalidate(int, int)} for changed months.
+     *
+     * @param pattern days which can't be selected, like days without free resources
+     */
+    public void addDisabledPattern(@NonNull SelectionPattern pattern) {
+        mPatterns.add(pattern);
+        changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+    }
+
+    public void removeDisabledPattern(@NonNull SelectionPattern pattern) {
+        if (mPatterns.remove(pattern)) {
+            changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+        }
+    }
+
+    public boolean hasDisabledPattern(@NonNull SelectionPattern pattern) {
+        return mPatterns.contains(pattern);
+    }
+
+    /**
+     * Drops masks of months and notifies listeners, for external data of disabled patterns
+     *
+     * @param fromMonth first month index, or {@link #ALL_MONTHS_FROM}
+     * @param toMonth   last month index, or {@link #ALL_MONTHS_TO}
+     */
+    public void invalidate(int fromMonth, int toMonth) {
+        changed(fromMonth, toMonth);
+    }
+
+    /**
+     * Drops everything
+     */
+    public void clear() {
+        mHasDisabledBefore = false;
+        mHasDisabledAfter = false;
+        mDaysOfWeek = 0;
+        mRanges.clear();
+        for (RecurrenceSet recurrence : mRecurrences) {
+            recurrence.removeOnRecurrenceChangedListener(mRecurrenceListener);
+        }
+        mRecurrences.clear();
+        mPatterns.clear();
+        mDays.clear();
+        changed(ALL_MONTHS_FROM, ALL_MONTHS_TO);
+    }
+
+    public boolean isDisabled(int epochDay) {
+        final int mask = getMonthMask(EpochDays.monthIndexOf(epochDay));
+        return (mask & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    public boolean isDisabled(DateTime dateTime) {
+        return isDisabled(EpochDays.of(dateTime));
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return disabled days of month, bit {@code dayOfMonth - 1} is set for disabled day
+     */
+    public int getMonthMask(int monthIndex) {
+        int mask = mCompiled.get(monthIndex, 0);
+        if ((mask & COMPILED) == 0) {
+            mask = compile(monthIndex) | COMPILED;
+            mCompiled.put(monthIndex, mask);
+        }
+
+        return mask & ~COMPILED;
+    }
+
+    private void setExplicit(int epochDay, boolean disabled) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        final int bit = 1 << (EpochDays.dayOfMonth(epochDay) - 1);
+        final int prev = mDays.get(monthIndex, 0);
+        final int next = disabled ? prev | bit : prev & ~bit;
+        if (prev == next) {
+            return;
+        }
+        if (next == 0) {
+            mDays.delete(monthIndex);
+        } else {
+            mDays.put(monthIndex, next);
+        }
+        changed(monthIndex, monthIndex);
+    }
+
+    private int compile(int monthIndex) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int last = EpochDays.lastDayOfMonth(monthIndex);
+        final int len = last - first + 1;
+
+        int mask = mDays.get(monthIndex, 0);
+        if (mHasDisabledBefore && mDisabledBefore > first) {
+            mask |= bits(0, Math.min(mDisabledBefore - first, len) - 1);
+        }
+        if (mHasDisabledAfter && mDisabledAfter < last) {
+            mask |= bits(Math.max(mDisabledAfter - first + 1, 0), len - 1);
+        }
+        for (int[] range : mRanges) {
+            if (range[1] < first || range[0] > last) {
+                continue;
+            }
+            mask |= bits(Math.max(range[0], first) - first, Math.min(range[1], last) - first);
+        }
+        for (RecurrenceSet recurrence : mRecurrences) {
+            mask |= recurrence.getMonthMask(monthIndex);
+        }
+        for (SelectionPattern pattern : mPatterns) {
+            mask |= pattern.getMonthMask(monthIndex);
+        }
+        if (mDaysOfWeek != 0) {
+            int dow = EpochDays.dayOfWeek(first) - 1;
+            for (int d = 0; d < len; d++) {
+                if ((mDaysOfWeek & (1 << dow)) != 0) {
+                    mask |= 1 << d;
+                }
+                dow = dow == 6 ? 0 : dow + 1;
+            }
+        }
+
+        return mask;
+    }
+
+    /**
+     * @return bits from..to inclusive, to is at most 30
+     */
+    private static int bits(int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        return ((1 << (to + 1)) - 1) & ~((1 << from) - 1);
+    }
+
+    private void changed(int fromMonth, int toMonth) {
+        if (fromMonth == ALL_MONTHS_FROM && toMonth == ALL_MONTHS_TO) {
+            mCompiled.clear();
+        } else {
+            // keys are sorted, walk backwards so removal keeps lower indices valid
+            for (int i = mCompiled.size() - 1; i >= 0; i--) {
+                final int key = mCompiled.keyAt(i);
+                if (key < fromMonth) {
+                    break;
+                }
+                if (key <= toMonth) {
+                    mCompiled.removeAt(i);
+                }
+            }
+        }
+
+        // listeners may remove themselves
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onConstraintsChanged(fromMonth, toMonth);
+        }
+    }
+
+    public interface OnConstraintsChangedListener {
+        /**
+         * @param fromMonth first affected month index, or {@link #ALL_MONTHS_FROM}
+         * @param toMonth   last affected month index, or {@link #ALL_MONTHS_TO}
+         */
+        void onConstraintsChanged(int fromMonth, int toMonth);
+    }
+}
@@ -0,0 +1,202 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * App-defined flags of days: booked, pending, holiday, etc, up to 32 bits.
+ * Every flag bit has its own plane of month bitmasks (bit {@code dayOfMonth - 1}), so days
+ * matching flags are an OR of a few masks, and months without the flag take no memory.
+ * Ranges are set and cleared month by month, so tagging a year is a dozen mask updates per flag.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayStates {
+    // flag bit -> month index -> days having the flag, created on first use
+    private final SparseMasks[] mPlanes = new SparseMasks[Integer.SIZE];
+    private final List<OnStatesChangedListener> mListeners = new ArrayList<>(1);
+
+    public void addOnStatesChangedListener(OnStatesChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnStatesChangedListener(OnStatesChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    public int get(int epochDay) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        final int dayBit = 1 << (EpochDays.dayOfMonth(epochDay) - 1);
+        int flags = 0;
+        for (int bit = 0; bit < mPlanes.length; bit++) {
+            final SparseMasks plane = mPlanes[bit];
+            if (plane != null && (plane.get(monthIndex, 0) & dayBit) != 0) {
+                flags |= 1 << bit;
+            }
+        }
+        return flags;
+    }
+
+    public boolean hasAny(int epochDay, int flags) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        return (getMonthMask(monthIndex, flags) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    public boolean hasAll(int epochDay, int flags) {
+        return (get(epochDay) & flags) == flags;
+    }
+
+    public void set(int epochDay, int flags) {
+        setRange(epochDay, epochDay, flags);
+    }
+
+    public void clear(int epochDay, int flags) {
+        clearRange(epochDay, epochDay, flags);
+    }
+
+    /**
+     * Adds flags to every day of range
+     *
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     */
+    public void setRange(int from, int to, int flags) {
+        if (from > to) {
+            throw new IllegalArgumentException("Range begin can't be after end");
+        }
+        if (flags == 0) {
+            return;
+        }
+        final int fromMonth = EpochDays.monthIndexOf(from);
+        final int toMonth = EpochDays.monthIndexOf(to);
+        for (int bit = 0; bit < mPlanes.length; bit++) {
+            if ((flags & (1 << bit)) == 0) {
+                continue;
+            }
+            if (mPlanes[bit] == null) {
+                mPlanes[bit] = new SparseMasks();
+            }
+            final SparseMasks plane = mPlanes[bit];
+            for (int m = fromMonth; m <= toMonth; m++) {
+                plane.put(m, plane.get(m, 0) | rangeMask(m, from, to));
+            }
+        }
+        changed(from, to);
+    }
+
+    /**
+     * Removes flags from every day of range
+     *
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     */
+    public void clearRange(int from, int to, int flags) {
+        if (from > to) {
+            throw new IllegalArgumentException("Range begin can't be after end");
+        }
+        if (flags == 0) {
+            return;
+        }
+        final int fromMonth = EpochDays.monthIndexOf(from);
+        final int toMonth = EpochDays.monthIndexOf(to);
+        for (int bit = 0; bit < mPlanes.length; bit++) {
+            final SparseMasks plane = mPlanes[bit];
+            if ((flags & (1 << bit)) == 0 || plane == null) {
+                continue;
+            }
+            // keys are sorted, walk backwards so removal keeps lower indices valid
+            for (int i = plane.size() - 1; i >= 0; i--) {
+                final int m = plane.keyAt(i);
+                if (m < fromMonth) {
+                    break;
+                }
+                if (m > toMonth) {
+                    continue;
+                }
+                final int mask = plane.valueAt(i) & ~rangeMask(m, from, to);
+                if (mask == 0) {
+                    plane.removeAt(i);
+                } else {
+                    plane.put(m, mask);
+                }
+            }
+            if (plane.size() == 0) {
+                mPlanes[bit] = null;
+            }
+        }
+        changed(from, to);
+    }
+
+    /**
+     * Removes flags from all days
+     */
+    public void clearAll(int flags) {
+        int fromMonth = Integer.MAX_VALUE;
+        int toMonth = Integer.MIN_VALUE;
+        for (int bit = 0; bit < mPlanes.length; bit++) {
+            final SparseMasks plane = mPlanes[bit];
+            if ((flags & (1 << bit)) == 0 || plane == null) {
+                continue;
+            }
+            fromMonth = Math.min(fromMonth, plane.keyAt(0));
+            toMonth = Math.max(toMonth, plane.keyAt(plane.size() - 1));
+            mPlanes[bit] = null;
+        }
+        if (fromMonth > toMonth) {
+            return;
+        }
+        changed(EpochDays.firstDayOfMonth(fromMonth), EpochDays.lastDayOfMonth(toMonth));
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @param flags      flags to match
+     * @return days having any of flags, bit {@code dayOfMonth - 1} is set for matched day
+     */
+    public int getMonthMask(int monthIndex, int flags) {
+        int mask = 0;
+        for (int bit = 0; bit < mPlanes.length; bit++) {
+            final SparseMasks plane = mPlanes[bit];
+            if ((flags & (1 << bit)) != 0 && plane != null) {
+                mask |= plane.get(monthIndex, 0);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @return days having any of flags, to use as selection pattern or disabled days
+     */
+    @NonNull
+    public SelectionPattern matching(int flags) {
+        return monthIndex -> getMonthMask(monthIndex, flags);
+    }
+
+    /**
+     * @return days of month inside [from, to] range of epoch days
+     */
+    private static int rangeMask(int monthIndex, int from, int to) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int lo = Math.max(from - first, 0);
+        final int hi = Math.min(to - first, EpochDays.lengthOfMonth(monthIndex) - 1);
+        return ((1 << (hi + 1)) - 1) & ~((1 << lo) - 1);
+    }
+
+    private void changed(int from, int to) {
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onStatesChanged(from, to);
+        }
+    }
+
+    public interface OnStatesChangedListener {
+        /**
+         * @param fromDay first changed epoch day, inclusive
+         * @param toDay   last changed epoch day, inclusive
+         */
+        void onStatesChanged(int fromDay, int toDay);
+    }
+}
@@ -0,0 +1,299 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Numeric value per epoch day (price, load, temperature) with range aggregates: count, sum, min and max
+ * of days having value. Segment tree over a window of days which doubles when a value falls outside,
+ * so point update and range query cost O(log n) and heatmap bounds of visible months or total price
+ * of selected nights never rescan the data.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayValueIndex {
+    private static final int INITIAL_CAPACITY = 512;
+    private final List<OnValuesChangedListener> mListeners = new ArrayList<>(1);
+    // epoch day of the first leaf
+    private int mBase;
+    // leaves count, power of two; 0 while empty
+    private int mCapacity = 0;
+    // heap layout: node i has children 2i and 2i+1, leaves start at mCapacity
+    private int[] mCount;
+    private double[] mSum;
+    private double[] mMin;
+    private double[] mMax;
+
+    public void addOnValuesChangedListener(OnValuesChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnValuesChangedListener(OnValuesChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    public void put(int epochDay, double value) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Value can't be NaN");
+        }
+        ensureDay(epochDay);
+        setLeaf(epochDay - mBase, 1, value);
+        changed(epochDay, epochDay);
+    }
+
+    /**
+     * Puts values of consecutive days and rebuilds tree once
+     *
+     * @param from   epoch day of values[0]
+     * @param values values of days from..from + values.length - 1
+     * @throws IllegalArgumentException if any value is NaN, nothing is put then
+     */
+    public void putAll(int from, @NonNull double[] values) {
+        // validate first, so rejected values leave index untouched
+        for (double value : values) {
+            if (Double.isNaN(value)) {
+                throw new IllegalArgumentException("Value can't be NaN");
+            }
+        }
+        if (values.length == 0) {
+            return;
+        }
+        final int to = from + values.length - 1;
+        ensureDay(from);
+        ensureDay(to);
+        for (int i = 0; i < values.length; i++) {
+            final int leaf = mCapacity + from - mBase + i;
+            mCount[leaf] = 1;
+            mSum[leaf] = mMin[leaf] = mMax[leaf] = values[i];
+        }
+        rebuild(from - mBase, to - mBase);
+        changed(from, to);
+    }
+
+    public void remove(int epochDay) {
+        if (!covers(epochDay) || mCount[mCapacity + epochDay - mBase] == 0) {
+            return;
+        }
+        setLeaf(epochDay - mBase, 0, 0);
+        changed(epochDay, epochDay);
+    }
+
+    public void clear() {
+        if (mCapacity == 0) {
+            return;
+        }
+        final int from = mBase;
+        final int to = mBase + mCapacity - 1;
+        mCapacity = 0;
+        mCount = null;
+        mSum = mMin = mMax = null;
+        changed(from, to);
+    }
+
+    public boolean has(int epochDay) {
+        return covers(epochDay) && mCount[mCapacity + epochDay - mBase] != 0;
+    }
+
+    /**
+     * @return value of day or defValue if day has no value
+     */
+    public double get(int epochDay, double defValue) {
+        return has(epochDay) ? mSum[mCapacity + epochDay - mBase] : defValue;
+    }
+
+    /**
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     * @return aggregate of days having value, {@link Aggregate#isEmpty()} if there are none
+     */
+    @NonNull
+    public Aggregate query(int from, int to) {
+        final Aggregate out = new Aggregate();
+        if (mCapacity == 0 || from > to) {
+            return out;
+        }
+        int lo = Math.max(from, mBase) - mBase;
+        int hi = Math.min(to, mBase + mCapacity - 1) - mBase;
+        if (lo > hi) {
+            return out;
+        }
+        // bottom-up walk over half-open [lo, hi + 1)
+        lo += mCapacity;
+        hi += mCapacity + 1;
+        while (lo < hi) {
+            if ((lo & 1) == 1) {
+                out.add(mCount[lo], mSum[lo], mMin[lo], mMax[lo]);
+                lo++;
+            }
+            if ((hi & 1) == 1) {
+                hi--;
+                out.add(mCount[hi], mSum[hi], mMin[hi], mMax[hi]);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+        return out;
+    }
+
+    /**
+     * @return aggregate of all days having value
+     */
+    @NonNull
+    public Aggregate queryAll() {
+        final Aggregate out = new Aggregate();
+        if (mCapacity != 0) {
+            out.add(mCount[1], mSum[1], mMin[1], mMax[1]);
+        }
+        return out;
+    }
+
+    public double sum(int from, int to) {
+        return query(from, to).sum;
+    }
+
+    private boolean covers(int epochDay) {
+        return mCapacity != 0 && epochDay >= mBase && epochDay < mBase + mCapacity;
+    }
+
+    private void ensureDay(int epochDay) {
+        if (mCapacity == 0) {
+            allocate(INITIAL_CAPACITY);
+            mBase = epochDay - INITIAL_CAPACITY / 2;
+            return;
+        }
+        if (covers(epochDay)) {
+            return;
+        }
+
+        final int oldBase = mBase;
+        final int oldCapacity = mCapacity;
+        final int[] count = mCount;
+        final double[] sum = mSum;
+        final double[] min = mMin;
+        final double[] max = mMax;
+
+        int newBase = oldBase;
+        int newCapacity = oldCapacity;
+        while (epochDay < newBase || epochDay >= newBase + newCapacity) {
+            // grow towards the day, old leaves stay one block
+            if (epochDay < newBase) {
+                newBase -= newCapacity;
+            }
+            newCapacity <<= 1;
+        }
+
+        allocate(newCapacity);
+        mBase = newBase;
+        final int offset = newCapacity + oldBase - newBase;
+        System.arraycopy(count, oldCapacity, mCount, offset, oldCapacity);
+        System.arraycopy(sum, oldCapacity, mSum, offset, oldCapacity);
+        System.arraycopy(min, oldCapacity, mMin, offset, oldCapacity);
+        System.arraycopy(max, oldCapacity, mMax, offset, oldCapacity);
+        rebuild(oldBase - newBase, oldBase - newBase + oldCapacity - 1);
+    }
+
+    private void allocate(int capacity) {
+        mCapacity = capacity;
+        mCount = new int[capacity * 2];
+        mSum = new double[capacity * 2];
+        mMin = new double[capacity * 2];
+        mMax = new double[capacity * 2];
+        Arrays.fill(mMin, Double.POSITIVE_INFINITY);
+        Arrays.fill(mMax, Double.NEGATIVE_INFINITY);
+    }
+
+    private void setLeaf(int leafIndex, int count, double value) {
+        int node = mCapacity + leafIndex;
+        mCount[node] = count;
+        mSum[node] = count == 0 ? 0 : value;
+        mMin[node] = count == 0 ? Double.POSITIVE_INFINITY : value;
+        mMax[node] = count == 0 ? Double.NEGATIVE_INFINITY : value;
+        for (node >>= 1; node > 0; node >>= 1) {
+            pull(node);
+        }
+    }
+
+    /**
+     * Recomputes parents of leaves range, level by level
+     */
+    private void rebuild(int fromLeaf, int toLeaf) {
+        int lo = (mCapacity + fromLeaf) >> 1;
+        int hi = (mCapacity + toLeaf) >> 1;
+        while (lo > 0) {
+            for (int node = lo; node <= hi; node++) {
+                pull(node);
+            }
+            lo >>= 1;
+            hi >>= 1;
+        }
+    }
+
+    private void pull(int node) {
+        final int l = node << 1;
+        final int r = l + 1;
+        mCount[node] = mCount[l] + mCount[r];
+        mSum[node] = mSum[l] + mSum[r];
+        mMin[node] = Math.min(mMin[l], mMin[r]);
+        mMax[node] = Math.max(mMax[l], mMax[r]);
+    }
+
+    private void changed(int from, int to) {
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onValuesChanged(from, to);
+        }
+    }
+
+    public interface OnValuesChangedListener {
+        /**
+         * @param fromDay first changed epoch day, inclusive
+         * @param toDay   last changed epoch day, inclusive
+         */
+        void onValuesChanged(int fromDay, int toDay);
+    }
+
+    /**
+     * Aggregate of days having value. Min and max are infinite when count is 0
+     */
+    public static final class Aggregate {
+        private int count = 0;
+        private double sum = 0;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+
+        public int getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public double getMin() {
+            return min;
+        }
+
+        public double getMax() {
+            return max;
+        }
+
+        public boolean isEmpty() {
+            return count == 0;
+        }
+
+        public double getAverage() {
+            return count == 0 ? 0 : sum / count;
+        }
+
+        void add(int count, double sum, double min, double max) {
+            this.count += count;
+            this.sum += sum;
+            this.min = Math.min(this.min, min);
+            this.max = Math.max(this.max, max);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.edwardstock.vcalendar.common;
+
+import org.joda.time.DateTime;
+import org.joda.time.LocalDate;
+import org.joda.time.YearMonth;
+import org.joda.time.chrono.ISOChronology;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * Date engine on plain ints. Day is a count of days since 1970-01-01 (epoch day),
+ * month is {@code year * 12 + (month - 1)} (month index). Conversions use proleptic Gregorian
+ * civil-date arithmetic, so there is no time zone, no DST and no allocations.
+ * <p>
+ * Joda types are used only as adapters on the public API edge.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class EpochDays {
+    public static final long MILLIS_PER_DAY = 86400000L;
+    private static final int DAYS_0000_TO_1970 = 719468;
+    private static final int DAYS_PER_ERA = 146097;
+
+    private EpochDays() {
+    }
+
+    /**
+     * @param year  year
+     * @param month 1-based month, january is 1
+     * @param day   day of month
+     * @return epoch day
+     */
+    public static int of(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yoe = y - era * 400;
+        final int doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        final int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * DAYS_PER_ERA + doe - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Uses date fields in date time's own zone
+     */
+    public static int of(DateTime dateTime) {
+        return of(dateTime.getYear(), dateTime.getMonthOfYear(), dateTime.getDayOfMonth());
+    }
+
+    public static int of(LocalDate date) {
+        return of(date.getYear(), date.getMonthOfYear(), date.getDayOfMonth());
+    }
+
+    /**
+     * Uses default time zone
+     */
+    public static int of(Date date) {
+        return fromMillis(date.getTime(), TimeZone.getDefault());
+    }
+
+    public static int fromMillis(long millis, TimeZone zone) {
+        return (int) floorDiv(millis + zone.getOffset(millis), MILLIS_PER_DAY);
+    }
+
+    /**
+     * @return current day in default time zone
+     */
+    public static int today() {
+        return fromMillis(System.currentTimeMillis(), TimeZone.getDefault());
+    }
+
+    public static int year(int epochDay) {
+        return civil(epochDay) >> 9;
+    }
+
+    /**
+     * @return 1-based month, january is 1
+     */
+    public static int month(int epochDay) {
+        return (civil(epochDay) >> 5) & 0xF;
+    }
+
+    public static int dayOfMonth(int epochDay) {
+        return civil(epochDay) & 0x1F;
+    }
+
+    /**
+     * @return ISO day of week: monday is 1, sunday is 7
+     */
+    public static int dayOfWeek(int epochDay) {
+        // 1970-01-01 is thursday
+        return floorMod(epochDay + 3, 7) + 1;
+    }
+
+    public static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * @param month 1-based month
+     */
+    public static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return isLeapYear(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * @param month 1-based month
+     */
+    public static int monthIndex(int year, int month) {
+        return year * 12 + month - 1;
+    }
+
+    public static int monthIndex(YearMonth yearMonth) {
+        return monthIndex(yearMonth.getYear(), yearMonth.getMonthOfYear());
+    }
+
+    public static int monthIndexOf(int epochDay) {
+        final int civil = civil(epochDay);
+        return monthIndex(civil >> 9, (civil >> 5) & 0xF);
+    }
+
+    public static int yearOfMonthIndex(int monthIndex) {
+        return (int) floorDiv(monthIndex, 12);
+    }
+
+    /**
+     * @return 1-based month, january is 1
+     */
+    public static int monthOfMonthIndex(int monthIndex) {
+        return floorMod(monthIndex, 12) + 1;
+    }
+
+    public static int firstDayOfMonth(int monthIndex) {
+        return of(yearOfMonthIndex(monthIndex), monthOfMonthIndex(monthIndex), 1);
+    }
+
+    public static int lastDayOfMonth(int monthIndex) {
+        return firstDayOfMonth(monthIndex) + lengthOfMonth(monthIndex) - 1;
+    }
+
+    public static int lengthOfMonth(int monthIndex) {
+        return lengthOfMonth(yearOfMonthIndex(monthIndex), monthOfMonthIndex(monthIndex));
+    }
+
+    /**
+     * Adapter to public API. Unlike {@code withTime(0, 0, 0, 0)} never fails in zones where DST
+     * starts at midnight: start of such day is just moved to first existing instant.
+     *
+     * @return start of day in default time zone
+     */
+    public static DateTime toDateTime(int epochDay) {
+        return toLocalDate(epochDay).toDateTimeAtStartOfDay();
+    }
+
+    public static LocalDate toLocalDate(int epochDay) {
+        final int civil = civil(epochDay);
+        return new LocalDate(civil >> 9, (civil >> 5) & 0xF, civil & 0x1F,
+                             ISOChronology.getInstanceUTC());
+    }
+
+    public static YearMonth toYearMonth(int monthIndex) {
+        return new YearMonth(yearOfMonthIndex(monthIndex), monthOfMonthIndex(monthIndex),
+                             ISOChronology.getInstanceUTC());
+    }
+
+    /**
+     * @return ISO-8601 date: yyyy-MM-dd
+     */
+    public static String toIsoString(int epochDay) {
+        final int civil = civil(epochDay);
+        final int year = civil >> 9;
+        final int month = (civil >> 5) & 0xF;
+        final int day = civil & 0x1F;
+        if (year < 0 || year > 9999) {
+            throw new IllegalArgumentException("Year is out of yyyy range: " + year);
+        }
+
+        final char[] out = new char[10];
+        out[0] = (char) ('0' + year / 1000);
+        out[1] = (char) ('0' + year / 100 % 10);
+        out[2] = (char) ('0' + year / 10 % 10);
+        out[3] = (char) ('0' + year % 10);
+        out[4] = '-';
+        out[5] = (char) ('0' + month / 10);
+        out[6] = (char) ('0' + month % 10);
+        out[7] = '-';
+        out[8] = (char) ('0' + day / 10);
+        out[9] = (char) ('0' + day % 10);
+        return new String(out);
+    }
+
+    /**
+     * @param value ISO-8601 date: yyyy-MM-dd
+     * @throws IllegalArgumentException if value is not a valid date
+     */
+    public static int parseIso(String value) {
+        if (value == null || value.length() != 10 || value.charAt(4) != '-' || value.charAt(7) != '-') {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+
+        final int year = parseDigits(value, 0, 4);
+        final int month = parseDigits(value, 5, 7);
+        final int day = parseDigits(value, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid date: " + value);
+        }
+
+        return of(year, month, day);
+    }
+
+    static long floorDiv(long x, long y) {
+        long r = x / y;
+        if ((x ^ y) < 0 && (r * y != x)) {
+            r--;
+        }
+        return r;
+    }
+
+    static int floorMod(int x, int y) {
+        final int mod = x % y;
+        return mod < 0 ? mod + y : mod;
+    }
+
+    private static int parseDigits(String value, int from, int to) {
+        int out = 0;
+        for (int i = from; i < to; i++) {
+            final char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            out = out * 10 + (c - '0');
+        }
+        return out;
+    }
+
+    /**
+     * @return packed civil date: year << 9 | month << 5 | day
+     */
+    private static int civil(int epochDay) {
+        final int z = epochDay + DAYS_0000_TO_1970;
+        final int era = (z >= 0 ? z : z - (DAYS_PER_ERA - 1)) / DAYS_PER_ERA;
+        final int doe = z - era * DAYS_PER_ERA;
+        final int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        final int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        final int mp = (5 * doy + 2) / 153;
+        final int day = doy - (153 * mp + 2) / 5 + 1;
+        final int month = mp < 10 ? mp + 3 : mp - 9;
+        final int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return (year << 9) | (month << 5) | day;
+    }
+}
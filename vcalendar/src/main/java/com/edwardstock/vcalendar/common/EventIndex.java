@@ -0,0 +1,335 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import com.edwardstock.vcalendar.models.CalendarEvent;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Interval index of multi-day events over epoch days: a treap ordered by start day,
+ * each node keeps max end day of its subtree. Add, remove and overlap query of a short range
+ * (a week) cost O(log n + k), so tens of thousands of events stay cheap for visible weeks.
+ * <p>
+ * Every event gets a lane: the lowest one free among events it overlaps. Lanes are assigned when
+ * event is added and never reshuffled, so bars keep their rows across weeks and updates.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class EventIndex {
+    private final Map<Long, Node> mNodes = new HashMap<>();
+    private final List<OnEventsChangedListener> mListeners = new ArrayList<>(1);
+    private Node mRoot;
+    private int mSeed = 0x2545F491;
+
+    public void addOnEventsChangedListener(OnEventsChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnEventsChangedListener(OnEventsChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Adds event or replaces event with the same id
+     */
+    public void add(@NonNull CalendarEvent event) {
+        checkNotNull(event, "Event can't be null");
+        final Node prev = mNodes.get(event.getId());
+        if (prev != null) {
+            mRoot = delete(mRoot, prev);
+        }
+
+        final Node node = new Node(event, nextPriority());
+        node.lane = findFreeLane(event.getStartDay(), event.getEndDay());
+        mRoot = insert(mRoot, node);
+        mNodes.put(event.getId(), node);
+
+        if (prev != null) {
+            changed(prev.event.getStartDay(), prev.event.getEndDay());
+        }
+        changed(event.getStartDay(), event.getEndDay());
+    }
+
+    public void addAll(@NonNull Iterable<CalendarEvent> events) {
+        for (CalendarEvent event : events) {
+            add(event);
+        }
+    }
+
+    public boolean remove(long id) {
+        final Node node = mNodes.remove(id);
+        if (node == null) {
+            return false;
+        }
+        mRoot = delete(mRoot, node);
+        changed(node.event.getStartDay(), node.event.getEndDay());
+        return true;
+    }
+
+    public boolean remove(@NonNull CalendarEvent event) {
+        return remove(event.getId());
+    }
+
+    public void clear() {
+        if (mRoot == null) {
+            return;
+        }
+        final int from = first(mRoot).event.getStartDay();
+        final int to = mRoot.maxEnd;
+        mRoot = null;
+        mNodes.clear();
+        changed(from, to);
+    }
+
+    public int size() {
+        return mNodes.size();
+    }
+
+    /**
+     * @return lane of event or -1 if event is not in index
+     */
+    public int getLane(long id) {
+        final Node node = mNodes.get(id);
+        return node == null ? -1 : node.lane;
+    }
+
+    /**
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     * @param out  receives overlapping events ordered by start day
+     */
+    public void query(int from, int to, @NonNull List<CalendarEvent> out) {
+        collect(mRoot, from, to, out, null);
+    }
+
+    /**
+     * Splits events into bar segments of one week row
+     *
+     * @param weekFirstDay epoch day of the first cell of the row
+     * @param from         first visible epoch day of the row, inclusive
+     * @param to           last visible epoch day of the row, inclusive
+     * @return segments ordered by lane and cell
+     */
+    @NonNull
+    public List<Segment> getWeekSegments(int weekFirstDay, int from, int to) {
+        final List<Node> nodes = new ArrayList<>();
+        collect(mRoot, from, to, null, nodes);
+        if (nodes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<Segment> out = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            final CalendarEvent event = node.event;
+            out.add(new Segment(event,
+                                Math.max(event.getStartDay(), from) - weekFirstDay,
+                                Math.min(event.getEndDay(), to) - weekFirstDay,
+                                node.lane,
+                                event.getStartDay() < from,
+                                event.getEndDay() > to));
+        }
+        Collections.sort(out, (a, b) -> a.lane != b.lane ? a.lane - b.lane : a.startCell - b.startCell);
+        return out;
+    }
+
+    private int findFreeLane(int from, int to) {
+        final List<Node> overlapping = new ArrayList<>();
+        collect(mRoot, from, to, null, overlapping);
+        final BitSet used = new BitSet();
+        for (Node node : overlapping) {
+            used.set(node.lane);
+        }
+        return used.nextClearBit(0);
+    }
+
+    private void changed(int fromDay, int toDay) {
+        for (OnEventsChangedListener l : mListeners) {
+            l.onEventsChanged(fromDay, toDay);
+        }
+    }
+
+    private int nextPriority() {
+        // xorshift, priorities only need to be well spread
+        int x = mSeed;
+        x ^= x << 13;
+        x ^= x >>> 17;
+        x ^= x << 5;
+        mSeed = x;
+        return x;
+    }
+
+    private static void collect(Node node, int from, int to, List<CalendarEvent> events, List<Node> nodes) {
+        if (node == null || node.maxEnd < from) {
+            return;
+        }
+        collect(node.left, from, to, events, nodes);
+        if (node.event.getStartDay() > to) {
+            // right subtree starts even later
+            return;
+        }
+        if (node.event.getEndDay() >= from) {
+            if (events != null) {
+                events.add(node.event);
+            }
+            if (nodes != null) {
+                nodes.add(node);
+            }
+        }
+        collect(node.right, from, to, events, nodes);
+    }
+
+    private static Node first(Node node) {
+        while (node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    private static int compare(Node a, Node b) {
+        if (a.event.getStartDay() != b.event.getStartDay()) {
+            return a.event.getStartDay() < b.event.getStartDay() ? -1 : 1;
+        }
+        final long aId = a.event.getId();
+        final long bId = b.event.getId();
+        return aId < bId ? -1 : (aId == bId ? 0 : 1);
+    }
+
+    private static Node insert(Node root, Node node) {
+        if (root == null) {
+            return node;
+        }
+        if (node.priority > root.priority) {
+            // node becomes root of this subtree
+            final Node[] parts = split(root, node);
+            node.left = parts[0];
+            node.right = parts[1];
+            return node.update();
+        }
+        if (compare(node, root) < 0) {
+            root.left = insert(root.left, node);
+        } else {
+            root.right = insert(root.right, node);
+        }
+        return root.update();
+    }
+
+    private static Node delete(Node root, Node node) {
+        if (root == null) {
+            return null;
+        }
+        if (root == node) {
+            return merge(root.left, root.right);
+        }
+        if (compare(node, root) < 0) {
+            root.left = delete(root.left, node);
+        } else {
+            root.right = delete(root.right, node);
+        }
+        return root.update();
+    }
+
+    /**
+     * @return [less than key, greater or equal]
+     */
+    private static Node[] split(Node root, Node key) {
+        if (root == null) {
+            return new Node[]{null, null};
+        }
+        if (compare(root, key) < 0) {
+            final Node[] parts = split(root.right, key);
+            root.right = parts[0];
+            parts[0] = root.update();
+            return parts;
+        } else {
+            final Node[] parts = split(root.left, key);
+            root.left = parts[1];
+            parts[1] = root.update();
+            return parts;
+        }
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            return left.update();
+        } else {
+            right.left = merge(left, right.left);
+            return right.update();
+        }
+    }
+
+    public interface OnEventsChangedListener {
+        /**
+         * @param fromDay first affected epoch day
+         * @param toDay   last affected epoch day
+         */
+        void onEventsChanged(int fromDay, int toDay);
+    }
+
+    /**
+     * Part of event bar inside one week row
+     */
+    public static final class Segment {
+        public final CalendarEvent event;
+        // cells 0..6 from the first cell of the row
+        public final int startCell;
+        public final int endCell;
+        public final int lane;
+        // event continues in previous or next row
+        public final boolean continuesBefore;
+        public final boolean continuesAfter;
+
+        Segment(CalendarEvent event, int startCell, int endCell, int lane, boolean continuesBefore,
+                boolean continuesAfter) {
+            this.event = event;
+            this.startCell = startCell;
+            this.endCell = endCell;
+            this.lane = lane;
+            this.continuesBefore = continuesBefore;
+            this.continuesAfter = continuesAfter;
+        }
+    }
+
+    private static final class Node {
+        final CalendarEvent event;
+        final int priority;
+        int lane;
+        int maxEnd;
+        Node left;
+        Node right;
+
+        Node(CalendarEvent event, int priority) {
+            this.event = event;
+            this.priority = priority;
+            maxEnd = event.getEndDay();
+        }
+
+        Node update() {
+            int max = event.getEndDay();
+            if (left != null && left.maxEnd > max) {
+                max = left.maxEnd;
+            }
+            if (right != null && right.maxEnd > max) {
+                max = right.maxEnd;
+            }
+            maxEnd = max;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,371 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.Locale;
+
+/**
+ * RFC 5545 recurrence rule (RRULE) over whole days. Rule is never expanded as a list:
+ * occurrences are evaluated for one month at a time as a bitmask (bit {@code dayOfMonth - 1}),
+ * so cost depends on months asked, not on the rule horizon.
+ * <p>
+ * Supported parts: FREQ (DAILY, WEEKLY, MONTHLY, YEARLY), INTERVAL, COUNT, UNTIL, BYMONTH,
+ * BYMONTHDAY, BYDAY (with ordinals for MONTHLY and YEARLY) and WKST. Time parts are ignored,
+ * UNTIL is taken as a date. BYSETPOS, BYYEARDAY, BYWEEKNO and sub-daily frequencies are rejected.
+ * <p>
+ * COUNT is resolved once, in constructor, by walking months from the start: occurrences later
+ * than {@value #MAX_COUNT_YEARS} years after DTSTART are dropped. Parse long COUNT rules off the
+ * main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class RecurrenceRule {
+    public static final int DAILY = 0;
+    public static final int WEEKLY = 1;
+    public static final int MONTHLY = 2;
+    public static final int YEARLY = 3;
+    // count expansion stops after this many years without reaching COUNT
+    public static final int MAX_COUNT_YEARS = 100;
+    private static final String[] WEEKDAYS = {"MO", "TU", "WE", "TH", "FR", "SA", "SU"};
+
+    private final int mStart;
+    private final int mFreq;
+    private final int mInterval;
+    private final int mCount;
+    private final int mWeekStart;
+    // bit (month - 1)
+    private final int mByMonth;
+    // day of month bits, bit (day - 1)
+    private final long mByMonthDay;
+    // day of month bits counted from the end, bit (-day - 1)
+    private final long mByMonthDayNeg;
+    // parallel arrays: day of week (1..7) and ordinal (0 - every)
+    private final int[] mByDay;
+    private final int[] mByDayOrdinal;
+    private final String mSource;
+    private int mUntil;
+    private boolean mHasUntil;
+
+    /**
+     * @param dtStart first day of recurrence (DTSTART), epoch day
+     * @param rrule   rule value, like {@code FREQ=MONTHLY;BYDAY=2TU}, "RRULE:" prefix is allowed
+     * @throws IllegalArgumentException if rule is malformed, uses unsupported parts or both COUNT and UNTIL
+     */
+    public RecurrenceRule(int dtStart, @NonNull String rrule) {
+        mStart = dtStart;
+        mSource = rrule;
+        String value = rrule.trim();
+        if (value.regionMatches(true, 0, "RRULE:", 0, 6)) {
+            value = value.substring(6);
+        }
+
+        int freq = -1;
+        int interval = 1;
+        int count = 0;
+        int weekStart = 1;
+        int byMonth = 0;
+        long byMonthDay = 0;
+        long byMonthDayNeg = 0;
+        int[] byDay = new int[0];
+        int[] byDayOrdinal = new int[0];
+
+        for (String part : value.split(";")) {
+            if (part.isEmpty()) {
+                continue;
+            }
+            final int eq = part.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Invalid rule part: " + part);
+            }
+            final String name = part.substring(0, eq).toUpperCase(Locale.US);
+            final String val = part.substring(eq + 1).toUpperCase(Locale.US);
+            switch (name) {
+                case "FREQ":
+                    freq = parseFreq(val);
+                    break;
+                case "INTERVAL":
+                    interval = parsePositive(name, val);
+                    break;
+                case "COUNT":
+                    count = parsePositive(name, val);
+                    break;
+                case "UNTIL":
+                    mUntil = parseDate(val);
+                    mHasUntil = true;
+                    break;
+                case "WKST":
+                    weekStart = parseWeekday(val);
+                    break;
+                case "BYMONTH":
+                    for (String m : val.split(",")) {
+                        final int month = Integer.parseInt(m);
+                        if (month < 1 || month > 12) {
+                            throw new IllegalArgumentException("Invalid BYMONTH: " + m);
+                        }
+                        byMonth |= 1 << (month - 1);
+                    }
+                    break;
+                case "BYMONTHDAY":
+                    for (String d : val.split(",")) {
+                        final int day = Integer.parseInt(d);
+                        if (day >= 1 && day <= 31) {
+                            byMonthDay |= 1L << (day - 1);
+                        } else if (day <= -1 && day >= -31) {
+                            byMonthDayNeg |= 1L << (-day - 1);
+                        } else {
+                            throw new IllegalArgumentException("Invalid BYMONTHDAY: " + d);
+                        }
+                    }
+                    break;
+                case "BYDAY":
+                    final String[] days = val.split(",");
+                    byDay = new int[days.length];
+                    byDayOrdinal = new int[days.length];
+                    for (int i = 0; i < days.length; i++) {
+                        final String d = days[i].trim();
+                        if (d.length() < 2) {
+                            throw new IllegalArgumentException("Invalid BYDAY: " + d);
+                        }
+                        byDay[i] = parseWeekday(d.substring(d.length() - 2));
+                        if (d.length() > 2) {
+                            String ord = d.substring(0, d.length() - 2);
+                            if (ord.startsWith("+")) {
+                                ord = ord.substring(1);
+                            }
+                            byDayOrdinal[i] = Integer.parseInt(ord);
+                            if (byDayOrdinal[i] == 0 || byDayOrdinal[i] > 53 || byDayOrdinal[i] < -53) {
+                                throw new IllegalArgumentException("Invalid BYDAY: " + d);
+                            }
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported rule part: " + name);
+            }
+        }
+
+        if (freq == -1) {
+            throw new IllegalArgumentException("FREQ is required");
+        }
+        if (count != 0 && mHasUntil) {
+            throw new IllegalArgumentException("COUNT and UNTIL must not occur in the same rule");
+        }
+        if (freq == DAILY || freq == WEEKLY) {
+            for (int ordinal : byDayOrdinal) {
+                if (ordinal != 0) {
+                    throw new IllegalArgumentException("BYDAY ordinals allowed only for MONTHLY and YEARLY");
+                }
+            }
+        }
+        if (freq == WEEKLY && byMonthDay != 0 || freq == WEEKLY && byMonthDayNeg != 0) {
+            throw new IllegalArgumentException("BYMONTHDAY is not allowed for WEEKLY");
+        }
+
+        mFreq = freq;
+        mInterval = interval;
+        mCount = count;
+        mWeekStart = weekStart;
+        mByMonth = byMonth;
+        mByMonthDay = byMonthDay;
+        mByMonthDayNeg = byMonthDayNeg;
+        mByDay = byDay;
+        mByDayOrdinal = byDayOrdinal;
+        if (count != 0) {
+            resolveCount();
+        }
+    }
+
+    public int getStart() {
+        return mStart;
+    }
+
+    /**
+     * @return last possible occurrence, epoch day, or {@link Integer#MAX_VALUE} if rule is infinite.
+     * For COUNT rules it's the last counted occurrence.
+     */
+    public int getUntil() {
+        return mHasUntil ? mUntil : Integer.MAX_VALUE;
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return occurrences in month, bit {@code dayOfMonth - 1}
+     */
+    public int getMonthMask(int monthIndex) {
+        return evaluate(monthIndex);
+    }
+
+    public boolean isOccurrence(int epochDay) {
+        return (getMonthMask(EpochDays.monthIndexOf(epochDay)) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RecurrenceRule{start=" + EpochDays.toIsoString(mStart) + ", rule=" + mSource + "}";
+    }
+
+    /**
+     * COUNT limits occurrences from the start, so the last one is found once by walking months
+     * and then the rule is evaluated as if it had UNTIL
+     */
+    private void resolveCount() {
+        int left = mCount;
+        final int firstMonth = EpochDays.monthIndexOf(mStart);
+        final int lastMonth = firstMonth + MAX_COUNT_YEARS * 12 - 1;
+        for (int mi = firstMonth; mi <= lastMonth; mi++) {
+            int mask = evaluate(mi);
+            final int bits = Integer.bitCount(mask);
+            if (bits < left) {
+                left -= bits;
+                continue;
+            }
+            // keep only the remaining count of earliest occurrences
+            int kept = 0;
+            for (int i = 0; i < left; i++) {
+                final int lowest = mask & -mask;
+                kept |= lowest;
+                mask &= ~lowest;
+            }
+            mUntil = EpochDays.firstDayOfMonth(mi) + 31 - Integer.numberOfLeadingZeros(kept);
+            mHasUntil = true;
+            return;
+        }
+
+        mUntil = EpochDays.lastDayOfMonth(lastMonth);
+        mHasUntil = true;
+    }
+
+    private int evaluate(int monthIndex) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int last = EpochDays.lastDayOfMonth(monthIndex);
+        if (last < mStart || mHasUntil && first > mUntil) {
+            return 0;
+        }
+
+        final int month = EpochDays.monthOfMonthIndex(monthIndex);
+        final int year = EpochDays.yearOfMonthIndex(monthIndex);
+        if (mByMonth != 0 && (mByMonth & (1 << (month - 1))) == 0) {
+            return 0;
+        }
+        if (mFreq == MONTHLY && (monthIndex - EpochDays.monthIndexOf(mStart)) % mInterval != 0) {
+            return 0;
+        }
+        if (mFreq == YEARLY && (year - EpochDays.year(mStart)) % mInterval != 0) {
+            return 0;
+        }
+
+        // without day-level parts the day is taken from DTSTART
+        final boolean hasByDay = mByDay.length > 0;
+        final boolean hasByMonthDay = mByMonthDay != 0 || mByMonthDayNeg != 0;
+        final boolean anchorDayOfWeek = mFreq == WEEKLY && !hasByDay;
+        final boolean anchorDayOfMonth = !hasByDay && !hasByMonthDay && (mFreq == MONTHLY || mFreq == YEARLY);
+        final boolean anchorMonth = mFreq == YEARLY && !hasByDay && !hasByMonthDay && mByMonth == 0;
+        if (anchorMonth && month != EpochDays.month(mStart)) {
+            return 0;
+        }
+
+        final int len = last - first + 1;
+        final int yearFirst = EpochDays.of(year, 1, 1);
+        final int yearLen = EpochDays.isLeapYear(year) ? 366 : 365;
+        final int from = Math.max(first, mStart);
+        final int to = mHasUntil ? Math.min(last, mUntil) : last;
+        int mask = 0;
+        for (int day = from; day <= to; day++) {
+            final int dom = day - first + 1;
+            final int dow = EpochDays.dayOfWeek(day);
+
+            if (mFreq == DAILY && (day - mStart) % mInterval != 0) {
+                continue;
+            }
+            if (mFreq == WEEKLY && ((weekStart(day) - weekStart(mStart)) / 7) % mInterval != 0) {
+                continue;
+            }
+            if (anchorDayOfWeek && dow != EpochDays.dayOfWeek(mStart)) {
+                continue;
+            }
+            if (anchorDayOfMonth && dom != EpochDays.dayOfMonth(mStart)) {
+                continue;
+            }
+            if (hasByMonthDay
+                    && (mByMonthDay & (1L << (dom - 1))) == 0
+                    && (mByMonthDayNeg & (1L << (len - dom))) == 0) {
+                continue;
+            }
+            if (hasByDay && !matchesByDay(dow, dom, len, day - yearFirst + 1, yearLen)) {
+                continue;
+            }
+
+            mask |= 1 << (dom - 1);
+        }
+
+        return mask;
+    }
+
+    private boolean matchesByDay(int dow, int dom, int monthLen, int doy, int yearLen) {
+        // YEARLY ordinals count within the year, unless BYMONTH narrows them to the month
+        final boolean inYear = mFreq == YEARLY && mByMonth == 0;
+        final int pos = inYear ? doy : dom;
+        final int periodLen = inYear ? yearLen : monthLen;
+        for (int i = 0; i < mByDay.length; i++) {
+            if (mByDay[i] != dow) {
+                continue;
+            }
+            final int ordinal = mByDayOrdinal[i];
+            if (ordinal == 0
+                    || ordinal > 0 && (pos - 1) / 7 + 1 == ordinal
+                    || ordinal < 0 && -((periodLen - pos) / 7 + 1) == ordinal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int weekStart(int epochDay) {
+        return epochDay - (EpochDays.dayOfWeek(epochDay) - mWeekStart + 7) % 7;
+    }
+
+    private static int parseFreq(String val) {
+        switch (val) {
+            case "DAILY":
+                return DAILY;
+            case "WEEKLY":
+                return WEEKLY;
+            case "MONTHLY":
+                return MONTHLY;
+            case "YEARLY":
+                return YEARLY;
+            default:
+                throw new IllegalArgumentException("Unsupported FREQ: " + val);
+        }
+    }
+
+    private static int parsePositive(String name, String val) {
+        final int out = Integer.parseInt(val);
+        if (out <= 0) {
+            throw new IllegalArgumentException(name + " must be positive");
+        }
+        return out;
+    }
+
+    private static int parseWeekday(String val) {
+        for (int i = 0; i < WEEKDAYS.length; i++) {
+            if (WEEKDAYS[i].equals(val)) {
+                return i + 1;
+            }
+        }
+        throw new IllegalArgumentException("Invalid weekday: " + val);
+    }
+
+    /**
+     * @param val DATE or DATE-TIME value: yyyyMMdd[THHmmss[Z]], time is ignored
+     * @return epoch day
+     */
+    static int parseDate(String val) {
+        if (val.length() < 8) {
+            throw new IllegalArgumentException("Invalid date: " + val);
+        }
+        return EpochDays.of(Integer.parseInt(val.substring(0, 4)),
+                            Integer.parseInt(val.substring(4, 6)),
+                            Integer.parseInt(val.substring(6, 8)));
+    }
+}
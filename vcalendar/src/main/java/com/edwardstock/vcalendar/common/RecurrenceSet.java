@@ -0,0 +1,172 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Recurrence set (RFC 5545): RRULEs plus RDATE days minus EXDATE days. Occurrences are
+ * evaluated lazily per month as a bitmask (bit {@code dayOfMonth - 1}) and cached,
+ * so memory and CPU depend on the months actually shown.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class RecurrenceSet {
+    // day bits use 0..30, highest bit marks computed mask
+    private static final int COMPUTED = 1 << 31;
+    private final List<RecurrenceRule> mRules = new ArrayList<>(1);
+    // month index -> day mask
+    private final SparseMasks mDates = new SparseMasks();
+    private final SparseMasks mExDates = new SparseMasks();
+    private final SparseMasks mCache = new SparseMasks();
+    private final List<OnRecurrenceChangedListener> mListeners = new ArrayList<>(1);
+
+    /**
+     * Parses iCalendar lines: DTSTART, RRULE, RDATE and EXDATE, other lines are ignored.
+     * DTSTART must precede the RRULEs it applies to.
+     * <pre>
+     * DTSTART;VALUE=DATE:20240101
+     * RRULE:FREQ=YEARLY;BYMONTH=6,7,8;BYDAY=SA,SU
+     * EXDATE;VALUE=DATE:20240706,20240707
+     * </pre>
+     *
+     * @param ical iCalendar text
+     * @return recurrence set
+     * @throws IllegalArgumentException if lines are malformed or RRULE comes before DTSTART
+     */
+    public static RecurrenceSet parse(@NonNull String ical) {
+        final RecurrenceSet out = new RecurrenceSet();
+        boolean hasStart = false;
+        int start = 0;
+        for (String line : ical.split("\\r?\\n")) {
+            final int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            final String name = line.substring(0, colon).split(";", 2)[0].trim().toUpperCase(Locale.US);
+            final String value = line.substring(colon + 1).trim();
+            switch (name) {
+                case "DTSTART":
+                    start = RecurrenceRule.parseDate(value);
+                    hasStart = true;
+                    break;
+                case "RRULE":
+                    if (!hasStart) {
+                        throw new IllegalArgumentException("RRULE requires DTSTART");
+                    }
+                    out.addRule(new RecurrenceRule(start, value));
+                    break;
+                case "RDATE":
+                    for (String date : value.split(",")) {
+                        out.addDate(RecurrenceRule.parseDate(date.trim()));
+                    }
+                    break;
+                case "EXDATE":
+                    for (String date : value.split(",")) {
+                        out.addExDate(RecurrenceRule.parseDate(date.trim()));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return out;
+    }
+
+    /**
+     * Listener is notified about every added rule or date, so owners like
+     * {@link DayConstraints} can drop their own masks built from this set
+     */
+    public void addOnRecurrenceChangedListener(OnRecurrenceChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnRecurrenceChangedListener(OnRecurrenceChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    public RecurrenceSet addRule(@NonNull RecurrenceRule rule) {
+        mRules.add(rule);
+        mCache.clear();
+        final int until = rule.getUntil();
+        changed(EpochDays.monthIndexOf(rule.getStart()),
+                until == Integer.MAX_VALUE ? Integer.MAX_VALUE : EpochDays.monthIndexOf(until));
+        return this;
+    }
+
+    /**
+     * @param epochDay extra occurrence (RDATE)
+     */
+    public RecurrenceSet addDate(int epochDay) {
+        setBit(mDates, epochDay);
+        monthChanged(EpochDays.monthIndexOf(epochDay));
+        return this;
+    }
+
+    /**
+     * @param epochDay excluded occurrence (EXDATE)
+     */
+    public RecurrenceSet addExDate(int epochDay) {
+        setBit(mExDates, epochDay);
+        monthChanged(EpochDays.monthIndexOf(epochDay));
+        return this;
+    }
+
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return occurrences in month, bit {@code dayOfMonth - 1}
+     */
+    public int getMonthMask(int monthIndex) {
+        int mask = mCache.get(monthIndex, 0);
+        if ((mask & COMPUTED) == 0) {
+            int days = mDates.get(monthIndex, 0);
+            for (RecurrenceRule rule : mRules) {
+                days |= rule.getMonthMask(monthIndex);
+            }
+            mask = (days & ~mExDates.get(monthIndex, 0)) | COMPUTED;
+            mCache.put(monthIndex, mask);
+        }
+
+        return mask & ~COMPUTED;
+    }
+
+    public boolean isOccurrence(int epochDay) {
+        return (getMonthMask(EpochDays.monthIndexOf(epochDay)) & (1 << (EpochDays.dayOfMonth(epochDay) - 1))) != 0;
+    }
+
+    /**
+     * Drops cached months, they will be evaluated again on demand
+     */
+    public void trimCache() {
+        mCache.clear();
+    }
+
+    private void monthChanged(int monthIndex) {
+        mCache.delete(monthIndex);
+        changed(monthIndex, monthIndex);
+    }
+
+    private void changed(int fromMonth, int toMonth) {
+        for (OnRecurrenceChangedListener l : mListeners) {
+            l.onRecurrenceChanged(fromMonth, toMonth);
+        }
+    }
+
+    private static void setBit(SparseMasks target, int epochDay) {
+        final int monthIndex = EpochDays.monthIndexOf(epochDay);
+        target.put(monthIndex, target.get(monthIndex, 0) | 1 << (EpochDays.dayOfMonth(epochDay) - 1));
+    }
+
+    public interface OnRecurrenceChangedListener {
+        /**
+         * @param fromMonth first affected month index
+         * @param toMonth   last affected month index, {@link Integer#MAX_VALUE} for infinite rules
+         */
+        void onRecurrenceChanged(int fromMonth, int toMonth);
+    }
+}
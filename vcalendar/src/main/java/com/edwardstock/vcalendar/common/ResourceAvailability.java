@@ -0,0 +1,286 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Busy days of N resources (rooms, vehicles, staff), one sparse {@link DayBitSet} per resource.
+ * Combinations are computed per month on whole month words: busy masks of all resources are summed
+ * into bit-sliced counters (bit plane p holds bit p of busy count of every day), so "free for all",
+ * "free for any" and "free for at least k" are a few mask operations per month after one pass
+ * over resources. Counters are cached per month and dropped for months touched by changes.
+ * <p>
+ * Combinations are exposed as {@link SelectionPattern}s: use them in decorators,
+ * selection patterns or, through {@link #bindConstraints(DayConstraints, int)}, as selection constraints.
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class ResourceAvailability {
+    private final Map<Long, DayBitSet> mResources = new LinkedHashMap<>();
+    // month index -> bit planes of busy count
+    private final SparseArrayCompat<int[]> mCounters = new SparseArrayCompat<>();
+    private final List<OnAvailabilityChangedListener> mListeners = new ArrayList<>(1);
+    private final Map<DayConstraints, Binding> mBindings = new HashMap<>();
+
+    public void addOnAvailabilityChangedListener(OnAvailabilityChangedListener listener) {
+        mListeners.add(listener);
+    }
+
+    public void removeOnAvailabilityChangedListener(OnAvailabilityChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Adds resource without busy days, does nothing if resource exists
+     */
+    public void addResource(long resourceId) {
+        if (mResources.containsKey(resourceId)) {
+            return;
+        }
+        mResources.put(resourceId, new DayBitSet());
+        changedAll();
+    }
+
+    public void removeResource(long resourceId) {
+        if (mResources.remove(resourceId) != null) {
+            changedAll();
+        }
+    }
+
+    public boolean hasResource(long resourceId) {
+        return mResources.containsKey(resourceId);
+    }
+
+    public int getResourceCount() {
+        return mResources.size();
+    }
+
+    /**
+     * Marks days of range as busy or free, adds resource if it doesn't exist
+     *
+     * @param from first epoch day, inclusive
+     * @param to   last epoch day, inclusive
+     */
+    public void setBusy(long resourceId, int from, int to, boolean busy) {
+        if (from > to) {
+            throw new IllegalArgumentException("Range begin can't be after end");
+        }
+        DayBitSet days = mResources.get(resourceId);
+        final boolean added = days == null;
+        if (added) {
+            days = new DayBitSet();
+            mResources.put(resourceId, days);
+        }
+        if (busy) {
+            days.add(from, to, SelectionPatterns.all());
+        } else {
+            days.remove(from, to, SelectionPatterns.all());
+        }
+        if (added) {
+            changedAll();
+        } else {
+            changed(from, to);
+        }
+    }
+
+    public void setBusy(long resourceId, int epochDay, boolean busy) {
+        setBusy(resourceId, epochDay, epochDay, busy);
+    }
+
+    public boolean isBusy(long resourceId, int epochDay) {
+        final DayBitSet days = mResources.get(resourceId);
+        return days != null && days.get(epochDay);
+    }
+
+    public void clear() {
+        mResources.clear();
+        changedAll();
+    }
+
+    /**
+     * @return count of resources free on day
+     */
+    public int getFreeCount(int epochDay) {
+        final int[] planes = getCounters(EpochDays.monthIndexOf(epochDay));
+        final int bit = EpochDays.dayOfMonth(epochDay) - 1;
+        int busy = 0;
+        for (int p = 0; p < planes.length; p++) {
+            busy |= ((planes[p] >>> bit) & 1) << p;
+        }
+        return mResources.size() - busy;
+    }
+
+    /**
+     * @return days free for every resource
+     */
+    @NonNull
+    public SelectionPattern allFree() {
+        return monthIndex -> freeAtLeast(monthIndex, mResources.size());
+    }
+
+    /**
+     * @return days free for at least one resource
+     */
+    @NonNull
+    public SelectionPattern anyFree() {
+        return monthIndex -> freeAtLeast(monthIndex, 1);
+    }
+
+    /**
+     * @param count minimum count of free resources
+     * @return days with at least count free resources
+     */
+    @NonNull
+    public SelectionPattern atLeastFree(int count) {
+        return monthIndex -> freeAtLeast(monthIndex, count);
+    }
+
+    /**
+     * Disables days with less than minFree free resources, constraints follow later changes
+     * until {@link #unbindConstraints(DayConstraints)} or until the pattern is dropped from
+     * constraints by {@link DayConstraints#clear()}
+     */
+    public void bindConstraints(@NonNull DayConstraints constraints, int minFree) {
+        checkNotNull(constraints, "Constraints can't be null");
+        unbindConstraints(constraints);
+        final Binding binding = new Binding(constraints, SelectionPatterns.not(atLeastFree(minFree)));
+        mBindings.put(constraints, binding);
+        addOnAvailabilityChangedListener(binding);
+        constraints.addDisabledPattern(binding.disabled);
+        constraints.addOnConstraintsChangedListener(binding);
+    }
+
+    public void unbindConstraints(@NonNull DayConstraints constraints) {
+        final Binding binding = mBindings.remove(constraints);
+        if (binding != null) {
+            removeOnAvailabilityChangedListener(binding);
+            constraints.removeOnConstraintsChangedListener(binding);
+            constraints.removeDisabledPattern(binding.disabled);
+        }
+    }
+
+    private int freeAtLeast(int monthIndex, int count) {
+        final int valid = (1 << EpochDays.lengthOfMonth(monthIndex)) - 1;
+        final int total = mResources.size();
+        if (count <= 0) {
+            return valid;
+        }
+        if (count > total) {
+            return 0;
+        }
+        // free >= count <=> busy < total - count + 1
+        return ~busyAtLeast(getCounters(monthIndex), total - count + 1) & valid;
+    }
+
+    /**
+     * Compares bit-sliced counters with constant from the highest plane down
+     */
+    static int busyAtLeast(int[] planes, int count) {
+        if (count <= 0) {
+            return ~0;
+        }
+        if (count >= 1 << planes.length) {
+            return 0;
+        }
+        int greater = 0;
+        int equal = ~0;
+        for (int p = planes.length - 1; p >= 0; p--) {
+            if (((count >>> p) & 1) != 0) {
+                equal &= planes[p];
+            } else {
+                greater |= equal & planes[p];
+                equal &= ~planes[p];
+            }
+        }
+        return greater | equal;
+    }
+
+    int[] getCounters(int monthIndex) {
+        int[] planes = mCounters.get(monthIndex);
+        if (planes != null) {
+            return planes;
+        }
+
+        // enough planes to hold count of all resources
+        planes = new int[Math.max(1, 32 - Integer.numberOfLeadingZeros(mResources.size()))];
+        for (DayBitSet days : mResources.values()) {
+            // ripple-carry add of one resource to every day at once
+            int carry = days.getMonthMask(monthIndex);
+            for (int p = 0; p < planes.length && carry != 0; p++) {
+                final int next = planes[p] & carry;
+                planes[p] ^= carry;
+                carry = next;
+            }
+        }
+        mCounters.put(monthIndex, planes);
+        return planes;
+    }
+
+    private void changed(int from, int to) {
+        final int fromMonth = EpochDays.monthIndexOf(from);
+        final int toMonth = EpochDays.monthIndexOf(to);
+        for (int i = mCounters.size() - 1; i >= 0; i--) {
+            final int monthIndex = mCounters.keyAt(i);
+            if (monthIndex >= fromMonth && monthIndex <= toMonth) {
+                mCounters.removeAt(i);
+            }
+        }
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onAvailabilityChanged(from, to);
+        }
+    }
+
+    private void changedAll() {
+        // count of resources changed, so every combination may change
+        mCounters.clear();
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onAvailabilityChangedAll();
+        }
+    }
+
+    public interface OnAvailabilityChangedListener {
+        /**
+         * @param fromDay first changed epoch day, inclusive
+         * @param toDay   last changed epoch day, inclusive
+         */
+        void onAvailabilityChanged(int fromDay, int toDay);
+        void onAvailabilityChangedAll();
+    }
+
+    private final class Binding implements OnAvailabilityChangedListener, DayConstraints.OnConstraintsChangedListener {
+        final DayConstraints constraints;
+        final SelectionPattern disabled;
+
+        Binding(DayConstraints constraints, SelectionPattern disabled) {
+            this.constraints = constraints;
+            this.disabled = disabled;
+        }
+
+        @Override
+        public void onAvailabilityChanged(int fromDay, int toDay) {
+            constraints.invalidate(EpochDays.monthIndexOf(fromDay), EpochDays.monthIndexOf(toDay));
+        }
+
+        @Override
+        public void onAvailabilityChangedAll() {
+            constraints.invalidate(DayConstraints.ALL_MONTHS_FROM, DayConstraints.ALL_MONTHS_TO);
+        }
+
+        @Override
+        public void onConstraintsChanged(int fromMonth, int toMonth) {
+            // pattern dropped by constraints themselves, stop following availability
+            if (!constraints.hasDisabledPattern(disabled)) {
+                unbindConstraints(constraints);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.edwardstock.vcalendar.common;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.ColorInt;
+import android.support.annotation.ColorRes;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.util.SparseArrayCompat;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Per-calendar cache of resolved resources: drawable constant states and color state lists,
+ * keyed by resource id and theme. Day cells are decorated with a handful of resources,
+ * so every resource is looked up once instead of once per cell per bind.
+ * <p>
+ * Drawables are created from shared constant state: cheap, but still one instance per view.
+ * Use {@link #getMutableDrawable(int)} to tint or change a drawable without touching other cells.
+ * Must be cleared on configuration change and used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class ResourceCache {
+    private final Context mContext;
+    private final SparseArrayCompat<Drawable.ConstantState> mDrawables = new SparseArrayCompat<>();
+    private final SparseArrayCompat<ColorStateList> mColors = new SparseArrayCompat<>();
+    // theme the cached values were resolved with
+    private Resources.Theme mTheme;
+
+    public ResourceCache(@NonNull Context context) {
+        mContext = checkNotNull(context, "Context can't be null");
+        mTheme = context.getTheme();
+    }
+
+    /**
+     * @return new drawable sharing cached constant state, or null for 0 resource
+     */
+    @Nullable
+    public Drawable getDrawable(@DrawableRes int resId) {
+        if (resId == 0) {
+            return null;
+        }
+        checkTheme();
+        Drawable.ConstantState state = mDrawables.get(resId);
+        if (state == null) {
+            final Drawable drawable = ContextCompat.getDrawable(mContext, resId);
+            if (drawable == null) {
+                return null;
+            }
+            state = drawable.getConstantState();
+            if (state == null) {
+                // drawable can't be shared, so it is not cached
+                return drawable;
+            }
+            mDrawables.put(resId, state);
+            return drawable;
+        }
+
+        return state.newDrawable(mContext.getResources());
+    }
+
+    /**
+     * @return drawable with own state, changes don't affect other cells
+     */
+    @Nullable
+    public Drawable getMutableDrawable(@DrawableRes int resId) {
+        final Drawable drawable = getDrawable(resId);
+        return drawable == null ? null : drawable.mutate();
+    }
+
+    /**
+     * @return shared instance, color state lists are immutable
+     */
+    @NonNull
+    public ColorStateList getColorStateList(@ColorRes int resId) {
+        checkTheme();
+        ColorStateList colors = mColors.get(resId);
+        if (colors == null) {
+            colors = ContextCompat.getColorStateList(mContext, resId);
+            mColors.put(resId, colors);
+        }
+
+        return colors;
+    }
+
+    @ColorInt
+    public int getColor(@ColorRes int resId) {
+        return getColorStateList(resId).getDefaultColor();
+    }
+
+    /**
+     * Drops everything, call on configuration change: night mode, density, etc
+     */
+    public void clear() {
+        mDrawables.clear();
+        mColors.clear();
+        mTheme = mContext.getTheme();
+    }
+
+    private void checkTheme() {
+        if (mContext.getTheme() != mTheme) {
+            clear();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.edwardstock.vcalendar.common;
+
+/**
+ * Days of a month matched by pattern, as a bitmask. Used for bulk selection,
+ * see {@link SelectionPatterns} for common ones.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface SelectionPattern {
+    /**
+     * @param monthIndex month index, see {@link EpochDays#monthIndex(int, int)}
+     * @return matched days of month, bit {@code dayOfMonth - 1} is set for matched day
+     */
+    int getMonthMask(int monthIndex);
+}
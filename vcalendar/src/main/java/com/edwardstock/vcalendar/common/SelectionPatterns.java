@@ -0,0 +1,119 @@
+package com.edwardstock.vcalendar.common;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Common selection patterns. Masks are built with a few shifts per month, not per day.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class SelectionPatterns {
+    // bits 0, 2, 4... are odd days of month
+    private static final int ODD_DAYS = 0x55555555;
+    private static final int EVEN_DAYS = 0x2AAAAAAA;
+    private static final int MONDAY_TO_FRIDAY = 0x1F;
+
+    private SelectionPatterns() {
+    }
+
+    /**
+     * @return every day of month
+     */
+    @NonNull
+    public static SelectionPattern all() {
+        return SelectionPatterns::validBits;
+    }
+
+    /**
+     * @return days of month not matched by pattern
+     */
+    @NonNull
+    public static SelectionPattern not(@NonNull SelectionPattern pattern) {
+        return monthIndex -> ~pattern.getMonthMask(monthIndex) & validBits(monthIndex);
+    }
+
+    /**
+     * @return 1, 3, 5... days of month
+     */
+    @NonNull
+    public static SelectionPattern oddDays() {
+        return monthIndex -> ODD_DAYS & validBits(monthIndex);
+    }
+
+    /**
+     * @return 2, 4, 6... days of month
+     */
+    @NonNull
+    public static SelectionPattern evenDays() {
+        return monthIndex -> EVEN_DAYS & validBits(monthIndex);
+    }
+
+    /**
+     * @return monday to friday
+     */
+    @NonNull
+    public static SelectionPattern weekdays() {
+        return daysOfWeekMask(MONDAY_TO_FRIDAY);
+    }
+
+    /**
+     * @param daysOfWeek ISO days of week, 1 - monday, 7 - sunday
+     */
+    @NonNull
+    public static SelectionPattern daysOfWeek(@NonNull int... daysOfWeek) {
+        int mask = 0;
+        for (int dow : daysOfWeek) {
+            if (dow < 1 || dow > 7) {
+                throw new IllegalArgumentException("Day of week must be in range 1..7");
+            }
+            mask |= 1 << (dow - 1);
+        }
+        return daysOfWeekMask(mask);
+    }
+
+    /**
+     * @param anchorDay epoch day which is matched, every step-th day before and after it is matched too
+     * @param step      days between matches, at least 1
+     */
+    @NonNull
+    public static SelectionPattern everyNthDay(int anchorDay, int step) {
+        if (step < 1) {
+            throw new IllegalArgumentException("Step must be positive");
+        }
+        if (step == 1) {
+            return all();
+        }
+        return monthIndex -> {
+            final int first = EpochDays.firstDayOfMonth(monthIndex);
+            final int len = EpochDays.lengthOfMonth(monthIndex);
+            // offset of the first match in month, non-negative for days before anchor too
+            int bit = ((anchorDay - first) % step + step) % step;
+            int mask = 0;
+            for (; bit < len; bit += step) {
+                mask |= 1 << bit;
+            }
+            return mask;
+        };
+    }
+
+    /**
+     * @param daysMask bit {@code dayOfWeek - 1}, monday is bit 0
+     */
+    private static SelectionPattern daysOfWeekMask(int daysMask) {
+        // 7-periodic row of the week mask, long enough to shift by up to 6 and cover 31 days
+        long row = 0;
+        for (int shift = 0; shift < 38; shift += 7) {
+            row |= (long) daysMask << shift;
+        }
+        final long weekRow = row;
+        return monthIndex -> {
+            // day 1 falls on this day of week, so row is shifted to start from it
+            final int dow = EpochDays.dayOfWeek(EpochDays.firstDayOfMonth(monthIndex)) - 1;
+            return (int) (weekRow >>> dow) & validBits(monthIndex);
+        };
+    }
+
+    private static int validBits(int monthIndex) {
+        return (1 << EpochDays.lengthOfMonth(monthIndex)) - 1;
+    }
+}
@@ -0,0 +1,72 @@
+package com.edwardstock.vcalendar.common;
+
+import java.util.Arrays;
+
+/**
+ * Sorted int to int map, the part of {@link android.util.SparseIntArray} API used for month masks.
+ * Plain Java, so mask-based classes work in local unit tests where android classes are stubs.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+final class SparseMasks {
+    private int[] mKeys;
+    private int[] mValues;
+    private int mSize = 0;
+
+    SparseMasks() {
+        mKeys = new int[10];
+        mValues = new int[10];
+    }
+
+    int get(int key, int valueIfKeyNotFound) {
+        final int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        return i < 0 ? valueIfKeyNotFound : mValues[i];
+    }
+
+    void put(int key, int value) {
+        int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            mValues[i] = value;
+            return;
+        }
+        i = ~i;
+        if (mSize == mKeys.length) {
+            mKeys = Arrays.copyOf(mKeys, mSize * 2);
+            mValues = Arrays.copyOf(mValues, mSize * 2);
+        }
+        System.arraycopy(mKeys, i, mKeys, i + 1, mSize - i);
+        System.arraycopy(mValues, i, mValues, i + 1, mSize - i);
+        mKeys[i] = key;
+        mValues[i] = value;
+        mSize++;
+    }
+
+    void delete(int key) {
+        final int i = Arrays.binarySearch(mKeys, 0, mSize, key);
+        if (i >= 0) {
+            removeAt(i);
+        }
+    }
+
+    void removeAt(int index) {
+        System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+        System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+        mSize--;
+    }
+
+    int size() {
+        return mSize;
+    }
+
+    int keyAt(int index) {
+        return mKeys[index];
+    }
+
+    int valueAt(int index) {
+        return mValues[index];
+    }
+
+    void clear() {
+        mSize = 0;
+    }
+}
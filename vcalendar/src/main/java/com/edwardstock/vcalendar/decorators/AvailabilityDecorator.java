@@ -0,0 +1,71 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.common.ResourceAvailability;
+import com.edwardstock.vcalendar.common.SelectionPattern;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Styles days matched by a combination of {@link ResourceAvailability}, like
+ * {@code availability.atLeastFree(3)}. Whole month is read as one mask, changes of availability
+ * redraw only changed days.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class AvailabilityDecorator extends ObservableMonthDecorator
+        implements ResourceAvailability.OnAvailabilityChangedListener {
+    private final ResourceAvailability mAvailability;
+    private final SelectionPattern mDays;
+    private final DayStyle mStyle;
+
+    /**
+     * @param availability resources, decorator follows their changes until {@link #release()}
+     * @param days         combination of availability, matched days get style
+     * @param style        style of matched days
+     */
+    public AvailabilityDecorator(@NonNull ResourceAvailability availability, @NonNull SelectionPattern days,
+                                 @NonNull DayStyle style) {
+        mAvailability = checkNotNull(availability, "Availability can't be null");
+        mDays = checkNotNull(days, "Days pattern can't be null");
+        mStyle = checkNotNull(style, "Style can't be null");
+        mAvailability.addOnAvailabilityChangedListener(this);
+    }
+
+    /**
+     * Stops following availability changes
+     */
+    public void release() {
+        mAvailability.removeOnAvailabilityChangedListener(this);
+    }
+
+    @Nullable
+    @Override
+    public SparseArrayCompat<DayStyle> decorate(@NonNull MonthGrid grid) {
+        int mask = mDays.getMonthMask(grid.getMonthIndex());
+        if (mask == 0) {
+            return null;
+        }
+        final int first = EpochDays.firstDayOfMonth(grid.getMonthIndex());
+        final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>(Integer.bitCount(mask));
+        while (mask != 0) {
+            out.append(first + Integer.numberOfTrailingZeros(mask), mStyle);
+            mask &= mask - 1;
+        }
+        return out;
+    }
+
+    @Override
+    public void onAvailabilityChanged(int fromDay, int toDay) {
+        invalidateRange(fromDay, toDay);
+    }
+
+    @Override
+    public void onAvailabilityChangedAll() {
+        invalidateAll();
+    }
+}
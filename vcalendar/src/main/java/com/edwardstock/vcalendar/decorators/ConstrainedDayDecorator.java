@@ -0,0 +1,36 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.ColorRes;
+
+import com.edwardstock.vcalendar.adapter.DayViewFacade;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+/**
+ * Default style of days which can't be selected because of
+ * {@link com.edwardstock.vcalendar.handlers.SelectionDispatcher#getConstraints()}: limits, disabled
+ * ranges, days of week, recurrences and patterns. Calendar asks it only for such days, right after
+ * the selection style, so {@link #shouldDecorate(CalendarDay)} may just return true.
+ * <p>
+ * Replace it with {@link com.edwardstock.vcalendar.VCalendar#setDisabledDayDecorator(DayDecorator)}
+ * or change the color with {@code disabledDayTextColor} attribute.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class ConstrainedDayDecorator implements DayDecorator {
+    @ColorRes
+    private final int mTextColorRes;
+
+    public ConstrainedDayDecorator(@ColorRes int textColorRes) {
+        mTextColorRes = textColorRes;
+    }
+
+    @Override
+    public boolean shouldDecorate(CalendarDay calendarDay) {
+        return true;
+    }
+
+    @Override
+    public void decorate(CalendarDay calendarDay, DayViewFacade dayView, int neighbourhood) {
+        dayView.setTextColorRes(mTextColorRes);
+    }
+}
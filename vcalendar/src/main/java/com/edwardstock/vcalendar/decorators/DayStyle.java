@@ -0,0 +1,102 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.ColorRes;
+import android.support.annotation.DrawableRes;
+import android.support.annotation.NonNull;
+
+import com.edwardstock.vcalendar.adapter.DayViewFacade;
+
+/**
+ * Style of one day cell returned by {@link MonthDecorator}. Only values set explicitly are applied,
+ * so styles of several decorators are layered in order.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DayStyle {
+    private static final int TEXT_COLOR = 1;
+    private static final int TEXT_COLOR_RES = 1 << 1;
+    private static final int BACKGROUND_COLOR = 1 << 2;
+    private static final int BACKGROUND_RES = 1 << 3;
+    private static final int CLICKABLE = 1 << 4;
+
+    private int mFlags = 0;
+    private int mTextColor;
+    private int mTextColorRes;
+    private int mBackgroundColor;
+    private int mBackgroundRes;
+    private boolean mClickable;
+
+    public DayStyle setTextColor(@ColorInt int color) {
+        mTextColor = color;
+        mFlags = (mFlags | TEXT_COLOR) & ~TEXT_COLOR_RES;
+        return this;
+    }
+
+    public DayStyle setTextColorRes(@ColorRes int colorRes) {
+        mTextColorRes = colorRes;
+        mFlags = (mFlags | TEXT_COLOR_RES) & ~TEXT_COLOR;
+        return this;
+    }
+
+    public DayStyle setBackgroundColor(@ColorInt int color) {
+        mBackgroundColor = color;
+        mFlags = (mFlags | BACKGROUND_COLOR) & ~BACKGROUND_RES;
+        return this;
+    }
+
+    public DayStyle setBackgroundResource(@DrawableRes int resId) {
+        mBackgroundRes = resId;
+        mFlags = (mFlags | BACKGROUND_RES) & ~BACKGROUND_COLOR;
+        return this;
+    }
+
+    public DayStyle setClickable(boolean clickable) {
+        mClickable = clickable;
+        mFlags |= CLICKABLE;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return mFlags == 0;
+    }
+
+    /**
+     * Overrides values of this style by values set in other
+     *
+     * @param other style on top
+     * @return this
+     */
+    public DayStyle merge(@NonNull DayStyle other) {
+        if ((other.mFlags & TEXT_COLOR) != 0) {
+            setTextColor(other.mTextColor);
+        } else if ((other.mFlags & TEXT_COLOR_RES) != 0) {
+            setTextColorRes(other.mTextColorRes);
+        }
+        if ((other.mFlags & BACKGROUND_COLOR) != 0) {
+            setBackgroundColor(other.mBackgroundColor);
+        } else if ((other.mFlags & BACKGROUND_RES) != 0) {
+            setBackgroundResource(other.mBackgroundRes);
+        }
+        if ((other.mFlags & CLICKABLE) != 0) {
+            setClickable(other.mClickable);
+        }
+        return this;
+    }
+
+    public void apply(@NonNull DayViewFacade dayView) {
+        if ((mFlags & TEXT_COLOR) != 0) {
+            dayView.setTextColor(mTextColor);
+        } else if ((mFlags & TEXT_COLOR_RES) != 0) {
+            dayView.setTextColorRes(mTextColorRes);
+        }
+        if ((mFlags & BACKGROUND_COLOR) != 0) {
+            dayView.setBackgroundColor(mBackgroundColor);
+        } else if ((mFlags & BACKGROUND_RES) != 0) {
+            dayView.setBackgroundResource(mBackgroundRes);
+        }
+        if ((mFlags & CLICKABLE) != 0) {
+            dayView.setClickable(mClickable);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+
+import org.joda.time.DateTime;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Listeners of one {@link ObservableDecorator}, for decorators which can't extend
+ * {@link ObservableDayDecorator} or {@link ObservableMonthDecorator}.
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class DecoratorObservers {
+    private final ObservableDecorator mDecorator;
+    private final List<ObservableDecorator.OnInvalidateListener> mListeners = new ArrayList<>(1);
+
+    public DecoratorObservers(@NonNull ObservableDecorator decorator) {
+        mDecorator = checkNotNull(decorator, "Decorator can't be null");
+    }
+
+    public void add(@NonNull ObservableDecorator.OnInvalidateListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    public void remove(@NonNull ObservableDecorator.OnInvalidateListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * @param fromDay first changed epoch day, inclusive
+     * @param toDay   last changed epoch day, inclusive
+     */
+    public void dispatchRange(int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            final int tmp = fromDay;
+            fromDay = toDay;
+            toDay = tmp;
+        }
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onInvalidateRange(mDecorator, fromDay, toDay);
+        }
+    }
+
+    public void dispatchRange(DateTime from, DateTime to) {
+        dispatchRange(EpochDays.of(from), EpochDays.of(to));
+    }
+
+    public void dispatchDays(@NonNull int... days) {
+        if (days.length == 0) {
+            return;
+        }
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onInvalidateDays(mDecorator, days);
+        }
+    }
+
+    public void dispatchAll() {
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            mListeners.get(i).onInvalidateAll(mDecorator);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import com.annimon.stream.Stream;
 import com.edwardstock.vcalendar.R;
 import com.edwardstock.vcalendar.adapter.DayViewFacade;
 import com.edwardstock.vcalendar.common.Consumer;
+import com.edwardstock.vcalendar.common.EpochDays;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
 import org.joda.time.DateTime;
@@ -36,9 +37,9 @@ public class DisabledDayDecorator implements DayDecorator {
 
     @Override
     public boolean shouldDecorate(CalendarDay calendarDay) {
+        final int epochDay = calendarDay.getEpochDay();
         return Stream.of(mDisabledDays.get())
-                .map(item -> item.withTime(0, 0, 0, 0))
-                .filter(item -> item.equals(calendarDay.getDateTime()))
+                .filter(item -> EpochDays.of(item) == epochDay)
                 .count() > 0;
     }
 
@@ -5,6 +5,7 @@ import android.support.annotation.IntDef;
 
 import com.edwardstock.vcalendar.R;
 import com.edwardstock.vcalendar.adapter.DayViewFacade;
+import com.edwardstock.vcalendar.common.EpochDays;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
 import org.joda.time.DateTime;
@@ -20,10 +21,15 @@ import static com.edwardstock.vcalendar.decorators.DisabledRangeDayDecorator.Ran
  * vcalendarapp. 2018
  *
  * @author Eduard Maximovich <edward.vstock@gmail.com>
+ * @deprecated calendar doesn't add it anymore: before/after limits are compiled into selection constraints
+ * and days disabled by them are drawn by {@link com.edwardstock.vcalendar.VCalendar#setDisabledDayDecorator(DayDecorator)}.
+ * Adding it as a day decorator only repeats that style.
  */
+@Deprecated
 public class DisabledRangeDayDecorator implements DayDecorator {
     private final WeakReference<Context> mContext;
-    private final DateTime mInitial;
+    // epoch day, see EpochDays
+    private final int mInitial;
     @RangeMode
     private int mMode;
 
@@ -31,19 +37,19 @@ public class DisabledRangeDayDecorator implements DayDecorator {
         mContext = new WeakReference<>(context);
         mMode = mode;
         if (mode == BEFORE) {
-            mInitial = initial.minusDays(1);
+            mInitial = EpochDays.of(initial) - 1;
         } else {
-            mInitial = initial.plusDays(1);
+            mInitial = EpochDays.of(initial) + 1;
         }
     }
 
     @SuppressWarnings("RedundantIfStatement")
     @Override
     public boolean shouldDecorate(CalendarDay calendarDay) {
-        DateTime cur = calendarDay.getDateTime();
-        if (mMode == BEFORE && cur.compareTo(mInitial) < 0) {
+        final int cur = calendarDay.getEpochDay();
+        if (mMode == BEFORE && cur < mInitial) {
             return true;
-        } else if (mMode == AFTER && cur.compareTo(mInitial) > 0) {
+        } else if (mMode == AFTER && cur > mInitial) {
             return true;
         } else {
             return false;
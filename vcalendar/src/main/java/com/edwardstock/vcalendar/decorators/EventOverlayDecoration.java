@@ -0,0 +1,136 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.edwardstock.vcalendar.adapter.DaysAdapter;
+import com.edwardstock.vcalendar.common.EventIndex;
+
+import java.util.List;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Draws event bars over week rows of a month list. Segments are queried from {@link EventIndex}
+ * once per visible row and cached until events of that row change.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class EventOverlayDecoration extends RecyclerView.ItemDecoration implements EventIndex.OnEventsChangedListener {
+    // rows whose segments stay cached, a few months of weeks
+    private static final int MAX_CACHED_ROWS = 64;
+    private final EventIndex mIndex;
+    private final Paint mPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mRect = new RectF();
+    // first visible epoch day of row -> segments
+    private final SparseArrayCompat<List<EventIndex.Segment>> mRows = new SparseArrayCompat<>();
+    private final float mBarHeight;
+    private final float mBarGap;
+    private final float mRadius;
+    private int mMaxLanes = 3;
+
+    public EventOverlayDecoration(@NonNull Context context, @NonNull EventIndex index) {
+        mIndex = checkNotNull(index, "Event index can't be null");
+        final float density = context.getResources().getDisplayMetrics().density;
+        mBarHeight = 4 * density;
+        mBarGap = 2 * density;
+        mRadius = 2 * density;
+        mPaint.setStyle(Paint.Style.FILL);
+        mIndex.addOnEventsChangedListener(this);
+    }
+
+    /**
+     * @param maxLanes lanes drawn in a row, events in higher lanes are skipped
+     */
+    public EventOverlayDecoration setMaxLanes(int maxLanes) {
+        mMaxLanes = maxLanes;
+        return this;
+    }
+
+    public EventIndex getIndex() {
+        return mIndex;
+    }
+
+    /**
+     * Stops listening index, call when decoration is not used anymore
+     */
+    public void release() {
+        mIndex.removeOnEventsChangedListener(this);
+        mRows.clear();
+    }
+
+    @Override
+    public void onEventsChanged(int fromDay, int toDay) {
+        for (int i = mRows.size() - 1; i >= 0; i--) {
+            // row key is its first visible day, row is at most 7 days long
+            final int key = mRows.keyAt(i);
+            if (key <= toDay && key + 6 >= fromDay) {
+                mRows.removeAt(i);
+            }
+        }
+    }
+
+    @Override
+    public void onDrawOver(@NonNull Canvas c, @NonNull RecyclerView parent, @NonNull RecyclerView.State state) {
+        if (!(parent.getAdapter() instanceof DaysAdapter)) {
+            return;
+        }
+
+        final DaysAdapter adapter = (DaysAdapter) parent.getAdapter();
+        final MonthGrid grid = adapter.getGrid();
+        for (int i = 0; i < parent.getChildCount(); i++) {
+            final View row = parent.getChildAt(i);
+            final int position = parent.getChildAdapterPosition(row);
+            if (position == RecyclerView.NO_POSITION || !(row instanceof ViewGroup)) {
+                continue;
+            }
+
+            final int weekFirstDay = adapter.getWeekFirstDay(position);
+            final int from = Math.max(weekFirstDay, grid.getFirstDay());
+            final int to = Math.min(weekFirstDay + 6, grid.getLastDay());
+            if (from > to) {
+                continue;
+            }
+
+            List<EventIndex.Segment> segments = mRows.get(from);
+            if (segments == null) {
+                if (mRows.size() >= MAX_CACHED_ROWS) {
+                    mRows.clear();
+                }
+                segments = mIndex.getWeekSegments(weekFirstDay, from, to);
+                mRows.put(from, segments);
+            }
+
+            drawRow(c, (ViewGroup) row, segments);
+        }
+    }
+
+    private void drawRow(Canvas c, ViewGroup row, List<EventIndex.Segment> segments) {
+        for (EventIndex.Segment segment : segments) {
+            if (segment.lane >= mMaxLanes) {
+                // segments are ordered by lane
+                break;
+            }
+            final View startCell = row.getChildAt(segment.startCell);
+            final View endCell = row.getChildAt(segment.endCell);
+            if (startCell == null || endCell == null) {
+                continue;
+            }
+
+            // cells may be laid out right to left
+            final float left = row.getLeft() + Math.min(startCell.getLeft(), endCell.getLeft());
+            final float right = row.getLeft() + Math.max(startCell.getRight(), endCell.getRight());
+            final float bottom = row.getBottom() - mBarGap - segment.lane * (mBarHeight + mBarGap);
+            mRect.set(left, bottom - mBarHeight, right, bottom);
+            mPaint.setColor(segment.event.getColor());
+            c.drawRoundRect(mRect, mRadius, mRadius, mPaint);
+        }
+    }
+}
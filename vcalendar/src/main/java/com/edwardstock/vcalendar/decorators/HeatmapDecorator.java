@@ -0,0 +1,194 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.ColorInt;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.OnVisibleMonthsChangedListener;
+import com.edwardstock.vcalendar.common.DayValueIndex;
+import com.edwardstock.vcalendar.common.EpochDays;
+
+import java.util.Arrays;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Colors days by their value in {@link DayValueIndex}: range between min and max value of a window
+ * is split into equal buckets, one color per bucket. Window is all values by default, or set by
+ * {@link #setWindow(int, int)}; register decorator as visible months listener to follow scrolling:
+ * {@code calendar.addOnVisibleMonthsChangedListener(heatmap)}.
+ * <p>
+ * Bounds are taken from index aggregates, not by scanning days. Changed values redraw only changed days.
+ * When bounds move, buckets of decorated months are compared with the new ones and only months
+ * whose colors changed are redrawn, so scrolling doesn't redraw every month.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class HeatmapDecorator extends ObservableMonthDecorator
+        implements DayValueIndex.OnValuesChangedListener, OnVisibleMonthsChangedListener {
+    private final DayValueIndex mIndex;
+    private final DayStyle[] mStyles;
+    private boolean mHasWindow = false;
+    private int mWindowFrom;
+    private int mWindowTo;
+    private double mMin;
+    private double mMax;
+    // month index -> bucket of every day as last decorated, -1 for days without value
+    private final SparseArrayCompat<int[]> mDecorated = new SparseArrayCompat<>();
+
+    /**
+     * @param index  values, decorator follows their changes until {@link #release()}
+     * @param colors background colors from the lowest bucket to the highest one
+     */
+    public HeatmapDecorator(@NonNull DayValueIndex index, @NonNull @ColorInt int[] colors) {
+        mIndex = checkNotNull(index, "Index can't be null");
+        if (colors.length == 0) {
+            throw new IllegalArgumentException("At least one color is required");
+        }
+        mStyles = new DayStyle[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            mStyles[i] = new DayStyle().setBackgroundColor(colors[i]);
+        }
+        mIndex.addOnValuesChangedListener(this);
+        updateBounds();
+    }
+
+    /**
+     * Stops following value changes
+     */
+    public void release() {
+        mIndex.removeOnValuesChangedListener(this);
+    }
+
+    /**
+     * Takes bounds only from days of window, redraws if bounds changed
+     *
+     * @param fromDay first epoch day, inclusive
+     * @param toDay   last epoch day, inclusive
+     */
+    public void setWindow(int fromDay, int toDay) {
+        if (fromDay > toDay) {
+            throw new IllegalArgumentException("Window begin can't be after end");
+        }
+        if (mHasWindow && mWindowFrom == fromDay && mWindowTo == toDay) {
+            return;
+        }
+        mHasWindow = true;
+        mWindowFrom = fromDay;
+        mWindowTo = toDay;
+        if (updateBounds()) {
+            invalidateRecolored();
+        }
+    }
+
+    /**
+     * Takes bounds from all values, redraws if bounds changed
+     */
+    public void clearWindow() {
+        if (!mHasWindow) {
+            return;
+        }
+        mHasWindow = false;
+        if (updateBounds()) {
+            invalidateRecolored();
+        }
+    }
+
+    @Nullable
+    @Override
+    public SparseArrayCompat<DayStyle> decorate(@NonNull MonthGrid grid) {
+        final int monthIndex = grid.getMonthIndex();
+        final int[] buckets = buckets(monthIndex);
+        if (buckets == null) {
+            mDecorated.remove(monthIndex);
+            return null;
+        }
+        mDecorated.put(monthIndex, buckets);
+
+        final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>();
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        for (int i = 0; i < buckets.length; i++) {
+            if (buckets[i] != -1) {
+                out.append(first + i, mStyles[buckets[i]]);
+            }
+        }
+        return out.size() == 0 ? null : out;
+    }
+
+    @Override
+    public void onVisibleMonthsChanged(int fromMonth, int toMonth) {
+        setWindow(EpochDays.firstDayOfMonth(fromMonth), EpochDays.lastDayOfMonth(toMonth));
+    }
+
+    @Override
+    public void onValuesChanged(int fromDay, int toDay) {
+        invalidateRange(fromDay, toDay);
+        if (updateBounds()) {
+            invalidateRecolored();
+        }
+    }
+
+    /**
+     * Redraws decorated months whose buckets differ under current bounds
+     */
+    private void invalidateRecolored() {
+        for (int i = mDecorated.size() - 1; i >= 0; i--) {
+            final int monthIndex = mDecorated.keyAt(i);
+            final int[] buckets = buckets(monthIndex);
+            if (!Arrays.equals(mDecorated.valueAt(i), buckets)) {
+                if (buckets == null) {
+                    mDecorated.removeAt(i);
+                } else {
+                    mDecorated.setValueAt(i, buckets);
+                }
+                invalidateRange(EpochDays.firstDayOfMonth(monthIndex), EpochDays.lastDayOfMonth(monthIndex));
+            }
+        }
+    }
+
+    /**
+     * @return bucket of every day of month, -1 for days without value or if window has no values,
+     * null if month has no values
+     */
+    @Nullable
+    private int[] buckets(int monthIndex) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int last = EpochDays.lastDayOfMonth(monthIndex);
+        if (mIndex.query(first, last).isEmpty()) {
+            return null;
+        }
+
+        final int[] buckets = new int[last - first + 1];
+        for (int day = first; day <= last; day++) {
+            // empty window leaves days undecorated
+            buckets[day - first] = mMin <= mMax && mIndex.has(day) ? bucket(mIndex.get(day, 0)) : -1;
+        }
+        return buckets;
+    }
+
+    private int bucket(double value) {
+        if (mMax == mMin) {
+            return mStyles.length - 1;
+        }
+        // values outside window are clamped to its bounds
+        final double pos = (value - mMin) / (mMax - mMin);
+        final int bucket = (int) (pos * mStyles.length);
+        return Math.max(0, Math.min(mStyles.length - 1, bucket));
+    }
+
+    /**
+     * @return true if bounds changed
+     */
+    private boolean updateBounds() {
+        final DayValueIndex.Aggregate aggregate = mHasWindow ? mIndex.query(mWindowFrom, mWindowTo) : mIndex.queryAll();
+        final double min = aggregate.getMin();
+        final double max = aggregate.getMax();
+        if (min == mMin && max == mMax) {
+            return false;
+        }
+        mMin = min;
+        mMax = max;
+        return true;
+    }
+}
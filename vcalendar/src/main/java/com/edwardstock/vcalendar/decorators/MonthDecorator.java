@@ -0,0 +1,26 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+
+/**
+ * Decorates whole month in one call, unlike {@link DayDecorator} which is asked for every cell.
+ * Useful when decoration comes from a range query or a remote dataset: one query per month
+ * instead of one per day.
+ * <p>
+ * Called when month styles are built (month is prefetched or requested by its first bind, or after
+ * {@link com.edwardstock.vcalendar.VCalendar#invalidateMonthDecorators()}), never on bind itself.
+ * Unless decorator is {@link ThreadSafeDecorator}, it's called on the main thread.
+ * Styles are applied before {@link DayDecorator}s, selection and state styles, so those are drawn over them.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface MonthDecorator {
+    /**
+     * @param grid month grid, days as epoch days
+     * @return styles keyed by epoch day for affected days only, or null if nothing to decorate
+     */
+    @Nullable
+    SparseArrayCompat<DayStyle> decorate(@NonNull MonthGrid grid);
+}
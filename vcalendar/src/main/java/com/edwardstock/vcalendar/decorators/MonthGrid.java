@@ -0,0 +1,94 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+/**
+ * Month grid passed to {@link MonthDecorator}: week rows of 7 cells, each holds epoch day
+ * (see {@link EpochDays}) or {@link #NO_DAY} for empty cell. Grid may be cut by min/max dates.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class MonthGrid {
+    public static final int NO_DAY = Integer.MIN_VALUE;
+    private final int mMonthIndex;
+    private final int[] mCells;
+    private final int mFirstDay;
+    private final int mLastDay;
+
+    /**
+     * @param weeksDays week rows, null for empty cells. At least one day required.
+     */
+    public MonthGrid(@NonNull CalendarDay[][] weeksDays) {
+        mCells = new int[weeksDays.length * 7];
+        int first = NO_DAY;
+        int last = NO_DAY;
+        for (int w = 0; w < weeksDays.length; w++) {
+            for (int d = 0; d < 7; d++) {
+                final CalendarDay day = weeksDays[w][d];
+                final int epochDay = day == null ? NO_DAY : day.getEpochDay();
+                mCells[w * 7 + d] = epochDay;
+                if (epochDay != NO_DAY) {
+                    if (first == NO_DAY) {
+                        first = epochDay;
+                    }
+                    last = epochDay;
+                }
+            }
+        }
+
+        if (first == NO_DAY) {
+            throw new IllegalArgumentException("Month grid can't be empty");
+        }
+        mFirstDay = first;
+        mLastDay = last;
+        mMonthIndex = EpochDays.monthIndexOf(first);
+    }
+
+    /**
+     * @return month index, see {@link EpochDays#monthIndex(int, int)}
+     */
+    public int getMonthIndex() {
+        return mMonthIndex;
+    }
+
+    /**
+     * @return first visible epoch day, inclusive
+     */
+    public int getFirstDay() {
+        return mFirstDay;
+    }
+
+    /**
+     * @return last visible epoch day, inclusive
+     */
+    public int getLastDay() {
+        return mLastDay;
+    }
+
+    public boolean contains(int epochDay) {
+        return epochDay >= mFirstDay && epochDay <= mLastDay;
+    }
+
+    public int getWeekCount() {
+        return mCells.length / 7;
+    }
+
+    public int getCellCount() {
+        return mCells.length;
+    }
+
+    /**
+     * @param cell cell index, week * 7 + day of week (0 - monday)
+     * @return epoch day or {@link #NO_DAY}
+     */
+    public int getDay(int cell) {
+        return mCells[cell];
+    }
+
+    public int getDay(int week, int dayOfWeek) {
+        return mCells[week * 7 + dayOfWeek];
+    }
+}
@@ -0,0 +1,48 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+
+import org.joda.time.DateTime;
+
+/**
+ * Day decorator which tells calendar what to redraw when its data changes:
+ * call {@link #invalidateRange(int, int)}, {@link #invalidateDays(int...)} or {@link #invalidateAll()}.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public abstract class ObservableDayDecorator implements DayDecorator, ObservableDecorator {
+    private final DecoratorObservers mObservers = new DecoratorObservers(this);
+
+    @Override
+    public void addOnInvalidateListener(@NonNull OnInvalidateListener listener) {
+        mObservers.add(listener);
+    }
+
+    @Override
+    public void removeOnInvalidateListener(@NonNull OnInvalidateListener listener) {
+        mObservers.remove(listener);
+    }
+
+    /**
+     * @param fromDay first changed epoch day, inclusive
+     * @param toDay   last changed epoch day, inclusive
+     */
+    protected void invalidateRange(int fromDay, int toDay) {
+        mObservers.dispatchRange(fromDay, toDay);
+    }
+
+    protected void invalidateRange(DateTime from, DateTime to) {
+        mObservers.dispatchRange(from, to);
+    }
+
+    /**
+     * @param days changed epoch days
+     */
+    protected void invalidateDays(@NonNull int... days) {
+        mObservers.dispatchDays(days);
+    }
+
+    protected void invalidateAll() {
+        mObservers.dispatchAll();
+    }
+}
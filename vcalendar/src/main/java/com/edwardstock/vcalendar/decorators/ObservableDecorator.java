@@ -0,0 +1,33 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+
+/**
+ * {@link DayDecorator} or {@link MonthDecorator} which publishes changes of its data, so calendar
+ * redraws only affected shown cells instead of whole months. Calendar subscribes when decorator
+ * is added and unsubscribes when it's removed.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ * @see ObservableDayDecorator
+ * @see ObservableMonthDecorator
+ * @see DecoratorObservers
+ */
+public interface ObservableDecorator {
+    void addOnInvalidateListener(@NonNull OnInvalidateListener listener);
+    void removeOnInvalidateListener(@NonNull OnInvalidateListener listener);
+
+    interface OnInvalidateListener {
+        /**
+         * @param fromDay first changed epoch day, inclusive
+         * @param toDay   last changed epoch day, inclusive
+         */
+        void onInvalidateRange(@NonNull ObservableDecorator decorator, int fromDay, int toDay);
+
+        /**
+         * @param days changed epoch days, in any order
+         */
+        void onInvalidateDays(@NonNull ObservableDecorator decorator, @NonNull int[] days);
+
+        void onInvalidateAll(@NonNull ObservableDecorator decorator);
+    }
+}
@@ -0,0 +1,50 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.common.RecurrenceSet;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Highlights occurrences of a recurrence set. Occurrences are evaluated only for decorated months.
+ * For days which can't be selected use
+ * {@link com.edwardstock.vcalendar.common.DayConstraints#addDisabledRecurrence(RecurrenceSet)}.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class RecurrenceMonthDecorator implements MonthDecorator {
+    private final RecurrenceSet mRecurrence;
+    private final DayStyle mStyle;
+
+    /**
+     * @param recurrence occurrences to highlight
+     * @param style      style of every occurrence, shared between days
+     */
+    public RecurrenceMonthDecorator(@NonNull RecurrenceSet recurrence, @NonNull DayStyle style) {
+        mRecurrence = checkNotNull(recurrence, "Recurrence can't be null");
+        mStyle = checkNotNull(style, "Style can't be null");
+    }
+
+    @Nullable
+    @Override
+    public SparseArrayCompat<DayStyle> decorate(@NonNull MonthGrid grid) {
+        final int mask = mRecurrence.getMonthMask(grid.getMonthIndex());
+        if (mask == 0) {
+            return null;
+        }
+
+        final int monthFirst = EpochDays.firstDayOfMonth(grid.getMonthIndex());
+        final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>(Integer.bitCount(mask));
+        for (int bits = mask; bits != 0; bits &= bits - 1) {
+            final int epochDay = monthFirst + Integer.numberOfTrailingZeros(bits);
+            if (grid.contains(epochDay)) {
+                out.put(epochDay, mStyle);
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Day decorators registered against state flags (see {@link com.edwardstock.vcalendar.common.DayStates}).
+ * Decorator applies to a day having any of its flags, {@link DayDecorator#shouldDecorate} is not asked.
+ * Decorators of every distinct state value are resolved once and memoized, so bind finds
+ * decorators of a cell with one lookup by its state.
+ * <p>
+ * Must be used only from the main thread.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class StateDecorators {
+    private static final DayDecorator[] NONE = new DayDecorator[0];
+    private final List<Entry> mEntries = new ArrayList<>();
+    // state -> matched decorators in registration order
+    private final SparseArrayCompat<DayDecorator[]> mResolved = new SparseArrayCompat<>();
+
+    /**
+     * @param flags     state flags, decorator applies if day has any of them
+     * @param decorator decorator, may be registered for several masks
+     */
+    public void add(int flags, @NonNull DayDecorator decorator) {
+        if (flags == 0) {
+            throw new IllegalArgumentException("Flags can't be empty");
+        }
+        mEntries.add(new Entry(flags, checkNotNull(decorator, "Decorator can't be null")));
+        mResolved.clear();
+    }
+
+    /**
+     * Removes decorator from all masks
+     *
+     * @return true if decorator has been registered
+     */
+    public boolean remove(@NonNull DayDecorator decorator) {
+        boolean removed = false;
+        for (int i = mEntries.size() - 1; i >= 0; i--) {
+            if (mEntries.get(i).decorator == decorator) {
+                mEntries.remove(i);
+                removed = true;
+            }
+        }
+        if (removed) {
+            mResolved.clear();
+        }
+        return removed;
+    }
+
+    public void clear() {
+        mEntries.clear();
+        mResolved.clear();
+    }
+
+    public boolean isEmpty() {
+        return mEntries.isEmpty();
+    }
+
+    /**
+     * @param state flags of day
+     * @return decorators matching state, never null
+     */
+    @NonNull
+    public DayDecorator[] find(int state) {
+        if (state == 0 || mEntries.isEmpty()) {
+            return NONE;
+        }
+        DayDecorator[] decorators = mResolved.get(state);
+        if (decorators == null) {
+            final List<DayDecorator> matched = new ArrayList<>();
+            for (Entry entry : mEntries) {
+                if ((entry.flags & state) != 0 && !matched.contains(entry.decorator)) {
+                    matched.add(entry.decorator);
+                }
+            }
+            decorators = matched.isEmpty() ? NONE : matched.toArray(new DayDecorator[matched.size()]);
+            mResolved.put(state, decorators);
+        }
+        return decorators;
+    }
+
+    private static final class Entry {
+        final int flags;
+        final DayDecorator decorator;
+
+        Entry(int flags, DayDecorator decorator) {
+            this.flags = flags;
+            this.decorator = decorator;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.edwardstock.vcalendar.decorators;
+
+/**
+ * Marks {@link DayDecorator} or {@link MonthDecorator} which may be called from a background thread.
+ * Such decorators are evaluated ahead of time for upcoming months, bind only reads their results,
+ * so expensive lookups (price bands, holidays) never run on the main thread during a fling.
+ * <p>
+ * Day decorators of this kind depend only on the date and state flags: they are called with detached
+ * days (never selected, but with {@link com.edwardstock.vcalendar.common.DayStates} flags) and
+ * {@link com.edwardstock.vcalendar.adapter.Neighbourhood#NO_NEIGHBOURS},
+ * and their facade records only int colors, color and drawable resources and clickable state.
+ * Their results are applied before other day decorators. Call
+ * {@link com.edwardstock.vcalendar.VCalendar#invalidateMonthDecorators()} when their data changes.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface ThreadSafeDecorator {
+}
@@ -0,0 +1,14 @@
+package com.edwardstock.vcalendar.handlers;
+
+import android.support.annotation.NonNull;
+
+/**
+ * Creates selection handler for a mode. Usually just a constructor reference:
+ * {@code dispatcher.attachHandler(SelectionMode.RANGE, RangeSelectionHandler::new)}
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public interface HandlerFactory {
+    @NonNull
+    BaseHandler create(@NonNull SelectionDispatcher dispatcher);
+}
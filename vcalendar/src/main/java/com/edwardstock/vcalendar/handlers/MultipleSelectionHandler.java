@@ -24,7 +24,7 @@ public final class MultipleSelectionHandler extends BaseHandler {
     @Override
     public void setSelections(List<CalendarDay> selections) {
         final Set<CalendarDay> unique = new HashSet<>(selections);
-        final List<CalendarDay> data = Stream.of(unique).filter(item -> item != null).map(item -> getDispatcher().getDayOrCreate(item.getDateTime())).map(item -> item.setSelected(true)).toList();
+        final List<CalendarDay> data = Stream.of(unique).filter(item -> item != null).map(item -> getDispatcher().getDayOrCreate(item.getEpochDay())).map(item -> item.setSelected(true)).toList();
 
         getDispatcher().getSelections().clear();
         getDispatcher().getSelections().addAll(data);
@@ -0,0 +1,78 @@
+package com.edwardstock.vcalendar.handlers;
+
+import android.support.annotation.NonNull;
+import android.view.View;
+
+import com.edwardstock.vcalendar.common.SelectionPattern;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import java.util.List;
+
+import static com.edwardstock.vcalendar.common.Preconditions.checkNotNull;
+
+/**
+ * Range selection which keeps only days of pattern: first click marks range begin,
+ * second click selects pattern days of the range at once.
+ * Used for {@link com.edwardstock.vcalendar.SelectionMode#EVEN} and {@link com.edwardstock.vcalendar.SelectionMode#ODD}
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class PatternSelectionHandler extends BaseHandler {
+    private final SelectionPattern mPattern;
+    private int mRangeBegin;
+
+    public PatternSelectionHandler(SelectionDispatcher dispatcher, @NonNull SelectionPattern pattern) {
+        super(dispatcher);
+        mPattern = checkNotNull(pattern, "Pattern can't be null");
+    }
+
+    @Override
+    public void setSelections(List<CalendarDay> selections) {
+        CalendarDay first = null;
+        CalendarDay last = null;
+        for (CalendarDay day : selections) {
+            if (day == null) {
+                continue;
+            }
+            if (first == null || day.compareTo(first) < 0) {
+                first = day;
+            }
+            if (last == null || day.compareTo(last) > 0) {
+                last = day;
+            }
+        }
+        if (first == null) {
+            return;
+        }
+
+        getDispatcher().setPatternInternal(first.getEpochDay(), last.getEpochDay(), mPattern);
+    }
+
+    @Override
+    public void onClick(View dayView, CalendarDay calendarDay) {
+        if (getDispatcher().selectionClickCount == 2) {
+            getDispatcher().clearSelectionsInternal();
+            getDispatcher().selectionClickCount = 0;
+
+            if (!getDispatcher().isEnableContinuousSelection()) {
+                getDispatcher().callOnSelectionListeners(false);
+                return;
+            }
+        }
+        getDispatcher().selectionClickCount++;
+
+        if (getDispatcher().selectionClickCount == 1) {
+            // range begin is shown as selected even if it doesn't match pattern
+            mRangeBegin = calendarDay.getEpochDay();
+            getDispatcher().clearSelectionsInternal();
+            calendarDay.setSelected(true);
+            getDispatcher().getSelections().add(calendarDay);
+        } else {
+            getDispatcher().setPatternInternal(mRangeBegin, calendarDay.getEpochDay(), mPattern);
+        }
+
+        getDispatcher().callOnSelectionListeners(getDispatcher().hasSelectionLimit()
+                && getDispatcher().getSelections().size() == getDispatcher().getLimit());
+        getDispatcher().updateSelections();
+    }
+}
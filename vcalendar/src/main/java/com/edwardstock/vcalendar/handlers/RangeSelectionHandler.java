@@ -3,12 +3,10 @@ package com.edwardstock.vcalendar.handlers;
 import android.view.View;
 
 import com.annimon.stream.Stream;
+import com.edwardstock.vcalendar.RangePolicy;
+import com.edwardstock.vcalendar.common.DayAvailability;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
-import org.joda.time.DateTime;
-import org.joda.time.Duration;
-import org.joda.time.LocalDate;
-
 import java.util.Collections;
 import java.util.List;
 
@@ -27,7 +25,7 @@ public final class RangeSelectionHandler extends BaseHandler {
     public void setSelections(List<CalendarDay> selections) {
         getDispatcher().getSelections().clear();
 
-        final List<CalendarDay> s = Stream.of(selections).filter(item -> item != null).map(item -> getDispatcher().getDayOrCreate(item.getDateTime())).map(item -> item.setSelected(true)).toList();
+        final List<CalendarDay> s = Stream.of(selections).filter(item -> item != null).map(item -> getDispatcher().getDayOrCreate(item.getEpochDay())).map(item -> item.setSelected(true)).toList();
 
         getDispatcher().getSelections().addAll(s);
 
@@ -77,29 +75,37 @@ public final class RangeSelectionHandler extends BaseHandler {
         final CalendarDay last = selections.get(selections.size() - 1);
         // if first day != last day, mean selected real two or more days
         if (!first.equals(last)) {
+            int lastDay = last.getEpochDay();
+
+            // check range against constraints before selecting anything
+            if (getDispatcher().getRangePolicy() != RangePolicy.ALLOW) {
+                final DayAvailability availability = getDispatcher().getAvailability();
+                if (!availability.isRangeClear(first.getEpochDay(), lastDay)) {
+                    final int disabled = availability.nextDisabled(first.getEpochDay());
+                    if (getDispatcher().getRangePolicy() == RangePolicy.REJECT
+                            || disabled == DayAvailability.NO_DAY || disabled <= first.getEpochDay()) {
+                        getDispatcher().clearSelectionsInternal();
+                        getDispatcher().selectionClickCount = 0;
+                        return;
+                    }
+                    lastDay = disabled - 1;
+                }
+            }
+
             // calculating diff between days
-            final Duration duration = first.getDiffDuration(last);
-            long diff = duration.getStandardDays();
+            final int diff = lastDay - first.getEpochDay();
 
             // clear current selections
             getDispatcher().clearSelectionsInternal();
 
             // writing all range by new, with intermediate dates
-            for (int i = -1; i < diff; i++) {
-                if (getDispatcher().hasSelectionLimit() && i + 1 >= getDispatcher().getLimit()) {
+            for (int i = 0; i <= diff; i++) {
+                if (getDispatcher().hasSelectionLimit() && i >= getDispatcher().getLimit()) {
                     break;
                 }
 
-                // taking first day
-                final DateTime cal = first.getDateTime();
-                // adding to first day iteration + 1 day, than we have next day
-                // adding days to LocalDate cause we can't set to DateTime 50 january (overflow provided)
-                final LocalDate localDate = new LocalDate(cal).plusDays(i + 1);
-
-                // converting LocalDate to DateTime with previous day argument, to calculate dates relatively
-                final DateTime newCal = localDate.toDateTime(cal);
-
-                CalendarDay nextDay = getDispatcher().getDayOrCreate(newCal);
+                // epoch days are plain numbers, so no month overflow or DST shifts here
+                CalendarDay nextDay = getDispatcher().getDayOrCreate(first.getEpochDay() + i);
                 nextDay.setSelected(true);
                 selections.add(nextDay);
             }
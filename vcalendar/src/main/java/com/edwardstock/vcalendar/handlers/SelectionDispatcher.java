@@ -2,12 +2,19 @@ package com.edwardstock.vcalendar.handlers;
 
 import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
 import android.view.View;
 
 import com.annimon.stream.Stream;
 import com.edwardstock.vcalendar.OnDayClickListener;
 import com.edwardstock.vcalendar.OnSelectionListener;
+import com.edwardstock.vcalendar.RangePolicy;
 import com.edwardstock.vcalendar.SelectionMode;
+import com.edwardstock.vcalendar.common.DayAvailability;
+import com.edwardstock.vcalendar.common.DayBitSet;
+import com.edwardstock.vcalendar.common.DayConstraints;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.common.SelectionPattern;
 import com.edwardstock.vcalendar.models.CalendarDay;
 
 import org.joda.time.DateTime;
@@ -15,9 +22,7 @@ import org.joda.time.DateTime;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -33,10 +38,14 @@ public final class SelectionDispatcher implements OnDayClickListener {
     private final Delegate mDelegate;
     short selectionClickCount = 0;
     private List<CalendarDay> mSelections = new ArrayList<>();
-    private DateTime mDisabledBeforeDate;
-    private DateTime mDisabledAfterDate;
+    private final DayConstraints mConstraints = new DayConstraints();
+    private DayAvailability mAvailability;
+    @RangePolicy
+    private int mRangePolicy = RangePolicy.ALLOW;
     private int mLimit = 0;
-    private Map<Integer, BaseHandler> mHandlers = new HashMap<>();
+    private SparseArrayCompat<HandlerFactory> mHandlerFactories = new SparseArrayCompat<>();
+    // created on first use of the mode
+    private SparseArrayCompat<BaseHandler> mHandlers = new SparseArrayCompat<>();
     private List<OnSelectionListener> mOnSelectionListeners = new ArrayList<>();
     private int mMode;
     private boolean mContinuousSelection = true;
@@ -77,7 +86,8 @@ public final class SelectionDispatcher implements OnDayClickListener {
     }
 
     public final void setDisabledBeforeDate(DateTime dateTime) {
-        mDisabledBeforeDate = dateTime.minusDays(1);
+        // the day right before the limit stays selectable
+        mConstraints.setDisabledBefore(EpochDays.of(dateTime) - 1);
         mDelegate.onSetMinLimit(dateTime);
     }
 
@@ -90,53 +100,101 @@ public final class SelectionDispatcher implements OnDayClickListener {
     }
 
     public final void setDisabledAfterDate(DateTime dateTime) {
-        mDisabledAfterDate = dateTime.plusDays(1);
+        // the day right after the limit stays selectable
+        mConstraints.setDisabledAfter(EpochDays.of(dateTime) + 1);
         mDelegate.onSetMaxLimit(dateTime);
     }
 
+    /**
+     * Days which can't be selected. Disabled styling reads the same constraints.
+     *
+     * @return constraints, never null
+     */
+    @NonNull
+    public DayConstraints getConstraints() {
+        return mConstraints;
+    }
+
+    /**
+     * Queries over constraints: next selectable day, next free window, range validity
+     *
+     * @return availability, created on first call
+     */
+    @NonNull
+    public DayAvailability getAvailability() {
+        if (mAvailability == null) {
+            mAvailability = new DayAvailability(mConstraints);
+        }
+        return mAvailability;
+    }
+
+    /**
+     * @param policy what range selection does with ranges crossing disabled days, {@link RangePolicy#ALLOW} by default
+     */
+    public void setRangePolicy(@RangePolicy int policy) {
+        mRangePolicy = policy;
+    }
+
+    @RangePolicy
+    public int getRangePolicy() {
+        return mRangePolicy;
+    }
+
     @Override
     public void onClick(View dayView, CalendarDay calendarDay) {
         if (checkDayCantSelect(calendarDay)) {
             return;
         }
 
-        BaseHandler handler = mHandlers.get(getMode());
+        BaseHandler handler = getHandler(getMode());
         if (handler != null) {
             handler.onClick(dayView, calendarDay);
         }
     }
 
     /**
-     * /**
+     * Handler is created on first use of the mode
      *
-     * @param mode         you own mode, just integer constant
-     * @param handlerClass Selection handler class
+     * @param mode    you own mode, just integer constant
+     * @param factory Selection handler factory, like {@code RangeSelectionHandler::new}
      * @return chain
-     * @throws RuntimeException if can't instantiate handler
      * @see SelectionMode via this annotation constants, you can override default behavior
      * @see RangeSelectionHandler
      * @see MultipleSelectionHandler
      * @see SingleSelectionHandler
      * ...
      */
+    public SelectionDispatcher attachHandler(int mode, @NonNull HandlerFactory factory) {
+        mHandlerFactories.put(mode, checkNotNull(factory, "Handler factory can't be null"));
+        mHandlers.remove(mode);
+        return this;
+    }
+
+    /**
+     * @param mode         you own mode, just integer constant
+     * @param handlerClass Selection handler class
+     * @return chain
+     * @throws RuntimeException if can't instantiate handler
+     * @deprecated uses reflection, use {@link #attachHandler(int, HandlerFactory)}
+     */
+    @Deprecated
     public SelectionDispatcher attachHandler(int mode, Class<? extends BaseHandler> handlerClass) {
-        Throwable t = null;
-        try {
-            mHandlers.put(mode, handlerClass.getDeclaredConstructor(SelectionDispatcher.class).newInstance(this));
-        } catch (InstantiationException e) {
-            t = e;
-        } catch (IllegalAccessException e) {
-            t = e;
-        } catch (InvocationTargetException e) {
-            t = e;
-        } catch (NoSuchMethodException e) {
-            t = e;
-        }
+        return attachHandler(mode, dispatcher -> {
+            Throwable t;
+            try {
+                return handlerClass.getDeclaredConstructor(SelectionDispatcher.class).newInstance(dispatcher);
+            } catch (InstantiationException e) {
+                t = e;
+            } catch (IllegalAccessException e) {
+                t = e;
+            } catch (InvocationTargetException e) {
+                t = e;
+            } catch (NoSuchMethodException e) {
+                t = e;
+            }
 
-        if (t != null) {
             throw new RuntimeException(t);
-        }
-        return this;
+        });
     }
 
     /**
@@ -151,7 +209,7 @@ public final class SelectionDispatcher implements OnDayClickListener {
      * @see SelectionMode#ODD
      * <p>
      * or custom if has set via
-     * @see SelectionDispatcher#attachHandler(int, Class)
+     * @see SelectionDispatcher#attachHandler(int, HandlerFactory)
      */
     public void setMode(int mode) {
         mMode = mode;
@@ -181,6 +239,14 @@ public final class SelectionDispatcher implements OnDayClickListener {
         return mDelegate.getDay(dateTime);
     }
 
+    public CalendarDay getDayOrCreate(int epochDay) {
+        return mDelegate.getDayOrCreate(epochDay);
+    }
+
+    public CalendarDay getDay(int epochDay) {
+        return mDelegate.getDay(epochDay);
+    }
+
     public final void setSelection(CalendarDay selections) {
         setSelections(new DateTime[]{selections.getDateTime()});
     }
@@ -202,7 +268,7 @@ public final class SelectionDispatcher implements OnDayClickListener {
     }
 
     public void setSelections(List<DateTime> selections) {
-        BaseHandler handler = mHandlers.get(getMode());
+        BaseHandler handler = getHandler(getMode());
         if (handler == null) {
             return;
         }
@@ -223,6 +289,32 @@ public final class SelectionDispatcher implements OnDayClickListener {
         updateSelections();
     }
 
+    /**
+     * Replaces selections with days of pattern within range at once: disabled days are skipped,
+     * selection limit keeps the earliest days, listeners are called once.
+     *
+     * @param from    first epoch day, inclusive
+     * @param to      last epoch day, inclusive
+     * @param pattern days to select, see {@link com.edwardstock.vcalendar.common.SelectionPatterns}
+     */
+    public void selectPattern(int from, int to, @NonNull SelectionPattern pattern) {
+        checkNotNull(pattern, "Pattern can't be null");
+        if (getMode() == SelectionMode.NONE) {
+            return;
+        }
+
+        setPatternInternal(from, to, pattern);
+
+        // make next click as new selection
+        selectionClickCount = 2;
+        callOnSelectionListeners(hasSelectionLimit() && mSelections.size() == mLimit);
+        updateSelections();
+    }
+
+    public void selectPattern(DateTime from, DateTime to, @NonNull SelectionPattern pattern) {
+        selectPattern(EpochDays.of(from), EpochDays.of(to), pattern);
+    }
+
     public int getLimit() {
         return mLimit;
     }
@@ -266,14 +358,50 @@ public final class SelectionDispatcher implements OnDayClickListener {
         mClickable = clickable;
     }
 
+    private BaseHandler getHandler(int mode) {
+        BaseHandler handler = mHandlers.get(mode);
+        if (handler == null) {
+            final HandlerFactory factory = mHandlerFactories.get(mode);
+            if (factory == null) {
+                return null;
+            }
+            handler = factory.create(this);
+            mHandlers.put(mode, handler);
+        }
+
+        return handler;
+    }
+
     void clearSelectionsInternal() {
         mDelegate.onClear();
         Stream.of(mSelections)
-                .map(item -> mDelegate.getDayOrCreate(item.getDateTime()))
+                .map(item -> mDelegate.getDayOrCreate(item.getEpochDay()))
                 .forEach(item -> item.setSelected(false));
         mSelections.clear();
     }
 
+    void setPatternInternal(int from, int to, SelectionPattern pattern) {
+        if (from > to) {
+            final int tmp = from;
+            from = to;
+            to = tmp;
+        }
+
+        final DayBitSet days = new DayBitSet();
+        days.add(from, to, pattern);
+        days.remove(from, to, mConstraints::getMonthMask);
+        if (hasSelectionLimit()) {
+            days.retainFirst(mLimit);
+        }
+
+        clearSelectionsInternal();
+        for (int epochDay : days.toArray()) {
+            final CalendarDay day = mDelegate.getDayOrCreate(epochDay);
+            day.setSelected(true);
+            mSelections.add(day);
+        }
+    }
+
     final void callOnSelectionListeners(boolean isLimitExceeded) {
         if (!mClickable) {
             return;
@@ -284,21 +412,8 @@ public final class SelectionDispatcher implements OnDayClickListener {
         }
     }
 
-    @SuppressWarnings("RedundantIfStatement")
     protected boolean checkDayCantSelect(CalendarDay calendarDay) {
-        if (mDisabledAfterDate == null && mDisabledBeforeDate == null) {
-            return false;
-        }
-
-        if (mDisabledBeforeDate != null && calendarDay.getDateTime().compareTo(mDisabledBeforeDate) < 0) {
-            return true;
-        }
-
-        if (mDisabledAfterDate != null && calendarDay.getDateTime().compareTo(mDisabledAfterDate) > 0) {
-            return true;
-        }
-
-        return false;
+        return mConstraints.isDisabled(calendarDay.getEpochDay());
     }
 
     public interface Delegate {
@@ -306,8 +421,36 @@ public final class SelectionDispatcher implements OnDayClickListener {
         void onClear();
         CalendarDay getDayOrCreate(DateTime dateTime);
         CalendarDay getDay(DateTime dateTime);
-        void onSetMinLimit(DateTime dateTime);
-        void onSetMaxLimit(DateTime dateTime);
+
+        /**
+         * Override it to avoid date conversion, default implementation goes through {@link #getDayOrCreate(DateTime)}
+         */
+        default CalendarDay getDayOrCreate(int epochDay) {
+            return getDayOrCreate(EpochDays.toDateTime(epochDay));
+        }
+
+        /**
+         * Override it to avoid date conversion, default implementation goes through {@link #getDay(DateTime)}
+         */
+        default CalendarDay getDay(int epochDay) {
+            return getDay(EpochDays.toDateTime(epochDay));
+        }
+
+        /**
+         * @deprecated disabled days are compiled by {@link SelectionDispatcher#getConstraints()} and drawn by calendar itself,
+         * listen {@link DayConstraints.OnConstraintsChangedListener} instead. Still called, does nothing by default.
+         */
+        @Deprecated
+        default void onSetMinLimit(DateTime dateTime) {
+        }
+
+        /**
+         * @deprecated see {@link #onSetMinLimit(DateTime)}
+         */
+        @Deprecated
+        default void onSetMaxLimit(DateTime dateTime) {
+        }
+
         void onSetSelections();
 
     }
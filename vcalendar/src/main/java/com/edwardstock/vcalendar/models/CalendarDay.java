@@ -3,6 +3,8 @@ package com.edwardstock.vcalendar.models;
 import android.annotation.SuppressLint;
 import android.support.annotation.NonNull;
 
+import com.edwardstock.vcalendar.common.EpochDays;
+
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
@@ -12,29 +14,67 @@ import org.joda.time.Duration;
  * @author Eduard Maximovich <edward.vstock@gmail.com>
  */
 public class CalendarDay implements Comparable<CalendarDay> {
+	private final int mEpochDay;
+	private final int mYear;
+	private final int mMonth;
+	private final int mDay;
 	private DateTime mDateTime;
     private boolean mSelected;
     private int mState;
 
     public CalendarDay(DateTime dt) {
-		mDateTime = dt;
+		this(EpochDays.of(dt));
+	}
+
+	/**
+	 * @param epochDay days since 1970-01-01
+	 * @see EpochDays
+	 */
+	public CalendarDay(int epochDay) {
+		mEpochDay = epochDay;
+		mYear = EpochDays.year(epochDay);
+		mMonth = EpochDays.month(epochDay);
+		mDay = EpochDays.dayOfMonth(epochDay);
 	}
 
 	@SuppressLint("DefaultLocale")
 	@Override
 	public String toString() {
-		return String.format("CalendarDay{num=%02d, month=%02d, year=%04d, selected=%b}", getDay(), mDateTime.getMonthOfYear(), mDateTime.getYear(), isSelected());
+		return String.format("CalendarDay{num=%02d, month=%02d, year=%04d, selected=%b}", getDay(), getMonth(), getYear(), isSelected());
 	}
 
+	/**
+	 * Adapter for public API, created lazily. Internally calendar works with {@link #getEpochDay()}
+	 *
+	 * @return start of day in default time zone
+	 */
 	public DateTime getDateTime() {
+		if (mDateTime == null) {
+			mDateTime = EpochDays.toDateTime(mEpochDay);
+		}
 		return mDateTime;
 	}
+
+	/**
+	 * @return days since 1970-01-01
+	 */
+	public int getEpochDay() {
+		return mEpochDay;
+	}
+
 	@Override
 	public int hashCode() {
-		return mDateTime.hashCode();
+		return mEpochDay;
 	}
 	public int getDay() {
-		return mDateTime.getDayOfMonth();
+		return mDay;
+	}
+
+	/**
+	 * @return ISO day of week: monday is 1, sunday is 7
+	 */
+	public int getDayOfWeek() {
+		return EpochDays.dayOfWeek(mEpochDay);
 	}
 
 	@Override
@@ -42,22 +82,22 @@ public class CalendarDay implements Comparable<CalendarDay> {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		CalendarDay that = (CalendarDay) o;
-		return mDateTime.equals(that.getDateTime());
+		return mEpochDay == that.mEpochDay;
 	}
 	/**
 	 * @return 1-based month, january will be 1
 	 */
 	public int getMonth() {
-		return mDateTime.getMonthOfYear();
+		return mMonth;
 	}
 
 	public int getYear() {
-		return mDateTime.getYear();
+		return mYear;
 	}
 
 	@Override
 	public int compareTo(@NonNull CalendarDay calendarDay) {
-		return mDateTime.compareTo(calendarDay.mDateTime);
+		return mEpochDay < calendarDay.mEpochDay ? -1 : (mEpochDay == calendarDay.mEpochDay ? 0 : 1);
 	}
 
     public CalendarDay setSelected(boolean selected) {
@@ -66,17 +106,39 @@ public class CalendarDay implements Comparable<CalendarDay> {
     }
 
     public Duration getDiffDuration(CalendarDay day) {
-        return new Duration(mDateTime, day.mDateTime);
+        return new Duration(getDateTime(), day.getDateTime());
+    }
+
+    /**
+     * @return signed count of days from this day to given
+     */
+    public int getDaysBetween(CalendarDay day) {
+        return day.mEpochDay - mEpochDay;
     }
 
     public boolean isSelected() {
         return mSelected;
     }
 
+    /**
+     * @return app-defined state flags, see {@link com.edwardstock.vcalendar.common.DayStates}
+     */
     public int getState() {
         return mState;
     }
 
+    public CalendarDay setState(int state) {
+        mState = state;
+        return this;
+    }
+
+    /**
+     * @return true if day has any of flags
+     */
+    public boolean hasState(int flags) {
+        return (mState & flags) != 0;
+    }
+
     public void toggleSelection() {
         mSelected = !mSelected;
     }
@@ -0,0 +1,63 @@
+package com.edwardstock.vcalendar.models;
+
+import android.support.annotation.ColorInt;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+
+import org.joda.time.DateTime;
+
+/**
+ * Event drawn as a bar over day cells, spans whole days from start to end inclusive.
+ * Id must be unique within {@link com.edwardstock.vcalendar.common.EventIndex}.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public final class CalendarEvent {
+    private final long mId;
+    private final int mStartDay;
+    private final int mEndDay;
+    private final int mColor;
+
+    /**
+     * @param id       unique id
+     * @param startDay first epoch day, inclusive
+     * @param endDay   last epoch day, inclusive
+     * @param color    bar color
+     */
+    public CalendarEvent(long id, int startDay, int endDay, @ColorInt int color) {
+        if (startDay > endDay) {
+            throw new IllegalArgumentException("Event start can't be after end");
+        }
+        mId = id;
+        mStartDay = startDay;
+        mEndDay = endDay;
+        mColor = color;
+    }
+
+    public CalendarEvent(long id, DateTime start, DateTime end, @ColorInt int color) {
+        this(id, EpochDays.of(start), EpochDays.of(end), color);
+    }
+
+    public long getId() {
+        return mId;
+    }
+
+    public int getStartDay() {
+        return mStartDay;
+    }
+
+    public int getEndDay() {
+        return mEndDay;
+    }
+
+    @ColorInt
+    public int getColor() {
+        return mColor;
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarEvent{id=" + mId + ", start=" + EpochDays.toIsoString(mStartDay)
+                + ", end=" + EpochDays.toIsoString(mEndDay) + "}";
+    }
+}
@@ -0,0 +1,97 @@
+package com.edwardstock.vcalendar.widgets;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.widget.LinearLayout;
+
+/**
+ * Month root, able to show a rendered snapshot instead of its live children.
+ * While snapshot is set, view takes snapshot size and draws only the bitmap,
+ * children are neither measured nor laid out.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class MonthLayout extends LinearLayout {
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private Bitmap mSnapshot;
+
+    public MonthLayout(Context context) {
+        super(context);
+    }
+
+    public MonthLayout(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    public MonthLayout(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+    }
+
+    @Nullable
+    public Bitmap getSnapshot() {
+        return mSnapshot;
+    }
+
+    /**
+     * @param snapshot rendered month or null to show live children
+     */
+    public void setSnapshot(@Nullable Bitmap snapshot) {
+        if (mSnapshot == snapshot) {
+            return;
+        }
+        mSnapshot = snapshot;
+        requestLayout();
+        invalidate();
+    }
+
+    public boolean isShowingSnapshot() {
+        return mSnapshot != null;
+    }
+
+    /**
+     * Renders live content into target. View must be measured and laid out.
+     *
+     * @param target bitmap of view size
+     */
+    public void capture(@NonNull Bitmap target) {
+        final Bitmap snapshot = mSnapshot;
+        mSnapshot = null;
+        target.eraseColor(Color.TRANSPARENT);
+        draw(new Canvas(target));
+        mSnapshot = snapshot;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mSnapshot == null) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+
+        setMeasuredDimension(resolveSize(mSnapshot.getWidth(), widthMeasureSpec),
+                             resolveSize(mSnapshot.getHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (mSnapshot == null) {
+            super.onLayout(changed, l, t, r, b);
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (mSnapshot == null) {
+            super.dispatchDraw(canvas);
+            return;
+        }
+
+        canvas.drawBitmap(mSnapshot, 0, 0, mPaint);
+    }
+}
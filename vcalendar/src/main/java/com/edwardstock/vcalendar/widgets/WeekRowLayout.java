@@ -0,0 +1,257 @@
+package com.edwardstock.vcalendar.widgets;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.support.annotation.Nullable;
+import android.util.AttributeSet;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.edwardstock.vcalendar.R;
+
+/**
+ * Week row of exactly 7 equal cells, measured in a single pass without weights.
+ * <p>
+ * Cell height is equal to cell width ({@code squareCells}, default) or fixed by {@code cellHeight}.
+ * With such geometry day cell can't change its size, so layout passes caused by children
+ * (text, background or padding changes on bind) keep the row geometry and re-measure only the
+ * cells which requested layout.
+ *
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class WeekRowLayout extends ViewGroup {
+    public static final int CELLS_COUNT = 7;
+
+    private boolean mSquareCells = true;
+    private int mCellHeight = 0;
+    // computed geometry, valid while mGeometryValid is true
+    private boolean mGeometryValid = false;
+    private final int[] mCellLeft = new int[CELLS_COUNT + 1];
+    private int mCellTop;
+    private int mCellBottom;
+    private int mLastWidthSpec;
+    private int mLastHeightSpec;
+
+    public WeekRowLayout(Context context) {
+        super(context);
+    }
+
+    public WeekRowLayout(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        init(attrs, 0);
+    }
+
+    public WeekRowLayout(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs, defStyleAttr);
+    }
+
+    public boolean isSquareCells() {
+        return mSquareCells;
+    }
+
+    public void setSquareCells(boolean squareCells) {
+        mSquareCells = squareCells;
+        invalidateGeometry();
+    }
+
+    public int getCellHeight() {
+        return mCellHeight;
+    }
+
+    /**
+     * @param cellHeight fixed cell height in pixels, disables square cells if greater than 0
+     */
+    public void setCellHeight(int cellHeight) {
+        mCellHeight = cellHeight;
+        if (cellHeight > 0) {
+            mSquareCells = false;
+        }
+        invalidateGeometry();
+    }
+
+    @Override
+    public void setLayoutParams(LayoutParams params) {
+        invalidateGeometry();
+        super.setLayoutParams(params);
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        invalidateGeometry();
+        super.setPadding(left, top, right, bottom);
+    }
+
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        invalidateGeometry();
+        super.setPaddingRelative(start, top, end, bottom);
+    }
+
+    @Override
+    public void onRtlPropertiesChanged(int layoutDirection) {
+        super.onRtlPropertiesChanged(layoutDirection);
+        invalidateGeometry();
+        requestLayout();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mGeometryValid && widthMeasureSpec == mLastWidthSpec && heightMeasureSpec == mLastHeightSpec) {
+            // same specs and fixed cells: row size is the same, only changed cells need measuring
+            for (int i = 0; i < getChildCount(); i++) {
+                if (getChildAt(i).isLayoutRequested()) {
+                    measureCell(i);
+                }
+            }
+            setMeasuredDimension(getMeasuredWidth(), getMeasuredHeight());
+            return;
+        }
+
+        final int width = resolveRowWidth(widthMeasureSpec);
+        final int contentWidth = Math.max(0, width - getPaddingLeft() - getPaddingRight());
+        final int cellWidth = contentWidth / CELLS_COUNT;
+
+        int cellHeight;
+        if (mSquareCells) {
+            cellHeight = cellWidth;
+        } else if (mCellHeight > 0) {
+            cellHeight = mCellHeight;
+        } else {
+            cellHeight = resolveChildrenHeight(cellWidth);
+        }
+
+        final int heightMode = MeasureSpec.getMode(heightMeasureSpec);
+        final int paddingVertical = getPaddingTop() + getPaddingBottom();
+        final int height;
+        if (heightMode == MeasureSpec.EXACTLY) {
+            height = MeasureSpec.getSize(heightMeasureSpec);
+            cellHeight = Math.max(0, height - paddingVertical);
+        } else {
+            height = resolveSize(cellHeight + paddingVertical, heightMeasureSpec);
+        }
+
+        // remainder pixels are spread over the first cells, so the row is filled exactly
+        final int remainder = contentWidth - cellWidth * CELLS_COUNT;
+        mCellLeft[0] = getPaddingLeft();
+        for (int i = 0; i < CELLS_COUNT; i++) {
+            mCellLeft[i + 1] = mCellLeft[i] + cellWidth + (i < remainder ? 1 : 0);
+        }
+        mCellTop = getPaddingTop();
+        mCellBottom = mCellTop + cellHeight;
+
+        for (int i = 0; i < getChildCount(); i++) {
+            measureCell(i);
+        }
+
+        setMeasuredDimension(width, height);
+        mLastWidthSpec = widthMeasureSpec;
+        mLastHeightSpec = heightMeasureSpec;
+        mGeometryValid = !isWrapContentCells();
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        for (int i = 0; i < getChildCount(); i++) {
+            layoutCell(i);
+        }
+    }
+
+    @Override
+    public boolean shouldDelayChildPressedState() {
+        return false;
+    }
+
+    @Override
+    protected boolean checkLayoutParams(ViewGroup.LayoutParams p) {
+        return p instanceof MarginLayoutParams;
+    }
+
+    @Override
+    public LayoutParams generateLayoutParams(AttributeSet attrs) {
+        return new MarginLayoutParams(getContext(), attrs);
+    }
+
+    @Override
+    protected LayoutParams generateDefaultLayoutParams() {
+        return new MarginLayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+    }
+
+    @Override
+    protected LayoutParams generateLayoutParams(ViewGroup.LayoutParams p) {
+        return new MarginLayoutParams(p);
+    }
+
+    private void init(AttributeSet attrs, int defStyleAttr) {
+        final TypedArray a = getContext().obtainStyledAttributes(attrs, R.styleable.WeekRowLayout,
+                                                                 defStyleAttr, 0);
+        mCellHeight = a.getDimensionPixelSize(R.styleable.WeekRowLayout_cellHeight, 0);
+        mSquareCells = a.getBoolean(R.styleable.WeekRowLayout_squareCells, mCellHeight <= 0);
+        a.recycle();
+    }
+
+    private void invalidateGeometry() {
+        mGeometryValid = false;
+    }
+
+    /**
+     * Height of cells is taken from children only if neither square nor fixed height is set
+     */
+    private boolean isWrapContentCells() {
+        return !mSquareCells && mCellHeight <= 0;
+    }
+
+    private int resolveRowWidth(int widthMeasureSpec) {
+        if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.UNSPECIFIED) {
+            return getSuggestedMinimumWidth();
+        }
+        return MeasureSpec.getSize(widthMeasureSpec);
+    }
+
+    private int resolveChildrenHeight(int cellWidth) {
+        int maxHeight = 0;
+        final int widthSpec = MeasureSpec.makeMeasureSpec(cellWidth, MeasureSpec.EXACTLY);
+        for (int i = 0; i < getChildCount(); i++) {
+            final View child = getChildAt(i);
+            final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+            if (lp.height > 0) {
+                maxHeight = Math.max(maxHeight, lp.height + lp.topMargin + lp.bottomMargin);
+                continue;
+            }
+            child.measure(widthSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+            maxHeight = Math.max(maxHeight, child.getMeasuredHeight() + lp.topMargin + lp.bottomMargin);
+        }
+        return maxHeight;
+    }
+
+    private int cellIndex(int childIndex) {
+        if (getLayoutDirection() == LAYOUT_DIRECTION_RTL) {
+            return CELLS_COUNT - 1 - childIndex;
+        }
+        return childIndex;
+    }
+
+    private void measureCell(int childIndex) {
+        if (childIndex >= CELLS_COUNT) {
+            return;
+        }
+        final View child = getChildAt(childIndex);
+        final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+        final int cell = cellIndex(childIndex);
+        final int width = mCellLeft[cell + 1] - mCellLeft[cell] - lp.leftMargin - lp.rightMargin;
+        final int height = mCellBottom - mCellTop - lp.topMargin - lp.bottomMargin;
+        child.measure(MeasureSpec.makeMeasureSpec(Math.max(0, width), MeasureSpec.EXACTLY),
+                      MeasureSpec.makeMeasureSpec(Math.max(0, height), MeasureSpec.EXACTLY));
+    }
+
+    private void layoutCell(int childIndex) {
+        if (childIndex >= CELLS_COUNT) {
+            return;
+        }
+        final View child = getChildAt(childIndex);
+        final MarginLayoutParams lp = (MarginLayoutParams) child.getLayoutParams();
+        final int left = mCellLeft[cellIndex(childIndex)] + lp.leftMargin;
+        final int top = mCellTop + lp.topMargin;
+        child.layout(left, top, left + child.getMeasuredWidth(), top + child.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,150 @@
+package com.edwardstock.vcalendar.adapter;
+
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.decorators.DayDecorator;
+import com.edwardstock.vcalendar.decorators.DayStyle;
+import com.edwardstock.vcalendar.decorators.MonthDecorator;
+import com.edwardstock.vcalendar.decorators.MonthGrid;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayStyleTableTest {
+    private static final int BOOKED = 1;
+    private static final int BOOKED_COLOR = 10;
+    private static final int WEEKEND_COLOR = 20;
+    private static final int HOLIDAY_BACKGROUND = 30;
+
+    // february 2024 starts on thursday
+    private static MonthGrid february() {
+        final CalendarDay[][] weeks = new CalendarDay[5][7];
+        int epochDay = EpochDays.of(2024, 2, 1);
+        for (int cell = 3; cell < 3 + 29; cell++) {
+            weeks[cell / 7][cell % 7] = new CalendarDay(epochDay++);
+        }
+        return new MonthGrid(weeks);
+    }
+
+    private static int[] states(MonthGrid grid, int epochDay, int flags) {
+        final int[] states = new int[grid.getCellCount()];
+        for (int cell = 0; cell < states.length; cell++) {
+            if (grid.getDay(cell) == epochDay) {
+                states[cell] = flags;
+            }
+        }
+        return states;
+    }
+
+    @Test
+    public void dayDecoratorsSeeStateFlags() {
+        final MonthGrid grid = february();
+        final int booked = EpochDays.of(2024, 2, 14);
+        final DayDecorator bookedDecorator = new DayDecorator() {
+            @Override
+            public boolean shouldDecorate(CalendarDay calendarDay) {
+                return calendarDay.hasState(BOOKED);
+            }
+
+            @Override
+            public void decorate(CalendarDay calendarDay, DayViewFacade dayView, int neighbourhood) {
+                assertFalse(calendarDay.isSelected());
+                assertEquals(Neighbourhood.NO_NEIGHBOURS, neighbourhood);
+                dayView.setTextColorRes(BOOKED_COLOR);
+            }
+        };
+
+        final DayStyleTable table = DayStyleTable.build(grid, states(grid, booked, BOOKED),
+                                                        Collections.singletonList(bookedDecorator),
+                                                        Collections.emptyList());
+
+        assertEquals(grid.getMonthIndex(), table.getMonthIndex());
+        assertEquals(BOOKED_COLOR, new StyleFacade(table.getDayStyle(booked)).textColorRes);
+        // days without styles are not stored
+        assertNull(table.getDayStyle(booked + 1));
+        assertNull(table.getMonthStyle(booked));
+    }
+
+    @Test
+    public void monthStylesAreLayeredInOrderInsideGrid() {
+        final MonthGrid grid = february();
+        final int saturday = EpochDays.of(2024, 2, 3);
+        final MonthDecorator weekends = g -> {
+            final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>();
+            out.put(saturday, new DayStyle().setTextColorRes(WEEKEND_COLOR));
+            // outside of grid, dropped
+            out.put(EpochDays.of(2024, 3, 2), new DayStyle().setTextColorRes(WEEKEND_COLOR));
+            return out;
+        };
+        final MonthDecorator holidays = g -> {
+            final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>();
+            out.put(saturday, new DayStyle().setBackgroundResource(HOLIDAY_BACKGROUND));
+            return out;
+        };
+        final List<MonthDecorator> decorators = Arrays.asList(weekends, holidays);
+
+        final DayStyleTable table = DayStyleTable.build(grid, new int[grid.getCellCount()],
+                                                        Collections.emptyList(), decorators);
+
+        final StyleFacade style = new StyleFacade(table.getMonthStyle(saturday));
+        assertEquals(WEEKEND_COLOR, style.textColorRes);
+        assertEquals(HOLIDAY_BACKGROUND, style.backgroundRes);
+        assertNull(table.getMonthStyle(EpochDays.of(2024, 3, 2)));
+        assertNull(table.getDayStyle(saturday));
+    }
+
+    @Test
+    public void mainThreadMonthStylesGoOnTop() {
+        final MonthGrid grid = february();
+        final int day = EpochDays.of(2024, 2, 10);
+        final MonthDecorator background = g -> {
+            final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>();
+            out.put(day, new DayStyle().setTextColorRes(WEEKEND_COLOR));
+            return out;
+        };
+        final MonthDecorator main = g -> {
+            final SparseArrayCompat<DayStyle> out = new SparseArrayCompat<>();
+            out.put(day, new DayStyle().setTextColorRes(BOOKED_COLOR));
+            return out;
+        };
+
+        final DayStyleTable table = DayStyleTable.build(grid, new int[grid.getCellCount()],
+                                                        Collections.emptyList(),
+                                                        Collections.singletonList(background));
+        table.addMonthStyles(grid, Collections.singletonList(main));
+
+        assertEquals(BOOKED_COLOR, new StyleFacade(table.getMonthStyle(day)).textColorRes);
+    }
+
+    private static final class StyleFacade extends DayViewFacade {
+        int textColorRes;
+        int backgroundRes;
+
+        StyleFacade(DayStyle style) {
+            super(null);
+            style.apply(this);
+        }
+
+        @Override
+        public void setTextColorRes(int colorRes) {
+            textColorRes = colorRes;
+        }
+
+        @Override
+        public void setBackgroundResource(int resId) {
+            backgroundRes = resId;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.edwardstock.vcalendar.codec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class IntervalCodecTest {
+
+    @Test
+    public void emptyRoundTrip() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new IntervalWriter(out).finish();
+        assertEquals(2, out.size());
+        assertFalse(new IntervalReader(new ByteArrayInputStream(out.toByteArray())).next());
+    }
+
+    @Test
+    public void adjacentDaysJoinIntoOneRun() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IntervalWriter writer = new IntervalWriter(out);
+        for (int day = 17000; day < 17365; day++) {
+            writer.add(day);
+        }
+        writer.finish();
+        assertEquals(1, writer.getRunsCount());
+
+        final List<int[]> runs = read(out.toByteArray());
+        assertEquals(1, runs.size());
+        assertEquals(17000, runs.get(0)[0]);
+        assertEquals(17364, runs.get(0)[1]);
+    }
+
+    @Test
+    public void oneDayGapKeepsRunsApart() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IntervalWriter writer = new IntervalWriter(out);
+        writer.add(1).add(2).add(4).addRange(6, 8).addRange(9, 9);
+        writer.finish();
+
+        assertRuns(read(out.toByteArray()), 1, 2, 4, 4, 6, 9);
+    }
+
+    @Test
+    public void repeatedAndOverlappingDaysAreMerged() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IntervalWriter writer = new IntervalWriter(out);
+        writer.add(10).add(10).addRange(10, 15).addRange(12, 14).addRange(15, 20).add(20);
+        writer.finish();
+
+        assertEquals(1, writer.getRunsCount());
+        assertRuns(read(out.toByteArray()), 10, 20);
+    }
+
+    @Test
+    public void negativeAndDistantDaysRoundTrip() throws IOException {
+        // year 0 to year 9999: negative first delta and jumps of millions of days
+        final int yearZero = -719528;
+        final int year9999 = 2932896;
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final IntervalWriter writer = new IntervalWriter(out);
+        writer.addRange(yearZero, yearZero + 1).add(-1).add(0).add(year9999);
+        writer.finish();
+
+        assertRuns(read(out.toByteArray()), yearZero, yearZero + 1, -1, 0, year9999, year9999);
+    }
+
+    @Test
+    public void embeddedIntoStream() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(42);
+        final IntervalWriter writer = new IntervalWriter(out);
+        writer.addRange(-5, 5).addRange(10, 10);
+        writer.finish();
+        out.write(43);
+
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        assertEquals(42, in.read());
+        final IntervalReader reader = new IntervalReader(in);
+        final List<int[]> runs = new ArrayList<>();
+        while (reader.next()) {
+            runs.add(new int[]{reader.getFirst(), reader.getLast()});
+        }
+        assertEquals(2, runs.size());
+        assertEquals(-5, runs.get(0)[0]);
+        assertEquals(5, runs.get(0)[1]);
+        assertEquals(10, runs.get(1)[0]);
+        assertEquals(43, in.read());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void descendingDaysThrow() throws IOException {
+        final IntervalWriter writer = new IntervalWriter(new ByteArrayOutputStream());
+        writer.add(10);
+        writer.add(20);
+        writer.add(5);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownVersionThrows() throws IOException {
+        new IntervalReader(new ByteArrayInputStream(new byte[]{99, 0})).next();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void addAfterFinishThrows() throws IOException {
+        final IntervalWriter writer = new IntervalWriter(new ByteArrayOutputStream());
+        writer.finish();
+        writer.add(1);
+    }
+
+    /**
+     * @param bounds first and last day of every expected run
+     */
+    private static void assertRuns(List<int[]> runs, int... bounds) {
+        assertEquals(bounds.length / 2, runs.size());
+        for (int i = 0; i < runs.size(); i++) {
+            assertEquals(bounds[i * 2], runs.get(i)[0]);
+            assertEquals(bounds[i * 2 + 1], runs.get(i)[1]);
+        }
+    }
+
+    private static List<int[]> read(byte[] data) throws IOException {
+        final IntervalReader reader = new IntervalReader(new ByteArrayInputStream(data));
+        final List<int[]> runs = new ArrayList<>();
+        while (reader.next()) {
+            runs.add(new int[]{reader.getFirst(), reader.getLast()});
+        }
+        return runs;
+    }
+}
@@ -0,0 +1,157 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.models.CalendarDay;
+import com.google.gson.JsonElement;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class JsonCodecsTest {
+
+    @Test
+    public void rangesFormat() throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonRangesWriter writer = new JsonRangesWriter(new JsonWriter(out));
+        writer.add(EpochDays.of(2018, 6, 1));
+        writer.addRange(EpochDays.of(2018, 6, 10), EpochDays.of(2018, 6, 15));
+        writer.addRange(EpochDays.of(2018, 6, 16), EpochDays.of(2018, 6, 20));
+        writer.finish();
+        assertEquals("[\"2018-06-01\",[\"2018-06-10\",\"2018-06-20\"]]", out.toString());
+    }
+
+    @Test
+    public void emptyRanges() throws IOException {
+        final StringWriter out = new StringWriter();
+        new JsonRangesWriter(new JsonWriter(out)).finish();
+        assertEquals("[]", out.toString());
+        assertFalse(new JsonRangesReader(new JsonReader(new StringReader("[]"))).next());
+    }
+
+    @Test
+    public void rangesAcrossCalendarEdgesRoundTrip() throws IOException {
+        final TreeSet<Integer> days = new TreeSet<>();
+        // before epoch, across new year, leap day, adjacent singles joining into a range
+        days.add(EpochDays.of(1969, 12, 31));
+        addRange(days, EpochDays.of(2018, 12, 30), EpochDays.of(2019, 1, 2));
+        days.add(EpochDays.of(2020, 2, 29));
+        days.add(EpochDays.of(2020, 3, 2));
+        days.add(EpochDays.of(2020, 3, 3));
+
+        final StringWriter out = new StringWriter();
+        final JsonRangesWriter writer = new JsonRangesWriter(new JsonWriter(out));
+        for (int day : days) {
+            writer.add(day);
+        }
+        writer.finish();
+        assertEquals("[\"1969-12-31\",[\"2018-12-30\",\"2019-01-02\"],\"2020-02-29\",[\"2020-03-02\",\"2020-03-03\"]]",
+                     out.toString());
+
+        final TreeSet<Integer> decoded = new TreeSet<>();
+        DayCodecs.readJson(new JsonReader(new StringReader(out.toString())), (first, last) -> addRange(decoded, first, last));
+        assertEquals(days, decoded);
+    }
+
+    @Test
+    public void binaryAndJsonConvertWithoutLoss() throws IOException {
+        final TreeSet<Integer> days = new TreeSet<>();
+        addRange(days, EpochDays.of(2018, 6, 1), EpochDays.of(2018, 6, 30));
+        days.add(EpochDays.of(2018, 7, 2));
+        days.add(EpochDays.of(1960, 1, 1));
+        days.add(EpochDays.of(2100, 12, 31));
+        final List<CalendarDay> calendarDays = new ArrayList<>();
+        for (int day : days.descendingSet()) {
+            calendarDays.add(new CalendarDay(day));
+        }
+        // codecs sort days themselves
+        Collections.swap(calendarDays, 0, calendarDays.size() / 2);
+
+        final ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        DayCodecs.writeBinary(binary, calendarDays);
+
+        final StringWriter json = new StringWriter();
+        final JsonWriter jsonWriter = new JsonWriter(json);
+        DayCodecs.binaryToJson(new ByteArrayInputStream(binary.toByteArray()), jsonWriter);
+        jsonWriter.flush();
+        assertEquals("[\"1960-01-01\",[\"2018-06-01\",\"2018-06-30\"],\"2018-07-02\",\"2100-12-31\"]",
+                     json.toString());
+
+        final StringWriter direct = new StringWriter();
+        final JsonWriter directWriter = new JsonWriter(direct);
+        DayCodecs.writeJson(directWriter, calendarDays);
+        directWriter.flush();
+        assertEquals(direct.toString(), json.toString());
+
+        final ByteArrayOutputStream back = new ByteArrayOutputStream();
+        DayCodecs.jsonToBinary(new JsonReader(new StringReader(json.toString())), back);
+        assertEquals(binary.toString("ISO-8859-1"), back.toString("ISO-8859-1"));
+
+        final TreeSet<Integer> decoded = new TreeSet<>();
+        DayCodecs.readBinary(new ByteArrayInputStream(back.toByteArray()), (first, last) -> addRange(decoded, first, last));
+        assertEquals(days, decoded);
+    }
+
+    @Test(expected = IOException.class)
+    public void invalidDateThrows() throws IOException {
+        new JsonRangesReader(new JsonReader(new StringReader("[\"2018-02-30\"]"))).next();
+    }
+
+    @Test(expected = IOException.class)
+    public void reversedRangeThrows() throws IOException {
+        new JsonRangesReader(new JsonReader(new StringReader("[[\"2018-02-10\", \"2018-02-01\"]]"))).next();
+    }
+
+    @Test
+    public void attributesRoundTrip() throws IOException {
+        final StringWriter out = new StringWriter();
+        final JsonAttributesWriter writer = new JsonAttributesWriter(new JsonWriter(out));
+        writer.day(EpochDays.of(2018, 6, 1))
+              .attribute("price", 120)
+              .attribute("note", "Holiday");
+        writer.day(EpochDays.of(2018, 6, 2))
+              .attribute("busy", true)
+              .attribute("rate", 0.5);
+        writer.finish();
+        assertEquals("{\"2018-06-01\":{\"price\":120,\"note\":\"Holiday\"},\"2018-06-02\":{\"busy\":true,\"rate\":0.5}}",
+                     out.toString());
+
+        final Map<String, JsonElement> read = new LinkedHashMap<>();
+        new JsonAttributesReader(new JsonReader(new StringReader(out.toString())))
+                .read((epochDay, name, value) -> read.put(EpochDays.toIsoString(epochDay) + "/" + name, value));
+        assertEquals(4, read.size());
+        assertEquals(120, read.get("2018-06-01/price").getAsInt());
+        assertEquals("Holiday", read.get("2018-06-01/note").getAsString());
+        assertEquals(true, read.get("2018-06-02/busy").getAsBoolean());
+        assertEquals(0.5, read.get("2018-06-02/rate").getAsDouble(), 0);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void attributeBeforeDayThrows() throws IOException {
+        new JsonAttributesWriter(new JsonWriter(new StringWriter())).attribute("price", 1);
+    }
+
+    private static void addRange(TreeSet<Integer> days, int first, int last) {
+        for (int day = first; day <= last; day++) {
+            days.add(day);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.edwardstock.vcalendar.codec;
+
+import com.edwardstock.vcalendar.common.EpochDays;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class MappedAvailabilityTest {
+    private static final int FIRST_YEAR = 2023;
+    private static final int YEARS = 3;
+
+    @Test
+    public void writtenDaysAreReadBack() throws IOException {
+        final int first = EpochDays.of(FIRST_YEAR, 1, 1);
+        final int last = EpochDays.of(FIRST_YEAR + YEARS - 1, 12, 31);
+        final AvailabilityFileWriter writer = new AvailabilityFileWriter(FIRST_YEAR, YEARS)
+                // crosses file start
+                .setBusy(7, EpochDays.of(2022, 12, 20), EpochDays.of(2023, 1, 3))
+                .setBusy(7, EpochDays.of(2024, 2, 29), EpochDays.of(2024, 3, 2))
+                .setBusy(-5, EpochDays.of(2024, 2, 28), EpochDays.of(2024, 3, 1))
+                // crosses file end
+                .setBusy(-5, EpochDays.of(2025, 12, 30), EpochDays.of(2026, 1, 5))
+                // busy all the time, so all-busy days depend on the others
+                .setBusy(3, first, last);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.writeTo(out);
+        check(MappedAvailability.wrap(ByteBuffer.wrap(out.toByteArray())));
+
+        final File file = File.createTempFile("availability", ".bin");
+        try {
+            writer.writeTo(file);
+            assertEquals(out.size(), file.length());
+            check(MappedAvailability.open(file));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void idleResourceKeepsDaysNotAllBusy() throws IOException {
+        final int day = EpochDays.of(FIRST_YEAR, 6, 15);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AvailabilityFileWriter(FIRST_YEAR, 1).setBusy(1, day, day).addResource(2).writeTo(out);
+        final MappedAvailability availability = MappedAvailability.wrap(ByteBuffer.wrap(out.toByteArray()));
+
+        assertEquals(2, availability.getResourceCount());
+        assertTrue(availability.isBusy(1, day));
+        assertFalse(availability.isBusy(2, day));
+        assertFalse(availability.isAllBusy(day));
+        assertEquals(0, availability.getAllBusyMonthMask(EpochDays.monthIndexOf(day)));
+    }
+
+    @Test
+    public void emptyFile() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AvailabilityFileWriter(FIRST_YEAR, 1).writeTo(out);
+        final MappedAvailability availability = MappedAvailability.wrap(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(0, availability.getResourceCount());
+        assertEquals(-1, availability.indexOf(1));
+        assertEquals(EpochDays.monthIndex(FIRST_YEAR, 1), availability.getFirstMonth());
+        assertEquals(EpochDays.monthIndex(FIRST_YEAR, 12), availability.getLastMonth());
+        assertFalse(availability.isAllBusy(EpochDays.of(FIRST_YEAR, 5, 5)));
+    }
+
+    @Test
+    public void rejectsTruncatedFiles() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AvailabilityFileWriter(FIRST_YEAR, YEARS).setBusy(1, 0, 1).setBusy(2, 5, 6).writeTo(out);
+        final byte[] data = out.toByteArray();
+        for (int length = 0; length < data.length; length++) {
+            try {
+                MappedAvailability.wrap(ByteBuffer.wrap(data, 0, length).slice());
+                fail("Accepted " + length + " of " + data.length + " bytes");
+            } catch (IOException expected) {
+                // ok
+            }
+        }
+        assertEquals(2, MappedAvailability.wrap(ByteBuffer.wrap(data)).getResourceCount());
+    }
+
+    @Test
+    public void rejectsMalformedHeaders() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new AvailabilityFileWriter(FIRST_YEAR, YEARS).addResource(1).writeTo(out);
+        final byte[] data = out.toByteArray();
+
+        // offset in header -> broken value
+        final int[][] broken = {
+                {0, 0x56434157},
+                {8 + 4, 0},
+                {8 + 4, -1},
+                {8 + 4, YEARS + 1},
+                {8 + 4, Integer.MAX_VALUE},
+                {16, -1},
+                {16, 2},
+                {16, Integer.MAX_VALUE},
+                {20, 0},
+                {20, data.length},
+                {24, 31},
+                {24, data.length - 4},
+                {28, -8},
+                {28, data.length - 4},
+        };
+        for (int[] field : broken) {
+            final ByteBuffer buffer = ByteBuffer.wrap(data.clone());
+            buffer.putInt(field[0], field[1]);
+            try {
+                MappedAvailability.wrap(buffer);
+                fail("Accepted " + field[1] + " at " + field[0]);
+            } catch (IOException expected) {
+                // ok
+            }
+        }
+
+        final ByteBuffer version = ByteBuffer.wrap(data.clone());
+        version.putShort(4, (short) (AvailabilityFileWriter.VERSION + 1));
+        try {
+            MappedAvailability.wrap(version);
+            fail("Accepted unknown version");
+        } catch (IOException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void writerRejectsInvalidArguments() {
+        try {
+            new AvailabilityFileWriter(FIRST_YEAR, 0);
+            fail("Accepted zero years");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            new AvailabilityFileWriter(FIRST_YEAR, 1).setBusy(1, 10, 9);
+            fail("Accepted reversed range");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private static void check(MappedAvailability availability) {
+        // resources are sorted by id
+        assertEquals(3, availability.getResourceCount());
+        assertEquals(-5, availability.getResourceId(0));
+        assertEquals(3, availability.getResourceId(1));
+        assertEquals(7, availability.getResourceId(2));
+        assertEquals(2, availability.indexOf(7));
+        assertEquals(-1, availability.indexOf(0));
+        assertFalse(availability.hasResource(-1000));
+        try {
+            availability.getResourceId(3);
+            fail("Accepted resource index past the end");
+        } catch (IndexOutOfBoundsException expected) {
+            // ok
+        }
+
+        assertEquals(EpochDays.monthIndex(FIRST_YEAR, 1), availability.getFirstMonth());
+        assertEquals(EpochDays.monthIndex(FIRST_YEAR + YEARS - 1, 12), availability.getLastMonth());
+
+        // days outside of file are dropped
+        assertFalse(availability.isBusy(7, EpochDays.of(2022, 12, 31)));
+        assertTrue(availability.isBusy(7, EpochDays.of(2023, 1, 1)));
+        assertTrue(availability.isBusy(7, EpochDays.of(2023, 1, 3)));
+        assertFalse(availability.isBusy(7, EpochDays.of(2023, 1, 4)));
+        assertTrue(availability.isBusy(-5, EpochDays.of(2025, 12, 31)));
+        assertFalse(availability.isBusy(-5, EpochDays.of(2026, 1, 1)));
+        assertFalse(availability.isBusy(3, EpochDays.of(2026, 1, 1)));
+        assertFalse(availability.isBusy(-1000, EpochDays.of(2024, 2, 29)));
+
+        final int feb = EpochDays.monthIndex(2024, 2);
+        final int mar = EpochDays.monthIndex(2024, 3);
+        assertEquals(bit(28) | bit(29), availability.getResourceMonthMask(-5, feb));
+        assertEquals(bit(1), availability.getResourceMonthMask(-5, mar));
+        assertEquals(bit(1) | bit(2), availability.getResourceMonthMask(7, mar));
+        // every resource is busy only on february 29 and march 1
+        assertEquals(bit(29), availability.getAllBusyMonthMask(feb));
+        assertEquals(bit(1), availability.getAllBusyMonthMask(mar));
+        assertTrue(availability.isAllBusy(EpochDays.of(2024, 2, 29)));
+        assertFalse(availability.isAllBusy(EpochDays.of(2024, 2, 28)));
+        assertFalse(availability.isAllBusy(EpochDays.of(2024, 3, 2)));
+        assertFalse(availability.isAllBusy(EpochDays.of(2023, 1, 1)));
+
+        assertEquals(0, availability.getResourceMonthMask(3, availability.getFirstMonth() - 1));
+        assertEquals(0, availability.getAllBusyMonthMask(availability.getLastMonth() + 1));
+    }
+
+    private static int bit(int dayOfMonth) {
+        return 1 << (dayOfMonth - 1);
+    }
+}
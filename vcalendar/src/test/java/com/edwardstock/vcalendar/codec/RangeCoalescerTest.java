@@ -0,0 +1,59 @@
+package com.edwardstock.vcalendar.codec;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class RangeCoalescerTest {
+    private final List<int[]> mRuns = new ArrayList<>();
+    private final RangeCoalescer mCoalescer = new RangeCoalescer((first, last) -> mRuns.add(new int[]{first, last}));
+
+    @Test
+    public void joinsOverlappedAndAdjacent() throws IOException {
+        mCoalescer.add(1, 3);
+        mCoalescer.add(4, 4);
+        mCoalescer.add(2, 10);
+        mCoalescer.add(10, 12);
+        mCoalescer.add(14, 15);
+        mCoalescer.flush();
+
+        assertEquals(2, mRuns.size());
+        assertRun(1, 12, mRuns.get(0));
+        assertRun(14, 15, mRuns.get(1));
+    }
+
+    @Test
+    public void emitsOnlyCompletedRuns() throws IOException {
+        mCoalescer.add(1, 1);
+        mCoalescer.add(3, 3);
+        assertEquals(1, mRuns.size());
+        mCoalescer.flush();
+        assertEquals(2, mRuns.size());
+        mCoalescer.flush();
+        assertEquals(2, mRuns.size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedRangeThrows() throws IOException {
+        mCoalescer.add(5, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeBeforeEmittedThrows() throws IOException {
+        mCoalescer.add(5, 10);
+        mCoalescer.flush();
+        mCoalescer.add(10, 11);
+    }
+
+    private static void assertRun(int first, int last, int[] run) {
+        assertEquals(first, run[0]);
+        assertEquals(last, run[1]);
+    }
+}
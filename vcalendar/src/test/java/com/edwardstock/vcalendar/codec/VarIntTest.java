@@ -0,0 +1,79 @@
+package com.edwardstock.vcalendar.codec;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class VarIntTest {
+
+    @Test
+    public void unsignedRoundTrip() throws IOException {
+        final int[] values = {0, 1, 0x7F, 0x80, 0x3FFF, 0x4000, 0x1FFFFF, 0x200000, Integer.MAX_VALUE, -1, Integer.MIN_VALUE};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int value : values) {
+            VarInt.writeUnsigned(out, value);
+        }
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int value : values) {
+            assertEquals(value, VarInt.readUnsigned(in));
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void signedRoundTripAtZigzagBoundaries() throws IOException {
+        // each pair is the last value of a byte length and the first one of the next length
+        final int[] values = {0, -1, 1, 63, 64, -64, -65, 8191, 8192, -8192, -8193,
+                Integer.MAX_VALUE, Integer.MIN_VALUE};
+        final int[] lengths = {1, 1, 1, 1, 2, 1, 2, 2, 3, 2, 3, 5, 5};
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < values.length; i++) {
+            final int before = out.size();
+            VarInt.writeSigned(out, values[i]);
+            assertEquals("length of " + values[i], lengths[i], out.size() - before);
+        }
+        final ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+        for (int value : values) {
+            assertEquals(value, VarInt.readSigned(in));
+        }
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    public void encodedLength() throws IOException {
+        assertArrayEquals(new byte[]{0}, unsigned(0));
+        assertArrayEquals(new byte[]{0x7F}, unsigned(0x7F));
+        assertArrayEquals(new byte[]{(byte) 0x80, 0x01}, unsigned(0x80));
+        assertEquals(5, unsigned(-1).length);
+        // zigzag keeps small negatives in one byte
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VarInt.writeSigned(out, -64);
+        assertEquals(1, out.size());
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedInputThrows() throws IOException {
+        VarInt.readUnsigned(new ByteArrayInputStream(new byte[]{(byte) 0x80}));
+    }
+
+    @Test(expected = IOException.class)
+    public void tooLongInputThrows() throws IOException {
+        final byte[] data = {(byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x01};
+        VarInt.readUnsigned(new ByteArrayInputStream(data));
+    }
+
+    private static byte[] unsigned(int value) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VarInt.writeUnsigned(out, value);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,89 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class CalendarLabelsTest {
+    private static final String[] MONTHS = {
+            "January", "February", "March", "April", "May", "June",
+            "July", "August", "September", "October", "November", "December"
+    };
+    private static final String[] DAYS = {"Mo", "Tu", "We", "Th", "Fr", "Sa", "Su"};
+    private static final int CENTER = EpochDays.monthIndex(2018, 6);
+
+    private CalendarLabels create() {
+        return new CalendarLabels(Locale.US, MONTHS, DAYS, CENTER);
+    }
+
+    @Test
+    public void titlesInsidePrecomputedWindow() {
+        final CalendarLabels labels = create();
+        assertEquals("June 2018", labels.getTitle(CENTER));
+        // window edges: january of the first year and december of the last one
+        assertEquals("January 2008", labels.getTitle(EpochDays.monthIndex(2018 - CalendarLabels.TITLES_YEARS_AROUND, 1)));
+        assertEquals("December 2028", labels.getTitle(EpochDays.monthIndex(2018 + CalendarLabels.TITLES_YEARS_AROUND, 12)));
+    }
+
+    @Test
+    public void titlesOutsideWindowAreFormatted() {
+        final CalendarLabels labels = create();
+        assertEquals("December 2007", labels.getTitle(EpochDays.monthIndex(2007, 12)));
+        assertEquals("January 2029", labels.getTitle(EpochDays.monthIndex(2029, 1)));
+        assertEquals("March 1900", labels.getTitle(EpochDays.monthIndex(1900, 3)));
+    }
+
+    @Test
+    public void dayNumbersAreWesternDigits() {
+        final CalendarLabels labels = new CalendarLabels(new Locale("ar"), MONTHS, DAYS, CENTER);
+        assertEquals("1", labels.getDayNumber(1));
+        assertEquals("31", labels.getDayNumber(31));
+    }
+
+    @Test
+    public void namesAreCopied() {
+        final String[] months = MONTHS.clone();
+        final String[] days = DAYS.clone();
+        final CalendarLabels labels = new CalendarLabels(Locale.US, months, days, CENTER);
+        months[0] = "changed";
+        days[0] = "changed";
+
+        assertArrayEquals(MONTHS, labels.getMonthNames());
+        assertArrayEquals(DAYS, labels.getDaysOfWeek());
+        assertEquals("January 2018", labels.getTitle(EpochDays.monthIndex(2018, 1)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongMonthCount() {
+        new CalendarLabels(Locale.US, new String[11], DAYS, CENTER);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsWrongDaysCount() {
+        new CalendarLabels(Locale.US, MONTHS, new String[8], CENTER);
+    }
+
+    @Test
+    public void placeholderIsBlankButHasDayNumbers() {
+        final CalendarLabels placeholder = CalendarLabels.PLACEHOLDER;
+        assertTrue(placeholder.isPlaceholder());
+        assertFalse(create().isPlaceholder());
+
+        assertEquals("", placeholder.getTitle(CENTER));
+        assertEquals("", placeholder.getTitle(EpochDays.monthIndex(1900, 1)));
+        assertEquals(12, placeholder.getMonthNames().length);
+        assertEquals(7, placeholder.getDaysOfWeek().length);
+        for (String day : placeholder.getDaysOfWeek()) {
+            assertEquals("", day);
+        }
+        assertEquals("15", placeholder.getDayNumber(15));
+    }
+}
@@ -0,0 +1,135 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayAvailabilityTest {
+    private static final int HORIZON = 10 * 366;
+    private static final int BASE = EpochDays.of(2024, 1, 1);
+    private DayConstraints mConstraints;
+    private DayAvailability mAvailability;
+
+    @Before
+    public void setUp() {
+        mConstraints = new DayConstraints();
+        mAvailability = new DayAvailability(mConstraints);
+    }
+
+    @Test
+    public void weekendsAndSingleDays() {
+        // january 2024 starts on monday: 4 saturdays and 4 sundays
+        mConstraints.setDisabledDaysOfWeek(6, 7);
+        assertEquals(8, mAvailability.countDisabled(BASE, BASE + 30));
+        assertEquals(BASE, mAvailability.nextFreeWindow(BASE, 5));
+        assertEquals(BASE + 7, mAvailability.nextFreeWindow(BASE + 1, 5));
+        // no 6 working days in a row
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextFreeWindow(BASE, 6));
+        assertEquals(BASE + 7, mAvailability.nextSelectable(BASE + 5));
+        assertEquals(BASE + 5, mAvailability.nextDisabled(BASE));
+
+        // wednesday breaks the first week
+        mConstraints.addDisabledDay(BASE + 2);
+        assertEquals(9, mAvailability.countDisabled(BASE, BASE + 30));
+        assertEquals(BASE + 2, mAvailability.nextDisabled(BASE));
+        assertEquals(BASE + 7, mAvailability.nextFreeWindow(BASE, 5));
+        assertEquals(BASE, mAvailability.nextFreeWindow(BASE, 2));
+        assertEquals(BASE + 3, mAvailability.nextFreeWindow(BASE + 1, 2));
+    }
+
+    @Test
+    public void rangeAcrossNewYear() {
+        final int from = EpochDays.of(2024, 12, 30);
+        final int to = EpochDays.of(2025, 1, 2);
+        mConstraints.addDisabledRange(from, to);
+
+        assertEquals(4, mAvailability.countDisabled(EpochDays.of(2024, 12, 1), EpochDays.of(2025, 1, 31)));
+        assertEquals(2, mAvailability.countDisabled(EpochDays.of(2025, 1, 1), EpochDays.of(2025, 12, 31)));
+        assertFalse(mAvailability.isRangeClear(from - 1, from));
+        assertTrue(mAvailability.isRangeClear(from - 10, from - 1));
+        assertEquals(to + 1, mAvailability.nextSelectable(from));
+        assertEquals(from, mAvailability.nextDisabled(BASE));
+        assertEquals(to + 1, mAvailability.nextFreeWindow(from - 1, 2));
+    }
+
+    @Test
+    public void cachedYearsFollowConstraintChanges() {
+        final int yearEnd = EpochDays.of(2024, 12, 31);
+        assertEquals(0, mAvailability.countDisabled(BASE, yearEnd));
+
+        mConstraints.addDisabledRange(BASE + 100, BASE + 109);
+        assertEquals(10, mAvailability.countDisabled(BASE, yearEnd));
+        mConstraints.addDisabledDay(BASE + 200);
+        assertEquals(11, mAvailability.countDisabled(BASE, yearEnd));
+        assertEquals(BASE + 100, mAvailability.nextDisabled(BASE));
+
+        mConstraints.removeDisabledRange(BASE + 100, BASE + 109);
+        assertEquals(1, mAvailability.countDisabled(BASE, yearEnd));
+        assertEquals(BASE + 200, mAvailability.nextDisabled(BASE));
+
+        mConstraints.clear();
+        assertEquals(0, mAvailability.countDisabled(BASE, yearEnd));
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextDisabled(BASE));
+    }
+
+    @Test
+    public void respectsLimits() {
+        mConstraints.setDisabledBefore(BASE + 10);
+        mConstraints.setDisabledAfter(BASE + 40);
+
+        assertEquals(10, mAvailability.countDisabled(BASE, BASE + 10));
+        assertEquals(BASE + 10, mAvailability.nextSelectable(BASE - 500));
+        assertEquals(BASE + 41, mAvailability.nextDisabled(BASE + 10));
+        assertEquals(BASE + 10, mAvailability.nextFreeWindow(BASE, 31));
+        // window crossing the upper limit is never found
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextFreeWindow(BASE, 32));
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextSelectable(BASE + 41));
+
+        mConstraints.clearDisabledAfter();
+        assertEquals(BASE + 41, mAvailability.nextSelectable(BASE + 41));
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextDisabled(BASE + 10));
+
+        mConstraints.clearDisabledBefore();
+        assertEquals(0, mAvailability.countDisabled(BASE, BASE + 10));
+    }
+
+    @Test
+    public void skipsFullyDisabledYears() {
+        final int from = EpochDays.of(2025, 1, 1);
+        final int to = EpochDays.of(2027, 12, 31);
+        mConstraints.addDisabledRange(from, to);
+
+        assertEquals(to - from + 1, mAvailability.countDisabled(from - 5, to + 5));
+        assertEquals(to + 1, mAvailability.nextSelectable(from));
+        assertEquals(to + 1, mAvailability.nextSelectable(EpochDays.of(2026, 6, 15)));
+        assertEquals(from - 7, mAvailability.nextFreeWindow(from - 7, 7));
+        assertEquals(to + 1, mAvailability.nextFreeWindow(from - 6, 7));
+        assertEquals(from, mAvailability.nextDisabled(EpochDays.of(2020, 1, 1)));
+
+        // nothing selectable within the search horizon
+        mConstraints.addDisabledRange(to, to + HORIZON + 10);
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextSelectable(from));
+        assertEquals(DayAvailability.NO_DAY, mAvailability.nextFreeWindow(from, 1));
+    }
+
+    @Test
+    public void emptyAndReversedRanges() {
+        mConstraints.setDisabledDaysOfWeek(6, 7);
+        assertEquals(0, mAvailability.countDisabled(BASE + 1, BASE));
+        assertTrue(mAvailability.isRangeClear(BASE, BASE + 4));
+        assertFalse(mAvailability.isRangeClear(BASE, BASE + 5));
+        try {
+            mAvailability.nextFreeWindow(BASE, 0);
+            fail("Accepted zero window");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayBitSetTest {
+    // february 2024 starts on thursday and has 29 days
+    private static final int FEB_1 = EpochDays.of(2024, 2, 1);
+    private static final int FEB_29 = EpochDays.of(2024, 2, 29);
+
+    @Test
+    public void patternsFillRange() {
+        assertEquals(29, filled(SelectionPatterns.all()).cardinality());
+        assertEquals(21, filled(SelectionPatterns.weekdays()).cardinality());
+        assertArrayEquals(days(3, 4, 10, 11, 17, 18, 24, 25), filled(SelectionPatterns.daysOfWeek(6, 7)).toArray());
+        assertEquals(15, filled(SelectionPatterns.oddDays()).cardinality());
+        // matches before the anchor too
+        assertArrayEquals(days(2, 6, 10, 14, 18, 22, 26), filled(SelectionPatterns.everyNthDay(FEB_1 + 9, 4)).toArray());
+    }
+
+    @Test
+    public void removeByPatternKeepsOtherDays() {
+        final DayBitSet set = filled(SelectionPatterns.all());
+        set.remove(FEB_1, FEB_29, SelectionPatterns.weekdays());
+        assertArrayEquals(days(3, 4, 10, 11, 17, 18, 24, 25), set.toArray());
+
+        set.set(FEB_1);
+        set.clear(FEB_1 + 2);
+        assertTrue(set.get(FEB_1));
+        assertFalse(set.get(FEB_1 + 2));
+        assertEquals(8, set.cardinality());
+    }
+
+    @Test
+    public void setOperations() {
+        final DayBitSet first = range(1, 10);
+        final DayBitSet second = range(5, 15);
+
+        final DayBitSet or = range(1, 10);
+        or.or(second);
+        assertArrayEquals(range(1, 15).toArray(), or.toArray());
+
+        final DayBitSet and = range(1, 10);
+        and.and(second);
+        assertArrayEquals(range(5, 10).toArray(), and.toArray());
+
+        final DayBitSet andNot = range(1, 10);
+        andNot.andNot(second);
+        assertArrayEquals(range(1, 4).toArray(), andNot.toArray());
+
+        // disjoint months
+        final DayBitSet march = new DayBitSet();
+        march.set(EpochDays.of(2024, 3, 1));
+        final DayBitSet none = range(1, 10);
+        none.and(march);
+        assertTrue(none.isEmpty());
+        first.or(march);
+        assertEquals(11, first.cardinality());
+    }
+
+    @Test
+    public void retainFirstKeepsEarliestDaysAcrossMonths() {
+        final DayBitSet set = new DayBitSet();
+        set.add(EpochDays.of(2024, 1, 30), EpochDays.of(2024, 2, 2), SelectionPatterns.all());
+
+        set.retainFirst(10);
+        assertEquals(4, set.cardinality());
+        set.retainFirst(3);
+        assertArrayEquals(new int[]{EpochDays.of(2024, 1, 30), EpochDays.of(2024, 1, 31), FEB_1}, set.toArray());
+        set.retainFirst(-1);
+        assertTrue(set.isEmpty());
+        assertEquals(0, set.getMonthMask(EpochDays.monthIndex(2024, 1)));
+    }
+
+    @Test
+    public void monthMasksUseDayBits() {
+        final DayBitSet set = new DayBitSet();
+        set.set(EpochDays.of(2024, 2, 1));
+        set.set(EpochDays.of(2024, 2, 29));
+        assertEquals(1 | 1 << 28, set.getMonthMask(EpochDays.monthIndex(2024, 2)));
+        assertEquals(0, set.getMonthMask(EpochDays.monthIndex(2024, 3)));
+
+        // range over month boundary never leaks past month length
+        set.clear();
+        set.add(EpochDays.of(2023, 2, 20), EpochDays.of(2023, 3, 2), SelectionPatterns.all());
+        assertEquals(11, set.cardinality());
+        assertEquals(0, set.getMonthMask(EpochDays.monthIndex(2023, 2)) >>> 28);
+
+        // empty months are not kept
+        set.remove(EpochDays.of(2023, 2, 1), EpochDays.of(2023, 3, 31), SelectionPatterns.all());
+        assertTrue(set.isEmpty());
+        assertFalse(set.get(EpochDays.of(2023, 2, 20)));
+    }
+
+    private static DayBitSet filled(SelectionPattern pattern) {
+        final DayBitSet set = new DayBitSet();
+        set.add(FEB_1, FEB_29, pattern);
+        return set;
+    }
+
+    private static DayBitSet range(int fromDay, int toDay) {
+        final DayBitSet set = new DayBitSet();
+        set.add(FEB_1 + fromDay - 1, FEB_1 + toDay - 1, SelectionPatterns.all());
+        return set;
+    }
+
+    /**
+     * @return epoch days of february 2024
+     */
+    private static int[] days(int... daysOfMonth) {
+        final int[] out = new int[daysOfMonth.length];
+        for (int i = 0; i < out.length; i++) {
+            out[i] = FEB_1 + daysOfMonth[i] - 1;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,257 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayConstraintsTest {
+    private static final int FEB_2024 = EpochDays.monthIndex(2024, 2);
+    private static final int MAR_2024 = EpochDays.monthIndex(2024, 3);
+
+    private DayConstraints mConstraints;
+    // {fromMonth, toMonth} of every change notification
+    private List<int[]> mChanges;
+
+    @Before
+    public void setUp() {
+        mConstraints = new DayConstraints();
+        mChanges = new ArrayList<>();
+        mConstraints.addOnConstraintsChangedListener((from, to) -> mChanges.add(new int[]{from, to}));
+    }
+
+    @Test
+    public void emptyConstraintsDisableNothing() {
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+        assertFalse(mConstraints.isDisabled(EpochDays.of(2024, 2, 29)));
+    }
+
+    @Test
+    public void disabledBeforeIsExclusive() {
+        mConstraints.setDisabledBefore(EpochDays.of(2024, 2, 10));
+
+        assertTrue(mConstraints.isDisabled(EpochDays.of(2024, 2, 9)));
+        assertFalse(mConstraints.isDisabled(EpochDays.of(2024, 2, 10)));
+        assertEquals(bits(1, 9), mConstraints.getMonthMask(FEB_2024));
+        // whole previous month, nothing in the next one
+        assertEquals(bits(1, 31), mConstraints.getMonthMask(EpochDays.monthIndex(2024, 1)));
+        assertEquals(0, mConstraints.getMonthMask(MAR_2024));
+    }
+
+    @Test
+    public void disabledBeforeFirstDayOfMonthKeepsMonthEnabled() {
+        mConstraints.setDisabledBefore(EpochDays.of(2024, 3, 1));
+
+        assertEquals(0, mConstraints.getMonthMask(MAR_2024));
+        assertEquals(bits(1, 29), mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void disabledAfterIsExclusive() {
+        mConstraints.setDisabledAfter(EpochDays.of(2024, 2, 27));
+
+        assertFalse(mConstraints.isDisabled(EpochDays.of(2024, 2, 27)));
+        assertTrue(mConstraints.isDisabled(EpochDays.of(2024, 2, 28)));
+        assertEquals(bits(28, 29), mConstraints.getMonthMask(FEB_2024));
+        assertEquals(bits(1, 31), mConstraints.getMonthMask(MAR_2024));
+    }
+
+    @Test
+    public void disabledAfterLastDayOfMonthKeepsMonthEnabled() {
+        mConstraints.setDisabledAfter(EpochDays.of(2024, 1, 31));
+
+        assertEquals(0, mConstraints.getMonthMask(EpochDays.monthIndex(2024, 1)));
+        assertEquals(bits(1, 29), mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void movingLimitRecompilesBothPositions() {
+        mConstraints.setDisabledBefore(EpochDays.of(2024, 3, 15));
+        assertEquals(bits(1, 14), mConstraints.getMonthMask(MAR_2024));
+        mChanges.clear();
+
+        // moving back must drop masks up to the old limit too
+        mConstraints.setDisabledBefore(EpochDays.of(2024, 2, 5));
+        assertChanged(DayConstraints.ALL_MONTHS_FROM, MAR_2024);
+        assertEquals(0, mConstraints.getMonthMask(MAR_2024));
+        assertEquals(bits(1, 4), mConstraints.getMonthMask(FEB_2024));
+
+        mConstraints.clearDisabledBefore();
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void rangeAcrossMonths() {
+        mConstraints.addDisabledRange(EpochDays.of(2024, 2, 27), EpochDays.of(2024, 3, 2));
+        assertChanged(FEB_2024, MAR_2024);
+
+        assertEquals(bits(27, 29), mConstraints.getMonthMask(FEB_2024));
+        assertEquals(bits(1, 2), mConstraints.getMonthMask(MAR_2024));
+
+        mConstraints.removeDisabledRange(EpochDays.of(2024, 2, 27), EpochDays.of(2024, 3, 2));
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+        assertEquals(0, mConstraints.getMonthMask(MAR_2024));
+    }
+
+    @Test
+    public void singleDayRange() {
+        final int day = EpochDays.of(2024, 3, 31);
+        mConstraints.addDisabledRange(day, day);
+
+        assertEquals(bits(31, 31), mConstraints.getMonthMask(MAR_2024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rangeEndBeforeBeginIsRejected() {
+        mConstraints.addDisabledRange(EpochDays.of(2024, 2, 2), EpochDays.of(2024, 2, 1));
+    }
+
+    @Test
+    public void clearRangesNotifiesTheirSpan() {
+        mConstraints.addDisabledRange(EpochDays.of(2024, 1, 5), EpochDays.of(2024, 1, 6));
+        mConstraints.addDisabledRange(EpochDays.of(2024, 4, 5), EpochDays.of(2024, 4, 6));
+        mChanges.clear();
+
+        mConstraints.clearDisabledRanges();
+        assertChanged(EpochDays.monthIndex(2024, 1), EpochDays.monthIndex(2024, 4));
+
+        mChanges.clear();
+        mConstraints.clearDisabledRanges();
+        assertTrue(mChanges.isEmpty());
+    }
+
+    @Test
+    public void daysOfWeek() {
+        // february 2024 starts on thursday: sundays are 4, 11, 18, 25
+        mConstraints.setDisabledDaysOfWeek(7);
+        assertEquals(bit(4) | bit(11) | bit(18) | bit(25), mConstraints.getMonthMask(FEB_2024));
+        assertTrue(mConstraints.isDisabledDayOfWeek(7));
+        assertFalse(mConstraints.isDisabledDayOfWeek(1));
+
+        // the same set again changes nothing
+        mChanges.clear();
+        mConstraints.setDisabledDaysOfWeek(7);
+        assertTrue(mChanges.isEmpty());
+
+        mConstraints.setDisabledDaysOfWeek();
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void dayOfWeekOutOfRangeIsRejected() {
+        mConstraints.setDisabledDaysOfWeek(0);
+    }
+
+    @Test
+    public void explicitDaysNotifyOnlyTheirMonth() {
+        final int day = EpochDays.of(2024, 2, 29);
+        mConstraints.addDisabledDay(day);
+        assertChanged(FEB_2024, FEB_2024);
+        assertTrue(mConstraints.isDisabled(day));
+
+        // adding it again is not a change
+        mChanges.clear();
+        mConstraints.addDisabledDay(day);
+        assertTrue(mChanges.isEmpty());
+
+        mConstraints.removeDisabledDay(day);
+        assertFalse(mConstraints.isDisabled(day));
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void maskIsCachedUntilPatternMonthIsInvalidated() {
+        final int[] patternMask = {bit(1)};
+        mConstraints.addDisabledPattern(monthIndex -> monthIndex == FEB_2024 ? patternMask[0] : 0);
+        assertEquals(bit(1), mConstraints.getMonthMask(FEB_2024));
+
+        patternMask[0] = bit(2);
+        assertEquals(bit(1), mConstraints.getMonthMask(FEB_2024));
+
+        // other months invalidation keeps february
+        mConstraints.invalidate(MAR_2024, MAR_2024);
+        assertEquals(bit(1), mConstraints.getMonthMask(FEB_2024));
+
+        mConstraints.invalidate(FEB_2024, FEB_2024);
+        assertEquals(bit(2), mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void recurrenceIsMerged() {
+        final RecurrenceSet closures = RecurrenceSet.parse(
+                "DTSTART;VALUE=DATE:20240101\nRRULE:FREQ=MONTHLY;BYMONTHDAY=1,15");
+        mConstraints.addDisabledRecurrence(closures);
+        mConstraints.addDisabledDay(EpochDays.of(2024, 2, 2));
+
+        assertEquals(bit(1) | bit(2) | bit(15), mConstraints.getMonthMask(FEB_2024));
+
+        mConstraints.removeDisabledRecurrence(closures);
+        assertEquals(bit(2), mConstraints.getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void recurrenceChangesAfterRegistrationDropMasks() {
+        final RecurrenceSet closures = new RecurrenceSet();
+        mConstraints.addDisabledRecurrence(closures);
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+        mChanges.clear();
+
+        closures.addDate(EpochDays.of(2024, 2, 3));
+        assertChanged(FEB_2024, FEB_2024);
+        assertEquals(bit(3), mConstraints.getMonthMask(FEB_2024));
+
+        closures.addRule(new RecurrenceRule(EpochDays.of(2024, 2, 1), "FREQ=MONTHLY;BYMONTHDAY=5"));
+        assertEquals(bit(3) | bit(5), mConstraints.getMonthMask(FEB_2024));
+
+        // removed set is not listened anymore
+        mConstraints.removeDisabledRecurrence(closures);
+        mChanges.clear();
+        closures.addExDate(EpochDays.of(2024, 2, 5));
+        assertTrue(mChanges.isEmpty());
+    }
+
+    @Test
+    public void clearDropsEverything() {
+        mConstraints.setDisabledBefore(EpochDays.of(2024, 2, 10));
+        mConstraints.setDisabledAfter(EpochDays.of(2024, 2, 20));
+        mConstraints.setDisabledDaysOfWeek(3);
+        mConstraints.addDisabledDay(EpochDays.of(2024, 2, 15));
+        mConstraints.addDisabledRange(EpochDays.of(2024, 2, 12), EpochDays.of(2024, 2, 13));
+        mConstraints.addDisabledPattern(monthIndex -> bit(16));
+        assertTrue(mConstraints.getMonthMask(FEB_2024) != 0);
+        mChanges.clear();
+
+        mConstraints.clear();
+        assertChanged(DayConstraints.ALL_MONTHS_FROM, DayConstraints.ALL_MONTHS_TO);
+        assertFalse(mConstraints.hasDisabledBefore());
+        assertFalse(mConstraints.hasDisabledAfter());
+        assertEquals(0, mConstraints.getMonthMask(FEB_2024));
+        assertEquals(0, mConstraints.getMonthMask(MAR_2024));
+    }
+
+    private void assertChanged(int fromMonth, int toMonth) {
+        assertEquals(1, mChanges.size());
+        assertEquals(fromMonth, mChanges.get(0)[0]);
+        assertEquals(toMonth, mChanges.get(0)[1]);
+    }
+
+    private static int bit(int dayOfMonth) {
+        return 1 << (dayOfMonth - 1);
+    }
+
+    private static int bits(int fromDay, int toDay) {
+        int mask = 0;
+        for (int day = fromDay; day <= toDay; day++) {
+            mask |= bit(day);
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,144 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayStatesTest {
+    private static final int BOOKED = 1;
+    private static final int PENDING = 1 << 1;
+    private static final int HOLIDAY = 1 << 31;
+    private static final int JAN_2024 = EpochDays.monthIndex(2024, 1);
+    private static final int FEB_2024 = EpochDays.monthIndex(2024, 2);
+    private static final int MAR_2024 = EpochDays.monthIndex(2024, 3);
+
+    private DayStates mStates;
+    // {fromDay, toDay} of every change notification
+    private List<int[]> mChanges;
+
+    @Before
+    public void setUp() {
+        mStates = new DayStates();
+        mChanges = new ArrayList<>();
+        mStates.addOnStatesChangedListener((from, to) -> mChanges.add(new int[]{from, to}));
+    }
+
+    @Test
+    public void emptyStatesHaveNoFlags() {
+        assertEquals(0, mStates.get(EpochDays.of(2024, 2, 29)));
+        assertEquals(0, mStates.getMonthMask(FEB_2024, -1));
+        assertFalse(mStates.hasAny(EpochDays.of(2024, 2, 29), BOOKED));
+    }
+
+    @Test
+    public void flagsOfDayAreCollectedFromPlanes() {
+        final int day = EpochDays.of(2024, 2, 29);
+        mStates.set(day, BOOKED | HOLIDAY);
+        mStates.set(day, PENDING);
+
+        assertEquals(BOOKED | PENDING | HOLIDAY, mStates.get(day));
+        assertTrue(mStates.hasAll(day, BOOKED | HOLIDAY));
+        assertFalse(mStates.hasAll(day, BOOKED | 1 << 5));
+        assertTrue(mStates.hasAny(day, HOLIDAY | 1 << 5));
+        assertEquals(0, mStates.get(day - 1));
+        assertChanged(0, day, day);
+    }
+
+    @Test
+    public void rangeAcrossMonthsFillsEveryMonth() {
+        mStates.setRange(EpochDays.of(2024, 1, 30), EpochDays.of(2024, 3, 2), BOOKED);
+
+        assertEquals(bits(30, 31), mStates.getMonthMask(JAN_2024, BOOKED));
+        assertEquals(bits(1, 29), mStates.getMonthMask(FEB_2024, BOOKED));
+        assertEquals(bits(1, 2), mStates.getMonthMask(MAR_2024, BOOKED));
+        assertEquals(0, mStates.getMonthMask(FEB_2024, PENDING));
+        assertChanged(0, EpochDays.of(2024, 1, 30), EpochDays.of(2024, 3, 2));
+    }
+
+    @Test
+    public void monthMaskMatchesAnyOfFlags() {
+        mStates.set(EpochDays.of(2024, 2, 1), BOOKED);
+        mStates.set(EpochDays.of(2024, 2, 2), PENDING);
+        mStates.set(EpochDays.of(2024, 2, 3), HOLIDAY);
+
+        assertEquals(bit(1) | bit(2), mStates.getMonthMask(FEB_2024, BOOKED | PENDING));
+        assertEquals(bit(3), mStates.getMonthMask(FEB_2024, HOLIDAY));
+        assertEquals(bits(1, 3), mStates.matching(-1).getMonthMask(FEB_2024));
+    }
+
+    @Test
+    public void clearRangeKeepsOtherFlagsAndDays() {
+        mStates.setRange(EpochDays.of(2024, 2, 1), EpochDays.of(2024, 2, 10), BOOKED | PENDING);
+        mStates.clearRange(EpochDays.of(2024, 2, 3), EpochDays.of(2024, 2, 5), BOOKED);
+
+        assertEquals(bits(1, 2) | bits(6, 10), mStates.getMonthMask(FEB_2024, BOOKED));
+        assertEquals(bits(1, 10), mStates.getMonthMask(FEB_2024, PENDING));
+        assertEquals(PENDING, mStates.get(EpochDays.of(2024, 2, 4)));
+    }
+
+    @Test
+    public void clearingLastDaysDropsMonth() {
+        mStates.setRange(EpochDays.of(2024, 1, 31), EpochDays.of(2024, 2, 1), BOOKED);
+        mStates.clearRange(EpochDays.of(2024, 1, 1), EpochDays.of(2024, 12, 31), BOOKED);
+
+        assertEquals(0, mStates.getMonthMask(JAN_2024, BOOKED));
+        assertEquals(0, mStates.getMonthMask(FEB_2024, BOOKED));
+        // planes are dropped with their last month, nothing left to report
+        mChanges.clear();
+        mStates.clearAll(BOOKED);
+        assertTrue(mChanges.isEmpty());
+    }
+
+    @Test
+    public void clearAllReportsSpanOfClearedMonths() {
+        mStates.set(EpochDays.of(2024, 1, 15), BOOKED);
+        mStates.set(EpochDays.of(2024, 3, 15), PENDING);
+        mStates.set(EpochDays.of(2024, 5, 15), HOLIDAY);
+        mChanges.clear();
+
+        mStates.clearAll(BOOKED | PENDING);
+        assertChanged(0, EpochDays.of(2024, 1, 1), EpochDays.of(2024, 3, 31));
+        assertEquals(0, mStates.get(EpochDays.of(2024, 1, 15)));
+        assertEquals(0, mStates.get(EpochDays.of(2024, 3, 15)));
+        assertEquals(HOLIDAY, mStates.get(EpochDays.of(2024, 5, 15)));
+    }
+
+    @Test
+    public void emptyFlagsChangeNothing() {
+        mStates.setRange(EpochDays.of(2024, 1, 1), EpochDays.of(2024, 1, 5), 0);
+        mStates.clearRange(EpochDays.of(2024, 1, 1), EpochDays.of(2024, 1, 5), 0);
+        mStates.clearAll(0);
+        assertTrue(mChanges.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedRangeIsRejected() {
+        mStates.setRange(EpochDays.of(2024, 1, 2), EpochDays.of(2024, 1, 1), BOOKED);
+    }
+
+    private void assertChanged(int index, int fromDay, int toDay) {
+        assertEquals(fromDay, mChanges.get(index)[0]);
+        assertEquals(toDay, mChanges.get(index)[1]);
+    }
+
+    private static int bit(int dayOfMonth) {
+        return 1 << (dayOfMonth - 1);
+    }
+
+    private static int bits(int fromDay, int toDay) {
+        int mask = 0;
+        for (int day = fromDay; day <= toDay; day++) {
+            mask |= bit(day);
+        }
+        return mask;
+    }
+}
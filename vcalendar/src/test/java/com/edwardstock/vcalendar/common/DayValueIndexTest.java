@@ -0,0 +1,161 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class DayValueIndexTest {
+    private static final int BASE = EpochDays.of(2024, 1, 1);
+
+    @Test
+    public void queriesCoverInclusiveRanges() {
+        final DayValueIndex index = new DayValueIndex();
+        index.putAll(BASE, new double[]{4, -2, 7, 0, 3});
+
+        assertAggregate(index.query(BASE, BASE + 4), 5, 12, -2, 7);
+        assertAggregate(index.query(BASE + 1, BASE + 1), 1, -2, -2, -2);
+        assertAggregate(index.query(BASE + 3, BASE + 4), 2, 3, 0, 3);
+        // partly outside of stored days
+        assertAggregate(index.query(BASE - 10, BASE + 1), 2, 2, -2, 4);
+        assertAggregate(index.query(BASE + 4, BASE + 400), 1, 3, 3, 3);
+        assertTrue(index.query(BASE + 5, BASE + 400).isEmpty());
+        assertTrue(index.query(BASE - 400, BASE - 1).isEmpty());
+        // zero is a value, not a missing day
+        assertTrue(index.has(BASE + 3));
+        assertEquals(0, index.get(BASE + 3, -1.5), 0);
+        assertEquals(-1.5, index.get(BASE + 5, -1.5), 0);
+    }
+
+    @Test
+    public void overwrittenValuesUpdateMinAndMax() {
+        final DayValueIndex index = new DayValueIndex();
+        index.putAll(BASE, new double[]{1, 100, 2});
+        assertAggregate(index.queryAll(), 3, 103, 1, 100);
+
+        // the old extremes must not stay in the tree
+        index.put(BASE + 1, 5);
+        assertAggregate(index.queryAll(), 3, 8, 1, 5);
+        index.putAll(BASE - 1, new double[]{9, 6});
+        assertAggregate(index.queryAll(), 4, 22, 2, 9);
+        assertEquals(6, index.get(BASE, 0), 0);
+
+        index.remove(BASE - 1);
+        assertAggregate(index.query(BASE - 1, BASE + 1), 2, 11, 5, 6);
+    }
+
+    @Test
+    public void queriesSpanSeveralYears() {
+        final DayValueIndex index = new DayValueIndex();
+        final int lastDay = EpochDays.of(2023, 12, 31);
+        final int leapDay = EpochDays.of(2024, 2, 29);
+        final int farDay = EpochDays.of(2030, 6, 1);
+        index.put(lastDay, -3);
+        index.put(leapDay, 8);
+        index.put(farDay, 1);
+
+        assertAggregate(index.query(lastDay, leapDay), 2, 5, -3, 8);
+        assertAggregate(index.query(BASE, farDay), 2, 9, 1, 8);
+        assertAggregate(index.query(leapDay + 1, farDay - 1), 0, 0, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY);
+        assertAggregate(index.queryAll(), 3, 6, -3, 8);
+    }
+
+    @Test
+    public void growsTowardsLowerDays() {
+        final DayValueIndex index = new DayValueIndex();
+        index.put(BASE, 1);
+        index.put(BASE + 10, 2);
+        // far below the initial window, several doublings at once
+        index.put(BASE - 5000, 3);
+        index.putAll(BASE - 20000, new double[]{4, 5});
+        index.put(BASE + 30000, 6);
+
+        assertEquals(1, index.get(BASE, 0), 0);
+        assertEquals(2, index.get(BASE + 10, 0), 0);
+        assertEquals(3, index.get(BASE - 5000, 0), 0);
+        assertEquals(5, index.get(BASE - 19999, 0), 0);
+        assertEquals(6, index.queryAll().getCount());
+        assertEquals(21, index.queryAll().getSum(), 0);
+        assertEquals(3, index.query(BASE - 19999, BASE).getCount());
+        assertEquals(1, index.query(BASE - 19999, BASE).getMin(), 0);
+        assertEquals(5, index.query(BASE - 19999, BASE).getMax(), 0);
+        assertFalse(index.has(BASE - 1));
+    }
+
+    @Test
+    public void removeAndClear() {
+        final DayValueIndex index = new DayValueIndex();
+        final List<int[]> changes = new ArrayList<>();
+        index.addOnValuesChangedListener((fromDay, toDay) -> changes.add(new int[]{fromDay, toDay}));
+
+        index.putAll(BASE, new double[]{1, 2, 3});
+        index.remove(BASE + 1);
+        // days without value are not reported
+        index.remove(BASE + 1);
+        index.remove(BASE - 100000);
+
+        final DayValueIndex.Aggregate aggregate = index.query(BASE, BASE + 2);
+        assertEquals(2, aggregate.getCount());
+        assertEquals(4, aggregate.getSum(), 0);
+        assertEquals(1, aggregate.getMin(), 0);
+        assertEquals(3, aggregate.getMax(), 0);
+        assertEquals(2, aggregate.getAverage(), 0);
+        assertEquals(2, changes.size());
+
+        index.clear();
+        assertEquals(3, changes.size());
+        assertTrue(index.queryAll().isEmpty());
+        assertTrue(index.query(BASE, BASE + 2).isEmpty());
+        assertEquals(Double.POSITIVE_INFINITY, index.query(BASE, BASE + 2).getMin(), 0);
+        assertFalse(index.has(BASE));
+        index.clear();
+        assertEquals(3, changes.size());
+
+        // usable again after clear
+        index.put(BASE + 7, 9);
+        assertEquals(9, index.sum(BASE, BASE + 10), 0);
+    }
+
+    @Test
+    public void rejectedPutAllLeavesIndexUntouched() {
+        final DayValueIndex index = new DayValueIndex();
+        final List<int[]> changes = new ArrayList<>();
+        index.put(100, 5);
+        index.addOnValuesChangedListener((fromDay, toDay) -> changes.add(new int[]{fromDay, toDay}));
+        try {
+            index.putAll(100, new double[]{1, Double.NaN});
+            fail("Accepted NaN");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        assertEquals(5, index.get(100, 0), 0);
+        assertFalse(index.has(101));
+        assertEquals(1, index.query(0, 200).getCount());
+        assertEquals(5, index.query(0, 200).getSum(), 0);
+        assertTrue(changes.isEmpty());
+
+        try {
+            index.put(100, Double.NaN);
+            fail("Accepted NaN");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        assertEquals(5, index.queryAll().getSum(), 0);
+    }
+
+    private static void assertAggregate(DayValueIndex.Aggregate actual, int count, double sum, double min, double max) {
+        assertEquals(count, actual.getCount());
+        assertEquals(count == 0, actual.isEmpty());
+        assertEquals(sum, actual.getSum(), 0);
+        assertEquals(min, actual.getMin(), 0);
+        assertEquals(max, actual.getMax(), 0);
+    }
+}
@@ -0,0 +1,126 @@
+package com.edwardstock.vcalendar.common;
+
+import org.joda.time.DateTimeConstants;
+import org.joda.time.Days;
+import org.joda.time.LocalDate;
+import org.joda.time.chrono.ISOChronology;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class EpochDaysTest {
+    private static final LocalDate EPOCH = new LocalDate(1970, 1, 1, ISOChronology.getInstanceUTC());
+
+    @Test
+    public void matchesJodaForTenThousandYearsEachWay() {
+        LocalDate date = new LocalDate(-10000, 1, 1, ISOChronology.getInstanceUTC());
+        int epochDay = Days.daysBetween(EPOCH, date).getDays();
+        assertEquals(epochDay, EpochDays.of(-10000, 1, 1));
+
+        final int last = EpochDays.of(10000, 12, 31);
+        int monthIndex = EpochDays.monthIndex(-10000, 1);
+        for (; epochDay <= last; epochDay++, date = date.plusDays(1)) {
+            final int year = date.getYear();
+            final int month = date.getMonthOfYear();
+            final int day = date.getDayOfMonth();
+            if (EpochDays.of(year, month, day) != epochDay
+                    || EpochDays.year(epochDay) != year
+                    || EpochDays.month(epochDay) != month
+                    || EpochDays.dayOfMonth(epochDay) != day
+                    || EpochDays.dayOfWeek(epochDay) != date.getDayOfWeek()) {
+                fail("Mismatch at " + date + ", epoch day " + epochDay);
+            }
+            if (day == 1) {
+                if (EpochDays.monthIndexOf(epochDay) != monthIndex || EpochDays.firstDayOfMonth(monthIndex) != epochDay) {
+                    fail("Month index mismatch at " + date);
+                }
+                assertEquals(date.dayOfMonth().getMaximumValue(), EpochDays.lengthOfMonth(monthIndex));
+                assertEquals(EpochDays.toLocalDate(EpochDays.lastDayOfMonth(monthIndex)), date.dayOfMonth().withMaximumValue());
+                monthIndex++;
+            }
+        }
+    }
+
+    @Test
+    public void monthIndexOfNegativeYears() {
+        assertEquals(-1, EpochDays.yearOfMonthIndex(-1));
+        assertEquals(12, EpochDays.monthOfMonthIndex(-1));
+        assertEquals(-1, EpochDays.yearOfMonthIndex(EpochDays.monthIndex(-1, 1)));
+        assertEquals(1, EpochDays.monthOfMonthIndex(EpochDays.monthIndex(-1, 1)));
+    }
+
+    @Test
+    public void leapYears() {
+        for (int year = -2000; year <= 3000; year++) {
+            assertEquals(new LocalDate(year, 1, 1, ISOChronology.getInstanceUTC()).year().isLeap(), EpochDays.isLeapYear(year));
+        }
+    }
+
+    @Test
+    public void toLocalDateAtCalendarEdges() {
+        final int[][] dates = {
+                {1970, 1, 1}, {1969, 12, 31},
+                // century without leap day, leap century
+                {1900, 2, 28}, {1900, 3, 1}, {2000, 2, 29},
+                // proleptic gregorian before the 1582 switch, year zero and before
+                {1582, 10, 4}, {1582, 10, 5}, {0, 2, 29}, {0, 1, 1}, {-1, 12, 31},
+                {9999, 12, 31}
+        };
+        for (int[] date : dates) {
+            final LocalDate expected = new LocalDate(date[0], date[1], date[2], ISOChronology.getInstanceUTC());
+            final int epochDay = EpochDays.of(date[0], date[1], date[2]);
+            assertEquals(Days.daysBetween(EPOCH, expected).getDays(), epochDay);
+            assertEquals(expected, EpochDays.toLocalDate(epochDay));
+            assertEquals(epochDay, EpochDays.of(EpochDays.toLocalDate(epochDay)));
+        }
+        assertEquals(0, EpochDays.of(1970, 1, 1));
+        assertEquals(EpochDays.of(1900, 2, 28) + 1, EpochDays.of(1900, 3, 1));
+    }
+
+    @Test
+    public void isoStringRoundTrip() {
+        for (int epochDay = EpochDays.of(0, 1, 1); epochDay <= EpochDays.of(9999, 12, 31); epochDay += 7) {
+            final String iso = EpochDays.toIsoString(epochDay);
+            assertEquals(EpochDays.toLocalDate(epochDay).toString(), iso);
+            assertEquals(epochDay, EpochDays.parseIso(iso));
+        }
+    }
+
+    @Test
+    public void parseIsoRejectsInvalid() {
+        final String[] invalid = {null, "", "2018-1-01", "2018/01/01", "2018-13-01", "2018-00-10", "2018-02-29",
+                "2018-04-31", "20a8-01-01", "2018-01-001"};
+        for (String value : invalid) {
+            try {
+                EpochDays.parseIso(value);
+                fail("Parsed " + value);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+        assertEquals(EpochDays.of(2020, 2, 29), EpochDays.parseIso("2020-02-29"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void isoStringOutOfRangeThrows() {
+        EpochDays.toIsoString(EpochDays.of(10000, 1, 1));
+    }
+
+    @Test
+    public void fromMillisUsesZoneOffset() {
+        final long millis = 1528500000000L; // 2018-06-08T23:20:00Z
+        assertEquals(EpochDays.of(2018, 6, 8), EpochDays.fromMillis(millis, TimeZone.getTimeZone("UTC")));
+        assertEquals(EpochDays.of(2018, 6, 9), EpochDays.fromMillis(millis, TimeZone.getTimeZone("GMT+03:00")));
+        assertEquals(EpochDays.of(2018, 6, 8), EpochDays.fromMillis(millis, TimeZone.getTimeZone("GMT-10:00")));
+        // before epoch rounds down, not towards zero
+        assertEquals(-1, EpochDays.fromMillis(-1, TimeZone.getTimeZone("UTC")));
+        assertEquals(-1, EpochDays.fromMillis(-DateTimeConstants.MILLIS_PER_DAY, TimeZone.getTimeZone("UTC")));
+    }
+}
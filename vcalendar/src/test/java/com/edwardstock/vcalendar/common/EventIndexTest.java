@@ -0,0 +1,157 @@
+package com.edwardstock.vcalendar.common;
+
+import com.edwardstock.vcalendar.models.CalendarEvent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class EventIndexTest {
+
+    @Test
+    public void queryFindsOverlapsOrderedByStart() {
+        final EventIndex index = new EventIndex();
+        final CalendarEvent a = new CalendarEvent(1, 10, 12, 0);
+        // ends on the first queried day
+        final CalendarEvent b = new CalendarEvent(2, 5, 10, 0);
+        // starts right after queried days
+        final CalendarEvent c = new CalendarEvent(3, 13, 13, 0);
+        // starts long before and covers everything
+        final CalendarEvent d = new CalendarEvent(4, 0, 100, 0);
+        final CalendarEvent e = new CalendarEvent(5, 11, 11, 0);
+        // same start as a, ordered by id
+        final CalendarEvent f = new CalendarEvent(6, 10, 10, 0);
+        for (CalendarEvent event : new CalendarEvent[]{a, b, c, d, e, f}) {
+            index.add(event);
+        }
+
+        assertEquals(Arrays.asList(d, b, a, f, e), query(index, 10, 12));
+        assertEquals(Arrays.asList(d, c), query(index, 13, 13));
+        assertEquals(Collections.emptyList(), query(index, 101, 200));
+        assertEquals(Collections.emptyList(), query(index, -5, -1));
+
+        // replacing moves event, removal drops it
+        index.add(new CalendarEvent(1, 50, 50, 0));
+        assertEquals(6, index.size());
+        assertEquals(Arrays.asList(d, b, f, e), query(index, 10, 12));
+        assertTrue(index.remove(2));
+        assertFalse(index.remove(2));
+        assertEquals(Arrays.asList(d, f, e), query(index, 10, 12));
+        assertEquals(5, index.size());
+    }
+
+    @Test
+    public void lanesAreLowestFreeAndNeverReshuffled() {
+        final EventIndex index = new EventIndex();
+        index.add(new CalendarEvent(1, 0, 4, 0));
+        index.add(new CalendarEvent(2, 2, 6, 0));
+        // overlaps only the second one
+        index.add(new CalendarEvent(3, 5, 8, 0));
+        // overlaps the first two
+        index.add(new CalendarEvent(4, 3, 3, 0));
+        assertLanes(index, 0, 1, 0, 2);
+
+        // removal frees a lane but keeps others in place
+        index.remove(1);
+        assertEquals(-1, index.getLane(1));
+        assertEquals(1, index.getLane(2));
+        assertEquals(0, index.getLane(3));
+        assertEquals(2, index.getLane(4));
+
+        // freed lane is reused, then the first lane above all overlapping ones
+        index.add(new CalendarEvent(5, 0, 1, 0));
+        index.add(new CalendarEvent(6, 3, 5, 0));
+        assertEquals(0, index.getLane(5));
+        assertEquals(3, index.getLane(6));
+        assertEquals(-1, index.getLane(-1));
+    }
+
+    @Test
+    public void weekSegmentsAreClippedToShownDays() {
+        final EventIndex index = new EventIndex();
+        // week shows days 7..13, month starts on day 8
+        final CalendarEvent before = new CalendarEvent(1, 5, 9, 0);
+        final CalendarEvent single = new CalendarEvent(2, 8, 8, 0);
+        final CalendarEvent after = new CalendarEvent(3, 12, 20, 0);
+        final CalendarEvent middle = new CalendarEvent(4, 9, 11, 0);
+        // hidden part of the row only
+        final CalendarEvent hidden = new CalendarEvent(5, 7, 7, 0);
+        for (CalendarEvent event : new CalendarEvent[]{before, single, after, middle, hidden}) {
+            index.add(event);
+        }
+
+        final List<EventIndex.Segment> segments = index.getWeekSegments(7, 8, 13);
+        assertEquals(4, segments.size());
+        // by lane, then by start cell
+        assertSegment(segments.get(0), before, 1, 2, 0, true, false);
+        assertSegment(segments.get(1), after, 5, 6, 0, false, true);
+        assertSegment(segments.get(2), single, 1, 1, 1, false, false);
+        assertSegment(segments.get(3), middle, 2, 4, 1, false, false);
+
+        assertTrue(new EventIndex().getWeekSegments(0, 0, 6).isEmpty());
+    }
+
+    @Test
+    public void notifiesChangedRanges() {
+        final EventIndex index = new EventIndex();
+        final List<int[]> changes = new ArrayList<>();
+        final EventIndex.OnEventsChangedListener listener = (fromDay, toDay) -> changes.add(new int[]{fromDay, toDay});
+        index.addOnEventsChangedListener(listener);
+
+        index.add(new CalendarEvent(1, 10, 12, 0));
+        index.add(new CalendarEvent(2, 20, 25, 0));
+        // replacing reports both old and new ranges
+        index.add(new CalendarEvent(1, 30, 31, 0));
+        assertFalse(index.remove(5));
+        assertTrue(index.remove(2));
+        index.clear();
+        index.clear();
+
+        final int[][] expected = {{10, 12}, {20, 25}, {10, 12}, {30, 31}, {20, 25}, {30, 31}};
+        assertEquals(expected.length, changes.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i][0], changes.get(i)[0]);
+            assertEquals(expected[i][1], changes.get(i)[1]);
+        }
+        assertEquals(0, index.size());
+
+        index.removeOnEventsChangedListener(listener);
+        index.add(new CalendarEvent(3, 1, 1, 0));
+        assertEquals(expected.length, changes.size());
+    }
+
+    private static List<CalendarEvent> query(EventIndex index, int from, int to) {
+        final List<CalendarEvent> out = new ArrayList<>();
+        index.query(from, to, out);
+        return out;
+    }
+
+    /**
+     * @param lanes expected lanes of events with ids 1, 2, ...
+     */
+    private static void assertLanes(EventIndex index, int... lanes) {
+        for (int i = 0; i < lanes.length; i++) {
+            assertEquals("lane of " + (i + 1), lanes[i], index.getLane(i + 1));
+        }
+    }
+
+    private static void assertSegment(EventIndex.Segment segment, CalendarEvent event, int startCell, int endCell,
+                                      int lane, boolean continuesBefore, boolean continuesAfter) {
+        assertEquals(event, segment.event);
+        assertEquals(startCell, segment.startCell);
+        assertEquals(endCell, segment.endCell);
+        assertEquals(lane, segment.lane);
+        assertEquals(continuesBefore, segment.continuesBefore);
+        assertEquals(continuesAfter, segment.continuesAfter);
+    }
+}
@@ -0,0 +1,156 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class RecurrenceRuleTest {
+
+    @Test
+    public void monthlySecondTuesday() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=MONTHLY;BYDAY=2TU");
+        assertEquals(Arrays.asList("2024-01-09", "2024-02-13", "2024-03-12", "2024-04-09"),
+                     occurrences(rule, "2024-01-01", "2024-04-30"));
+    }
+
+    @Test
+    public void monthlyLastFriday() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "RRULE:FREQ=MONTHLY;BYDAY=-1FR");
+        assertEquals(Arrays.asList("2024-01-26", "2024-02-23", "2024-03-29"),
+                     occurrences(rule, "2024-01-01", "2024-03-31"));
+    }
+
+    @Test
+    public void yearlyFirstMondayCountsWithinYear() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=YEARLY;BYDAY=1MO");
+        assertEquals(Arrays.asList("2024-01-01", "2025-01-06", "2026-01-05"),
+                     occurrences(rule, "2024-01-01", "2026-12-31"));
+    }
+
+    @Test
+    public void yearlyFirstMondayWithMonthCountsWithinMonth() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=YEARLY;BYMONTH=9;BYDAY=1MO");
+        assertEquals(Arrays.asList("2024-09-02", "2025-09-01"),
+                     occurrences(rule, "2024-01-01", "2025-12-31"));
+    }
+
+    @Test
+    public void biweeklyTuesdayThursdayWithCount() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 2),
+                                                       "FREQ=WEEKLY;INTERVAL=2;BYDAY=TU,TH;COUNT=5");
+        assertEquals(Arrays.asList("2024-01-02", "2024-01-04", "2024-01-16", "2024-01-18", "2024-01-30"),
+                     occurrences(rule, "2023-12-01", "2024-03-31"));
+        assertEquals(EpochDays.of(2024, 1, 30), rule.getUntil());
+    }
+
+    @Test
+    public void monthlyOnThirtyFirstSkipsShortMonths() {
+        final List<String> expected = Arrays.asList("2024-01-31", "2024-03-31", "2024-05-31", "2024-07-31",
+                                                    "2024-08-31", "2024-10-31", "2024-12-31");
+        final int start = EpochDays.of(2024, 1, 31);
+        assertEquals(expected, occurrences(new RecurrenceRule(start, "FREQ=MONTHLY;BYMONTHDAY=31"),
+                                           "2024-01-01", "2024-12-31"));
+        // without BYMONTHDAY the day is taken from DTSTART
+        assertEquals(expected, occurrences(new RecurrenceRule(start, "FREQ=MONTHLY"),
+                                           "2024-01-01", "2024-12-31"));
+    }
+
+    @Test
+    public void monthlyLastDayOfMonth() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=MONTHLY;BYMONTHDAY=-1");
+        assertEquals(Arrays.asList("2024-01-31", "2024-02-29", "2024-03-31"),
+                     occurrences(rule, "2024-01-01", "2024-03-31"));
+    }
+
+    @Test
+    public void dailyUntilIsInclusive() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1),
+                                                       "FREQ=DAILY;INTERVAL=2;UNTIL=20240105T235959Z");
+        assertEquals(Arrays.asList("2024-01-01", "2024-01-03", "2024-01-05"),
+                     occurrences(rule, "2023-12-25", "2024-01-31"));
+        assertEquals(EpochDays.of(2024, 1, 5), rule.getUntil());
+    }
+
+    @Test
+    public void infiniteRuleHasNoUntil() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=WEEKLY");
+        assertEquals(Integer.MAX_VALUE, rule.getUntil());
+        assertTrue(rule.isOccurrence(EpochDays.of(2124, 1, 3)));
+        assertFalse(rule.isOccurrence(EpochDays.of(2124, 1, 4)));
+    }
+
+    @Test
+    public void monthMaskMatchesOccurrences() {
+        final RecurrenceRule rule = new RecurrenceRule(EpochDays.of(2024, 1, 1), "FREQ=WEEKLY;BYDAY=SA,SU");
+        final int monthIndex = EpochDays.monthIndex(2024, 6);
+        final int mask = rule.getMonthMask(monthIndex);
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        for (int day = first; day <= EpochDays.lastDayOfMonth(monthIndex); day++) {
+            final boolean weekend = EpochDays.dayOfWeek(day) >= 6;
+            assertEquals(weekend, (mask & (1 << (day - first))) != 0);
+            assertEquals(weekend, rule.isOccurrence(day));
+        }
+    }
+
+    @Test
+    public void countIsResolvedWithinYearsLimit() {
+        // february 29 happens once in 4 years, so 30 occurrences need 116 years
+        final int start = EpochDays.of(2024, 2, 29);
+        final RecurrenceRule rule = new RecurrenceRule(start, "FREQ=YEARLY;BYMONTH=2;BYMONTHDAY=29;COUNT=30");
+        final int lastMonth = EpochDays.monthIndexOf(start) + RecurrenceRule.MAX_COUNT_YEARS * 12 - 1;
+
+        assertEquals(EpochDays.lastDayOfMonth(lastMonth), rule.getUntil());
+        assertTrue(rule.isOccurrence(EpochDays.of(2120, 2, 29)));
+        assertFalse(rule.isOccurrence(EpochDays.of(2124, 2, 29)));
+    }
+
+    @Test
+    public void rejectsMalformedRules() {
+        final String[] rules = {
+                "",
+                "INTERVAL=2",
+                "FREQ=HOURLY",
+                "FREQ=DAILY;INTERVAL=0",
+                "FREQ=DAILY;COUNT=-1",
+                "FREQ=MONTHLY;BYSETPOS=1",
+                "FREQ=MONTHLY;BYDAY=XX",
+                "FREQ=MONTHLY;BYDAY=0MO",
+                "FREQ=MONTHLY;BYDAY=54MO",
+                "FREQ=WEEKLY;BYDAY=1MO",
+                "FREQ=WEEKLY;BYMONTHDAY=1",
+                "FREQ=MONTHLY;BYMONTHDAY=32",
+                "FREQ=YEARLY;BYMONTH=13",
+                "FREQ=DAILY;UNTIL=2024",
+                "FREQ=DAILY;COUNT=2;UNTIL=20240105",
+                "FREQ=DAILY;=1",
+        };
+        for (String rule : rules) {
+            try {
+                new RecurrenceRule(EpochDays.of(2024, 1, 1), rule);
+                fail("Accepted: " + rule);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+
+    static List<String> occurrences(RecurrenceRule rule, String from, String to) {
+        final List<String> out = new ArrayList<>();
+        for (int day = EpochDays.parseIso(from); day <= EpochDays.parseIso(to); day++) {
+            if (rule.isOccurrence(day)) {
+                out.add(EpochDays.toIsoString(day));
+            }
+        }
+        return out;
+    }
+}
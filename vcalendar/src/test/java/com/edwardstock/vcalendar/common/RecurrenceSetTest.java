@@ -0,0 +1,127 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class RecurrenceSetTest {
+
+    @Test
+    public void parsesRulesWithExAndRDates() {
+        final RecurrenceSet set = RecurrenceSet.parse("BEGIN:VEVENT\r\n"
+                                                              + "DTSTART;VALUE=DATE:20240101\r\n"
+                                                              + "RRULE:FREQ=MONTHLY;BYDAY=2TU\r\n"
+                                                              + "EXDATE;VALUE=DATE:20240213\r\n"
+                                                              + "RDATE;VALUE=DATE:20240214,20240301\r\n"
+                                                              + "SUMMARY:Meeting\r\n"
+                                                              + "END:VEVENT\r\n");
+        assertEquals(Arrays.asList("2024-01-09", "2024-02-14", "2024-03-01", "2024-03-12"),
+                     occurrences(set, "2024-01-01", "2024-03-31"));
+    }
+
+    @Test
+    public void exDateWinsOverRDate() {
+        final int day = EpochDays.of(2024, 5, 5);
+        final RecurrenceSet set = new RecurrenceSet().addDate(day).addExDate(day);
+        assertFalse(set.isOccurrence(day));
+        assertEquals(0, set.getMonthMask(EpochDays.monthIndexOf(day)));
+    }
+
+    @Test
+    public void combinesSeveralRules() {
+        final RecurrenceSet set = RecurrenceSet.parse("DTSTART:20240101\n"
+                                                              + "RRULE:FREQ=MONTHLY;BYDAY=-1FR\n"
+                                                              + "DTSTART:20240115\n"
+                                                              + "RRULE:FREQ=MONTHLY;COUNT=2\n");
+        assertEquals(Arrays.asList("2024-01-15", "2024-01-26", "2024-02-15", "2024-02-23", "2024-03-29"),
+                     occurrences(set, "2024-01-01", "2024-03-31"));
+    }
+
+    @Test
+    public void changesDropCachedMonths() {
+        final RecurrenceSet set = new RecurrenceSet();
+        final int day = EpochDays.of(2024, 7, 10);
+        assertFalse(set.isOccurrence(day));
+
+        set.addDate(day);
+        assertTrue(set.isOccurrence(day));
+
+        set.addExDate(day);
+        assertFalse(set.isOccurrence(day));
+
+        set.addRule(new RecurrenceRule(EpochDays.of(2024, 7, 1), "FREQ=DAILY"));
+        assertTrue(set.isOccurrence(day + 1));
+        assertFalse(set.isOccurrence(day));
+
+        set.trimCache();
+        assertEquals(Arrays.asList("2024-07-08", "2024-07-09", "2024-07-11"),
+                     occurrences(set, "2024-07-08", "2024-07-11"));
+    }
+
+    @Test
+    public void notifiesChangedMonths() {
+        final RecurrenceSet set = new RecurrenceSet();
+        final List<int[]> changes = new ArrayList<>();
+        set.addOnRecurrenceChangedListener((from, to) -> changes.add(new int[]{from, to}));
+        final int july = EpochDays.monthIndex(2024, 7);
+
+        set.addDate(EpochDays.of(2024, 7, 10));
+        set.addExDate(EpochDays.of(2024, 7, 11));
+        set.addRule(new RecurrenceRule(EpochDays.of(2024, 7, 1), "FREQ=WEEKLY;UNTIL=20240905"));
+        set.addRule(new RecurrenceRule(EpochDays.of(2024, 7, 1), "FREQ=MONTHLY"));
+
+        assertEquals(4, changes.size());
+        assertArrayEquals(new int[]{july, july}, changes.get(0));
+        assertArrayEquals(new int[]{july, july}, changes.get(1));
+        assertArrayEquals(new int[]{july, EpochDays.monthIndex(2024, 9)}, changes.get(2));
+        assertArrayEquals(new int[]{july, Integer.MAX_VALUE}, changes.get(3));
+    }
+
+    @Test
+    public void ignoresLinesWithoutValue() {
+        final RecurrenceSet set = RecurrenceSet.parse("BEGIN\nX-UNKNOWN:1\n\n");
+        assertEquals(Collections.emptyList(), occurrences(set, "2024-01-01", "2024-12-31"));
+    }
+
+    @Test
+    public void rejectsMalformedInput() {
+        final String[] inputs = {
+                "RRULE:FREQ=DAILY",
+                "DTSTART:2024\nRRULE:FREQ=DAILY",
+                "DTSTART:20240101\nRRULE:FREQ=SECONDLY",
+                "DTSTART:20240101\nRRULE:BYDAY=MO",
+                "EXDATE:20240101,bad",
+                "RDATE:2024011",
+        };
+        for (String input : inputs) {
+            try {
+                RecurrenceSet.parse(input);
+                fail("Accepted: " + input);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+    }
+
+    private static List<String> occurrences(RecurrenceSet set, String from, String to) {
+        final List<String> out = new ArrayList<>();
+        for (int day = EpochDays.parseIso(from); day <= EpochDays.parseIso(to); day++) {
+            if (set.isOccurrence(day)) {
+                out.add(EpochDays.toIsoString(day));
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,183 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class ResourceAvailabilityTest {
+    private static final int BASE = EpochDays.of(2024, 1, 1);
+
+    @Test
+    public void busyAtLeastComparesPackedCounts() {
+        // day i is busy for i resources: 0..7 in three planes
+        final int[] planes = new int[3];
+        for (int day = 0; day < 8; day++) {
+            for (int p = 0; p < planes.length; p++) {
+                planes[p] |= ((day >>> p) & 1) << day;
+            }
+        }
+
+        assertEquals(~0, ResourceAvailability.busyAtLeast(planes, 0));
+        assertEquals(~0, ResourceAvailability.busyAtLeast(planes, -1));
+        assertEquals(0xFE, ResourceAvailability.busyAtLeast(planes, 1));
+        assertEquals(0xF0, ResourceAvailability.busyAtLeast(planes, 4));
+        assertEquals(0xE0, ResourceAvailability.busyAtLeast(planes, 5));
+        assertEquals(0x80, ResourceAvailability.busyAtLeast(planes, 7));
+        // more than planes can hold
+        assertEquals(0, ResourceAvailability.busyAtLeast(planes, 8));
+
+        assertEquals(0b101, ResourceAvailability.busyAtLeast(new int[]{0b101}, 1));
+        assertEquals(0, ResourceAvailability.busyAtLeast(new int[]{0b101}, 2));
+    }
+
+    @Test
+    public void cachedMasksFollowChangesAcrossMonthBorder() {
+        final int jan = EpochDays.monthIndex(2024, 1);
+        final int feb = EpochDays.monthIndex(2024, 2);
+        final ResourceAvailability availability = new ResourceAvailability();
+        availability.addResource(1);
+        availability.addResource(2);
+        availability.addResource(3);
+        // january 30 .. february 2 and january 31 .. february 1
+        availability.setBusy(1, BASE + 29, BASE + 32, true);
+        availability.setBusy(2, BASE + 30, BASE + 31, true);
+
+        assertEquals(3, availability.getFreeCount(BASE + 28));
+        assertEquals(2, availability.getFreeCount(BASE + 29));
+        assertEquals(1, availability.getFreeCount(BASE + 30));
+        assertEquals(1, availability.getFreeCount(BASE + 31));
+        assertEquals(2, availability.getFreeCount(BASE + 32));
+        assertEquals(bits(1, 29), availability.allFree().getMonthMask(jan));
+        assertEquals(bits(3, 29), availability.allFree().getMonthMask(feb));
+        assertEquals(bits(1, 30), availability.atLeastFree(2).getMonthMask(jan));
+        assertEquals(bits(2, 29), availability.atLeastFree(2).getMonthMask(feb));
+        assertEquals(bits(1, 31), availability.anyFree().getMonthMask(jan));
+        assertEquals(0, availability.atLeastFree(4).getMonthMask(jan));
+        // nothing to require, whole month
+        assertEquals(bits(1, 29), availability.atLeastFree(0).getMonthMask(feb));
+
+        availability.setBusy(1, BASE + 29, BASE + 32, false);
+        assertEquals(bits(1, 30), availability.allFree().getMonthMask(jan));
+        assertEquals(bits(2, 29), availability.allFree().getMonthMask(feb));
+
+        availability.removeResource(2);
+        assertEquals(2, availability.getResourceCount());
+        assertEquals(bits(1, 31), availability.allFree().getMonthMask(jan));
+        assertEquals(2, availability.getFreeCount(BASE + 30));
+
+        // busy day of unknown resource adds it
+        availability.setBusy(4, BASE + 30, true);
+        assertEquals(3, availability.getResourceCount());
+        assertEquals(bits(1, 30), availability.allFree().getMonthMask(jan));
+
+        availability.clear();
+        assertEquals(0, availability.getResourceCount());
+        assertEquals(0, availability.anyFree().getMonthMask(jan));
+        assertFalse(availability.isBusy(4, BASE + 30));
+    }
+
+    @Test
+    public void countersHoldBusyCount() {
+        final ResourceAvailability availability = new ResourceAvailability();
+        for (long id = 0; id < 9; id++) {
+            availability.setBusy(id, BASE, BASE + (int) id, true);
+        }
+        final int[] planes = availability.getCounters(EpochDays.monthIndexOf(BASE));
+        assertEquals(4, planes.length);
+        for (int day = 0; day < 31; day++) {
+            int busy = 0;
+            for (int p = 0; p < planes.length; p++) {
+                busy |= ((planes[p] >>> day) & 1) << p;
+            }
+            assertEquals(Math.max(9 - day, 0), busy);
+        }
+        assertEquals(1, new ResourceAvailability().getCounters(0).length);
+    }
+
+    @Test
+    public void boundConstraintsFollowChanges() {
+        final ResourceAvailability availability = new ResourceAvailability();
+        final DayConstraints constraints = new DayConstraints();
+        final List<int[]> changes = new ArrayList<>();
+        constraints.addOnConstraintsChangedListener((fromMonth, toMonth) -> changes.add(new int[]{fromMonth, toMonth}));
+        availability.addResource(1);
+        availability.addResource(2);
+
+        availability.bindConstraints(constraints, 2);
+        assertFalse(constraints.isDisabled(BASE + 3));
+
+        changes.clear();
+        availability.setBusy(1, BASE + 3, true);
+        assertEquals(1, changes.size());
+        assertEquals(EpochDays.monthIndexOf(BASE), changes.get(0)[0]);
+        assertEquals(EpochDays.monthIndexOf(BASE), changes.get(0)[1]);
+        assertTrue(constraints.isDisabled(BASE + 3));
+        assertFalse(constraints.isDisabled(BASE + 4));
+
+        // new resource changes every month
+        changes.clear();
+        availability.addResource(3);
+        assertEquals(DayConstraints.ALL_MONTHS_FROM, changes.get(0)[0]);
+        assertEquals(DayConstraints.ALL_MONTHS_TO, changes.get(0)[1]);
+        assertFalse(constraints.isDisabled(BASE + 3));
+
+        // binding again replaces the previous one
+        availability.bindConstraints(constraints, 3);
+        assertTrue(constraints.isDisabled(BASE + 3));
+        assertFalse(constraints.isDisabled(BASE + 4));
+
+        availability.unbindConstraints(constraints);
+        assertFalse(constraints.isDisabled(BASE + 3));
+        changes.clear();
+        availability.setBusy(2, BASE, BASE + 40, true);
+        assertTrue(changes.isEmpty());
+        assertFalse(constraints.isDisabled(BASE + 3));
+    }
+
+    @Test
+    public void clearingConstraintsUnbindsThem() {
+        final ResourceAvailability availability = new ResourceAvailability();
+        final DayConstraints constraints = new DayConstraints();
+        availability.addResource(1);
+        availability.bindConstraints(constraints, 1);
+        availability.setBusy(1, BASE + 3, true);
+        assertTrue(constraints.isDisabled(BASE + 3));
+
+        constraints.clear();
+        assertFalse(constraints.isDisabled(BASE + 3));
+
+        final List<int[]> changes = new ArrayList<>();
+        constraints.addOnConstraintsChangedListener((fromMonth, toMonth) -> changes.add(new int[]{fromMonth, toMonth}));
+        availability.setBusy(1, BASE + 4, true);
+        assertTrue(changes.isEmpty());
+
+        // binding again works, unrelated changes keep it
+        availability.bindConstraints(constraints, 1);
+        assertTrue(constraints.isDisabled(BASE + 4));
+        changes.clear();
+        constraints.setDisabledDaysOfWeek(1);
+        assertEquals(1, changes.size());
+        assertTrue(constraints.isDisabled(BASE + 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsReversedRange() {
+        new ResourceAvailability().setBusy(1, BASE + 1, BASE, true);
+    }
+
+    private static int bits(int fromDay, int toDay) {
+        int mask = 0;
+        for (int day = fromDay; day <= toDay; day++) {
+            mask |= 1 << (day - 1);
+        }
+        return mask;
+    }
+}
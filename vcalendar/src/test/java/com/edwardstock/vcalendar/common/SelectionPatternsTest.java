@@ -0,0 +1,90 @@
+package com.edwardstock.vcalendar.common;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class SelectionPatternsTest {
+    private static final int FROM_MONTH = EpochDays.monthIndex(1999, 1);
+    private static final int TO_MONTH = EpochDays.monthIndex(2031, 12);
+
+    @Test
+    public void allAndNot() {
+        check(SelectionPatterns.all(), day -> true);
+        check(SelectionPatterns.not(SelectionPatterns.all()), day -> false);
+        check(SelectionPatterns.not(SelectionPatterns.weekdays()), day -> EpochDays.dayOfWeek(day) >= 6);
+    }
+
+    @Test
+    public void oddAndEvenDays() {
+        check(SelectionPatterns.oddDays(), day -> EpochDays.dayOfMonth(day) % 2 == 1);
+        check(SelectionPatterns.evenDays(), day -> EpochDays.dayOfMonth(day) % 2 == 0);
+    }
+
+    @Test
+    public void daysOfWeek() {
+        check(SelectionPatterns.weekdays(), day -> EpochDays.dayOfWeek(day) <= 5);
+        for (int dow = 1; dow <= 7; dow++) {
+            final int expected = dow;
+            check(SelectionPatterns.daysOfWeek(dow), day -> EpochDays.dayOfWeek(day) == expected);
+        }
+        check(SelectionPatterns.daysOfWeek(1, 3, 7), day -> {
+            final int dow = EpochDays.dayOfWeek(day);
+            return dow == 1 || dow == 3 || dow == 7;
+        });
+        check(SelectionPatterns.daysOfWeek(), day -> false);
+    }
+
+    @Test
+    public void everyNthDay() {
+        final int anchor = EpochDays.of(2015, 6, 17);
+        for (int step = 1; step <= 40; step++) {
+            final int expected = step;
+            check(SelectionPatterns.everyNthDay(anchor, step), day -> Math.floorMod(day - anchor, expected) == 0);
+        }
+    }
+
+    @Test
+    public void rejectsInvalidArguments() {
+        try {
+            SelectionPatterns.daysOfWeek(0);
+            fail("Accepted day of week 0");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            SelectionPatterns.daysOfWeek(8);
+            fail("Accepted day of week 8");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+        try {
+            SelectionPatterns.everyNthDay(0, 0);
+            fail("Accepted zero step");
+        } catch (IllegalArgumentException expected) {
+            // ok
+        }
+    }
+
+    private static void check(SelectionPattern pattern, DayPredicate expected) {
+        for (int m = FROM_MONTH; m <= TO_MONTH; m++) {
+            final int mask = pattern.getMonthMask(m);
+            final int first = EpochDays.firstDayOfMonth(m);
+            final int len = EpochDays.lengthOfMonth(m);
+            assertEquals("Bits past month end, month " + m, 0, mask & ~((1 << len) - 1));
+            for (int i = 0; i < len; i++) {
+                if (((mask & (1 << i)) != 0) != expected.test(first + i)) {
+                    fail("Mismatch at " + EpochDays.toIsoString(first + i));
+                }
+            }
+        }
+    }
+
+    private interface DayPredicate {
+        boolean test(int epochDay);
+    }
+}
@@ -0,0 +1,178 @@
+package com.edwardstock.vcalendar.decorators;
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.adapter.DayViewFacade;
+import com.edwardstock.vcalendar.common.DayValueIndex;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class HeatmapDecoratorTest {
+    private static final int LOW = 0xFF00FF00;
+    private static final int HIGH = 0xFFFF0000;
+    private static final int JAN_2024 = EpochDays.monthIndex(2024, 1);
+    private static final int FEB_2024 = EpochDays.monthIndex(2024, 2);
+    private static final int MAR_2024 = EpochDays.monthIndex(2024, 3);
+    // marks invalidation of all days
+    private static final int[] ALL = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+
+    private DayValueIndex mIndex;
+    private HeatmapDecorator mHeatmap;
+    // {fromDay, toDay} of every invalidation
+    private List<int[]> mInvalidated;
+
+    @Before
+    public void setUp() {
+        mIndex = new DayValueIndex();
+        // january: 1..10 on days 1..10, february: 100 on the 1st
+        for (int day = 1; day <= 10; day++) {
+            mIndex.put(EpochDays.of(2024, 1, day), day);
+        }
+        mIndex.put(EpochDays.of(2024, 2, 1), 100);
+
+        mHeatmap = new HeatmapDecorator(mIndex, new int[]{LOW, HIGH});
+        mInvalidated = new ArrayList<>();
+        mHeatmap.addOnInvalidateListener(new ObservableDecorator.OnInvalidateListener() {
+            @Override
+            public void onInvalidateRange(@NonNull ObservableDecorator decorator, int fromDay, int toDay) {
+                mInvalidated.add(new int[]{fromDay, toDay});
+            }
+
+            @Override
+            public void onInvalidateDays(@NonNull ObservableDecorator decorator, @NonNull int[] days) {
+                for (int day : days) {
+                    mInvalidated.add(new int[]{day, day});
+                }
+            }
+
+            @Override
+            public void onInvalidateAll(@NonNull ObservableDecorator decorator) {
+                mInvalidated.add(ALL);
+            }
+        });
+    }
+
+    @Test
+    public void bucketsSplitRangeOfAllValues() {
+        final SparseArrayCompat<DayStyle> january = mHeatmap.decorate(grid(JAN_2024));
+        assertEquals(10, january.size());
+        assertEquals(LOW, color(january, EpochDays.of(2024, 1, 1)));
+        assertEquals(LOW, color(january, EpochDays.of(2024, 1, 10)));
+        assertEquals(HIGH, color(mHeatmap.decorate(grid(FEB_2024)), EpochDays.of(2024, 2, 1)));
+        assertNull(mHeatmap.decorate(grid(MAR_2024)));
+    }
+
+    @Test
+    public void windowShiftRedrawsOnlyRecoloredMonths() {
+        mHeatmap.decorate(grid(JAN_2024));
+        mHeatmap.decorate(grid(FEB_2024));
+        mHeatmap.decorate(grid(MAR_2024));
+
+        // january alone: its upper half turns high, february stays high when clamped
+        mHeatmap.onVisibleMonthsChanged(JAN_2024, JAN_2024);
+        assertInvalidated(monthRange(JAN_2024));
+        assertEquals(HIGH, color(mHeatmap.decorate(grid(JAN_2024)), EpochDays.of(2024, 1, 10)));
+        assertEquals(LOW, color(mHeatmap.decorate(grid(JAN_2024)), EpochDays.of(2024, 1, 5)));
+
+        // same bounds, nothing to redraw
+        mInvalidated.clear();
+        mHeatmap.setWindow(EpochDays.of(2024, 1, 1), EpochDays.of(2024, 1, 20));
+        assertTrue(mInvalidated.isEmpty());
+
+        // back to all values
+        mHeatmap.clearWindow();
+        assertInvalidated(monthRange(JAN_2024));
+    }
+
+    @Test
+    public void notDecoratedMonthsAreNotRedrawn() {
+        mHeatmap.decorate(grid(FEB_2024));
+
+        mHeatmap.setWindow(EpochDays.firstDayOfMonth(JAN_2024), EpochDays.lastDayOfMonth(JAN_2024));
+        assertTrue(mInvalidated.isEmpty());
+    }
+
+    @Test
+    public void valueInsideBoundsRedrawsItsDay() {
+        mHeatmap.decorate(grid(JAN_2024));
+        mHeatmap.decorate(grid(FEB_2024));
+
+        final int day = EpochDays.of(2024, 2, 2);
+        mIndex.put(day, 50);
+        assertInvalidated(new int[]{day, day});
+    }
+
+    @Test
+    public void valueMovingBoundsRedrawsRecoloredMonths() {
+        mHeatmap.decorate(grid(JAN_2024));
+        mHeatmap.decorate(grid(FEB_2024));
+
+        // new max: february's 100 drops to low, january stays low
+        final int day = EpochDays.of(2024, 3, 1);
+        mIndex.put(day, 1000);
+        assertInvalidated(new int[]{day, day}, monthRange(FEB_2024));
+    }
+
+    @Test
+    public void emptyWindowLeavesDaysUndecorated() {
+        mHeatmap.decorate(grid(JAN_2024));
+        mHeatmap.setWindow(EpochDays.firstDayOfMonth(MAR_2024), EpochDays.lastDayOfMonth(MAR_2024));
+
+        assertInvalidated(monthRange(JAN_2024));
+        assertNull(mHeatmap.decorate(grid(JAN_2024)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reversedWindowIsRejected() {
+        mHeatmap.setWindow(2, 1);
+    }
+
+    private void assertInvalidated(int[]... ranges) {
+        assertEquals(ranges.length, mInvalidated.size());
+        for (int i = 0; i < ranges.length; i++) {
+            assertEquals(ranges[i][0], mInvalidated.get(i)[0]);
+            assertEquals(ranges[i][1], mInvalidated.get(i)[1]);
+        }
+        mInvalidated.clear();
+    }
+
+    private static int[] monthRange(int monthIndex) {
+        return new int[]{EpochDays.firstDayOfMonth(monthIndex), EpochDays.lastDayOfMonth(monthIndex)};
+    }
+
+    private static MonthGrid grid(int monthIndex) {
+        final int first = EpochDays.firstDayOfMonth(monthIndex);
+        final int length = EpochDays.lengthOfMonth(monthIndex);
+        final int offset = EpochDays.dayOfWeek(first) - 1;
+        final CalendarDay[][] weeks = new CalendarDay[(offset + length + 6) / 7][7];
+        for (int i = 0; i < length; i++) {
+            weeks[(offset + i) / 7][(offset + i) % 7] = new CalendarDay(first + i);
+        }
+        return new MonthGrid(weeks);
+    }
+
+    private static int color(SparseArrayCompat<DayStyle> styles, int epochDay) {
+        final int[] color = {0};
+        styles.get(epochDay).apply(new DayViewFacade(null) {
+            @Override
+            public void setBackgroundColor(int backgroundColor) {
+                color[0] = backgroundColor;
+            }
+        });
+        return color[0];
+    }
+}
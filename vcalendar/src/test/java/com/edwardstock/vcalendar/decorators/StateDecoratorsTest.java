@@ -0,0 +1,84 @@
+package com.edwardstock.vcalendar.decorators;
+
+import com.edwardstock.vcalendar.adapter.DayViewFacade;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class StateDecoratorsTest {
+    private static final int BOOKED = 1;
+    private static final int PENDING = 1 << 1;
+    private static final int HOLIDAY = 1 << 2;
+
+    private static DayDecorator decorator() {
+        return new DayDecorator() {
+            @Override
+            public boolean shouldDecorate(CalendarDay calendarDay) {
+                return false;
+            }
+
+            @Override
+            public void decorate(CalendarDay calendarDay, DayViewFacade dayView, int neighbourhood) {
+            }
+        };
+    }
+
+    @Test
+    public void findsDecoratorsHavingAnyFlagInRegistrationOrder() {
+        final StateDecorators decorators = new StateDecorators();
+        final DayDecorator booked = decorator();
+        final DayDecorator busy = decorator();
+        decorators.add(BOOKED, booked);
+        decorators.add(BOOKED | PENDING, busy);
+
+        assertArrayEquals(new DayDecorator[]{booked, busy}, decorators.find(BOOKED));
+        assertArrayEquals(new DayDecorator[]{busy}, decorators.find(PENDING));
+        assertArrayEquals(new DayDecorator[]{booked, busy}, decorators.find(BOOKED | PENDING | HOLIDAY));
+        assertArrayEquals(new DayDecorator[0], decorators.find(HOLIDAY));
+        assertArrayEquals(new DayDecorator[0], decorators.find(0));
+    }
+
+    @Test
+    public void decoratorOfSeveralMasksIsFoundOnce() {
+        final StateDecorators decorators = new StateDecorators();
+        final DayDecorator decorator = decorator();
+        decorators.add(BOOKED, decorator);
+        decorators.add(PENDING, decorator);
+
+        assertArrayEquals(new DayDecorator[]{decorator}, decorators.find(BOOKED | PENDING));
+    }
+
+    @Test
+    public void resolvedStatesAreMemoizedUntilChange() {
+        final StateDecorators decorators = new StateDecorators();
+        final DayDecorator booked = decorator();
+        decorators.add(BOOKED, booked);
+        final DayDecorator[] found = decorators.find(BOOKED);
+        assertSame(found, decorators.find(BOOKED));
+
+        final DayDecorator pending = decorator();
+        decorators.add(BOOKED | PENDING, pending);
+        assertArrayEquals(new DayDecorator[]{booked, pending}, decorators.find(BOOKED));
+
+        assertTrue(decorators.remove(booked));
+        assertFalse(decorators.remove(booked));
+        assertArrayEquals(new DayDecorator[]{pending}, decorators.find(BOOKED));
+
+        decorators.clear();
+        assertTrue(decorators.isEmpty());
+        assertArrayEquals(new DayDecorator[0], decorators.find(BOOKED));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyFlagsAreRejected() {
+        new StateDecorators().add(0, decorator());
+    }
+}
@@ -0,0 +1,147 @@
+package com.edwardstock.vcalendar.handlers;
+
+import android.support.v4.util.SparseArrayCompat;
+
+import com.edwardstock.vcalendar.RangePolicy;
+import com.edwardstock.vcalendar.SelectionMode;
+import com.edwardstock.vcalendar.common.EpochDays;
+import com.edwardstock.vcalendar.models.CalendarDay;
+
+import org.joda.time.DateTime;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Eduard Maximovich <edward.vstock@gmail.com>
+ */
+public class RangeSelectionHandlerTest {
+    private static final int BASE = EpochDays.of(2024, 3, 4);
+    private final SparseArrayCompat<CalendarDay> mDays = new SparseArrayCompat<>();
+    private SelectionDispatcher mDispatcher;
+
+    @Before
+    public void setUp() {
+        mDispatcher = new SelectionDispatcher(new SelectionDispatcher.Delegate() {
+            @Override
+            public void onUpdate() {
+            }
+
+            @Override
+            public void onClear() {
+            }
+
+            @Override
+            public CalendarDay getDayOrCreate(DateTime dateTime) {
+                return getDayOrCreate(EpochDays.of(dateTime));
+            }
+
+            @Override
+            public CalendarDay getDay(DateTime dateTime) {
+                return getDay(EpochDays.of(dateTime));
+            }
+
+            @Override
+            public CalendarDay getDayOrCreate(int epochDay) {
+                CalendarDay day = mDays.get(epochDay);
+                if (day == null) {
+                    day = new CalendarDay(epochDay);
+                    mDays.put(epochDay, day);
+                }
+                return day;
+            }
+
+            @Override
+            public CalendarDay getDay(int epochDay) {
+                return mDays.get(epochDay);
+            }
+
+            @Override
+            public void onSetSelections() {
+            }
+        });
+        mDispatcher.attachHandler(SelectionMode.RANGE, RangeSelectionHandler::new);
+        mDispatcher.setMode(SelectionMode.RANGE);
+        mDispatcher.getConstraints().addDisabledDay(BASE + 5);
+    }
+
+    @Test
+    public void allowSelectsDisabledDays() {
+        selectRange(BASE, BASE + 7);
+        assertEquals(range(BASE, BASE + 7), selected());
+    }
+
+    @Test
+    public void rejectClearsRangeWithDisabledDays() {
+        mDispatcher.setRangePolicy(RangePolicy.REJECT);
+        selectRange(BASE, BASE + 7);
+        assertTrue(selected().isEmpty());
+        assertFalse(mDispatcher.getDayOrCreate(BASE).isSelected());
+
+        // clear range is still selected, next click starts a new one
+        selectRange(BASE, BASE + 4);
+        assertEquals(range(BASE, BASE + 4), selected());
+    }
+
+    @Test
+    public void clipEndsBeforeFirstDisabledDay() {
+        mDispatcher.setRangePolicy(RangePolicy.CLIP);
+        selectRange(BASE, BASE + 7);
+        assertEquals(range(BASE, BASE + 4), selected());
+        assertFalse(mDispatcher.getDayOrCreate(BASE + 7).isSelected());
+
+        // selection made backwards is clipped the same way
+        mDispatcher.clearSelections();
+        selectRange(BASE + 7, BASE + 1);
+        assertEquals(range(BASE + 1, BASE + 4), selected());
+    }
+
+    @Test
+    public void clipStopsAtUpperLimit() {
+        mDispatcher.setRangePolicy(RangePolicy.CLIP);
+        mDispatcher.getConstraints().clearDisabledDays();
+        mDispatcher.getConstraints().setDisabledAfter(BASE + 3);
+        // disabled day can't be clicked, so range comes from code
+        final List<CalendarDay> days = new ArrayList<>();
+        days.add(new CalendarDay(BASE));
+        days.add(new CalendarDay(BASE + 7));
+        mDispatcher.setSelectionsCalendarDays(days);
+        assertEquals(range(BASE, BASE + 3), selected());
+    }
+
+    @Test
+    public void limitKeepsFirstDays() {
+        mDispatcher.setRangePolicy(RangePolicy.CLIP);
+        mDispatcher.setLimit(3);
+        selectRange(BASE, BASE + 7);
+        assertEquals(range(BASE, BASE + 2), selected());
+    }
+
+    private void selectRange(int first, int last) {
+        mDispatcher.onClick(null, mDispatcher.getDayOrCreate(first));
+        mDispatcher.onClick(null, mDispatcher.getDayOrCreate(last));
+    }
+
+    private List<Integer> selected() {
+        final List<Integer> out = new ArrayList<>();
+        for (CalendarDay day : mDispatcher.getSelections()) {
+            assertTrue(day.isSelected());
+            out.add(day.getEpochDay());
+        }
+        return out;
+    }
+
+    private static List<Integer> range(int from, int to) {
+        final List<Integer> out = new ArrayList<>();
+        for (int day = from; day <= to; day++) {
+            out.add(day);
+        }
+        return out;
+    }
+}